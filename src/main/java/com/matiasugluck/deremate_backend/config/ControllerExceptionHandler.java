@@ -5,6 +5,7 @@ import com.matiasugluck.deremate_backend.exception.ApiError;
 import com.matiasugluck.deremate_backend.exception.ApiException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -33,6 +34,15 @@ public class ControllerExceptionHandler {
         return ResponseEntity.status(apiError.getStatus()).body(apiError);
     }
 
+    // Otra transaccion modifico la misma fila (@Version); el cliente puede reintentar
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    protected ResponseEntity<ApiError> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        LOGGER.warn("Concurrent modification: {}", e.getMessage());
+
+        ApiError apiError = new ApiError("concurrent_modification", "Concurrent modification, retry", HttpStatus.CONFLICT.value());
+        return ResponseEntity.status(apiError.getStatus()).body(apiError);
+    }
+
     @ExceptionHandler(Exception.class)
     protected ResponseEntity<ApiError> handleException(Exception e) {
         LOGGER.error("Internal error with status code 500: {}", e.getMessage());
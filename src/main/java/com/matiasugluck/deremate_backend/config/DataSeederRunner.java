@@ -7,7 +7,6 @@ import com.matiasugluck.deremate_backend.repository.ProductRepository;
 import com.matiasugluck.deremate_backend.repository.UserRepository;
 import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
 import com.matiasugluck.deremate_backend.enums.RouteStatus;
-import com.matiasugluck.deremate_backend.utils.QRCodeGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.boot.CommandLineRunner;
@@ -143,14 +142,7 @@ public class DataSeederRunner {
 							.products(someProducts)
 							.build();
 
-      List<Delivery> savedDeliveries = deliveryRepository.saveAll(List.of(deliveryAvailable, delivered1, delivered2));
-
-// Generar códigos QR
-			for (Delivery d : savedDeliveries) {
-				String qr = QRCodeGenerator.generateQRCodeBase64(d.getId());
-				d.setQrCode(qr);
-			}
-			deliveryRepository.saveAll(savedDeliveries);
+      deliveryRepository.saveAll(List.of(deliveryAvailable, delivered1, delivered2));
 
 			System.out.println("✅ Se configuraron los casos de uso de login, entregas completadas y entrega disponible.");
 
@@ -250,13 +242,6 @@ public class DataSeederRunner {
 
 				newDeliveries.add(deliveryBuilder.build());
 			}
-			List<Delivery> savedNewDeliveries = deliveryRepository.saveAll(newDeliveries);
-
-// ➕ Generar QR codes para las nuevas entregas
-			for (Delivery d : savedNewDeliveries) {
-				String qr = QRCodeGenerator.generateQRCodeBase64(d.getId());
-				d.setQrCode(qr);
-			}
 			deliveryRepository.saveAll(newDeliveries);
 
 			System.out.println("✅ Entregas nuevas creadas y asociadas a rutas nuevas.");
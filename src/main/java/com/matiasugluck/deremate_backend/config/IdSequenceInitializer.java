@@ -0,0 +1,39 @@
+package com.matiasugluck.deremate_backend.config;
+
+import com.matiasugluck.deremate_backend.constants.IdSequences;
+import com.matiasugluck.deremate_backend.repository.IdSequenceRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Las tablas existentes se llenaron con AUTO_INCREMENT; antes de que corran el seeder o los
+ * requests se adelantan las secuencias de id_sequences por encima del MAX(id) de cada tabla.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    // secuencia -> tabla
+    private static final Map<String, String> SEQUENCES = Map.of(
+            IdSequences.DELIVERY, "delivery",
+            IdSequences.ROUTE, "route",
+            IdSequences.PRODUCT, "product",
+            IdSequences.DEVICE, "devices",
+            IdSequences.VERIFICATION_TOKEN, "verification_token"
+    );
+
+    private final IdSequenceRepository idSequenceRepository;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach(idSequenceRepository::alignWith);
+        logger.info("Id sequences aligned: {}", SEQUENCES.keySet());
+    }
+}
@@ -0,0 +1,11 @@
+package com.matiasugluck.deremate_backend.constants;
+
+public class AnalyticsApiMessages {
+    public static final String INVALID_DATE_RANGE_CODE = "INVALID_DATE_RANGE";
+    public static final String INVALID_DATE_RANGE_DESC = "Rango de fechas inválido.";
+    public static final String INVALID_LIMIT_CODE = "INVALID_LIMIT";
+    public static final String INVALID_LIMIT_DESC = "Cantidad de zonas inválida.";
+    public static final String BACKFILL_RUNNING_CODE = "BACKFILL_RUNNING";
+    public static final String BACKFILL_RUNNING_DESC = "Ya hay una reconstrucción de estadísticas en curso.";
+    public static final String BACKFILL_STARTED = "Reconstrucción de estadísticas iniciada.";
+}
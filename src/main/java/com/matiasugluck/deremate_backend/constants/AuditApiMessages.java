@@ -0,0 +1,6 @@
+package com.matiasugluck.deremate_backend.constants;
+
+public class AuditApiMessages {
+    public static final String JOURNAL_UNAVAILABLE_CODE = "JOURNAL_UNAVAILABLE";
+    public static final String JOURNAL_UNAVAILABLE_DESC = "El historial de transiciones no esta disponible en este momento";
+}
@@ -9,6 +9,18 @@ public class DeliveryApiMessages {
     public static final String INVALID_PIN_DESC = "El pin incorrecto.";
     public static final String DELIVERY_NOT_FOUND_CODE = "DELIVERY_NOT_FOUND";
     public static final String DELIVERY_NOT_FOUND_DESC = "Delivery not found.";
+    public static final String DELIVERY_STATE_CONFLICT_CODE = "DELIVERY_STATE_CONFLICT";
+    public static final String DELIVERY_STATE_CONFLICT_DESC = "La entrega ya fue confirmada o cancelada.";
+    public static final String QR_RENDER_ERROR_CODE = "QR_RENDER_ERROR";
+    public static final String QR_RENDER_ERROR_DESC = "Error al generar el QR de la entrega.";
+    public static final String INVALID_ROW_CODE = "INVALID_ROW";
+    public static final String INVALID_ROW_DESC = "Fila mal formada.";
+    public static final String INVALID_COORDINATES_CODE = "INVALID_COORDINATES";
+    public static final String INVALID_COORDINATES_DESC = "Coordenadas de destino inválidas.";
+    public static final String INVALID_CSV_HEADER_CODE = "INVALID_CSV_HEADER";
+    public static final String INVALID_CSV_HEADER_DESC = "El encabezado CSV debe ser: destinationLatitude,destinationLongitude,packageLocation,productIds";
+    public static final String INTAKE_READ_ERROR_CODE = "INTAKE_READ_ERROR";
+    public static final String INTAKE_READ_ERROR_DESC = "Error al leer el archivo de entregas.";
 }
 
 
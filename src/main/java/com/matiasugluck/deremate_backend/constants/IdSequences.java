@@ -0,0 +1,19 @@
+package com.matiasugluck.deremate_backend.constants;
+
+/**
+ * Secuencias de la tabla id_sequences. Hibernate (pooled-lo) y las inserciones JDBC de
+ * DeliveryBatchRepository reservan bloques de ids sobre las mismas filas.
+ */
+public class IdSequences {
+    public static final String TABLE = "id_sequences";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    // Ids reservados por cada viaje a la tabla; tambien es el tamanio de batch JDBC de Hibernate
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String DELIVERY = "delivery";
+    public static final String ROUTE = "route";
+    public static final String PRODUCT = "product";
+    public static final String DEVICE = "device";
+    public static final String VERIFICATION_TOKEN = "verification_token";
+}
@@ -5,18 +5,18 @@ public class PointsApiMessages {
     // Codes
     public static final String USER_NOT_FOUND_CODE = "USER_NOT_FOUND";
     public static final String POINTS_ADDED = "POINTS_ADDED";
-    public static final String POINTS_ADDED_BY_DISTANCE = "POINTS_ADDED_BY_DISTANCE";
     public static final String POINTS_SUBTRACTED = "POINTS_SUBTRACTED";
     public static final String POINTS_RESET = "POINTS_RESET";
     public static final String POINTS_BOOSTED = "POINTS_BOOSTED";
+    public static final String TRACK_ALREADY_CREDITED_CODE = "TRACK_ALREADY_CREDITED";
 
     // Descriptions
     public static final String USER_NOT_FOUND_DESC = "Usuario no encontrado";
     public static final String POINTS_ADDED_DESC = "Puntos añadidos correctamente.";
-    public static final String POINTS_ADDED_BY_DISTANCE_DESC = "Puntos añadidos por distancia recorrida";
     public static final String POINTS_SUBTRACTED_DESC = "Puntos descontados correctamente.";
     public static final String POINTS_RESET_DESC = "Puntos reiniciados correctamente.";
     public static final String POINTS_BOOSTED_DESC = "Puntos potenciados correctamente.";
+    public static final String TRACK_ALREADY_CREDITED_DESC = "El recorrido se esta canjeando en otra solicitud, intente nuevamente.";
 
 
 
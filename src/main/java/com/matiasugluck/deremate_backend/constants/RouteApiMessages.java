@@ -7,6 +7,20 @@ public class RouteApiMessages {
     public static final String NOT_POSSIBLE_TO_ASSIGN = "Solo se pueden asignar rutas con estado 'pendiente'";
     public static final String ALREADY_ACTIVE_ROUTE = "User already has active routes";
     public static final String NOT_POSSIBLE_TO_COMPLETE = "Solo se pueden completar rutas en estado 'en_curso'";
+    public static final String UNKNOWN_NEIGHBORHOOD_CODE = "UNKNOWN_NEIGHBORHOOD";
+    public static final String UNKNOWN_NEIGHBORHOOD_DESC = "Barrio desconocido";
+    public static final String INVALID_LOCATION_CODE = "INVALID_LOCATION";
+    public static final String INVALID_LOCATION_DESC = "La posicion debe incluir latitud y longitud validas";
+    public static final String INVALID_RADIUS_CODE = "INVALID_RADIUS";
+    public static final String INVALID_RADIUS_DESC = "El radio debe ser mayor a 0 y no superar el maximo permitido";
+    public static final String INVALID_NEAREST_CODE = "INVALID_NEAREST";
+    public static final String ROUTE_ALREADY_CLAIMED_CODE = "ROUTE_ALREADY_CLAIMED";
+    public static final String ROUTE_ALREADY_CLAIMED_DESC = "La ruta ya fue tomada por %s";
+    public static final String NO_ACTIVE_ROUTE_CODE = "NO_ACTIVE_ROUTE";
+    public static final String NO_ACTIVE_ROUTE_DESC = "Solo se registra la posicion de repartidores con rutas en curso";
+    public static final String DISPATCH_DISABLED_CODE = "DISPATCH_DISABLED";
+    public static final String DISPATCH_DISABLED_DESC = "El despacho automatico esta deshabilitado; solo se puede pedir el plan con dryRun=true";
+    public static final String INVALID_NEAREST_DESC = "Para pedir las rutas mas cercanas se necesita una posicion y una cantidad valida";
 }
 
 
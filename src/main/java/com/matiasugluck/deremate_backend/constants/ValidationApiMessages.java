@@ -17,6 +17,10 @@ public final class ValidationApiMessages {
     public static final String PASSWORD_REQUIREMENTS = "La contraseña debe tener como minimo un caracter mayuscula y un numero.";
     public static final String INVALID_VALUE_PATTERN = "Campo invalido.";
 
+    // --- Paginacion ---
+    public static final String INVALID_CURSOR_CODE = "INVALID_CURSOR";
+    public static final String INVALID_CURSOR_DESC = "El cursor de paginacion no es valido.";
+
     private ValidationApiMessages() {
         throw new IllegalStateException("Utility class");
     }
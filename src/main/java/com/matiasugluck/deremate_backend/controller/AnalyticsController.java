@@ -0,0 +1,96 @@
+package com.matiasugluck.deremate_backend.controller;
+
+import com.matiasugluck.deremate_backend.constants.AnalyticsApiMessages;
+import com.matiasugluck.deremate_backend.dto.GenericResponseDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryByDayDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryStatusCountDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.TopDeliveryZonesDTO;
+import com.matiasugluck.deremate_backend.enums.ZoneWindow;
+import com.matiasugluck.deremate_backend.exception.ApiError;
+import com.matiasugluck.deremate_backend.service.DeliveryAnalyticsService;
+import com.matiasugluck.deremate_backend.service.ZoneActivityService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "${base-path-v1}/analytics", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+@Tag(name = "Analytics", description = "Estadísticas de entregas para los dashboards")
+public class AnalyticsController {
+    // Los dashboards refrescan cada pocos segundos; los rollups se leen por clave, pero igual se evita repetir la misma consulta
+    private static final CacheControl DASHBOARD_CACHE = CacheControl.maxAge(Duration.ofSeconds(5)).cachePrivate();
+
+    private final DeliveryAnalyticsService deliveryAnalyticsService;
+    private final ZoneActivityService zoneActivityService;
+
+    @Operation(summary = "Entregas por estado", description = "Devuelve la cantidad de entregas en cada estado.")
+    @ApiResponse(responseCode = "200", description = "Cantidad de entregas por estado", content = @Content(mediaType = "application/json"))
+    @GetMapping("/deliveries/status")
+    public ResponseEntity<List<DeliveryStatusCountDTO>> getStatusCounts() {
+        return ResponseEntity.ok()
+                .cacheControl(DASHBOARD_CACHE)
+                .body(deliveryAnalyticsService.getStatusCounts());
+    }
+
+    @Operation(summary = "Entregas por día", description = "Devuelve, para cada día del rango (por defecto los últimos 30), las entregas creadas y las cerradas como entregadas o rechazadas.")
+    @ApiResponse(responseCode = "200", description = "Serie diaria de entregas", content = @Content(mediaType = "application/json"))
+    @ApiResponse(responseCode = "400", description = "Rango de fechas inválido", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @GetMapping("/deliveries/by-day")
+    public ResponseEntity<List<DeliveryByDayDTO>> getDeliveriesByDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok()
+                .cacheControl(DASHBOARD_CACHE)
+                .body(deliveryAnalyticsService.getDeliveriesByDay(from, to));
+    }
+
+    @Operation(summary = "Zonas con más entregas", description = "Devuelve las zonas (celdas geohash del destino) con más entregas, de mayor a menor.")
+    @ApiResponse(responseCode = "200", description = "Zonas con más entregas", content = @Content(mediaType = "application/json"))
+    @ApiResponse(responseCode = "400", description = "Cantidad de zonas inválida", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @GetMapping("/zones/top")
+    public ResponseEntity<List<TopDeliveryZonesDTO>> getTopZones(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok()
+                .cacheControl(DASHBOARD_CACHE)
+                .body(deliveryAnalyticsService.getTopZones(limit));
+    }
+
+    @Operation(summary = "Zonas con más actividad reciente", description = "Devuelve las zonas con más entregas creadas en la última hora, día o semana, junto con las entregadas y rechazadas en la misma ventana. Se calcula en memoria y las cuentas son aproximadas.")
+    @ApiResponse(responseCode = "200", description = "Zonas con más actividad en la ventana", content = @Content(mediaType = "application/json"))
+    @ApiResponse(responseCode = "400", description = "Cantidad de zonas o ventana inválida", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @GetMapping("/zones/live")
+    public ResponseEntity<List<TopDeliveryZonesDTO>> getLiveZones(
+            @RequestParam(required = false, defaultValue = "LAST_HOUR") ZoneWindow window,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok()
+                .cacheControl(DASHBOARD_CACHE)
+                .body(zoneActivityService.getTopZones(window, limit));
+    }
+
+    @Operation(summary = "Reconstruir estadísticas", description = "Vacía los rollups y los vuelve a calcular desde el historial de entregas, por partes y en segundo plano.")
+    @ApiResponse(responseCode = "202", description = "Reconstrucción iniciada", content = @Content(mediaType = "application/json", schema = @Schema(implementation = GenericResponseDTO.class)))
+    @ApiResponse(responseCode = "409", description = "Ya hay una reconstrucción en curso", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @PostMapping("/backfill")
+    public ResponseEntity<GenericResponseDTO<Void>> startBackfill() {
+        deliveryAnalyticsService.startBackfill();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new GenericResponseDTO<>(AnalyticsApiMessages.BACKFILL_STARTED, HttpStatus.ACCEPTED.value()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.matiasugluck.deremate_backend.controller;
+
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.audit.TransitionDTO;
+import com.matiasugluck.deremate_backend.enums.TransitionEntity;
+import com.matiasugluck.deremate_backend.exception.ApiError;
+import com.matiasugluck.deremate_backend.service.TransitionJournalService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping(value = "${base-path-v1}/audit", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+@Tag(name = "Audit", description = "Historial de cambios de estado de rutas y entregas")
+public class AuditController {
+
+    private final TransitionJournalService transitionJournalService;
+
+    @Operation(summary = "Historial de transiciones", description = "Devuelve, de la más vieja a la más nueva, las transiciones de estado registradas, " +
+            "filtradas opcionalmente por entidad (ROUTE o DELIVERY), id, repartidor y rango [from, to) en formato ISO. Para la página siguiente enviar el nextCursor recibido.")
+    @ApiResponse(responseCode = "200", description = "Página de transiciones obtenida exitosamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPageDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Cursor inválido", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @ApiResponse(responseCode = "503", description = "Historial no disponible", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @GetMapping("/transitions")
+    public ResponseEntity<CursorPageDTO<TransitionDTO>> getTransitions(
+            @RequestParam(required = false) TransitionEntity entity,
+            @RequestParam(required = false) Long entityId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(transitionJournalService.find(entity, entityId, userId, from, to, cursor, size));
+    }
+}
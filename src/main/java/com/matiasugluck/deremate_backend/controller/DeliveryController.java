@@ -1,33 +1,50 @@
 package com.matiasugluck.deremate_backend.controller;
 
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.BulkDeliveryResultDTO;
 import com.matiasugluck.deremate_backend.dto.delivery.CreateDeliveryDTO;
 import com.matiasugluck.deremate_backend.dto.delivery.DeliveryDTO;
 import com.matiasugluck.deremate_backend.dto.delivery.PackageInWarehouseDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.QrImageDTO;
 import com.matiasugluck.deremate_backend.entity.User;
+import com.matiasugluck.deremate_backend.enums.IntakeFormat;
 import com.matiasugluck.deremate_backend.exception.ApiError;
 import com.matiasugluck.deremate_backend.service.AuthService;
+import com.matiasugluck.deremate_backend.service.DeliveryIntakeService;
 import com.matiasugluck.deremate_backend.service.DeliveryService;
+import com.matiasugluck.deremate_backend.service.QrRenderingService;
+import com.matiasugluck.deremate_backend.service.WarehouseInventoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
 
 @RestController
 @RequestMapping(value = "${base-path-v1}/delivery", produces = MediaType.APPLICATION_JSON_VALUE)
 @RequiredArgsConstructor
 @Tag(name = "Delivery", description = "Endpoints para gestionar entregas")
 public class DeliveryController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final DeliveryService deliveryService;
+    private final DeliveryIntakeService deliveryIntakeService;
     private final AuthService authService;
+    private final QrRenderingService qrRenderingService;
+    private final WarehouseInventoryService warehouseInventoryService;
 
     @Operation(summary = "Crear una nueva entrega", description = "Registra una nueva solicitud de entrega con los productos asociados.")
     @ApiResponse(responseCode = "201", description = "Entrega creada exitosamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DeliveryDTO.class)))
@@ -38,10 +55,22 @@ public class DeliveryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(deliveryService.createDelivery(createDeliveryDTO));
     }
 
+    @Operation(summary = "Carga masiva de entregas", description = "Registra entregas a partir de un archivo JSON-lines (application/x-ndjson) o CSV (text/csv) con columnas destinationLatitude,destinationLongitude,packageLocation,productIds (IDs separados por '|'). Devuelve el resultado de cada fila.")
+    @ApiResponse(responseCode = "200", description = "Archivo procesado; ver el resultado por fila", content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkDeliveryResultDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Encabezado CSV inválido o archivo ilegible", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public ResponseEntity<BulkDeliveryResultDTO> importDeliveries(HttpServletRequest request) throws IOException {
+        IntakeFormat format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? IntakeFormat.CSV
+                : IntakeFormat.JSON_LINES;
+        return ResponseEntity.ok(deliveryIntakeService.importDeliveries(request.getInputStream(), format));
+    }
+
     @Operation(summary = "Confirmar una entrega", description = "Marca una entrega como completada usando su ID y el PIN de confirmación.")
     @ApiResponse(responseCode = "204", description = "Entrega confirmada exitosamente")
     @ApiResponse(responseCode = "400", description = "PIN inválido", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
     @ApiResponse(responseCode = "404", description = "Entrega no encontrada", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @ApiResponse(responseCode = "409", description = "La entrega ya fue confirmada o cancelada", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
     @PutMapping("/{id}/confirm")
     public ResponseEntity<?> confirmDelivery(@PathVariable Long id, @RequestParam(required = true) String pin) {
         deliveryService.confirmDelivery(id, pin);
@@ -51,6 +80,7 @@ public class DeliveryController {
     @Operation(summary = "Cancelar una entrega", description = "Marca una entrega como rechazada/cancelada usando su ID.")
     @ApiResponse(responseCode = "204", description = "Entrega cancelada exitosamente")
     @ApiResponse(responseCode = "404", description = "Entrega no encontrada", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @ApiResponse(responseCode = "409", description = "La entrega ya fue confirmada o cancelada", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
     @PutMapping("/{id}/cancel")
     public ResponseEntity<?> cancelDelivery(@PathVariable Long id) {
         deliveryService.cancelDelivery(id);
@@ -64,26 +94,80 @@ public class DeliveryController {
     public ResponseEntity<DeliveryDTO> getDeliveryById(@PathVariable Long id) {
         return ResponseEntity.ok().body(deliveryService.getDeliveryById(id));
     }
-    @Operation(summary = "Obtener paquetes en almacén", description = "Devuelve una lista de todos los paquetes que aún no han sido entregados y se encuentran en el almacén.")
-    @ApiResponse(responseCode = "200", description = "Lista de paquetes en almacén", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PackageInWarehouseDTO.class)))
+    @Operation(summary = "Obtener el QR de una entrega", description = "Devuelve el código QR de la entrega como imagen PNG. Soporta If-None-Match para evitar descargas repetidas.")
+    @ApiResponse(responseCode = "200", description = "Imagen PNG del QR", content = @Content(mediaType = "image/png"))
+    @ApiResponse(responseCode = "304", description = "El QR no cambió respecto del ETag enviado")
+    @ApiResponse(responseCode = "404", description = "Entrega no encontrada", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @GetMapping(value = "/{id}/qr", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getDeliveryQr(@PathVariable Long id, WebRequest webRequest) {
+        QrImageDTO qrImage = qrRenderingService.getQrImage(id);
+        if (webRequest.checkNotModified(qrImage.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(qrImage.getEtag())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                .contentType(MediaType.IMAGE_PNG)
+                .body(qrImage.getPng());
+    }
+
+    @Operation(summary = "Obtener paquetes en almacén", description = "Devuelve, paginados del más antiguo al más nuevo, los paquetes que aún no han sido entregados y se encuentran en el almacén, opcionalmente filtrados por ubicación. Se sirve desde un índice en memoria; el ETag es la versión del índice y con If-None-Match se responde 304 si no hubo cambios. Para la página siguiente enviar el nextCursor recibido.")
+    @ApiResponse(responseCode = "200", description = "Página de paquetes en almacén", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPageDTO.class)))
+    @ApiResponse(responseCode = "304", description = "El inventario no cambió respecto del ETag enviado")
+    @ApiResponse(responseCode = "400", description = "Cursor inválido", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
     @GetMapping("/warehouse")
-    public ResponseEntity<List<PackageInWarehouseDTO>> getPackagesInWarehouse() {
-        return ResponseEntity.ok(deliveryService.getPackagesInWarehouse());
+    public ResponseEntity<CursorPageDTO<PackageInWarehouseDTO>> getPackagesInWarehouse(
+            @RequestParam(required = false) String packageLocation,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
+        // La version se lee antes que la pagina: si cambia en el medio, el cliente recibe datos nuevos con un ETag viejo y vuelve a pedir
+        String etag = inventoryEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(warehouseInventoryService.getPackages(packageLocation, cursor, size));
+    }
+
+    @Operation(summary = "Resumen del almacén por ubicación", description = "Devuelve la cantidad de paquetes en almacén agrupados por ubicación (estante). Soporta If-None-Match con la versión del índice.")
+    @ApiResponse(responseCode = "200", description = "Cantidad de paquetes por ubicación", content = @Content(mediaType = "application/json"))
+    @ApiResponse(responseCode = "304", description = "El inventario no cambió respecto del ETag enviado")
+    @GetMapping("/warehouse/locations")
+    public ResponseEntity<Map<String, Integer>> getWarehouseLocations(WebRequest webRequest) {
+        String etag = inventoryEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(warehouseInventoryService.getLocationCounts());
+    }
+
+    private String inventoryEtag() {
+        return "\"" + warehouseInventoryService.getVersion() + "\"";
     }
 
-    @Operation(summary = "Obtener entregas por ID de usuario asignado", description = "Devuelve una lista de entregas asignadas a un usuario específico (p. ej., repartidor).")
-    @ApiResponse(responseCode = "200", description = "Lista de entregas para el usuario especificado", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DeliveryDTO.class)))
+    @Operation(summary = "Obtener entregas por ID de usuario asignado", description = "Devuelve, paginadas de la más reciente a la más antigua, las entregas asignadas al usuario autenticado (p. ej., repartidor). Para la página siguiente enviar el nextCursor recibido.")
+    @ApiResponse(responseCode = "200", description = "Página de entregas para el usuario especificado", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPageDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Cursor inválido", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
     @GetMapping("/")
-    public ResponseEntity<List<DeliveryDTO>> getPackagesByUserId() {
+    public ResponseEntity<CursorPageDTO<DeliveryDTO>> getPackagesByUserId(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         User user = authService.getAuthenticatedUser();
-        return ResponseEntity.ok(deliveryService.getDeliveriesByUserId(user.getId()));
+        return ResponseEntity.ok(deliveryService.getDeliveriesByUserId(user.getId(), cursor, size));
     }
 
-    @Operation(summary = "Obtener entregas asignadas y no completadas", description = "Devuelve una lista de todas las entregas que tienen un repartidor asignado pero que aún no han sido marcadas como entregadas.")
-    @ApiResponse(responseCode = "200", description = "Lista de entregas asignadas", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DeliveryDTO.class)))
+    @Operation(summary = "Obtener entregas asignadas y no completadas", description = "Devuelve, paginadas, las entregas que tienen un repartidor asignado pero que aún no han sido marcadas como entregadas. Para la página siguiente enviar el nextCursor recibido.")
+    @ApiResponse(responseCode = "200", description = "Página de entregas asignadas", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPageDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Cursor inválido", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
     @GetMapping("/cancellable")
-    public ResponseEntity<List<DeliveryDTO>> getAssignedAndNotDelivered() {
-        return ResponseEntity.ok(deliveryService.getAssignedAndNotDelivered());
+    public ResponseEntity<CursorPageDTO<DeliveryDTO>> getAssignedAndNotDelivered(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(deliveryService.getAssignedAndNotDelivered(cursor, size));
     }
 
 }
@@ -0,0 +1,47 @@
+package com.matiasugluck.deremate_backend.controller;
+
+import com.matiasugluck.deremate_backend.dto.stream.StatusChangeDTO;
+import com.matiasugluck.deremate_backend.entity.User;
+import com.matiasugluck.deremate_backend.enums.StreamScope;
+import com.matiasugluck.deremate_backend.service.AuthService;
+import com.matiasugluck.deremate_backend.service.StatusStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping(value = "${base-path-v1}/events")
+@CrossOrigin(origins = "*")
+@Tag(name = "Events", description = "Stream de cambios de estado de rutas y entregas")
+public class EventStreamController {
+
+    private final StatusStreamService statusStreamService;
+    private final AuthService authService;
+
+    public EventStreamController(StatusStreamService statusStreamService, AuthService authService) {
+        this.statusStreamService = statusStreamService;
+        this.authService = authService;
+    }
+
+    @Operation(summary = "Suscribirse a cambios de estado", description = "Abre un stream Server-Sent Events con los cambios de estado de rutas (evento 'route') y entregas (evento 'delivery'). " +
+            "scope=OWN envía solo los del usuario autenticado; AVAILABLE agrega las rutas que entran o salen de las disponibles; ALL envía todos. " +
+            "Al reconectar, enviar el último id recibido en Last-Event-ID para recibir lo perdido; si ya no está disponible llega un evento 'reset' y hay que volver a consultar por REST.")
+    @ApiResponse(responseCode = "200", description = "Stream abierto", content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = StatusChangeDTO.class)))
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @RequestParam(defaultValue = "OWN") StreamScope scope,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        User user = authService.getAuthenticatedUser();
+        return statusStreamService.subscribe(user.getId(), scope, lastEventId);
+    }
+}
@@ -2,7 +2,10 @@ package com.matiasugluck.deremate_backend.controller;
 
 import com.matiasugluck.deremate_backend.constants.PointsApiMessages;
 import com.matiasugluck.deremate_backend.dto.points.RewardSpinDTO;
+import com.matiasugluck.deremate_backend.dto.points.TrackDistanceDTO;
 import com.matiasugluck.deremate_backend.dto.points.UserPointsDTO;
+import com.matiasugluck.deremate_backend.entity.User;
+import com.matiasugluck.deremate_backend.service.AuthService;
 import com.matiasugluck.deremate_backend.service.PointsService;
 import lombok.*;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 public class PointsController {
 
     private final PointsService pointsService;
+    private final AuthService authService;
 
     @PostMapping("/add/{userId}")
     public ResponseEntity<String> addPoints(@PathVariable Long userId) {
@@ -22,10 +26,11 @@ public class PointsController {
         return ResponseEntity.ok(PointsApiMessages.POINTS_ADDED_DESC);
     }
 
-    @PostMapping("/add/{userId}/distance")
-    public ResponseEntity<String> addPointsByDistance(@PathVariable Long userId, @RequestParam double kilometers) {
-        pointsService.addPointsByDistance(userId, kilometers);
-        return ResponseEntity.ok(PointsApiMessages.POINTS_ADDED_BY_DISTANCE_DESC + ": " + kilometers + " km.");
+    // Puntos por la distancia de las posiciones que el usuario autenticado envio a /routes/location
+    @PostMapping("/track")
+    public ResponseEntity<TrackDistanceDTO> addPointsByTrack() {
+        User user = authService.getAuthenticatedUser();
+        return ResponseEntity.ok(pointsService.addPointsByTrack(user.getId()));
     }
 
     @PostMapping("/{userId}/subtract")
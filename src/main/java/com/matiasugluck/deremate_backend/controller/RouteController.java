@@ -1,12 +1,20 @@
 package com.matiasugluck.deremate_backend.controller;
 
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
 import com.matiasugluck.deremate_backend.dto.RouteDTO;
 import com.matiasugluck.deremate_backend.dto.route.AvailableRouteDTO;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRoutesFilter;
 import com.matiasugluck.deremate_backend.dto.route.CreateRouteDTO;
+import com.matiasugluck.deremate_backend.dto.route.DispatchPlanDTO;
+import com.matiasugluck.deremate_backend.dto.route.ItineraryDTO;
+import com.matiasugluck.deremate_backend.dto.route.LocationPingDTO;
 import com.matiasugluck.deremate_backend.entity.User;
 import com.matiasugluck.deremate_backend.enums.RouteStatus;
 import com.matiasugluck.deremate_backend.exception.ApiError;
 import com.matiasugluck.deremate_backend.service.AuthService;
+import com.matiasugluck.deremate_backend.service.DispatchService;
+import com.matiasugluck.deremate_backend.service.ItineraryService;
+import com.matiasugluck.deremate_backend.service.LocationTrackingService;
 import com.matiasugluck.deremate_backend.service.RouteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -29,17 +37,27 @@ public class RouteController {
 
     private final RouteService routeService;
     private final AuthService authService;
+    private final ItineraryService itineraryService;
+    private final DispatchService dispatchService;
+    private final LocationTrackingService locationTrackingService;
 
-    public RouteController(RouteService routeService, AuthService authService) {
+    public RouteController(RouteService routeService, AuthService authService, ItineraryService itineraryService,
+                           DispatchService dispatchService, LocationTrackingService locationTrackingService) {
         this.routeService = routeService;
         this.authService = authService;
+        this.itineraryService = itineraryService;
+        this.dispatchService = dispatchService;
+        this.locationTrackingService = locationTrackingService;
     }
 
-    @Operation(summary = "Obtener todas las rutas", description = "Devuelve una lista de todas las rutas registradas en el sistema.")
-    @ApiResponse(responseCode = "200", description = "Lista de rutas obtenida exitosamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = RouteDTO.class)))
+    @Operation(summary = "Obtener todas las rutas", description = "Devuelve, paginadas de la más reciente a la más antigua, las rutas registradas en el sistema. Para la página siguiente enviar el nextCursor recibido.")
+    @ApiResponse(responseCode = "200", description = "Página de rutas obtenida exitosamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPageDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Cursor inválido", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
     @GetMapping
-    public ResponseEntity<List<RouteDTO>> getAllRoutes() {
-        return ResponseEntity.ok(routeService.getAllRoutes());
+    public ResponseEntity<CursorPageDTO<RouteDTO>> getAllRoutes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(routeService.getAllRoutes(cursor, size));
     }
 
     @Operation(summary = "Crear una nueva ruta", description = "Registra una nueva ruta pendiente en el sistema.")
@@ -53,10 +71,11 @@ public class RouteController {
     @ApiResponse(responseCode = "200", description = "Ruta asignada exitosamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = RouteDTO.class)))
     @ApiResponse(responseCode = "400", description = "Solicitud inválida (p. ej., usuario no encontrado, ruta no pendiente, usuario ya tiene ruta activa)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
     @ApiResponse(responseCode = "404", description = "Ruta no encontrada", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @ApiResponse(responseCode = "409", description = "Otro repartidor tomó la ruta antes; el mensaje indica quién", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
     @PutMapping("/{routeId}/assign")
     public ResponseEntity<RouteDTO> assignRouteToUser(@PathVariable Long routeId) {
         User user = authService.getAuthenticatedUser();
-        return ResponseEntity.ok(routeService.assignRouteToUser(routeId, user.getId()));
+        return ResponseEntity.ok(routeService.assignRouteToUser(routeId, user));
     }
 
     @Operation(summary = "Obtener rutas por usuario", description = "Devuelve las rutas asignadas a un usuario, opcionalmente filtradas por estado.")
@@ -88,17 +107,90 @@ public class RouteController {
         return ResponseEntity.ok(routeService.getRoutesByUserAndStatus(user.getId(), RouteStatus.COMPLETED));
     }
 
-    @Operation(summary = "Obtener rutas disponibles para asignar", description = "Devuelve una lista de rutas pendientes que no han sido asignadas, opcionalmente filtradas por barrio de origen y/o destino.")
-    @ApiResponse(responseCode = "200", description = "Lista de rutas disponibles obtenida exitosamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = AvailableRouteDTO.class))) // Springdoc infiere la lista
+    @Operation(summary = "Obtener rutas disponibles para asignar", description = "Devuelve, paginadas de la más antigua a la más nueva, las rutas pendientes que no han sido asignadas. " +
+            "Con lat/lon (u originBarrio, que usa el centro del barrio) filtra por radio alrededor del repartidor (radiusMeters, por defecto 5km); " +
+            "con destinationBarrio, solo las que tienen destino en ese barrio. Con nearest=k devuelve las k más cercanas a la posición, ordenadas por distancia y sin cursor. " +
+            "Para la página siguiente enviar el nextCursor recibido.")
+    @ApiResponse(responseCode = "200", description = "Página de rutas disponibles obtenida exitosamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPageDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Cursor, posición, radio o barrio inválido", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
     @GetMapping("/available")
-    public ResponseEntity<List<AvailableRouteDTO>> getAvailableRoutes(
+    public ResponseEntity<CursorPageDTO<AvailableRouteDTO>> getAvailableRoutes(
             @RequestParam(required = false) String originBarrio,
-            @RequestParam(required = false) String destinationBarrio) {
-        List<AvailableRouteDTO> availableRoutes =
-                routeService.getAvailableRoutes(originBarrio, destinationBarrio);
+            @RequestParam(required = false) String destinationBarrio,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon,
+            @RequestParam(required = false) Double radiusMeters,
+            @RequestParam(required = false) Integer nearest,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        AvailableRoutesFilter filter = AvailableRoutesFilter.builder()
+                .originNeighborhood(originBarrio)
+                .destinationNeighborhood(destinationBarrio)
+                .latitude(lat)
+                .longitude(lon)
+                .radiusMeters(radiusMeters)
+                .nearest(nearest)
+                .build();
+        CursorPageDTO<AvailableRouteDTO> availableRoutes = routeService.getAvailableRoutes(filter, cursor, size);
         return ResponseEntity.ok(availableRoutes);
     }
 
+    @Operation(summary = "Obtener las rutas disponibles más cercanas", description = "Devuelve las k rutas pendientes sin asignar con destino más cercano a la posición del repartidor, de la más cercana a la más lejana, con la distancia en metros.")
+    @ApiResponse(responseCode = "200", description = "Rutas más cercanas obtenidas exitosamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = AvailableRouteDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Posición o cantidad inválida", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @GetMapping("/nearest")
+    public ResponseEntity<List<AvailableRouteDTO>> getNearestRoutes(
+            @RequestParam Double lat,
+            @RequestParam Double lon,
+            @RequestParam(required = false) Integer k) {
+        return ResponseEntity.ok(routeService.getNearestRoutes(lat, lon, k));
+    }
+
+    @Operation(summary = "Obtener el recorrido sugerido", description = "Devuelve las entregas pendientes de las rutas en curso del usuario autenticado en el orden de visita que minimiza los kilómetros, saliendo desde lat/lon si se envían.")
+    @ApiResponse(responseCode = "200", description = "Recorrido obtenido exitosamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ItineraryDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Posición inválida", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @GetMapping("/itinerary")
+    public ResponseEntity<ItineraryDTO> getItinerary(
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon) {
+        User user = authService.getAuthenticatedUser();
+        return ResponseEntity.ok(itineraryService.getItinerary(user.getId(), lat, lon));
+    }
+
+    @Operation(summary = "Obtener los recorridos de todos los repartidores", description = "Calcula en paralelo el recorrido sugerido de cada repartidor con rutas en curso. El resultado se reutiliza durante unos segundos (routes.itinerary.all-cache-ms).")
+    @ApiResponse(responseCode = "200", description = "Recorridos obtenidos exitosamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ItineraryDTO.class)))
+    @GetMapping("/itineraries")
+    public ResponseEntity<List<ItineraryDTO>> getAllItineraries() {
+        return ResponseEntity.ok(itineraryService.getAllItineraries());
+    }
+
+    @Operation(summary = "Despachar rutas pendientes", description = "Asigna en un solo lote las rutas pendientes a los repartidores disponibles minimizando la distancia total. " +
+            "Por defecto (dryRun=true) solo devuelve el plan y su costo, sin asignar nada. Asignar de verdad requiere routes.dispatch.enabled=true.")
+    @ApiResponse(responseCode = "200", description = "Plan de despacho calculado (y aplicado si no es dry run)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DispatchPlanDTO.class)))
+    @ApiResponse(responseCode = "403", description = "El despacho automatico no esta habilitado", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @PostMapping("/dispatch")
+    public ResponseEntity<DispatchPlanDTO> dispatch(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return ResponseEntity.ok(dispatchService.dispatch(dryRun));
+    }
+
+    @Operation(summary = "Informar la posición del repartidor", description = "Registra la posición GPS del usuario autenticado mientras tiene rutas en curso. " +
+            "La app la envía cada pocos segundos; las posiciones se guardan en lotes, por lo que pueden tardar unos segundos en persistirse.")
+    @ApiResponse(responseCode = "202", description = "Posición recibida")
+    @ApiResponse(responseCode = "400", description = "Posición inválida o el usuario no tiene rutas en curso", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    @PostMapping("/location")
+    public ResponseEntity<Void> reportLocation(@RequestBody LocationPingDTO ping) {
+        User user = authService.getAuthenticatedUser();
+        locationTrackingService.recordPing(user.getId(), ping);
+        return ResponseEntity.accepted().build();
+    }
+
+    @Operation(summary = "Obtener barrios", description = "Devuelve los nombres de barrio aceptados por originBarrio y destinationBarrio.")
+    @ApiResponse(responseCode = "200", description = "Barrios obtenidos exitosamente")
+    @GetMapping("/neighborhoods")
+    public ResponseEntity<List<String>> getNeighborhoods() {
+        return ResponseEntity.ok(routeService.getNeighborhoods());
+    }
+
 
 
 
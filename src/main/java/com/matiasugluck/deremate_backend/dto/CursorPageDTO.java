@@ -0,0 +1,17 @@
+package com.matiasugluck.deremate_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> items;
+
+    // Token opaco para pedir la pagina siguiente; null si no hay mas resultados
+    private String nextCursor;
+}
@@ -1,5 +1,6 @@
 package com.matiasugluck.deremate_backend.dto;
 
+import com.matiasugluck.deremate_backend.dto.route.EtaDTO;
 import com.matiasugluck.deremate_backend.enums.RouteStatus;
 import lombok.Builder;
 import lombok.Data;
@@ -17,4 +18,6 @@ public class RouteDTO {
     private Timestamp startedAt;
     private Timestamp completedAt;
     private String assignedToEmail;
+    // Solo para pendientes y en curso; null si no hay historial suficiente
+    private EtaDTO eta;
 }
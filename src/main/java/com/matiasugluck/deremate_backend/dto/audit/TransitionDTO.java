@@ -0,0 +1,25 @@
+package com.matiasugluck.deremate_backend.dto.audit;
+
+import com.matiasugluck.deremate_backend.enums.TransitionEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.Timestamp;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransitionDTO {
+    private Long sequence;
+    private TransitionEntity entity;
+    private Long entityId;
+    // null en el alta
+    private String fromStatus;
+    private String toStatus;
+    // Repartidor asignado al momento de la transicion; null si no habia
+    private Long userId;
+    private Timestamp occurredAt;
+}
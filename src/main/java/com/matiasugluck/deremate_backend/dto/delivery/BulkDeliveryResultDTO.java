@@ -0,0 +1,17 @@
+package com.matiasugluck.deremate_backend.dto.delivery;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkDeliveryResultDTO {
+    private int totalRows;
+    private int created;
+    private int rejected;
+    // false si la lectura del archivo se interrumpio; las filas reportadas ya quedaron confirmadas
+    private boolean completed;
+    private List<BulkDeliveryRowResultDTO> rows;
+}
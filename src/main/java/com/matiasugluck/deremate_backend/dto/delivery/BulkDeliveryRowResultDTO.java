@@ -0,0 +1,17 @@
+package com.matiasugluck.deremate_backend.dto.delivery;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkDeliveryRowResultDTO {
+    private int row;
+    private boolean created;
+    private Long deliveryId;
+    private Long routeId;
+    private String errorCode;
+    private String error;
+}
@@ -1,11 +1,15 @@
 package com.matiasugluck.deremate_backend.dto.delivery;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 
 @Data
+@AllArgsConstructor
+@NoArgsConstructor
 @Builder
 public class CreateDeliveryDTO {
     private Double destinationLatitude;
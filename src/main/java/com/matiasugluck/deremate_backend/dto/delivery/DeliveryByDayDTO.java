@@ -1,4 +1,17 @@
 package com.matiasugluck.deremate_backend.dto.delivery;
 
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
 public class DeliveryByDayDTO {
+    private LocalDate day;
+    // Entregas creadas ese dia
+    private Long created;
+    // Entregas cerradas ese dia (fecha de cierre de la ruta)
+    private Long delivered;
+    private Long rejected;
 }
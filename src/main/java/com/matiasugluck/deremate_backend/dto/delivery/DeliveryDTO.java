@@ -21,6 +21,6 @@ public class DeliveryDTO {
     private Timestamp deliveryEndDate;
     private RouteDTO route;
     private List<ProductDTO> products;
-    private String qrCode;
+    private String qrUrl;
     private String pin;
 }
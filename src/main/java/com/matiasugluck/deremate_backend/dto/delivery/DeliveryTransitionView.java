@@ -0,0 +1,25 @@
+package com.matiasugluck.deremate_backend.dto.delivery;
+
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.sql.Timestamp;
+
+// Lo que necesita una transicion de estado de la entrega, leido en un solo SELECT sin cargar entidades
+@Data
+@AllArgsConstructor
+public class DeliveryTransitionView {
+    private Long deliveryId;
+    private DeliveryStatus status;
+    private String pin;
+    private Timestamp createdDate;
+    private Long routeId;
+    private RouteStatus routeStatus;
+    private String routeDescription;
+    private Timestamp routeCompletedAt;
+    private Long assignedUserId;
+    private Double destinationLatitude;
+    private Double destinationLongitude;
+}
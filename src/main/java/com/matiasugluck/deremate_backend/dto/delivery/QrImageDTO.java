@@ -0,0 +1,11 @@
+package com.matiasugluck.deremate_backend.dto.delivery;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class QrImageDTO {
+    private final byte[] png;
+    private final String etag;
+}
@@ -1,4 +1,17 @@
 package com.matiasugluck.deremate_backend.dto.delivery;
 
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
 public class TopDeliveryZonesDTO {
+    // Celda geohash del destino
+    private String zone;
+    // Centro de la celda
+    private Double latitude;
+    private Double longitude;
+    private Long deliveries;
+    private Long delivered;
+    private Long rejected;
 }
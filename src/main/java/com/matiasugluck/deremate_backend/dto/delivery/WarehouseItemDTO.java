@@ -0,0 +1,16 @@
+package com.matiasugluck.deremate_backend.dto.delivery;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.sql.Timestamp;
+
+// Fila minima para reconstruir el indice del deposito (proyeccion JPQL, sin cargar entidades)
+@Getter
+@AllArgsConstructor
+public class WarehouseItemDTO {
+    private final Long deliveryId;
+    private final Long routeId;
+    private final String packageLocation;
+    private final Timestamp createdDate;
+}
@@ -0,0 +1,14 @@
+package com.matiasugluck.deremate_backend.dto.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailPayload {
+    private String to;
+    private String subject;
+    private String htmlBody;
+}
@@ -0,0 +1,22 @@
+package com.matiasugluck.deremate_backend.dto.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushPayload {
+    // null para los envios a todos los dispositivos
+    private Long userId;
+    private String title;
+    private String body;
+    private Map<String, String> data = new HashMap<>();
+    // Tokens que fallaron en un intento anterior; si no es null el reintento va solo a estos
+    private List<String> tokens;
+}
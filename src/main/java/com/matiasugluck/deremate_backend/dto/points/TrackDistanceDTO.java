@@ -0,0 +1,18 @@
+package com.matiasugluck.deremate_backend.dto.points;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TrackDistanceDTO {
+    private Long userId;
+    // Kilometros calculados por el servidor sobre los tramos validos
+    private double kilometers;
+    private int earnedPoints;
+    private int discardedLegs;
+}
@@ -12,4 +12,8 @@ public class AvailableRouteDTO {
     private Double destinationLatitude;
     private RouteStatus status;
     private String description;
+    // Distancia desde la posicion del repartidor; null si la consulta no la incluye
+    private Double distanceMeters;
+    // Duracion estimada si se toma ahora; null si no hay historial suficiente
+    private EtaDTO eta;
 }
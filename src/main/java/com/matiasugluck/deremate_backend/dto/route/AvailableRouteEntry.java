@@ -0,0 +1,17 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.sql.Timestamp;
+
+// Ruta disponible en el indice espacial (proyeccion JPQL, sin cargar entidades)
+@Getter
+@AllArgsConstructor
+public class AvailableRouteEntry {
+    private final Long routeId;
+    private final Double latitude;
+    private final Double longitude;
+    private final String description;
+    private final Timestamp lastUpdatedAt;
+}
@@ -0,0 +1,23 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AvailableRoutesFilter {
+    // Barrio donde esta el repartidor: su centroide reemplaza a latitude/longitude si no se envian
+    private String originNeighborhood;
+    // Barrio donde tiene que estar el destino de la ruta
+    private String destinationNeighborhood;
+    private Double latitude;
+    private Double longitude;
+    private Double radiusMeters;
+    // Si se envia, devuelve las k rutas mas cercanas en lugar de una pagina
+    private Integer nearest;
+
+    public boolean isSpatial() {
+        return originNeighborhood != null || destinationNeighborhood != null
+                || latitude != null || longitude != null || radiusMeters != null || nearest != null;
+    }
+}
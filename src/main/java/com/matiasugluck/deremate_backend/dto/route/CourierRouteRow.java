@@ -0,0 +1,18 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.sql.Timestamp;
+
+// Ruta asignada a un repartidor, para estimar su posicion y su carga al despachar (proyeccion JPQL)
+@Getter
+@AllArgsConstructor
+public class CourierRouteRow {
+    private final Long userId;
+    private final RouteStatus status;
+    private final Double latitude;
+    private final Double longitude;
+    private final Timestamp lastUpdatedAt;
+}
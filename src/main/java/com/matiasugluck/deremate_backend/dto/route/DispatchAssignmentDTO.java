@@ -0,0 +1,15 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class DispatchAssignmentDTO {
+    private Long routeId;
+    private Long userId;
+    // Distancia desde la ultima posicion conocida del repartidor hasta el destino de la ruta
+    private Double distanceMeters;
+}
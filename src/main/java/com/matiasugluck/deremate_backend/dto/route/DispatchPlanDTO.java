@@ -0,0 +1,22 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class DispatchPlanDTO {
+    private Boolean dryRun;
+    // HUNGARIAN o GREEDY, segun la cantidad de rutas y plazas del lote
+    private String algorithm;
+    private Integer pendingRoutes;
+    private Integer availableCouriers;
+    private List<DispatchAssignmentDTO> assignments;
+    private Double totalMeters;
+    // Asignaciones escritas; puede ser menor que assignments si otro repartidor tomo la ruta antes (0 en dry-run)
+    private Integer committed;
+}
@@ -0,0 +1,25 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.Timestamp;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EtaDTO {
+    // Segundos que faltan segun la mediana historica (0 si ya se paso); para una pendiente, la duracion completa
+    private Long expectedSeconds;
+    // Igual que expectedSeconds con el percentil 90
+    private Long p90Seconds;
+    private Timestamp estimatedCompletionAt;
+    private Double meanSeconds;
+    private Double stdDevSeconds;
+    private Long samples;
+    // De donde salen las estadisticas: CELL_HOUR (zona y hora de la semana), CELL, HOUR o GLOBAL
+    private String basis;
+}
@@ -0,0 +1,17 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.sql.Timestamp;
+
+// Ruta completada como muestra de duracion para el ETA (proyeccion JPQL)
+@Getter
+@AllArgsConstructor
+public class EtaSampleRow {
+    private final Long routeId;
+    private final Double latitude;
+    private final Double longitude;
+    private final Timestamp startedAt;
+    private final Timestamp completedAt;
+}
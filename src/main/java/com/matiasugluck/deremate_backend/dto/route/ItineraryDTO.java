@@ -0,0 +1,18 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class ItineraryDTO {
+    private Long userId;
+    private List<ItineraryStopDTO> stops;
+    private Double totalMeters;
+    // Largo recorriendo las paradas en el orden del listado de entregas, para comparar
+    private Double unsequencedMeters;
+}
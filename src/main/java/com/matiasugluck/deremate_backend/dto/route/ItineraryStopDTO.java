@@ -0,0 +1,20 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class ItineraryStopDTO {
+    private Integer position;
+    private Long deliveryId;
+    private Long routeId;
+    private String description;
+    private String packageLocation;
+    private Double latitude;
+    private Double longitude;
+    // Metros desde la parada anterior (o desde la posicion del repartidor); null si no tiene coordenadas
+    private Double legMeters;
+}
@@ -0,0 +1,17 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Entrega activa de un repartidor para armar su recorrido (proyeccion JPQL, sin cargar entidades)
+@Getter
+@AllArgsConstructor
+public class ItineraryStopRow {
+    private final Long userId;
+    private final Long deliveryId;
+    private final Long routeId;
+    private final String description;
+    private final String packageLocation;
+    private final Double latitude;
+    private final Double longitude;
+}
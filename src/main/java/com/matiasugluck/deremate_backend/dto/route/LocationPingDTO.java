@@ -0,0 +1,18 @@
+package com.matiasugluck.deremate_backend.dto.route;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LocationPingDTO {
+    private Double latitude;
+    private Double longitude;
+    // Epoch en milisegundos en el que el telefono tomo la posicion; si falta se usa la hora del servidor.
+    // Se acota entre la posicion anterior del repartidor y la hora del servidor
+    private Long recordedAt;
+}
@@ -0,0 +1,26 @@
+package com.matiasugluck.deremate_backend.dto.stream;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.Timestamp;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StatusChangeDTO {
+    // Mismo valor que el id del evento SSE; se reenvia como Last-Event-ID al reconectar
+    private Long eventId;
+    // ROUTE o DELIVERY
+    private String entity;
+    private Long routeId;
+    private Long deliveryId;
+    // null en altas
+    private String previousStatus;
+    private String newStatus;
+    private Long assignedUserId;
+    private Timestamp occurredAt;
+}
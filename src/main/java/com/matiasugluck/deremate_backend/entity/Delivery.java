@@ -1,5 +1,6 @@
 package com.matiasugluck.deremate_backend.entity;
 
+import com.matiasugluck.deremate_backend.constants.IdSequences;
 import com.matiasugluck.deremate_backend.dto.delivery.DeliveryDTO;
 import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
 import jakarta.persistence.*;
@@ -7,6 +8,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.sql.Timestamp;
 import java.util.List;
@@ -19,7 +21,10 @@ import java.util.List;
 @Builder
 public class Delivery {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "delivery_id")
+    @TableGenerator(name = "delivery_id", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = IdSequences.DELIVERY,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -39,8 +44,10 @@ public class Delivery {
     @Column(name = "delivery_end_date")
     private Timestamp deliveryEndDate;
 
-    @Column(name = "qr_code", length = 500)
-    private String qrCode; // Este es el string que representa el QR en BASE64
+    // Las transiciones de estado son UPDATE condicionales que tambien lo incrementan;
+    // cualquier otra escritura desde una entidad cargada falla si la fila cambio en el medio
+    @Version
+    private Long version;
 
     @Column(name = "pin", nullable = false)
     private String pin;
@@ -49,7 +56,9 @@ public class Delivery {
     @JoinColumn(name = "route_id", nullable = false, referencedColumnName = "id")
     private Route route;
 
+    // Los listados paginados cargan los productos de toda la pagina en un solo SELECT ... IN
     @ManyToMany
+    @BatchSize(size = 100)
     @JoinTable(
             name = "delivery_products",
             joinColumns = @JoinColumn(name = "delivery_id"),
@@ -67,7 +76,6 @@ public class Delivery {
                 .deliveryStartDate(deliveryStartDate)
                 .deliveryEndDate(deliveryEndDate)
                 .products(products.stream().map(Product::toDto).toList())
-                .qrCode(qrCode)
                 .pin(pin)
                 .route(route.toDto())
                 .build();
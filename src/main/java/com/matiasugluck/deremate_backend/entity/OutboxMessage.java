@@ -0,0 +1,51 @@
+package com.matiasugluck.deremate_backend.entity;
+
+import com.matiasugluck.deremate_backend.enums.OutboxMessageType;
+import com.matiasugluck.deremate_backend.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.Timestamp;
+
+// Mensaje pendiente de envio (push o email), escrito en la misma transaccion que el cambio de negocio
+@Entity
+@Table(name = "outbox_message", indexes = @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private OutboxMessageType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OutboxStatus status;
+
+    // JSON con los datos del envio (PushPayload o EmailPayload)
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Timestamp nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Timestamp createdAt;
+
+    @Column(name = "sent_at")
+    private Timestamp sentAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
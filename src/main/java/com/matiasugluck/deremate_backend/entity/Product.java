@@ -1,5 +1,6 @@
 package com.matiasugluck.deremate_backend.entity;
 
+import com.matiasugluck.deremate_backend.constants.IdSequences;
 import com.matiasugluck.deremate_backend.dto.product.ProductDTO;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -17,7 +18,10 @@ import java.math.BigDecimal;
 @Builder
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_id")
+    @TableGenerator(name = "product_id", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = IdSequences.PRODUCT,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "name")
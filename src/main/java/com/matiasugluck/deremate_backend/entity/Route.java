@@ -1,5 +1,6 @@
 package com.matiasugluck.deremate_backend.entity;
 
+import com.matiasugluck.deremate_backend.constants.IdSequences;
 import com.matiasugluck.deremate_backend.dto.RouteDTO;
 import com.matiasugluck.deremate_backend.enums.RouteStatus;
 import jakarta.persistence.*;
@@ -18,7 +19,10 @@ import org.hibernate.annotations.UpdateTimestamp;
 public class Route {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "route_id")
+    @TableGenerator(name = "route_id", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = IdSequences.ROUTE,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     private String description;
@@ -44,6 +48,10 @@ public class Route {
     @UpdateTimestamp
     private Timestamp lastUpdatedAt;
 
+    // Control optimista para asignar/completar desde la entidad; el cierre por entrega usa UPDATE condicional
+    @Version
+    private Long version;
+
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = true)
     private User assignedTo;
@@ -0,0 +1,6 @@
+package com.matiasugluck.deremate_backend.enums;
+
+public enum IntakeFormat {
+    JSON_LINES,
+    CSV
+}
@@ -0,0 +1,7 @@
+package com.matiasugluck.deremate_backend.enums;
+
+public enum OutboxMessageType {
+    PUSH_BROADCAST,
+    PUSH_USER,
+    EMAIL
+}
@@ -0,0 +1,11 @@
+package com.matiasugluck.deremate_backend.enums;
+
+// Que cambios de estado recibe un suscriptor de /events
+public enum StreamScope {
+    // Solo los de sus rutas y entregas
+    OWN,
+    // Los suyos y las rutas que entran o salen de las disponibles
+    AVAILABLE,
+    // Todos (pantalla de despacho)
+    ALL
+}
@@ -0,0 +1,7 @@
+package com.matiasugluck.deremate_backend.enums;
+
+// Entidades cuyas transiciones de estado se registran en el journal
+public enum TransitionEntity {
+    ROUTE,
+    DELIVERY
+}
@@ -0,0 +1,30 @@
+package com.matiasugluck.deremate_backend.enums;
+
+import java.time.Duration;
+
+// Ventanas del mapa de zonas en vivo; cada una avanza de a un pane
+public enum ZoneWindow {
+    LAST_HOUR(Duration.ofMinutes(5), 12),
+    LAST_DAY(Duration.ofHours(1), 24),
+    LAST_WEEK(Duration.ofHours(6), 28);
+
+    private final Duration pane;
+    private final int panes;
+
+    ZoneWindow(Duration pane, int panes) {
+        this.pane = pane;
+        this.panes = panes;
+    }
+
+    public Duration getPane() {
+        return pane;
+    }
+
+    public int getPanes() {
+        return panes;
+    }
+
+    public Duration getLength() {
+        return pane.multipliedBy(panes);
+    }
+}
@@ -0,0 +1,19 @@
+package com.matiasugluck.deremate_backend.event;
+
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.sql.Timestamp;
+
+// Se publica dentro de la transaccion de alta; los listeners lo reciben despues del commit
+@Getter
+@AllArgsConstructor
+public class DeliveryCreatedEvent {
+    private final Long deliveryId;
+    private final Long routeId;
+    private final String packageLocation;
+    private final Timestamp createdDate;
+    // Destino de la ruta; puede ser null
+    private final Coordinates destination;
+}
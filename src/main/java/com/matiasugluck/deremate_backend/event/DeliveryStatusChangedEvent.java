@@ -0,0 +1,20 @@
+package com.matiasugluck.deremate_backend.event;
+
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Se publica dentro de la transaccion que cambia el estado; los listeners lo reciben despues del commit
+@Getter
+@AllArgsConstructor
+public class DeliveryStatusChangedEvent {
+    private final Long deliveryId;
+    private final Long routeId;
+    // Repartidor de la ruta (null si no tiene)
+    private final Long assignedUserId;
+    private final DeliveryStatus previousStatus;
+    private final DeliveryStatus newStatus;
+    // Destino de la ruta; puede ser null
+    private final Coordinates destination;
+}
@@ -0,0 +1,18 @@
+package com.matiasugluck.deremate_backend.event;
+
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.sql.Timestamp;
+
+// Ruta creada sin entrega (POST /routes); las de las entregas llegan con DeliveryCreatedEvent
+@Getter
+@AllArgsConstructor
+public class RouteCreatedEvent {
+    private final Long routeId;
+    private final String description;
+    // Destino de la ruta; puede ser null
+    private final Coordinates destination;
+    private final Timestamp lastUpdatedAt;
+}
@@ -0,0 +1,16 @@
+package com.matiasugluck.deremate_backend.event;
+
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Se publica dentro de la transaccion que cambia el estado; los listeners lo reciben despues del commit
+@Getter
+@AllArgsConstructor
+public class RouteStatusChangedEvent {
+    private final Long routeId;
+    // Repartidor asignado despues del cambio (null si la ruta no tiene)
+    private final Long assignedUserId;
+    private final RouteStatus previousStatus;
+    private final RouteStatus newStatus;
+}
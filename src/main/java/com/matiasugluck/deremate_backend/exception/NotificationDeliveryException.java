@@ -0,0 +1,21 @@
+package com.matiasugluck.deremate_backend.exception;
+
+import java.util.List;
+
+public class NotificationDeliveryException extends RuntimeException {
+    // Tokens a los que no llego el envio y conviene reintentar
+    private final List<String> failedTokens;
+
+    public NotificationDeliveryException(String message) {
+        this(message, List.of());
+    }
+
+    public NotificationDeliveryException(String message, List<String> failedTokens) {
+        super(message);
+        this.failedTokens = failedTokens;
+    }
+
+    public List<String> getFailedTokens() {
+        return failedTokens;
+    }
+}
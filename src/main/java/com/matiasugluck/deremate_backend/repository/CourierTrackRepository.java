@@ -0,0 +1,86 @@
+package com.matiasugluck.deremate_backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Escritura por lotes de posiciones en courier_track. Recibe arreglos paralelos para no crear un
+ * objeto por posicion; con rewriteBatchedStatements el driver lo manda como INSERT multi-fila.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CourierTrackRepository {
+
+    private static final String INSERT_TRACK =
+            "INSERT INTO courier_track (user_id, latitude, longitude, recorded_at) VALUES (?, ?, ?, ?)";
+    private static final String FIND_FROM =
+            "SELECT id, latitude, longitude, recorded_at FROM courier_track WHERE user_id = ? AND id >= ? ORDER BY id LIMIT ?";
+    private static final String FIND_CREDITED_UP_TO =
+            "SELECT track_points_after_id FROM `user` WHERE id = ?";
+    private static final String ADVANCE_CREDITED_UP_TO =
+            "UPDATE `user` SET track_points_after_id = ? WHERE id = ? AND track_points_after_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(long[] userIds, double[] latitudes, double[] longitudes, long[] epochMillis, int count) {
+        if (count == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_TRACK, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, userIds[i]);
+                ps.setDouble(2, latitudes[i]);
+                ps.setDouble(3, longitudes[i]);
+                ps.setTimestamp(4, new Timestamp(epochMillis[i]));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    /**
+     * Copia en los arreglos, en orden de escritura, hasta ids.length posiciones del usuario con
+     * id >= fromId.
+     *
+     * @return cantidad de posiciones copiadas
+     */
+    public int findFrom(long userId, long fromId, long[] ids, double[] latitudes, double[] longitudes, long[] epochMillis) {
+        int[] count = {0};
+        jdbcTemplate.query(FIND_FROM, (RowCallbackHandler) rs -> {
+            int i = count[0]++;
+            ids[i] = rs.getLong(1);
+            latitudes[i] = rs.getDouble(2);
+            longitudes[i] = rs.getDouble(3);
+            epochMillis[i] = rs.getTimestamp(4).getTime();
+        }, userId, fromId, ids.length);
+        return count[0];
+    }
+
+    // Id de la ultima posicion del usuario ya convertida en puntos; vacio si el usuario no existe
+    public Optional<Long> findCreditedUpTo(long userId) {
+        List<Long> result = jdbcTemplate.queryForList(FIND_CREDITED_UP_TO, Long.class, userId);
+        return result.stream().findFirst();
+    }
+
+    /**
+     * Avanza la ultima posicion convertida en puntos si nadie la movio desde que se leyo.
+     *
+     * @return false si otro canje concurrente ya la avanzo
+     */
+    public boolean advanceCreditedUpTo(long userId, long expected, long next) {
+        return jdbcTemplate.update(ADVANCE_CREDITED_UP_TO, next, userId, expected) == 1;
+    }
+}
@@ -0,0 +1,105 @@
+package com.matiasugluck.deremate_backend.repository;
+
+import com.matiasugluck.deremate_backend.constants.IdSequences;
+import com.matiasugluck.deremate_backend.dto.delivery.CreateDeliveryDTO;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserciones JDBC por lotes para la carga masiva de entregas.
+ * Cada metodo envia un unico batch por llamada; las transacciones las maneja quien lo invoca.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeliveryBatchRepository {
+
+    private static final String INSERT_ROUTE =
+            "INSERT INTO route (id, destination_latitude, destination_longitude, status, last_updated_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_DELIVERY =
+            "INSERT INTO delivery (id, status, package_location, created_date, pin, route_id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_DELIVERY_PRODUCT =
+            "INSERT INTO delivery_products (delivery_id, product_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdSequenceRepository idSequenceRepository;
+
+    public List<Long> insertRoutes(List<CreateDeliveryDTO> rows, Timestamp now) {
+        return batchInsert(INSERT_ROUTE, IdSequences.ROUTE, rows.size(), (ps, i) -> {
+            CreateDeliveryDTO row = rows.get(i);
+            ps.setDouble(2, row.getDestinationLatitude());
+            ps.setDouble(3, row.getDestinationLongitude());
+            ps.setString(4, RouteStatus.PENDING.name());
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    public List<Long> insertDeliveries(List<CreateDeliveryDTO> rows, List<Long> routeIds, List<String> pins, Timestamp now) {
+        return batchInsert(INSERT_DELIVERY, IdSequences.DELIVERY, rows.size(), (ps, i) -> {
+            CreateDeliveryDTO row = rows.get(i);
+            ps.setString(2, DeliveryStatus.NOT_DELIVERED.name());
+            if (row.getPackageLocation() != null) {
+                ps.setString(3, row.getPackageLocation());
+            } else {
+                ps.setNull(3, Types.VARCHAR);
+            }
+            ps.setTimestamp(4, now);
+            ps.setString(5, pins.get(i));
+            ps.setLong(6, routeIds.get(i));
+        });
+    }
+
+    public void insertDeliveryProducts(List<Long> deliveryIds, List<List<Long>> productIds) {
+        List<long[]> pairs = new ArrayList<>();
+        for (int i = 0; i < deliveryIds.size(); i++) {
+            for (Long productId : productIds.get(i)) {
+                pairs.add(new long[]{deliveryIds.get(i), productId});
+            }
+        }
+        if (pairs.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_DELIVERY_PRODUCT, pairs, pairs.size(), (ps, pair) -> {
+            ps.setLong(1, pair[0]);
+            ps.setLong(2, pair[1]);
+        });
+    }
+
+    // Los ids salen de un bloque reservado en id_sequences, asi el batch no depende de RETURN_GENERATED_KEYS
+    private List<Long> batchInsert(String sql, String sequence, int size, RowSetter setter) {
+        long firstId = idSequenceRepository.reserve(sequence, size);
+        List<Long> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(firstId + i);
+        }
+
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, ids.get(i));
+                setter.set(ps, i);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return size;
+            }
+        });
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void set(PreparedStatement ps, int i) throws SQLException;
+    }
+}
@@ -1,29 +1,95 @@
 package com.matiasugluck.deremate_backend.repository;
 
 import com.matiasugluck.deremate_backend.dto.delivery.DeliveryDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryTransitionView;
+import com.matiasugluck.deremate_backend.dto.delivery.WarehouseItemDTO;
+import com.matiasugluck.deremate_backend.dto.route.ItineraryStopRow;
 import com.matiasugluck.deremate_backend.entity.Delivery;
 import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
 
-    @Query("SELECT d FROM Delivery d JOIN d.route r WHERE r.assignedTo.id = :userId ORDER BY r.lastUpdatedAt DESC")
-    List<Delivery> findByUserId(@Param("userId") Long userId);
+    // Listados paginados por keyset: la primera pagina y las siguientes (despues del cursor) son
+    // consultas separadas para que ambas usen el indice sin OR con parametros nulos.
+    // route y route.assignedTo vienen en el JOIN; products se completa con un unico batch
+    // (@BatchSize en Delivery), porque un fetch de coleccion con LIMIT pagina en memoria.
 
+    @EntityGraph(attributePaths = {"route", "route.assignedTo"})
+    @Query("SELECT d FROM Delivery d JOIN d.route r WHERE r.assignedTo.id = :userId " +
+            "ORDER BY r.lastUpdatedAt DESC, d.id DESC")
+    List<Delivery> findByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Paradas pendientes de un repartidor, en el mismo orden que el listado de sus entregas
+    @Query("SELECT new com.matiasugluck.deremate_backend.dto.route.ItineraryStopRow(r.assignedTo.id, d.id, r.id, " +
+            "r.description, d.packageLocation, r.destination.latitude, r.destination.longitude) " +
+            "FROM Delivery d JOIN d.route r WHERE r.assignedTo.id = :userId AND r.status = :routeStatus " +
+            "AND d.status = :status ORDER BY r.lastUpdatedAt DESC, d.id DESC")
+    List<ItineraryStopRow> findItineraryStops(@Param("userId") Long userId, @Param("routeStatus") RouteStatus routeStatus,
+                                              @Param("status") DeliveryStatus status);
+
+    // Lo mismo para todos los repartidores con rutas en curso
+    @Query("SELECT new com.matiasugluck.deremate_backend.dto.route.ItineraryStopRow(r.assignedTo.id, d.id, r.id, " +
+            "r.description, d.packageLocation, r.destination.latitude, r.destination.longitude) " +
+            "FROM Delivery d JOIN d.route r WHERE r.assignedTo IS NOT NULL AND r.status = :routeStatus " +
+            "AND d.status = :status ORDER BY r.assignedTo.id, r.lastUpdatedAt DESC, d.id DESC")
+    List<ItineraryStopRow> findAllItineraryStops(@Param("routeStatus") RouteStatus routeStatus,
+                                                 @Param("status") DeliveryStatus status);
+
+    @EntityGraph(attributePaths = {"route", "route.assignedTo"})
+    @Query("SELECT d FROM Delivery d JOIN d.route r WHERE r.assignedTo.id = :userId " +
+            "AND (r.lastUpdatedAt < :lastUpdatedAt OR (r.lastUpdatedAt = :lastUpdatedAt AND d.id < :id)) " +
+            "ORDER BY r.lastUpdatedAt DESC, d.id DESC")
+    List<Delivery> findByUserIdAfter(@Param("userId") Long userId, @Param("lastUpdatedAt") Timestamp lastUpdatedAt,
+                                     @Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"route", "route.assignedTo", "products"})
+    @Query("SELECT d FROM Delivery d WHERE d.id = :id")
+    Optional<Delivery> findWithDetailsById(@Param("id") Long id);
+
+
+    @Query("SELECT new com.matiasugluck.deremate_backend.dto.delivery.DeliveryTransitionView(d.id, d.status, d.pin, d.createdDate, " +
+            "r.id, r.status, r.description, r.completedAt, u.id, r.destination.latitude, r.destination.longitude) " +
+            "FROM Delivery d JOIN d.route r LEFT JOIN r.assignedTo u WHERE d.id = :id")
+    Optional<DeliveryTransitionView> findTransitionViewById(@Param("id") Long id);
+
+    // Transicion atomica: solo cambia la fila si sigue en el estado esperado. Devuelve 0 si otra transaccion gano
+    @Modifying
+    @Query("UPDATE Delivery d SET d.status = :newStatus, d.version = d.version + 1 " +
+            "WHERE d.id = :id AND d.status = :expectedStatus")
+    int updateStatusIfCurrent(@Param("id") Long id, @Param("expectedStatus") DeliveryStatus expectedStatus,
+                              @Param("newStatus") DeliveryStatus newStatus);
 
     @Query("SELECT CASE WHEN COUNT(d) > 0 THEN true ELSE false END FROM Delivery d WHERE d.route.id = :routeId")
     boolean existsByRoute_Id(@Param("routeId") Long routeId);
 
-    @Query("SELECT d from Delivery d join d.route r where r.assignedTo IS null AND d.status = :excludedStatus")
-    List<Delivery> findUnassignedDeliveries(@Param("excludedStatus") DeliveryStatus excludedStatus);
+    // Paquetes en el deposito: sin repartidor asignado y todavia sin entregar. Alimenta el indice en memoria
+    @Query("SELECT new com.matiasugluck.deremate_backend.dto.delivery.WarehouseItemDTO(d.id, r.id, d.packageLocation, d.createdDate) " +
+            "FROM Delivery d JOIN d.route r WHERE r.assignedTo IS NULL AND d.status = :status")
+    List<WarehouseItemDTO> findWarehouseItems(@Param("status") DeliveryStatus status);
 
-    @Query("SELECT d FROM Delivery d JOIN d.route r WHERE d.status = :status AND r.assignedTo IS NOT NULL")
-    List<Delivery> findAssignedAndNotDelivered(@Param("status") DeliveryStatus status);
+    @EntityGraph(attributePaths = {"route", "route.assignedTo"})
+    @Query("SELECT d FROM Delivery d JOIN d.route r WHERE d.status = :status AND r.assignedTo IS NOT NULL " +
+            "ORDER BY d.createdDate, d.id")
+    List<Delivery> findAssignedAndNotDelivered(@Param("status") DeliveryStatus status, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"route", "route.assignedTo"})
+    @Query("SELECT d FROM Delivery d JOIN d.route r WHERE d.status = :status AND r.assignedTo IS NOT NULL " +
+            "AND (d.createdDate > :createdDate OR (d.createdDate = :createdDate AND d.id > :id)) " +
+            "ORDER BY d.createdDate, d.id")
+    List<Delivery> findAssignedAndNotDeliveredAfter(@Param("status") DeliveryStatus status,
+                                                    @Param("createdDate") Timestamp createdDate,
+                                                    @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,239 @@
+package com.matiasugluck.deremate_backend.repository;
+
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Tablas de rollup de entregas (delivery_status_rollup, delivery_day_rollup, delivery_zone_rollup)
+ * y el estado del backfill. Las escrituras son sumas relativas (upsert), asi varias transacciones
+ * pueden actualizar el mismo contador sin leerlo antes; se participan de la transaccion del llamador.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeliveryRollupRepository {
+
+    public static final int CREATED = 0;
+    public static final int DELIVERED = 1;
+    public static final int REJECTED = 2;
+
+    private static final String UPSERT_STATUS =
+            "INSERT INTO delivery_status_rollup (status, delivery_count) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE delivery_count = delivery_count + VALUES(delivery_count)";
+    private static final String UPSERT_DAY =
+            "INSERT INTO delivery_day_rollup (day, created_count, delivered_count, rejected_count) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE created_count = created_count + VALUES(created_count), " +
+            "delivered_count = delivered_count + VALUES(delivered_count), rejected_count = rejected_count + VALUES(rejected_count)";
+    private static final String UPSERT_ZONE =
+            "INSERT INTO delivery_zone_rollup (zone, delivery_count, delivered_count, rejected_count) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE delivery_count = delivery_count + VALUES(delivery_count), " +
+            "delivered_count = delivered_count + VALUES(delivered_count), rejected_count = rejected_count + VALUES(rejected_count)";
+    private static final String SELECT_BACKFILL_STATE =
+            "SELECT running, cursor_id, upper_bound FROM delivery_rollup_backfill WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Suma el delta a los contadores. Las claves van ordenadas para que dos transacciones
+     * concurrentes tomen los locks de fila en el mismo orden.
+     */
+    public void apply(Delta delta) {
+        List<Object[]> statuses = new ArrayList<>();
+        new TreeMap<>(delta.statuses).forEach((status, count) -> {
+            if (count != 0) {
+                statuses.add(new Object[]{status, count});
+            }
+        });
+        List<Object[]> days = new ArrayList<>();
+        new TreeMap<>(delta.days).forEach((day, counts) -> {
+            if (!isZero(counts)) {
+                days.add(new Object[]{Date.valueOf(day), counts[CREATED], counts[DELIVERED], counts[REJECTED]});
+            }
+        });
+        List<Object[]> zones = new ArrayList<>();
+        new TreeMap<>(delta.zones).forEach((zone, counts) -> {
+            if (!isZero(counts)) {
+                zones.add(new Object[]{zone, counts[CREATED], counts[DELIVERED], counts[REJECTED]});
+            }
+        });
+
+        if (!statuses.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_STATUS, statuses);
+        }
+        if (!days.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_DAY, days);
+        }
+        if (!zones.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_ZONE, zones);
+        }
+    }
+
+    public Map<String, Long> findStatusCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT status, delivery_count FROM delivery_status_rollup",
+                rs -> {
+                    counts.put(rs.getString(1), rs.getLong(2));
+                });
+        return counts;
+    }
+
+    /**
+     * @return contadores por dia en [from, to], indexados por dia; los dias sin movimiento no estan
+     */
+    public Map<LocalDate, long[]> findDays(LocalDate from, LocalDate to) {
+        Map<LocalDate, long[]> days = new HashMap<>();
+        jdbcTemplate.query("SELECT day, created_count, delivered_count, rejected_count FROM delivery_day_rollup " +
+                        "WHERE day BETWEEN ? AND ?",
+                rs -> {
+                    days.put(rs.getDate(1).toLocalDate(), new long[]{rs.getLong(2), rs.getLong(3), rs.getLong(4)});
+                },
+                Date.valueOf(from), Date.valueOf(to));
+        return days;
+    }
+
+    public List<ZoneCount> findTopZones(int limit) {
+        return jdbcTemplate.query("SELECT zone, delivery_count, delivered_count, rejected_count FROM delivery_zone_rollup " +
+                        "WHERE delivery_count > 0 ORDER BY delivery_count DESC, zone LIMIT ?",
+                (rs, rowNum) -> new ZoneCount(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)),
+                limit);
+    }
+
+    /**
+     * Lee el estado del backfill con lock compartido: el backfill no puede avanzar el cursor
+     * hasta que la transaccion del llamador termine.
+     */
+    public BackfillState lockBackfillStateShared() {
+        return jdbcTemplate.queryForObject(SELECT_BACKFILL_STATE + " LOCK IN SHARE MODE",
+                (rs, rowNum) -> new BackfillState(rs.getBoolean(1), rs.getLong(2), rs.getLong(3)));
+    }
+
+    public BackfillState lockBackfillStateExclusive() {
+        return jdbcTemplate.queryForObject(SELECT_BACKFILL_STATE + " FOR UPDATE",
+                (rs, rowNum) -> new BackfillState(rs.getBoolean(1), rs.getLong(2), rs.getLong(3)));
+    }
+
+    /**
+     * Vacia los rollups y deja el backfill apuntando al principio. Requiere el lock exclusivo del estado.
+     */
+    public void resetForBackfill(Timestamp now) {
+        jdbcTemplate.update("DELETE FROM delivery_status_rollup");
+        jdbcTemplate.update("DELETE FROM delivery_day_rollup");
+        jdbcTemplate.update("DELETE FROM delivery_zone_rollup");
+        jdbcTemplate.update("UPDATE delivery_rollup_backfill SET running = 1, cursor_id = 0, " +
+                "upper_bound = (SELECT COALESCE(MAX(id), 0) FROM delivery), started_at = ?, finished_at = NULL WHERE id = 1", now);
+    }
+
+    public void advanceBackfill(long cursorId) {
+        jdbcTemplate.update("UPDATE delivery_rollup_backfill SET cursor_id = ? WHERE id = 1", cursorId);
+    }
+
+    public void finishBackfill(Timestamp now) {
+        jdbcTemplate.update("UPDATE delivery_rollup_backfill SET running = 0, cursor_id = upper_bound, finished_at = ? WHERE id = 1", now);
+    }
+
+    /**
+     * Entregas con id en (afterId, upToId], en orden de id, con los datos de la ruta que usan los rollups.
+     */
+    public List<RollupSource> findSources(long afterId, long upToId, int limit) {
+        return jdbcTemplate.query("SELECT d.id, d.status, d.created_date, r.completed_at, r.destination_latitude, r.destination_longitude " +
+                        "FROM delivery d JOIN route r ON r.id = d.route_id WHERE d.id > ? AND d.id <= ? ORDER BY d.id LIMIT ?",
+                (rs, rowNum) -> toSource(rs),
+                afterId, upToId, limit);
+    }
+
+    /**
+     * Recorre, sin cargarlas todas en memoria, las entregas creadas desde since.
+     */
+    public void forEachSourceCreatedSince(Timestamp since, Consumer<RollupSource> consumer) {
+        jdbcTemplate.query("SELECT d.id, d.status, d.created_date, r.completed_at, r.destination_latitude, r.destination_longitude " +
+                        "FROM delivery d JOIN route r ON r.id = d.route_id WHERE d.created_date >= ?",
+                rs -> {
+                    consumer.accept(toSource(rs));
+                },
+                since);
+    }
+
+    private static RollupSource toSource(ResultSet rs) throws SQLException {
+        return new RollupSource(
+                rs.getLong(1),
+                rs.getString(2) != null ? DeliveryStatus.valueOf(rs.getString(2)) : null,
+                rs.getTimestamp(3),
+                rs.getTimestamp(4),
+                rs.getObject(5, Double.class),
+                rs.getObject(6, Double.class));
+    }
+
+    private static boolean isZero(long[] counts) {
+        return counts[CREATED] == 0 && counts[DELIVERED] == 0 && counts[REJECTED] == 0;
+    }
+
+    /**
+     * Cambios acumulados sobre los tres rollups. Las columnas de dias y zonas son CREATED, DELIVERED y REJECTED
+     * (en zonas, CREATED es el total de entregas de la zona).
+     */
+    public static class Delta {
+        private final Map<String, Long> statuses = new HashMap<>();
+        private final Map<LocalDate, long[]> days = new HashMap<>();
+        private final Map<String, long[]> zones = new HashMap<>();
+
+        public void addStatus(DeliveryStatus status, long count) {
+            statuses.merge(status.name(), count, Long::sum);
+        }
+
+        public void addDay(LocalDate day, int column, long count) {
+            days.computeIfAbsent(day, key -> new long[3])[column] += count;
+        }
+
+        public void addZone(String zone, int column, long count) {
+            zones.computeIfAbsent(zone, key -> new long[3])[column] += count;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RollupSource {
+        private final long deliveryId;
+        private final DeliveryStatus status;
+        private final Timestamp createdDate;
+        private final Timestamp completedAt;
+        private final Double latitude;
+        private final Double longitude;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ZoneCount {
+        private final String zone;
+        private final long deliveries;
+        private final long delivered;
+        private final long rejected;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class BackfillState {
+        private final boolean running;
+        private final long cursorId;
+        private final long upperBound;
+
+        // Las entregas que todavia no leyo el backfill las va a contar el; el resto se cuenta en linea
+        public boolean isPendingBackfill(long deliveryId) {
+            return running && deliveryId > cursorId && deliveryId <= upperBound;
+        }
+    }
+}
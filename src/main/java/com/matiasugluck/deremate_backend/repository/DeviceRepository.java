@@ -3,8 +3,14 @@ package com.matiasugluck.deremate_backend.repository;
 import com.matiasugluck.deremate_backend.entity.Device;
 import com.matiasugluck.deremate_backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +18,17 @@ public interface DeviceRepository extends JpaRepository<Device, Long> {
     void deleteByDeviceId(String deviceId);
     void deleteByUserAndDeviceId(User user, String deviceId);
     List<Device> findByUser(User user);
+
+    // Solo los tokens, sin cargar las entidades ni sus usuarios
+    @Query("SELECT DISTINCT d.deviceId FROM Device d")
+    List<String> findAllDeviceIds();
+
+    @Query("SELECT d.deviceId FROM Device d WHERE d.user.id = :userId")
+    List<String> findDeviceIdsByUserId(@Param("userId") Long userId);
+
+    // Transaccion propia: un error aca no puede marcar como rollback-only la del llamador
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("DELETE FROM Device d WHERE d.deviceId IN :deviceIds")
+    int deleteByDeviceIdIn(@Param("deviceIds") Collection<String> deviceIds);
 }
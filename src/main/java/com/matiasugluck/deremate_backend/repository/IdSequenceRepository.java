@@ -0,0 +1,74 @@
+package com.matiasugluck.deremate_backend.repository;
+
+import com.matiasugluck.deremate_backend.constants.IdSequences;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Acceso directo a la tabla id_sequences que usa el @TableGenerator de las entidades.
+ * next_val es siempre el proximo id libre (optimizador pooled-lo), asi Hibernate y las
+ * inserciones JDBC pueden repartirse bloques sin pisarse.
+ */
+@Repository
+public class IdSequenceRepository {
+
+    private static final String RESERVE =
+            "UPDATE " + IdSequences.TABLE + " SET " + IdSequences.VALUE_COLUMN + " = LAST_INSERT_ID(" + IdSequences.VALUE_COLUMN + " + ?)" +
+            " WHERE " + IdSequences.NAME_COLUMN + " = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+
+    public IdSequenceRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserva count ids consecutivos en una transaccion propia, para no retener el lock de la
+     * fila durante la transaccion del llamador.
+     *
+     * @return el primer id del bloque; el bloque es [first, first + count)
+     */
+    public long reserve(String sequence, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        Long next = requiresNew.execute(status -> jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(RESERVE)) {
+                ps.setInt(1, count);
+                ps.setString(2, sequence);
+                if (ps.executeUpdate() == 0) {
+                    throw new IllegalStateException("Unknown id sequence " + sequence);
+                }
+            }
+            // LAST_INSERT_ID() es por conexion: devuelve el valor que acabamos de escribir
+            try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("SELECT LAST_INSERT_ID()")) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }));
+        return next - count;
+    }
+
+    /**
+     * Deja next_val por encima del mayor id existente en la tabla, creando la fila si no existe.
+     * Nunca retrocede una secuencia.
+     */
+    public void alignWith(String sequence, String table) {
+        jdbcTemplate.update(
+                "INSERT INTO " + IdSequences.TABLE + " (" + IdSequences.NAME_COLUMN + ", " + IdSequences.VALUE_COLUMN + ")" +
+                " SELECT * FROM (SELECT ? AS seq, COALESCE(MAX(id), 0) + 1 AS val FROM " + table + ") AS src" +
+                " ON DUPLICATE KEY UPDATE " + IdSequences.VALUE_COLUMN + " = GREATEST(" + IdSequences.VALUE_COLUMN + ", val)",
+                sequence);
+    }
+}
@@ -0,0 +1,23 @@
+package com.matiasugluck.deremate_backend.repository;
+
+import com.matiasugluck.deremate_backend.entity.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Bloquea un lote de mensajes listos para enviar. Las filas ya bloqueadas por otra instancia
+     * del dispatcher se saltean (SKIP LOCKED), asi varias instancias pueden procesar en paralelo.
+     * Debe llamarse dentro de una transaccion.
+     */
+    @Query(value = "SELECT * FROM outbox_message WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> claimBatch(@Param("now") Timestamp now, @Param("limit") int limit);
+}
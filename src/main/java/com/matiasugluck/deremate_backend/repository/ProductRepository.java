@@ -2,8 +2,15 @@ package com.matiasugluck.deremate_backend.repository;
 
 import com.matiasugluck.deremate_backend.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,81 @@
+package com.matiasugluck.deremate_backend.repository;
+
+import com.matiasugluck.deremate_backend.dto.route.DispatchAssignmentDTO;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actualizaciones JDBC por lotes sobre rutas. Las transacciones las maneja quien lo invoca.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RouteBatchRepository {
+
+    // Mismo efecto que assignRouteToUser, pero solo si la ruta sigue pendiente y sin repartidor
+    private static final String ASSIGN_IF_PENDING =
+            "UPDATE route SET user_id = ?, status = ?, started_at = ?, last_updated_at = ?, version = version + 1 " +
+                    "WHERE id = ? AND status = ? AND user_id IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Asigna las rutas en un unico batch. Las que ya no estaban pendientes (otro repartidor las
+     * tomo entre el snapshot y el commit) quedan como estaban.
+     *
+     * @return las asignaciones que se escribieron
+     */
+    public List<DispatchAssignmentDTO> assignPending(List<DispatchAssignmentDTO> assignments, Timestamp now) {
+        if (assignments.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(ASSIGN_IF_PENDING, assignments, assignments.size(), (ps, a) -> {
+            ps.setLong(1, a.getUserId());
+            ps.setString(2, RouteStatus.INITIATED.name());
+            ps.setTimestamp(3, now);
+            ps.setTimestamp(4, now);
+            ps.setLong(5, a.getRouteId());
+            ps.setString(6, RouteStatus.PENDING.name());
+        });
+
+        List<DispatchAssignmentDTO> applied = new ArrayList<>(assignments.size());
+        List<DispatchAssignmentDTO> unknown = new ArrayList<>();
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                DispatchAssignmentDTO assignment = assignments.get(index++);
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    unknown.add(assignment);
+                } else if (count > 0) {
+                    applied.add(assignment);
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            applied.addAll(confirm(unknown));
+        }
+        return applied;
+    }
+
+    // Si el driver reescribio el batch y no informa filas por sentencia, se relee a quien quedo asignada cada ruta
+    private List<DispatchAssignmentDTO> confirm(List<DispatchAssignmentDTO> assignments) {
+        Map<Long, Long> assignedTo = new HashMap<>();
+        String placeholders = String.join(", ", Collections.nCopies(assignments.size(), "?"));
+        jdbcTemplate.query("SELECT id, user_id FROM route WHERE id IN (" + placeholders + ")",
+                (RowCallbackHandler) rs -> assignedTo.put(rs.getLong(1), rs.getLong(2)),
+                assignments.stream().map(DispatchAssignmentDTO::getRouteId).toArray());
+        return assignments.stream()
+                .filter(a -> a.getUserId().equals(assignedTo.get(a.getRouteId())))
+                .toList();
+    }
+}
@@ -1,18 +1,108 @@
 package com.matiasugluck.deremate_backend.repository;
 
+import com.matiasugluck.deremate_backend.dto.route.AvailableRouteEntry;
+import com.matiasugluck.deremate_backend.dto.route.CourierRouteRow;
+import com.matiasugluck.deremate_backend.dto.route.EtaSampleRow;
 import com.matiasugluck.deremate_backend.entity.Route;
+import com.matiasugluck.deremate_backend.entity.User;
 import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface RouteRepository extends JpaRepository<Route, Long> {
+    // assignedTo es EAGER: con el grafo viene en el mismo JOIN en lugar de un SELECT por usuario
+    @Override
+    @EntityGraph(attributePaths = {"assignedTo"})
+    List<Route> findAll();
+
     // Todas las rutas asignadas a un usuario
+    @EntityGraph(attributePaths = {"assignedTo"})
     List<Route> findByAssignedToId(Long userId);
 
     // Rutas asignadas a un usuario con estado específico
+    @EntityGraph(attributePaths = {"assignedTo"})
     List<Route> findByAssignedToIdAndStatus(Long userId, RouteStatus status);
 
+    // Sin grafo: solo importa si existe alguna
+    boolean existsByAssignedToIdAndStatus(Long userId, RouteStatus status);
+
     // Busca rutas disponibles para un repartidor
     List<Route> findByAssignedToIsNullAndStatus(RouteStatus status);
+
+    // Listados paginados por keyset: primera pagina y paginas siguientes al cursor (lastUpdatedAt, id)
+    @EntityGraph(attributePaths = {"assignedTo"})
+    @Query("SELECT r FROM Route r ORDER BY r.lastUpdatedAt DESC, r.id DESC")
+    List<Route> findPage(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"assignedTo"})
+    @Query("SELECT r FROM Route r WHERE r.lastUpdatedAt < :lastUpdatedAt " +
+            "OR (r.lastUpdatedAt = :lastUpdatedAt AND r.id < :id) " +
+            "ORDER BY r.lastUpdatedAt DESC, r.id DESC")
+    List<Route> findPageAfter(@Param("lastUpdatedAt") Timestamp lastUpdatedAt, @Param("id") Long id, Pageable pageable);
+
+    // Las disponibles salen de la mas antigua a la mas nueva
+    @Query("SELECT r FROM Route r WHERE r.assignedTo IS NULL AND r.status = :status ORDER BY r.lastUpdatedAt, r.id")
+    List<Route> findAvailable(@Param("status") RouteStatus status, Pageable pageable);
+
+    // Rutas disponibles con destino, para reconstruir el indice espacial
+    @Query("SELECT new com.matiasugluck.deremate_backend.dto.route.AvailableRouteEntry(r.id, r.destination.latitude, " +
+            "r.destination.longitude, r.description, r.lastUpdatedAt) FROM Route r " +
+            "WHERE r.assignedTo IS NULL AND r.status = :status " +
+            "AND r.destination.latitude IS NOT NULL AND r.destination.longitude IS NOT NULL")
+    List<AvailableRouteEntry> findAvailableEntries(@Param("status") RouteStatus status);
+
+    // Rutas asignadas tocadas desde since: definen que repartidores estan trabajando y donde quedaron
+    @Query("SELECT new com.matiasugluck.deremate_backend.dto.route.CourierRouteRow(r.assignedTo.id, r.status, " +
+            "r.destination.latitude, r.destination.longitude, r.lastUpdatedAt) FROM Route r " +
+            "WHERE r.assignedTo IS NOT NULL AND r.lastUpdatedAt >= :since")
+    List<CourierRouteRow> findCourierRoutesSince(@Param("since") Timestamp since);
+
+    // Rutas de esos repartidores en un estado (las en curso son la carga actual de cada uno)
+    @Query("SELECT new com.matiasugluck.deremate_backend.dto.route.CourierRouteRow(r.assignedTo.id, r.status, " +
+            "r.destination.latitude, r.destination.longitude, r.lastUpdatedAt) FROM Route r " +
+            "WHERE r.assignedTo.id IN :userIds AND r.status = :status")
+    List<CourierRouteRow> findCourierRoutes(@Param("userIds") Collection<Long> userIds, @Param("status") RouteStatus status);
+
+    // Completadas para el backfill del ETA, por lotes en orden de id
+    @Query("SELECT new com.matiasugluck.deremate_backend.dto.route.EtaSampleRow(r.id, r.destination.latitude, " +
+            "r.destination.longitude, r.startedAt, r.completedAt) FROM Route r " +
+            "WHERE r.id > :afterId AND r.status = :status AND r.completedAt >= :since AND r.completedAt < :until " +
+            "ORDER BY r.id")
+    List<EtaSampleRow> findCompletedSamples(@Param("afterId") Long afterId, @Param("status") RouteStatus status,
+                                            @Param("since") Timestamp since, @Param("until") Timestamp until,
+                                            Pageable pageable);
+
+    @Query("SELECT new com.matiasugluck.deremate_backend.dto.route.EtaSampleRow(r.id, r.destination.latitude, " +
+            "r.destination.longitude, r.startedAt, r.completedAt) FROM Route r WHERE r.id = :id")
+    Optional<EtaSampleRow> findEtaSample(@Param("id") Long id);
+
+    @Query("SELECT r FROM Route r WHERE r.assignedTo IS NULL AND r.status = :status " +
+            "AND (r.lastUpdatedAt > :lastUpdatedAt OR (r.lastUpdatedAt = :lastUpdatedAt AND r.id > :id)) " +
+            "ORDER BY r.lastUpdatedAt, r.id")
+    List<Route> findAvailableAfter(@Param("status") RouteStatus status, @Param("lastUpdatedAt") Timestamp lastUpdatedAt,
+                                   @Param("id") Long id, Pageable pageable);
+
+    // Toma la ruta solo si sigue en el estado esperado y sin repartidor: de varios pedidos simultaneos gana uno solo
+    @Modifying
+    @Query("UPDATE Route r SET r.assignedTo = :user, r.status = :newStatus, r.startedAt = :now, r.lastUpdatedAt = :now, " +
+            "r.version = r.version + 1 WHERE r.id = :id AND r.status = :expectedStatus AND r.assignedTo IS NULL")
+    int assignIfAvailable(@Param("id") Long id, @Param("user") User user, @Param("expectedStatus") RouteStatus expectedStatus,
+                          @Param("newStatus") RouteStatus newStatus, @Param("now") Timestamp now);
+
+    // Cierra la ruta solo si sigue en el estado esperado. Un UPDATE masivo no pasa por @UpdateTimestamp,
+    // por eso lastUpdatedAt se escribe aca (lo usan los listados paginados)
+    @Modifying
+    @Query("UPDATE Route r SET r.status = :newStatus, r.completedAt = :now, r.lastUpdatedAt = :now, r.version = r.version + 1 " +
+            "WHERE r.id = :id AND r.status = :expectedStatus")
+    int closeIfCurrent(@Param("id") Long id, @Param("expectedStatus") RouteStatus expectedStatus,
+                       @Param("newStatus") RouteStatus newStatus, @Param("now") Timestamp now);
 }
@@ -0,0 +1,14 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRouteDTO;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRoutesFilter;
+
+import java.util.List;
+
+public interface AvailableRouteIndexService {
+    CursorPageDTO<AvailableRouteDTO> search(AvailableRoutesFilter filter, String cursor, Integer size);
+    List<AvailableRouteDTO> nearest(Double latitude, Double longitude, Integer k);
+    List<String> getNeighborhoods();
+    int reconcile();
+}
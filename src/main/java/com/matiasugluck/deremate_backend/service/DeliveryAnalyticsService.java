@@ -0,0 +1,26 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.delivery.CreateDeliveryDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryByDayDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryStatusCountDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryTransitionView;
+import com.matiasugluck.deremate_backend.dto.delivery.TopDeliveryZonesDTO;
+import com.matiasugluck.deremate_backend.entity.Delivery;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DeliveryAnalyticsService {
+    List<DeliveryStatusCountDTO> getStatusCounts();
+    List<DeliveryByDayDTO> getDeliveriesByDay(LocalDate from, LocalDate to);
+    List<TopDeliveryZonesDTO> getTopZones(Integer limit);
+
+    // Actualizan los rollups dentro de la transaccion del llamador
+    void recordCreated(Delivery delivery);
+    void recordCreated(List<Long> deliveryIds, List<CreateDeliveryDTO> deliveries, Timestamp createdDate);
+    void recordStatusChange(DeliveryTransitionView delivery, DeliveryStatus newStatus, Timestamp completedAt);
+
+    void startBackfill();
+}
@@ -0,0 +1,10 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryDTO;
+
+import java.util.function.Function;
+
+public interface DeliveryCacheService {
+    DeliveryDTO get(Long deliveryId, Function<Long, DeliveryDTO> loader);
+    void invalidate(Long deliveryId);
+}
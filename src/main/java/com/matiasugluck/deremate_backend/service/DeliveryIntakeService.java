@@ -0,0 +1,10 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.delivery.BulkDeliveryResultDTO;
+import com.matiasugluck.deremate_backend.enums.IntakeFormat;
+
+import java.io.InputStream;
+
+public interface DeliveryIntakeService {
+    BulkDeliveryResultDTO importDeliveries(InputStream input, IntakeFormat format);
+}
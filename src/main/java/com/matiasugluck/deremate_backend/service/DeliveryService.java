@@ -1,8 +1,8 @@
 package com.matiasugluck.deremate_backend.service;
 
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
 import com.matiasugluck.deremate_backend.dto.delivery.CreateDeliveryDTO;
 import com.matiasugluck.deremate_backend.dto.delivery.DeliveryDTO;
-import com.matiasugluck.deremate_backend.dto.delivery.PackageInWarehouseDTO;
 import com.matiasugluck.deremate_backend.entity.Delivery;
 
 import java.util.List;
@@ -12,7 +12,6 @@ public interface DeliveryService {
     void confirmDelivery(Long id, String pin);
     void cancelDelivery(Long id);
     DeliveryDTO getDeliveryById(Long id);
-    List<PackageInWarehouseDTO> getPackagesInWarehouse();
-    List<DeliveryDTO> getDeliveriesByUserId(Long userId);
-    List<DeliveryDTO> getAssignedAndNotDelivered();
+    CursorPageDTO<DeliveryDTO> getDeliveriesByUserId(Long userId, String cursor, Integer size);
+    CursorPageDTO<DeliveryDTO> getAssignedAndNotDelivered(String cursor, Integer size);
 }
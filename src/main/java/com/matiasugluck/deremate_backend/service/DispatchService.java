@@ -0,0 +1,7 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.route.DispatchPlanDTO;
+
+public interface DispatchService {
+    DispatchPlanDTO dispatch(boolean dryRun);
+}
@@ -0,0 +1,11 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.route.EtaDTO;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+
+import java.sql.Timestamp;
+
+public interface EtaService {
+    EtaDTO estimate(Double latitude, Double longitude, RouteStatus status, Timestamp startedAt);
+    int backfill();
+}
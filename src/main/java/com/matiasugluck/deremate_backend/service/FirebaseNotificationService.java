@@ -5,8 +5,11 @@ import com.matiasugluck.deremate_backend.entity.NotificationMessage;
 import com.matiasugluck.deremate_backend.entity.User;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
+
 public interface FirebaseNotificationService {
     ResponseEntity<GenericResponseDTO<String>> linkUser(String firebaseDeviceToken, User user);
     ResponseEntity<GenericResponseDTO<String>> unlinkUser(String firebaseDeviceToken, User user);
     String sendNotification(NotificationMessage notificationMessage);
+    int sendMulticast(NotificationMessage notificationMessage, List<String> recipientTokens);
 }
@@ -0,0 +1,10 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.route.ItineraryDTO;
+
+import java.util.List;
+
+public interface ItineraryService {
+    ItineraryDTO getItinerary(Long userId, Double latitude, Double longitude);
+    List<ItineraryDTO> getAllItineraries();
+}
@@ -0,0 +1,8 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.route.LocationPingDTO;
+
+public interface LocationTrackingService {
+    void recordPing(Long userId, LocationPingDTO ping);
+    int flush();
+}
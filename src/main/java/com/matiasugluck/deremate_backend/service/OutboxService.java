@@ -0,0 +1,9 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.entity.NotificationMessage;
+
+public interface OutboxService {
+    void enqueueBroadcast(NotificationMessage notificationMessage);
+    void enqueueUserPush(Long userId, NotificationMessage notificationMessage);
+    void enqueueEmail(String to, String subject, String htmlBody);
+}
@@ -1,11 +1,12 @@
 package com.matiasugluck.deremate_backend.service;
 
 import com.matiasugluck.deremate_backend.dto.points.RewardSpinDTO;
+import com.matiasugluck.deremate_backend.dto.points.TrackDistanceDTO;
 import com.matiasugluck.deremate_backend.dto.points.UserPointsDTO;
 
 public interface PointsService {
     void addPointsForCompletedDelivery(Long userId);
-    void addPointsByDistance(Long userId, double kilometers);
+    TrackDistanceDTO addPointsByTrack(Long userId);
     UserPointsDTO getUserPointsInfo(Long userId);
     double getProgressPercentage(Long userId);
     void subtractPoints(Long userId, int points);
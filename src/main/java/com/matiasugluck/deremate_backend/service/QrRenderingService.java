@@ -0,0 +1,9 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.delivery.QrImageDTO;
+
+public interface QrRenderingService {
+    QrImageDTO getQrImage(Long deliveryId);
+    boolean enqueue(Long deliveryId);
+    int renderPending();
+}
@@ -1,19 +1,24 @@
 package com.matiasugluck.deremate_backend.service;
 
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
 import com.matiasugluck.deremate_backend.dto.RouteDTO;
 import com.matiasugluck.deremate_backend.dto.route.AvailableRouteDTO;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRoutesFilter;
 import com.matiasugluck.deremate_backend.dto.route.CreateRouteDTO;
+import com.matiasugluck.deremate_backend.entity.User;
 import com.matiasugluck.deremate_backend.enums.RouteStatus;
 
 import java.util.List;
 
 public interface RouteService {
-    List<RouteDTO> getAllRoutes();
+    CursorPageDTO<RouteDTO> getAllRoutes(String cursor, Integer size);
     RouteDTO createRoute(CreateRouteDTO createRouteDTO);
-    RouteDTO assignRouteToUser(Long routeId, Long userId);
+    RouteDTO assignRouteToUser(Long routeId, User user);
     List<RouteDTO> getRoutesByUser(Long userId);
     List<RouteDTO> getRoutesByUserAndStatus(Long userId, RouteStatus status);
     RouteDTO completeRoute(Long routeId);
-    List<AvailableRouteDTO> getAvailableRoutes(String originNeighborhood, String destinationNeighborhood);
+    CursorPageDTO<AvailableRouteDTO> getAvailableRoutes(AvailableRoutesFilter filter, String cursor, Integer size);
+    List<AvailableRouteDTO> getNearestRoutes(Double latitude, Double longitude, Integer k);
+    List<String> getNeighborhoods();
 
 }
@@ -0,0 +1,8 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.enums.StreamScope;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface StatusStreamService {
+    SseEmitter subscribe(Long userId, StreamScope scope, String lastEventId);
+}
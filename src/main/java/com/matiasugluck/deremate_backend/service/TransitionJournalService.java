@@ -0,0 +1,12 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.audit.TransitionDTO;
+import com.matiasugluck.deremate_backend.enums.TransitionEntity;
+
+import java.time.Instant;
+
+public interface TransitionJournalService {
+    CursorPageDTO<TransitionDTO> find(TransitionEntity entity, Long entityId, Long userId, Instant from, Instant to,
+                                      String cursor, Integer size);
+}
@@ -0,0 +1,13 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.PackageInWarehouseDTO;
+
+import java.util.Map;
+
+public interface WarehouseInventoryService {
+    long getVersion();
+    CursorPageDTO<PackageInWarehouseDTO> getPackages(String packageLocation, String cursor, Integer size);
+    Map<String, Integer> getLocationCounts();
+    int reconcile();
+}
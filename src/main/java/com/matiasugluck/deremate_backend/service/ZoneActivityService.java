@@ -0,0 +1,10 @@
+package com.matiasugluck.deremate_backend.service;
+
+import com.matiasugluck.deremate_backend.dto.delivery.TopDeliveryZonesDTO;
+import com.matiasugluck.deremate_backend.enums.ZoneWindow;
+
+import java.util.List;
+
+public interface ZoneActivityService {
+    List<TopDeliveryZonesDTO> getTopZones(ZoneWindow window, Integer limit);
+}
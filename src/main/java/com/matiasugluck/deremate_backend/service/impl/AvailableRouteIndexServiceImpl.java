@@ -0,0 +1,482 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.matiasugluck.deremate_backend.constants.RouteApiMessages;
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRouteDTO;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRouteEntry;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRoutesFilter;
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.event.DeliveryCreatedEvent;
+import com.matiasugluck.deremate_backend.event.RouteCreatedEvent;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.RouteRepository;
+import com.matiasugluck.deremate_backend.service.AvailableRouteIndexService;
+import com.matiasugluck.deremate_backend.utils.CursorPagination;
+import com.matiasugluck.deremate_backend.utils.GeoDistance;
+import com.matiasugluck.deremate_backend.utils.GeoGrid;
+import com.matiasugluck.deremate_backend.utils.GeoPolygon;
+import com.matiasugluck.deremate_backend.utils.HaversineKernel;
+import com.matiasugluck.deremate_backend.utils.KdTree;
+import com.matiasugluck.deremate_backend.utils.LongObjectHashMap;
+import com.matiasugluck.deremate_backend.utils.NeighborhoodCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Indice espacial en memoria de las rutas disponibles (PENDING y sin repartidor) por su destino.
+ * Una grilla de celdas geohash resuelve las busquedas por radio alrededor del repartidor y por
+ * barrio de destino; un KD-tree, las k mas cercanas (/routes/nearest). Ninguna consulta toca la base.
+ * Se arma al iniciar, se mantiene con los eventos de alta, asignacion y cierre de rutas
+ * (despues del commit) y se reconcilia periodicamente contra la base.
+ */
+@Service
+public class AvailableRouteIndexServiceImpl implements AvailableRouteIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailableRouteIndexServiceImpl.class);
+
+    private static final Timestamp NO_DATE = new Timestamp(0);
+    // Cambios minimos acumulados antes de rearmar el KD-tree (ademas de 1/8 del indice)
+    private static final int REBUILD_MIN_CHANGES = 64;
+    private static final int DEFAULT_NEAREST = 10;
+    private static final Comparator<Match> BY_DISTANCE = Comparator.comparingDouble((Match match) -> match.distanceMeters)
+            .thenComparing(match -> match.entry.getRouteId());
+
+    private final RouteRepository routeRepository;
+    private final NeighborhoodCatalog neighborhoods;
+    private final CursorPagination cursorPagination;
+    private final int precision;
+    private final double defaultRadiusMeters;
+    private final double maxRadiusMeters;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reconcileLock = new Object();
+    private Index index;
+    // Cambios recibidos mientras se lee la base en una reconciliacion; se vuelven a aplicar sobre el indice nuevo
+    private List<Consumer<Index>> pendingDuringReconcile;
+
+    public AvailableRouteIndexServiceImpl(RouteRepository routeRepository,
+                                          NeighborhoodCatalog neighborhoods,
+                                          CursorPagination cursorPagination,
+                                          @Value("${routes.index.precision:6}") int precision,
+                                          @Value("${routes.available.default-radius-meters:5000}") double defaultRadiusMeters,
+                                          @Value("${routes.available.max-radius-meters:50000}") double maxRadiusMeters) {
+        this.routeRepository = routeRepository;
+        this.neighborhoods = neighborhoods;
+        this.cursorPagination = cursorPagination;
+        this.precision = precision;
+        this.defaultRadiusMeters = defaultRadiusMeters;
+        this.maxRadiusMeters = maxRadiusMeters;
+        this.index = new Index(precision, List.of());
+    }
+
+    /**
+     * Con nearest devuelve las k rutas mas cercanas a la posicion, como {@link #nearest}, sin cursor. Si no, una pagina (de la mas antigua a la mas nueva, como el listado sin filtros)
+     * de las rutas dentro del radio y/o del barrio de destino. Una posicion sin radio usa el radio por defecto.
+     */
+    @Override
+    public CursorPageDTO<AvailableRouteDTO> search(AvailableRoutesFilter filter, String cursor, Integer size) {
+        GeoPolygon area = filter.getDestinationNeighborhood() != null ? neighborhood(filter.getDestinationNeighborhood()) : null;
+        double[] origin = origin(filter);
+        Double radius = radius(filter, origin, area);
+        if (filter.getNearest() != null) {
+            return nearest(filter.getNearest(), origin, radius, area);
+        }
+
+        int pageSize = cursorPagination.resolveSize(size);
+        CursorPagination.Cursor after = cursorPagination.decode(cursor);
+        List<Match> matches = new ArrayList<>();
+        scan(origin, radius, area, match -> {
+            if (after == null || isAfter(match.entry, after)) {
+                matches.add(match);
+            }
+        });
+        matches.sort(Comparator.comparing((Match match) -> sortKey(match.entry))
+                .thenComparing(match -> match.entry.getRouteId()));
+        List<Match> rows = matches.subList(0, Math.min(matches.size(), pageSize + 1));
+        return cursorPagination.toPage(rows, pageSize, Match::toDto,
+                match -> sortKey(match.entry), match -> match.entry.getRouteId());
+    }
+
+    @Override
+    public List<AvailableRouteDTO> nearest(Double latitude, Double longitude, Integer k) {
+        double[] origin = origin(AvailableRoutesFilter.builder().latitude(latitude).longitude(longitude).build());
+        return nearest(k != null ? k : DEFAULT_NEAREST, origin, null, null).getItems();
+    }
+
+    @Override
+    public List<String> getNeighborhoods() {
+        return neighborhoods.getNames();
+    }
+
+    private CursorPageDTO<AvailableRouteDTO> nearest(int k, double[] origin, Double radius, GeoPolygon area) {
+        if (origin == null || cursorPagination.resolveSize(k) != k) {
+            throw badRequest(RouteApiMessages.INVALID_NEAREST_CODE, RouteApiMessages.INVALID_NEAREST_DESC);
+        }
+        double limit = radius != null ? radius : Double.POSITIVE_INFINITY;
+        List<AvailableRouteDTO> items = new ArrayList<>(k);
+        if (area == null) {
+            lock.readLock().lock();
+            try {
+                for (Match match : index.nearest(origin[0], origin[1], k, limit)) {
+                    items.add(match.toDto());
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            return new CursorPageDTO<>(items, null);
+        }
+        // Dentro de un barrio los candidatos son pocos: se ordenan todos por distancia
+        List<Match> matches = new ArrayList<>();
+        scan(origin, radius, area, matches::add);
+        matches.sort(BY_DISTANCE);
+        for (int i = 0; i < matches.size() && i < k; i++) {
+            items.add(matches.get(i).toDto());
+        }
+        return new CursorPageDTO<>(items, null);
+    }
+
+    // Visita las rutas del rectangulo que cubre el circulo y/o el barrio, y filtra por la forma exacta
+    private void scan(double[] origin, Double radius, GeoPolygon area, Consumer<Match> consumer) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        if (area != null) {
+            minLat = area.getMinLatitude();
+            maxLat = area.getMaxLatitude();
+            minLon = area.getMinLongitude();
+            maxLon = area.getMaxLongitude();
+        }
+        if (origin != null && radius != null) {
+            double dLat = radius / GeoDistance.METERS_PER_DEGREE;
+            double dLon = radius / (GeoDistance.METERS_PER_DEGREE * Math.max(1e-6, Math.cos(Math.toRadians(origin[0]))));
+            minLat = Math.max(minLat, origin[0] - dLat);
+            maxLat = Math.min(maxLat, origin[0] + dLat);
+            minLon = Math.max(minLon, origin[1] - dLon);
+            maxLon = Math.min(maxLon, origin[1] + dLon);
+        }
+        if (minLat > maxLat || minLon > maxLon) {
+            return;
+        }
+        Candidates candidates = new Candidates();
+        lock.readLock().lock();
+        try {
+            index.grid.forEachInBox(minLat, maxLat, minLon, maxLon, (id, latitude, longitude, entry) -> {
+                if (area == null || area.contains(latitude, longitude)) {
+                    candidates.add(latitude, longitude, entry);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (origin == null) {
+            candidates.entries.forEach(entry -> consumer.accept(new Match(entry, null)));
+            return;
+        }
+        // Las distancias de todos los candidatos se calculan en un solo lote, fuera del lock
+        int n = candidates.entries.size();
+        double[] distances = new double[n];
+        HaversineKernel.distancesFrom(origin[0], origin[1], candidates.latitudes, candidates.longitudes, distances, n);
+        for (int i = 0; i < n; i++) {
+            if (radius == null || distances[i] <= radius) {
+                consumer.accept(new Match(candidates.entries.get(i), distances[i]));
+            }
+        }
+    }
+
+    private double[] origin(AvailableRoutesFilter filter) {
+        Double latitude = filter.getLatitude();
+        Double longitude = filter.getLongitude();
+        if (latitude != null || longitude != null) {
+            if (latitude == null || longitude == null || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+                throw badRequest(RouteApiMessages.INVALID_LOCATION_CODE, RouteApiMessages.INVALID_LOCATION_DESC);
+            }
+            return new double[]{latitude, longitude};
+        }
+        if (filter.getOriginNeighborhood() != null) {
+            return neighborhood(filter.getOriginNeighborhood()).centroid();
+        }
+        return null;
+    }
+
+    private Double radius(AvailableRoutesFilter filter, double[] origin, GeoPolygon area) {
+        Double radius = filter.getRadiusMeters();
+        if (radius != null) {
+            if (origin == null) {
+                throw badRequest(RouteApiMessages.INVALID_LOCATION_CODE, RouteApiMessages.INVALID_LOCATION_DESC);
+            }
+            if (!(radius > 0) || radius > maxRadiusMeters) {
+                throw badRequest(RouteApiMessages.INVALID_RADIUS_CODE, RouteApiMessages.INVALID_RADIUS_DESC);
+            }
+            return radius;
+        }
+        // Sin radio ni barrio de destino, una posicion sola pagina las rutas cercanas
+        if (origin != null && area == null && filter.getNearest() == null) {
+            return defaultRadiusMeters;
+        }
+        return null;
+    }
+
+    private GeoPolygon neighborhood(String name) {
+        return neighborhoods.find(name)
+                .orElseThrow(() -> badRequest(RouteApiMessages.UNKNOWN_NEIGHBORHOOD_CODE, RouteApiMessages.UNKNOWN_NEIGHBORHOOD_DESC));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryCreated(DeliveryCreatedEvent event) {
+        add(event.getRouteId(), null, event.getDestination(), event.getCreatedDate());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteCreated(RouteCreatedEvent event) {
+        add(event.getRouteId(), event.getDescription(), event.getDestination(), event.getLastUpdatedAt());
+    }
+
+    // Una ruta que deja de estar PENDING (asignada, completada o cancelada) deja de estar disponible
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteStatusChanged(RouteStatusChangedEvent event) {
+        if (event.getNewStatus() != RouteStatus.PENDING || event.getAssignedUserId() != null) {
+            mutate(current -> current.remove(event.getRouteId()));
+        }
+    }
+
+    private void add(Long routeId, String description, Coordinates destination, Timestamp lastUpdatedAt) {
+        if (destination == null || destination.getLatitude() == null || destination.getLongitude() == null) {
+            return;
+        }
+        AvailableRouteEntry entry = new AvailableRouteEntry(routeId, destination.getLatitude(), destination.getLongitude(),
+                description, lastUpdatedAt);
+        mutate(current -> current.put(entry));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * Recarga el indice desde la base. Solo lo reemplaza si encontro diferencias.
+     *
+     * @return cantidad de rutas que no coincidian con la base
+     */
+    @Override
+    @Scheduled(initialDelayString = "${routes.index.reconcile-interval-ms:300000}",
+            fixedDelayString = "${routes.index.reconcile-interval-ms:300000}")
+    public int reconcile() {
+        synchronized (reconcileLock) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringReconcile = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            List<AvailableRouteEntry> rows;
+            try {
+                rows = routeRepository.findAvailableEntries(RouteStatus.PENDING);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingDuringReconcile = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                logger.error("Available routes index reconciliation failed: {}", e.getMessage(), e);
+                return 0;
+            }
+
+            Index fresh = new Index(precision, rows);
+            lock.writeLock().lock();
+            try {
+                pendingDuringReconcile.forEach(change -> change.accept(fresh));
+                pendingDuringReconcile = null;
+
+                int drift = countDifferences(index.grid, fresh.grid);
+                if (drift > 0) {
+                    index = fresh;
+                    logger.info("Available routes index reconciled: {} routes, {} entries corrected", fresh.grid.size(), drift);
+                }
+                return drift;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void mutate(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (pendingDuringReconcile != null) {
+                pendingDuringReconcile.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int countDifferences(GeoGrid<AvailableRouteEntry> current, GeoGrid<AvailableRouteEntry> fresh) {
+        int[] differences = {0};
+        current.forEach((id, latitude, longitude, entry) -> {
+            AvailableRouteEntry match = fresh.get(id);
+            if (match == null || !sameEntry(entry, match)) {
+                differences[0]++;
+            }
+        });
+        fresh.forEach((id, latitude, longitude, entry) -> {
+            if (current.get(id) == null) {
+                differences[0]++;
+            }
+        });
+        return differences[0];
+    }
+
+    private static boolean sameEntry(AvailableRouteEntry a, AvailableRouteEntry b) {
+        return a.getLatitude().equals(b.getLatitude())
+                && a.getLongitude().equals(b.getLongitude())
+                && Objects.equals(a.getDescription(), b.getDescription());
+    }
+
+    private static boolean isAfter(AvailableRouteEntry entry, CursorPagination.Cursor cursor) {
+        int cmp = sortKey(entry).compareTo(cursor.getSortKey());
+        return cmp > 0 || (cmp == 0 && entry.getRouteId() > cursor.getId());
+    }
+
+    private static Timestamp sortKey(AvailableRouteEntry entry) {
+        return entry.getLastUpdatedAt() != null ? entry.getLastUpdatedAt() : NO_DATE;
+    }
+
+    private static ApiException badRequest(String code, String description) {
+        return new ApiException(code, description, HttpStatus.BAD_REQUEST.value());
+    }
+
+    /**
+     * Grilla para radio y barrio, KD-tree para los k mas cercanos. El arbol es inmutable: las altas
+     * posteriores a armarlo se recorren aparte y las bajas se filtran por id, hasta que suman lo
+     * suficiente para rearmarlo (O(n log n) cada n/8 cambios).
+     */
+    private static class Index {
+        private final GeoGrid<AvailableRouteEntry> grid;
+        private final LongObjectHashMap<AvailableRouteEntry> addedSinceBuild = new LongObjectHashMap<>();
+        private final Set<Long> removedSinceBuild = new HashSet<>();
+        private KdTree<AvailableRouteEntry> tree;
+
+        private Index(int precision, List<AvailableRouteEntry> rows) {
+            grid = new GeoGrid<>(precision);
+            rows.forEach(row -> grid.put(row.getRouteId(), row.getLatitude(), row.getLongitude(), row));
+            rebuildTree();
+        }
+
+        private void put(AvailableRouteEntry entry) {
+            grid.put(entry.getRouteId(), entry.getLatitude(), entry.getLongitude(), entry);
+            // Si ya estaba en el arbol, esa version queda oculta por la nueva
+            removedSinceBuild.add(entry.getRouteId());
+            addedSinceBuild.put(entry.getRouteId(), entry);
+            rebuildIfStale();
+        }
+
+        private void remove(long routeId) {
+            if (grid.remove(routeId) != null) {
+                addedSinceBuild.remove(routeId);
+                removedSinceBuild.add(routeId);
+                rebuildIfStale();
+            }
+        }
+
+        private List<Match> nearest(double latitude, double longitude, int k, double maxMeters) {
+            List<Match> matches = new ArrayList<>(k + addedSinceBuild.size());
+            for (KdTree.Neighbor<AvailableRouteEntry> neighbor
+                    : tree.nearest(latitude, longitude, k, maxMeters, id -> !removedSinceBuild.contains(id))) {
+                matches.add(new Match(neighbor.getValue(), neighbor.getDistanceMeters()));
+            }
+            addedSinceBuild.forEachValue(entry -> {
+                double distance = GeoDistance.haversineMeters(latitude, longitude, entry.getLatitude(), entry.getLongitude());
+                if (distance <= maxMeters) {
+                    matches.add(new Match(entry, distance));
+                }
+            });
+            matches.sort(BY_DISTANCE);
+            return matches.subList(0, Math.min(k, matches.size()));
+        }
+
+        private void rebuildIfStale() {
+            if (addedSinceBuild.size() + removedSinceBuild.size() > Math.max(REBUILD_MIN_CHANGES, grid.size() / 8)) {
+                rebuildTree();
+            }
+        }
+
+        private void rebuildTree() {
+            int n = grid.size();
+            long[] ids = new long[n];
+            double[] latitudes = new double[n];
+            double[] longitudes = new double[n];
+            List<AvailableRouteEntry> entries = new ArrayList<>(n);
+            grid.forEach((id, latitude, longitude, entry) -> {
+                int i = entries.size();
+                ids[i] = id;
+                latitudes[i] = latitude;
+                longitudes[i] = longitude;
+                entries.add(entry);
+            });
+            tree = new KdTree<>(ids, latitudes, longitudes, entries);
+            addedSinceBuild.clear();
+            removedSinceBuild.clear();
+        }
+    }
+
+    // Candidatos de un rectangulo en arreglos paralelos, para calcular sus distancias por lote
+    private static class Candidates {
+        private final List<AvailableRouteEntry> entries = new ArrayList<>();
+        private double[] latitudes = new double[16];
+        private double[] longitudes = new double[16];
+
+        private void add(double latitude, double longitude, AvailableRouteEntry entry) {
+            int size = entries.size();
+            if (size == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            entries.add(entry);
+        }
+    }
+
+    private static class Match {
+        private final AvailableRouteEntry entry;
+        private final Double distanceMeters;
+
+        private Match(AvailableRouteEntry entry, Double distanceMeters) {
+            this.entry = entry;
+            this.distanceMeters = distanceMeters;
+        }
+
+        private AvailableRouteDTO toDto() {
+            return AvailableRouteDTO.builder()
+                    .id(entry.getRouteId())
+                    .description(entry.getDescription())
+                    .destinationLatitude(entry.getLatitude())
+                    .destinationLongitude(entry.getLongitude())
+                    .status(RouteStatus.PENDING)
+                    .distanceMeters(distanceMeters)
+                    .build();
+        }
+    }
+}
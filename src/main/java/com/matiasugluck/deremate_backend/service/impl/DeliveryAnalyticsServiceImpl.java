@@ -0,0 +1,278 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.matiasugluck.deremate_backend.constants.AnalyticsApiMessages;
+import com.matiasugluck.deremate_backend.dto.delivery.CreateDeliveryDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryByDayDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryStatusCountDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryTransitionView;
+import com.matiasugluck.deremate_backend.dto.delivery.TopDeliveryZonesDTO;
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import com.matiasugluck.deremate_backend.entity.Delivery;
+import com.matiasugluck.deremate_backend.entity.Route;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.DeliveryRollupRepository;
+import com.matiasugluck.deremate_backend.repository.DeliveryRollupRepository.BackfillState;
+import com.matiasugluck.deremate_backend.repository.DeliveryRollupRepository.Delta;
+import com.matiasugluck.deremate_backend.repository.DeliveryRollupRepository.RollupSource;
+import com.matiasugluck.deremate_backend.service.DeliveryAnalyticsService;
+import com.matiasugluck.deremate_backend.utils.GeoHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadisticas de entregas servidas desde tablas de rollup. Cada alta o cambio de estado suma su
+ * diferencia a los contadores en la misma transaccion, asi las consultas de los dashboards leen
+ * pocas filas por clave primaria y nunca agrupan sobre delivery.
+ * <p>
+ * El backfill recorre delivery por id en chunks, cada uno en su transaccion. Mientras corre, las
+ * entregas con id en (cursor, upper_bound] no se cuentan en linea: las cuenta el backfill cuando
+ * llega a ellas. El lock compartido sobre el estado del backfill garantiza que un chunk no lea una
+ * entrega mientras otra transaccion decide si contarla o no.
+ */
+@Service
+public class DeliveryAnalyticsServiceImpl implements DeliveryAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryAnalyticsServiceImpl.class);
+
+    private final DeliveryRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ZoneId zoneId;
+    private final int zonePrecision;
+    private final int maxDays;
+    private final int maxTopZones;
+    private final int backfillChunkSize;
+
+    public DeliveryAnalyticsServiceImpl(DeliveryRollupRepository rollupRepository,
+                                        TransactionTemplate transactionTemplate,
+                                        @Value("${analytics.time-zone:America/Argentina/Buenos_Aires}") String timeZone,
+                                        @Value("${analytics.zone-precision:5}") int zonePrecision,
+                                        @Value("${analytics.max-days:366}") int maxDays,
+                                        @Value("${analytics.top-zones.max-limit:100}") int maxTopZones,
+                                        @Value("${analytics.backfill.chunk-size:1000}") int backfillChunkSize) {
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.zoneId = ZoneId.of(timeZone);
+        this.zonePrecision = zonePrecision;
+        this.maxDays = maxDays;
+        this.maxTopZones = maxTopZones;
+        this.backfillChunkSize = backfillChunkSize;
+    }
+
+    @Override
+    public List<DeliveryStatusCountDTO> getStatusCounts() {
+        Map<String, Long> counts = rollupRepository.findStatusCounts();
+        List<DeliveryStatusCountDTO> result = new ArrayList<>();
+        for (DeliveryStatus status : DeliveryStatus.values()) {
+            result.add(new DeliveryStatusCountDTO(status.name(), counts.getOrDefault(status.name(), 0L)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<DeliveryByDayDTO> getDeliveriesByDay(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(zoneId);
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end) || ChronoUnit.DAYS.between(start, end) >= maxDays) {
+            throw new ApiException(
+                    AnalyticsApiMessages.INVALID_DATE_RANGE_CODE,
+                    AnalyticsApiMessages.INVALID_DATE_RANGE_DESC,
+                    HttpStatus.BAD_REQUEST.value());
+        }
+
+        // Serie continua: los dias sin movimiento van en cero
+        Map<LocalDate, long[]> days = rollupRepository.findDays(start, end);
+        List<DeliveryByDayDTO> result = new ArrayList<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            long[] counts = days.getOrDefault(day, new long[3]);
+            result.add(new DeliveryByDayDTO(day,
+                    counts[DeliveryRollupRepository.CREATED],
+                    counts[DeliveryRollupRepository.DELIVERED],
+                    counts[DeliveryRollupRepository.REJECTED]));
+        }
+        return result;
+    }
+
+    @Override
+    public List<TopDeliveryZonesDTO> getTopZones(Integer limit) {
+        int k = limit != null ? limit : 10;
+        if (k < 1 || k > maxTopZones) {
+            throw new ApiException(
+                    AnalyticsApiMessages.INVALID_LIMIT_CODE,
+                    AnalyticsApiMessages.INVALID_LIMIT_DESC,
+                    HttpStatus.BAD_REQUEST.value());
+        }
+        return rollupRepository.findTopZones(k).stream()
+                .map(zone -> {
+                    double[] center = GeoHash.center(zone.getZone());
+                    return new TopDeliveryZonesDTO(zone.getZone(), center[0], center[1],
+                            zone.getDeliveries(), zone.getDelivered(), zone.getRejected());
+                })
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public void recordCreated(Delivery delivery) {
+        BackfillState backfill = rollupRepository.lockBackfillStateShared();
+        if (backfill.isPendingBackfill(delivery.getId())) {
+            return;
+        }
+        Delta delta = new Delta();
+        add(delta, sourceOf(delivery, delivery.getStatus(), completedAtOf(delivery)), 1);
+        rollupRepository.apply(delta);
+    }
+
+    @Override
+    @Transactional
+    public void recordCreated(List<Long> deliveryIds, List<CreateDeliveryDTO> deliveries, Timestamp createdDate) {
+        BackfillState backfill = rollupRepository.lockBackfillStateShared();
+        Delta delta = new Delta();
+        for (int i = 0; i < deliveryIds.size(); i++) {
+            Long id = deliveryIds.get(i);
+            if (backfill.isPendingBackfill(id)) {
+                continue;
+            }
+            CreateDeliveryDTO delivery = deliveries.get(i);
+            add(delta, new RollupSource(id, DeliveryStatus.NOT_DELIVERED, createdDate, null,
+                    delivery.getDestinationLatitude(), delivery.getDestinationLongitude()), 1);
+        }
+        rollupRepository.apply(delta);
+    }
+
+    @Override
+    @Transactional
+    public void recordStatusChange(DeliveryTransitionView delivery, DeliveryStatus newStatus, Timestamp completedAt) {
+        BackfillState backfill = rollupRepository.lockBackfillStateShared();
+        if (backfill.isPendingBackfill(delivery.getDeliveryId())) {
+            return;
+        }
+        // Se descuenta la entrega como estaba y se suma como quedo
+        Delta delta = new Delta();
+        add(delta, new RollupSource(delivery.getDeliveryId(), delivery.getStatus(), delivery.getCreatedDate(),
+                delivery.getRouteCompletedAt(), delivery.getDestinationLatitude(), delivery.getDestinationLongitude()), -1);
+        add(delta, new RollupSource(delivery.getDeliveryId(), newStatus, delivery.getCreatedDate(),
+                completedAt, delivery.getDestinationLatitude(), delivery.getDestinationLongitude()), 1);
+        rollupRepository.apply(delta);
+    }
+
+    @Override
+    public void startBackfill() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (rollupRepository.lockBackfillStateExclusive().isRunning()) {
+                throw new ApiException(
+                        AnalyticsApiMessages.BACKFILL_RUNNING_CODE,
+                        AnalyticsApiMessages.BACKFILL_RUNNING_DESC,
+                        HttpStatus.CONFLICT.value());
+            }
+            rollupRepository.resetForBackfill(Timestamp.from(Instant.now()));
+        });
+        logger.info("Delivery rollup backfill started");
+    }
+
+    /**
+     * Avanza el backfill pendiente hasta terminarlo. Si la aplicacion se reinicia a mitad de camino,
+     * sigue desde el ultimo chunk confirmado.
+     */
+    @Scheduled(fixedDelayString = "${analytics.backfill.poll-interval-ms:5000}")
+    public void runBackfill() {
+        int chunks = 0;
+        Boolean more;
+        do {
+            more = transactionTemplate.execute(status -> backfillChunk());
+            chunks++;
+        } while (Boolean.TRUE.equals(more));
+        if (chunks > 1) {
+            logger.info("Delivery rollup backfill processed {} chunks", chunks - 1);
+        }
+    }
+
+    /**
+     * @return true si quedan entregas por procesar
+     */
+    private boolean backfillChunk() {
+        BackfillState state = rollupRepository.lockBackfillStateExclusive();
+        if (!state.isRunning()) {
+            return false;
+        }
+        List<RollupSource> rows = rollupRepository.findSources(state.getCursorId(), state.getUpperBound(), backfillChunkSize);
+        Delta delta = new Delta();
+        for (RollupSource row : rows) {
+            add(delta, row, 1);
+        }
+        rollupRepository.apply(delta);
+
+        if (rows.size() < backfillChunkSize) {
+            rollupRepository.finishBackfill(Timestamp.from(Instant.now()));
+            logger.info("Delivery rollup backfill finished");
+            return false;
+        }
+        rollupRepository.advanceBackfill(rows.get(rows.size() - 1).getDeliveryId());
+        return true;
+    }
+
+    private void add(Delta delta, RollupSource source, long sign) {
+        if (source.getStatus() == null) {
+            return;
+        }
+        delta.addStatus(source.getStatus(), sign);
+        if (source.getCreatedDate() != null) {
+            delta.addDay(dayOf(source.getCreatedDate()), DeliveryRollupRepository.CREATED, sign);
+        }
+        int closedColumn = switch (source.getStatus()) {
+            case DELIVERED -> DeliveryRollupRepository.DELIVERED;
+            case REJECTED -> DeliveryRollupRepository.REJECTED;
+            default -> -1;
+        };
+        if (closedColumn >= 0 && source.getCompletedAt() != null) {
+            delta.addDay(dayOf(source.getCompletedAt()), closedColumn, sign);
+        }
+
+        String zone = zoneOf(source.getLatitude(), source.getLongitude());
+        if (zone != null) {
+            delta.addZone(zone, DeliveryRollupRepository.CREATED, sign);
+            if (closedColumn >= 0) {
+                delta.addZone(zone, closedColumn, sign);
+            }
+        }
+    }
+
+    private RollupSource sourceOf(Delivery delivery, DeliveryStatus status, Timestamp completedAt) {
+        Route route = delivery.getRoute();
+        Coordinates destination = route != null ? route.getDestination() : null;
+        return new RollupSource(delivery.getId(), status, delivery.getCreatedDate(), completedAt,
+                destination != null ? destination.getLatitude() : null,
+                destination != null ? destination.getLongitude() : null);
+    }
+
+    private static Timestamp completedAtOf(Delivery delivery) {
+        return delivery.getRoute() != null ? delivery.getRoute().getCompletedAt() : null;
+    }
+
+    private LocalDate dayOf(Timestamp timestamp) {
+        return timestamp.toInstant().atZone(zoneId).toLocalDate();
+    }
+
+    private String zoneOf(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null
+                || Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            return null;
+        }
+        return GeoHash.encode(latitude, longitude, zonePrecision);
+    }
+}
@@ -0,0 +1,109 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryDTO;
+import com.matiasugluck.deremate_backend.event.DeliveryStatusChangedEvent;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.service.DeliveryCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache read-through del detalle de entrega (GET /delivery/{id}), acotada por cantidad y con TTL.
+ * Se invalida despues del commit de cualquier cambio de estado de la entrega o de su ruta
+ * (confirmar, cancelar, asignar o completar la ruta); el TTL cubre el resto (productos, usuario).
+ * <p>
+ * Una invalidacion que llega mientras se carga la misma clave espera a que termine la carga y
+ * la descarta. Como el evento de ruta no trae el id de la entrega, cada cambio de ruta queda
+ * registrado con un numero de secuencia: una carga que empezo antes de ese cambio y termina
+ * despues devuelve el valor a quien la pidio pero no lo cachea. Asi una lectura anterior al
+ * commit no puede dejar el valor viejo cacheado, aunque el mapeo ruta -> entrega no existiera aun.
+ * Hits y misses se publican en Micrometer como cache.gets{cache=delivery.detail}.
+ */
+@Service
+public class DeliveryCacheServiceImpl implements DeliveryCacheService {
+
+    public static final String CACHE_NAME = "delivery.detail";
+
+    private final Cache<Long, DeliveryDTO> cache;
+    // Los eventos de ruta traen solo el id de la ruta (relacion 1 a 1 con la entrega)
+    private final Map<Long, Long> deliveryIdByRouteId = new ConcurrentHashMap<>();
+    // Ultimo cambio de estado de cada ruta; basta con recordarlo mientras pueda haber cargas en curso
+    private final Cache<Long, Long> routeChangeSeqByRouteId;
+    private final AtomicLong routeChangeSeq = new AtomicLong();
+
+    public DeliveryCacheServiceImpl(@Value("${delivery.cache.max-size:10000}") long maxSize,
+                                    @Value("${delivery.cache.ttl-seconds:60}") long ttlSeconds,
+                                    MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                // Corre dentro de la operacion atomica sobre la clave, igual que la carga
+                .evictionListener((Long id, DeliveryDTO delivery, RemovalCause cause) -> {
+                    if (delivery != null && delivery.getRoute() != null) {
+                        deliveryIdByRouteId.remove(delivery.getRoute().getId(), id);
+                    }
+                })
+                .recordStats()
+                .build();
+        this.routeChangeSeqByRouteId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public DeliveryDTO get(Long deliveryId, Function<Long, DeliveryDTO> loader) {
+        DeliveryDTO[] loaded = new DeliveryDTO[1];
+        DeliveryDTO cached = cache.get(deliveryId, id -> {
+            long startedAt = routeChangeSeq.get();
+            DeliveryDTO delivery = loader.apply(id);
+            loaded[0] = delivery;
+            if (delivery.getRoute() == null) {
+                return delivery;
+            }
+            // Primero el mapeo y despues el chequeo; el evento hace lo inverso, asi uno de los dos ve al otro
+            Long routeId = delivery.getRoute().getId();
+            deliveryIdByRouteId.put(routeId, id);
+            Long changedAt = routeChangeSeqByRouteId.getIfPresent(routeId);
+            if (changedAt != null && changedAt > startedAt) {
+                // La ruta cambio durante la carga: el valor puede ser anterior al commit
+                deliveryIdByRouteId.remove(routeId, id);
+                return null;
+            }
+            return delivery;
+        });
+        return cached != null ? cached : loaded[0];
+    }
+
+    @Override
+    public void invalidate(Long deliveryId) {
+        cache.invalidate(deliveryId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryStatusChanged(DeliveryStatusChangedEvent event) {
+        invalidate(event.getDeliveryId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteStatusChanged(RouteStatusChangedEvent event) {
+        routeChangeSeqByRouteId.put(event.getRouteId(), routeChangeSeq.incrementAndGet());
+        Long deliveryId = deliveryIdByRouteId.remove(event.getRouteId());
+        if (deliveryId != null) {
+            invalidate(deliveryId);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matiasugluck.deremate_backend.constants.DeliveryApiMessages;
+import com.matiasugluck.deremate_backend.dto.delivery.BulkDeliveryResultDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.BulkDeliveryRowResultDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.CreateDeliveryDTO;
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import com.matiasugluck.deremate_backend.enums.IntakeFormat;
+import com.matiasugluck.deremate_backend.event.DeliveryCreatedEvent;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.DeliveryBatchRepository;
+import com.matiasugluck.deremate_backend.repository.ProductRepository;
+import com.matiasugluck.deremate_backend.service.DeliveryAnalyticsService;
+import com.matiasugluck.deremate_backend.service.DeliveryIntakeService;
+import com.matiasugluck.deremate_backend.utils.CsvLineParser;
+import com.matiasugluck.deremate_backend.utils.PinGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Carga masiva de entregas desde JSON-lines o CSV.
+ * El archivo se lee linea por linea; las filas validas se agrupan en bloques y cada bloque
+ * valida sus productos con una sola consulta y se inserta con batches JDBC en su propia transaccion.
+ * Un bloque fallido no afecta a los ya confirmados. Si la lectura se corta a mitad del archivo,
+ * las filas validas del bloque sin guardar se informan rechazadas con INTAKE_READ_ERROR.
+ */
+@Service
+public class DeliveryIntakeServiceImpl implements DeliveryIntakeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryIntakeServiceImpl.class);
+
+    private static final List<String> CSV_HEADER =
+            List.of("destinationLatitude", "destinationLongitude", "packageLocation", "productIds");
+    private static final String CSV_PRODUCT_SEPARATOR = "\\|";
+
+    private final DeliveryBatchRepository deliveryBatchRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final DeliveryAnalyticsService deliveryAnalyticsService;
+    private final int chunkSize;
+
+    public DeliveryIntakeServiceImpl(DeliveryBatchRepository deliveryBatchRepository,
+                                     ProductRepository productRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     ObjectMapper objectMapper,
+                                     DeliveryAnalyticsService deliveryAnalyticsService,
+                                     @Value("${delivery.intake.chunk-size:500}") int chunkSize) {
+        this.deliveryBatchRepository = deliveryBatchRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.deliveryAnalyticsService = deliveryAnalyticsService;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public BulkDeliveryResultDTO importDeliveries(InputStream input, IntakeFormat format) {
+        List<BulkDeliveryRowResultDTO> results = new ArrayList<>();
+        List<ParsedRow> chunk = new ArrayList<>(chunkSize);
+        boolean completed = true;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            int lineNumber = 0;
+            if (format == IntakeFormat.CSV) {
+                lineNumber++;
+                validateCsvHeader(reader.readLine());
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                ParsedRow row = parse(line, lineNumber, format);
+                if (row.getErrorCode() != null) {
+                    results.add(rejected(row.getLine(), row.getErrorCode(), row.getError()));
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    results.addAll(persistChunk(chunk));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                results.addAll(persistChunk(chunk));
+            }
+        } catch (IOException e) {
+            if (results.isEmpty()) {
+                throw new ApiException(
+                        DeliveryApiMessages.INTAKE_READ_ERROR_CODE,
+                        DeliveryApiMessages.INTAKE_READ_ERROR_DESC,
+                        HttpStatus.BAD_REQUEST.value(),
+                        e);
+            }
+            // Las filas validas que esperaban su bloque no se guardaron: se informan para que se reenvien
+            chunk.forEach(row -> results.add(rejected(row.getLine(),
+                    DeliveryApiMessages.INTAKE_READ_ERROR_CODE, DeliveryApiMessages.INTAKE_READ_ERROR_DESC)));
+            logger.warn("Bulk intake stream interrupted after {} rows: {}", results.size(), e.getMessage());
+            completed = false;
+        }
+
+        results.sort(Comparator.comparingInt(BulkDeliveryRowResultDTO::getRow));
+        int created = (int) results.stream().filter(BulkDeliveryRowResultDTO::isCreated).count();
+        return BulkDeliveryResultDTO.builder()
+                .totalRows(results.size())
+                .created(created)
+                .rejected(results.size() - created)
+                .completed(completed)
+                .rows(results)
+                .build();
+    }
+
+    private List<BulkDeliveryRowResultDTO> persistChunk(List<ParsedRow> chunk) {
+        Set<Long> requestedProductIds = new HashSet<>();
+        chunk.forEach(row -> requestedProductIds.addAll(row.getDelivery().getProductIds()));
+        Set<Long> existingProductIds = requestedProductIds.isEmpty()
+                ? Set.of()
+                : productRepository.findExistingIds(requestedProductIds);
+
+        List<BulkDeliveryRowResultDTO> results = new ArrayList<>(chunk.size());
+        List<ParsedRow> valid = new ArrayList<>(chunk.size());
+        for (ParsedRow row : chunk) {
+            if (existingProductIds.containsAll(row.getDelivery().getProductIds())) {
+                valid.add(row);
+            } else {
+                results.add(rejected(row.getLine(), DeliveryApiMessages.INVALID_PRODUCTS_CODE, DeliveryApiMessages.INVALID_PRODUCTS_DESC));
+            }
+        }
+        if (valid.isEmpty()) {
+            return results;
+        }
+
+        try {
+            ChunkIds ids = transactionTemplate.execute(status -> insert(valid));
+            for (int i = 0; i < valid.size(); i++) {
+                results.add(BulkDeliveryRowResultDTO.builder()
+                        .row(valid.get(i).getLine())
+                        .created(true)
+                        .routeId(ids.getRouteIds().get(i))
+                        .deliveryId(ids.getDeliveryIds().get(i))
+                        .build());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Bulk intake chunk of {} rows failed: {}", valid.size(), e.getMessage(), e);
+            valid.forEach(row -> results.add(rejected(row.getLine(), DeliveryApiMessages.INTERNAL_ERROR_CODE, DeliveryApiMessages.INTERNAL_ERROR_DESC)));
+        }
+        return results;
+    }
+
+    private ChunkIds insert(List<ParsedRow> rows) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<CreateDeliveryDTO> deliveries = rows.stream().map(ParsedRow::getDelivery).toList();
+        List<String> pins = deliveries.stream().map(delivery -> PinGenerator.generatePin()).toList();
+
+        List<Long> routeIds = deliveryBatchRepository.insertRoutes(deliveries, now);
+        List<Long> deliveryIds = deliveryBatchRepository.insertDeliveries(deliveries, routeIds, pins, now);
+        deliveryBatchRepository.insertDeliveryProducts(deliveryIds, deliveries.stream().map(CreateDeliveryDTO::getProductIds).toList());
+        deliveryAnalyticsService.recordCreated(deliveryIds, deliveries, now);
+
+        // La carga masiva no envia push por entrega; solo se pre-renderizan los QR despues del commit
+        for (int i = 0; i < deliveryIds.size(); i++) {
+            eventPublisher.publishEvent(new DeliveryCreatedEvent(deliveryIds.get(i), routeIds.get(i), deliveries.get(i).getPackageLocation(), now,
+                    new Coordinates(deliveries.get(i).getDestinationLatitude(), deliveries.get(i).getDestinationLongitude())));
+        }
+        return new ChunkIds(routeIds, deliveryIds);
+    }
+
+    private ParsedRow parse(String line, int lineNumber, IntakeFormat format) {
+        CreateDeliveryDTO delivery;
+        try {
+            delivery = format == IntakeFormat.CSV
+                    ? parseCsv(line)
+                    : objectMapper.readValue(line, CreateDeliveryDTO.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return new ParsedRow(lineNumber, null, DeliveryApiMessages.INVALID_ROW_CODE, DeliveryApiMessages.INVALID_ROW_DESC);
+        }
+        // Una linea JSON "null" se lee sin error pero no es una entrega
+        if (delivery == null) {
+            return new ParsedRow(lineNumber, null, DeliveryApiMessages.INVALID_ROW_CODE, DeliveryApiMessages.INVALID_ROW_DESC);
+        }
+
+        if (!isValidCoordinate(delivery.getDestinationLatitude(), 90) || !isValidCoordinate(delivery.getDestinationLongitude(), 180)) {
+            return new ParsedRow(lineNumber, null, DeliveryApiMessages.INVALID_COORDINATES_CODE, DeliveryApiMessages.INVALID_COORDINATES_DESC);
+        }
+        if (delivery.getProductIds() == null) {
+            delivery.setProductIds(List.of());
+        }
+        if (delivery.getProductIds().contains(null)) {
+            return new ParsedRow(lineNumber, null, DeliveryApiMessages.INVALID_PRODUCTS_CODE, DeliveryApiMessages.INVALID_PRODUCTS_DESC);
+        }
+        return new ParsedRow(lineNumber, delivery, null, null);
+    }
+
+    private CreateDeliveryDTO parseCsv(String line) {
+        List<String> fields = CsvLineParser.parse(line);
+        if (fields.size() != CSV_HEADER.size()) {
+            throw new IllegalArgumentException("Expected " + CSV_HEADER.size() + " columns");
+        }
+
+        List<Long> productIds = new ArrayList<>();
+        for (String productId : fields.get(3).split(CSV_PRODUCT_SEPARATOR)) {
+            if (!productId.isBlank()) {
+                productIds.add(Long.valueOf(productId.trim()));
+            }
+        }
+
+        return CreateDeliveryDTO.builder()
+                .destinationLatitude(Double.valueOf(fields.get(0)))
+                .destinationLongitude(Double.valueOf(fields.get(1)))
+                .packageLocation(fields.get(2).isBlank() ? null : fields.get(2))
+                .productIds(productIds)
+                .build();
+    }
+
+    private void validateCsvHeader(String header) {
+        List<String> columns = header != null ? CsvLineParser.parse(header.replace("\uFEFF", "")) : List.of();
+        if (!columns.equals(CSV_HEADER)) {
+            throw new ApiException(
+                    DeliveryApiMessages.INVALID_CSV_HEADER_CODE,
+                    DeliveryApiMessages.INVALID_CSV_HEADER_DESC,
+                    HttpStatus.BAD_REQUEST.value());
+        }
+    }
+
+    private static boolean isValidCoordinate(Double value, double limit) {
+        return value != null && !value.isNaN() && Math.abs(value) <= limit;
+    }
+
+    private static BulkDeliveryRowResultDTO rejected(int line, String errorCode, String error) {
+        return BulkDeliveryRowResultDTO.builder()
+                .row(line)
+                .created(false)
+                .errorCode(errorCode)
+                .error(error)
+                .build();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ParsedRow {
+        private final int line;
+        private final CreateDeliveryDTO delivery;
+        private final String errorCode;
+        private final String error;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ChunkIds {
+        private final List<Long> routeIds;
+        private final List<Long> deliveryIds;
+    }
+}
@@ -2,54 +2,80 @@ package com.matiasugluck.deremate_backend.service.impl;
 
 import com.google.firebase.messaging.Notification;
 import com.matiasugluck.deremate_backend.constants.DeliveryApiMessages;
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
 import com.matiasugluck.deremate_backend.dto.delivery.CreateDeliveryDTO;
 import com.matiasugluck.deremate_backend.dto.delivery.DeliveryDTO;
-import com.matiasugluck.deremate_backend.dto.delivery.PackageInWarehouseDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryTransitionView;
 import com.matiasugluck.deremate_backend.entity.*;
 import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
 import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.event.DeliveryCreatedEvent;
+import com.matiasugluck.deremate_backend.event.DeliveryStatusChangedEvent;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
 import com.matiasugluck.deremate_backend.exception.ApiException;
 import com.matiasugluck.deremate_backend.repository.DeliveryRepository;
-import com.matiasugluck.deremate_backend.repository.DeviceRepository;
 import com.matiasugluck.deremate_backend.repository.ProductRepository;
 import com.matiasugluck.deremate_backend.repository.RouteRepository;
+import com.matiasugluck.deremate_backend.service.DeliveryAnalyticsService;
+import com.matiasugluck.deremate_backend.service.DeliveryCacheService;
 import com.matiasugluck.deremate_backend.service.DeliveryService;
-import com.matiasugluck.deremate_backend.service.FirebaseNotificationService;
+import com.matiasugluck.deremate_backend.service.OutboxService;
+import com.matiasugluck.deremate_backend.utils.CursorPagination;
 import com.matiasugluck.deremate_backend.utils.PinGenerator;
-import com.matiasugluck.deremate_backend.utils.QRCodeGenerator;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class DeliveryServiceImpl implements DeliveryService {
     private final DeliveryRepository deliveryRepository;
     private final ProductRepository productRepository;
     private final RouteRepository routeRepository;
-    private final FirebaseNotificationService firebaseNotificationService;
-    private final DeviceRepository deviceRepository;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CursorPagination cursorPagination;
+    private final DeliveryAnalyticsService deliveryAnalyticsService;
+    private final DeliveryCacheService deliveryCacheService;
+    private final String qrUrlTemplate;
+
+    public DeliveryServiceImpl(DeliveryRepository deliveryRepository,
+                               ProductRepository productRepository,
+                               RouteRepository routeRepository,
+                               OutboxService outboxService,
+                               ApplicationEventPublisher eventPublisher,
+                               CursorPagination cursorPagination,
+                               DeliveryAnalyticsService deliveryAnalyticsService,
+                               DeliveryCacheService deliveryCacheService,
+                               @Value("${base-path-v1}") String basePath) {
+        this.deliveryRepository = deliveryRepository;
+        this.productRepository = productRepository;
+        this.routeRepository = routeRepository;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+        this.cursorPagination = cursorPagination;
+        this.deliveryAnalyticsService = deliveryAnalyticsService;
+        this.deliveryCacheService = deliveryCacheService;
+        // El QR se sirve como image/png desde DeliveryController; no se guarda en la base
+        this.qrUrlTemplate = basePath + "/delivery/%d/qr";
+    }
 
     @Override
     @Transactional
     public DeliveryDTO createDelivery(CreateDeliveryDTO createDeliveryDTO) {
         // Validate the product ids
-        List<Product> products = new ArrayList<>();
-        for (Long id : createDeliveryDTO.getProductIds()) {
-            products.add(productRepository.findById(id).orElseThrow(() -> new ApiException(
-                    DeliveryApiMessages.INVALID_PRODUCTS_CODE,
-                    DeliveryApiMessages.INVALID_PRODUCTS_DESC,
-                    HttpStatus.BAD_REQUEST.value()))
-            );
-        }
+        List<Product> products = resolveProducts(createDeliveryDTO.getProductIds());
 
         try {
             Route route = Route.builder()
@@ -68,25 +94,18 @@ public class DeliveryServiceImpl implements DeliveryService {
                 .route(savedRoute)
                 .build();
 
-            Delivery savedDelivery = deliveryRepository.save(delivery);
-            savedDelivery.setQrCode(QRCodeGenerator.generateQRCodeBase64(savedDelivery.getId()));
-            Delivery resultDelivery = deliveryRepository.save(savedDelivery);
-
-
-            List<Device> allDevices = deviceRepository.findAll();
+            // El QR se procesa en segundo plano una vez confirmada la transaccion;
+            // el aviso a los repartidores queda en el outbox y se envia solo si hay commit
+            Delivery resultDelivery = deliveryRepository.save(delivery);
+            deliveryAnalyticsService.recordCreated(resultDelivery);
+            eventPublisher.publishEvent(new DeliveryCreatedEvent(resultDelivery.getId(), savedRoute.getId(),
+                    resultDelivery.getPackageLocation(), resultDelivery.getCreatedDate(), savedRoute.getDestination()));
+            outboxService.enqueueBroadcast(NotificationMessage.builder()
+                    .title("Nueva entrega disponible")
+                    .body("Hay un nuevo paquete en " + resultDelivery.getPackageLocation() + " listo para ser retirado.")
+                    .build());
 
-
-            for (Device device : allDevices) {
-                NotificationMessage notification = NotificationMessage.builder()
-                        .title("Nueva entrega disponible")
-                        .body("Hay un nuevo paquete en " + resultDelivery.getPackageLocation() + " listo para ser retirado.")
-                        .recipientToken(device.getDeviceId())
-                        .build();
-                firebaseNotificationService.sendNotification(notification);
-            }
-
-
-            return resultDelivery.toDto();
+            return toDto(resultDelivery);
         } catch (Exception e) {
             throw new ApiException(
                     DeliveryApiMessages.INTERNAL_ERROR_CODE,
@@ -96,9 +115,45 @@ public class DeliveryServiceImpl implements DeliveryService {
         }
     }
 
+    /**
+     * Resuelve los productos de un pedido con una unica consulta IN, sin importar la cantidad de items.
+     * Los IDs repetidos se consultan una sola vez pero se conservan en la lista resultante,
+     * respetando el orden del pedido.
+     */
+    private List<Product> resolveProducts(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> requestedIds = new LinkedHashSet<>(productIds);
+        if (requestedIds.contains(null)) {
+            throw invalidProducts();
+        }
+
+        Map<Long, Product> productsById = productRepository.findAllById(requestedIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        if (productsById.size() != requestedIds.size()) {
+            throw invalidProducts();
+        }
+
+        List<Product> products = new ArrayList<>(productIds.size());
+        for (Long id : productIds) {
+            products.add(productsById.get(id));
+        }
+        return products;
+    }
+
+    private ApiException invalidProducts() {
+        return new ApiException(
+                DeliveryApiMessages.INVALID_PRODUCTS_CODE,
+                DeliveryApiMessages.INVALID_PRODUCTS_DESC,
+                HttpStatus.BAD_REQUEST.value());
+    }
+
     @Override
+    @Transactional
     public void confirmDelivery(Long id, String pin) {
-        Delivery delivery = findDeliveryById(id);
+        DeliveryTransitionView delivery = findTransitionView(id);
         if (!pin.equals(delivery.getPin())) {
             throw new ApiException(
                     DeliveryApiMessages.INVALID_PIN_CODE,
@@ -106,94 +161,113 @@ public class DeliveryServiceImpl implements DeliveryService {
                     HttpStatus.BAD_REQUEST.value()
             );
         }
-        delivery.getRoute().setStatus(RouteStatus.COMPLETED);
-        delivery.setStatus(DeliveryStatus.DELIVERED);
-        delivery.getRoute().setCompletedAt(Timestamp.from(Instant.now()));
-        deliveryRepository.save(delivery);
+        close(delivery, DeliveryStatus.DELIVERED, RouteStatus.COMPLETED);
     }
 
     @Override
+    @Transactional
     public void cancelDelivery(Long id) {
-        Delivery delivery = findDeliveryById(id);
-        delivery.setStatus(DeliveryStatus.REJECTED);
-        Route route = delivery.getRoute();
-        if (route != null) {
-            // --- Notification Logic Starts ---
-            User assignedUser = route.getAssignedTo();
-            if (assignedUser != null) {
-                // Find all linked devices for this user
-                List<Device> userDevices = deviceRepository.findByUser(assignedUser);
-
-                // Send a notification to each linked device
-                for (Device device : userDevices) {
-                    NotificationMessage notification = NotificationMessage.builder()
-                            .title("Entrega Cancelada")
-                            .body("La entrega #" + delivery.getId() +" con destino a: "+ delivery.getRoute().getDescription()+ " fue cancelada y se ha quitado de tu ruta.")
-                            .recipientToken(device.getDeviceId())
-                            .build();
-                    firebaseNotificationService.sendNotification(notification);
-                }
-            }
-
-            route.setStatus(RouteStatus.CANCELLED);
-            route.setCompletedAt(Timestamp.from(Instant.now()));
-            routeRepository.save(route);
+        DeliveryTransitionView delivery = findTransitionView(id);
+        close(delivery, DeliveryStatus.REJECTED, RouteStatus.CANCELLED);
+
+        if (delivery.getAssignedUserId() != null) {
+            // Se envia a todos los dispositivos del usuario desde el outbox, despues del commit
+            outboxService.enqueueUserPush(delivery.getAssignedUserId(), NotificationMessage.builder()
+                    .title("Entrega Cancelada")
+                    .body("La entrega #" + delivery.getDeliveryId() +" con destino a: "+ delivery.getRouteDescription()+ " fue cancelada y se ha quitado de tu ruta.")
+                    .build());
+        }
+    }
+
+    /**
+     * Cierra la entrega y su ruta con dos UPDATE condicionales sobre el estado leido, sin cargar
+     * entidades. Si una confirmacion y una cancelacion llegan a la vez, solo una cambia las filas;
+     * la otra afecta 0 filas, se revierte y responde 409. Solo una entrega ya cerrada es un conflicto:
+     * si la ruta ya se cerro antes (PUT /routes/{id}/complete) se cierra la entrega y la ruta queda
+     * como esta, con su fecha de cierre.
+     */
+    private void close(DeliveryTransitionView delivery, DeliveryStatus newStatus, RouteStatus newRouteStatus) {
+        if (delivery.getStatus() != DeliveryStatus.NOT_DELIVERED) {
+            throw stateConflict();
+        }
+        boolean routeClosed = delivery.getRouteStatus() == RouteStatus.COMPLETED
+                || delivery.getRouteStatus() == RouteStatus.CANCELLED;
+        Timestamp now = Timestamp.from(Instant.now());
+        if (deliveryRepository.updateStatusIfCurrent(delivery.getDeliveryId(), delivery.getStatus(), newStatus) == 0
+                || !routeClosed && routeRepository.closeIfCurrent(delivery.getRouteId(), delivery.getRouteStatus(), newRouteStatus, now) == 0) {
+            throw stateConflict();
         }
 
-        deliveryRepository.save(delivery);
+        // Los listeners (indice del deposito, etc.) los reciben recien despues del commit
+        Coordinates destination = new Coordinates(delivery.getDestinationLatitude(), delivery.getDestinationLongitude());
+        eventPublisher.publishEvent(new DeliveryStatusChangedEvent(delivery.getDeliveryId(), delivery.getRouteId(),
+                delivery.getAssignedUserId(), delivery.getStatus(), newStatus, destination));
+        if (!routeClosed) {
+            eventPublisher.publishEvent(new RouteStatusChangedEvent(delivery.getRouteId(), delivery.getAssignedUserId(),
+                    delivery.getRouteStatus(), newRouteStatus));
+        }
+        deliveryAnalyticsService.recordStatusChange(delivery, newStatus, routeClosed ? delivery.getRouteCompletedAt() : now);
     }
 
+    private DeliveryTransitionView findTransitionView(Long id) {
+        return deliveryRepository.findTransitionViewById(id)
+                .orElseThrow(() -> new ApiException(
+                        DeliveryApiMessages.DELIVERY_NOT_FOUND_CODE,
+                        DeliveryApiMessages.DELIVERY_NOT_FOUND_DESC,
+                        HttpStatus.NOT_FOUND.value())
+                );
+    }
+
+    private ApiException stateConflict() {
+        return new ApiException(
+                DeliveryApiMessages.DELIVERY_STATE_CONFLICT_CODE,
+                DeliveryApiMessages.DELIVERY_STATE_CONFLICT_DESC,
+                HttpStatus.CONFLICT.value());
+    }
+
+    // Los repartidores consultan el detalle seguido; se invalida al cambiar la entrega o su ruta
     @Override
     public DeliveryDTO getDeliveryById(Long id) {
-        Delivery delivery = findDeliveryById(id);
-        DeliveryDTO result = delivery.toDto();
-        result.setRoute(delivery.getRoute().toDto());
-        return delivery.toDto();
+        return deliveryCacheService.get(id, this::loadDelivery);
     }
 
-    private Delivery findDeliveryById(Long id) {
-        return deliveryRepository.findById(id)
+    private DeliveryDTO loadDelivery(Long id) {
+        Delivery delivery = deliveryRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new ApiException(
                         DeliveryApiMessages.DELIVERY_NOT_FOUND_CODE,
                         DeliveryApiMessages.DELIVERY_NOT_FOUND_DESC,
                         HttpStatus.NOT_FOUND.value())
                 );
-    }
-    @Override
-    public List<PackageInWarehouseDTO> getPackagesInWarehouse() {
-        return deliveryRepository.findUnassignedDeliveries(DeliveryStatus.NOT_DELIVERED).stream()
-                .map(delivery -> new PackageInWarehouseDTO(
-                        delivery.getId(),
-                        delivery.getStatus().name(),
-                        delivery.getPackageLocation(),
-                        delivery.getCreatedDate()
-                ))
-                .collect(Collectors.toList());
+        return toDto(delivery);
     }
 
     @Override
-    public List<DeliveryDTO> getDeliveriesByUserId(Long userId) {
-        return deliveryRepository.findByUserId(userId).stream()
-                .map(delivery -> {
-                    DeliveryDTO dto = delivery.toDto();
-                    dto.setRoute(delivery.getRoute().toDto());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    @Transactional
+    public CursorPageDTO<DeliveryDTO> getDeliveriesByUserId(Long userId, String cursor, Integer size) {
+        int pageSize = cursorPagination.resolveSize(size);
+        CursorPagination.Cursor after = cursorPagination.decode(cursor);
+        List<Delivery> rows = after == null
+                ? deliveryRepository.findByUserId(userId, cursorPagination.probe(pageSize))
+                : deliveryRepository.findByUserIdAfter(userId, after.getSortKey(), after.getId(), cursorPagination.probe(pageSize));
+        // toDto ya incluye la ruta; los productos de la pagina se cargan en un solo batch
+        return cursorPagination.toPage(rows, pageSize, this::toDto,
+                delivery -> delivery.getRoute().getLastUpdatedAt(), Delivery::getId);
     }
 
     @Override
-    public List<DeliveryDTO> getAssignedAndNotDelivered() {
-        List<Delivery> deliveries = deliveryRepository.findAssignedAndNotDelivered(DeliveryStatus.NOT_DELIVERED);
-        return deliveries.stream()
-                .map(delivery -> {
-                    DeliveryDTO dto = delivery.toDto();
-                    if (delivery.getRoute() != null) {
-                        dto.setRoute(delivery.getRoute().toDto());
-                    }
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    @Transactional
+    public CursorPageDTO<DeliveryDTO> getAssignedAndNotDelivered(String cursor, Integer size) {
+        int pageSize = cursorPagination.resolveSize(size);
+        CursorPagination.Cursor after = cursorPagination.decode(cursor);
+        List<Delivery> rows = after == null
+                ? deliveryRepository.findAssignedAndNotDelivered(DeliveryStatus.NOT_DELIVERED, cursorPagination.probe(pageSize))
+                : deliveryRepository.findAssignedAndNotDeliveredAfter(DeliveryStatus.NOT_DELIVERED, after.getSortKey(), after.getId(), cursorPagination.probe(pageSize));
+        return cursorPagination.toPage(rows, pageSize, this::toDto, Delivery::getCreatedDate, Delivery::getId);
     }
 
+    private DeliveryDTO toDto(Delivery delivery) {
+        DeliveryDTO dto = delivery.toDto();
+        dto.setQrUrl(qrUrlTemplate.formatted(delivery.getId()));
+        return dto;
+    }
 }
@@ -0,0 +1,240 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.matiasugluck.deremate_backend.constants.RouteApiMessages;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRouteEntry;
+import com.matiasugluck.deremate_backend.dto.route.CourierRouteRow;
+import com.matiasugluck.deremate_backend.dto.route.DispatchAssignmentDTO;
+import com.matiasugluck.deremate_backend.dto.route.DispatchPlanDTO;
+import com.matiasugluck.deremate_backend.entity.NotificationMessage;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.RouteBatchRepository;
+import com.matiasugluck.deremate_backend.repository.RouteRepository;
+import com.matiasugluck.deremate_backend.service.DispatchService;
+import com.matiasugluck.deremate_backend.service.OutboxService;
+import com.matiasugluck.deremate_backend.utils.BatchAssignment;
+import com.matiasugluck.deremate_backend.utils.HaversineKernel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Despacho por lotes: toma las rutas pendientes y los repartidores con lugar, arma la matriz de
+ * distancias (ultima posicion conocida del repartidor contra destino de la ruta) y resuelve la
+ * asignacion de menor costo total. Todas las asignaciones se escriben en un unico batch de
+ * UPDATE condicionales dentro de una transaccion, asi un repartidor que tomo la ruta a mano
+ * entre el snapshot y el commit no se pisa.
+ * <p>
+ * Un repartidor esta disponible si tuvo actividad en la ventana configurada y tiene menos rutas
+ * en curso que el maximo. Su posicion es el destino de la ultima ruta que toco (la que esta
+ * haciendo o la que acaba de terminar).
+ */
+@Service
+public class DispatchServiceImpl implements DispatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DispatchServiceImpl.class);
+    private static final String HUNGARIAN = "HUNGARIAN";
+    private static final String GREEDY = "GREEDY";
+
+    private final RouteRepository routeRepository;
+    private final RouteBatchRepository routeBatchRepository;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean scheduledDryRun;
+    private final int batchSize;
+    private final int maxActiveRoutes;
+    private final double maxDistanceMeters;
+    private final Duration courierWindow;
+    private final int hungarianMaxSize;
+
+    public DispatchServiceImpl(RouteRepository routeRepository,
+                               RouteBatchRepository routeBatchRepository,
+                               OutboxService outboxService,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${routes.dispatch.enabled:false}") boolean enabled,
+                               @Value("${routes.dispatch.dry-run:true}") boolean scheduledDryRun,
+                               @Value("${routes.dispatch.batch-size:500}") int batchSize,
+                               @Value("${routes.dispatch.max-active-routes:3}") int maxActiveRoutes,
+                               @Value("${routes.dispatch.max-distance-meters:20000}") double maxDistanceMeters,
+                               @Value("${routes.dispatch.courier-window-minutes:720}") long courierWindowMinutes,
+                               @Value("${routes.dispatch.hungarian-max-size:300}") int hungarianMaxSize) {
+        this.routeRepository = routeRepository;
+        this.routeBatchRepository = routeBatchRepository;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.scheduledDryRun = scheduledDryRun;
+        this.batchSize = batchSize;
+        this.maxActiveRoutes = maxActiveRoutes;
+        this.maxDistanceMeters = maxDistanceMeters;
+        this.courierWindow = Duration.ofMinutes(courierWindowMinutes);
+        this.hungarianMaxSize = hungarianMaxSize;
+    }
+
+    @Scheduled(initialDelayString = "${routes.dispatch.interval-ms:60000}",
+            fixedDelayString = "${routes.dispatch.interval-ms:60000}")
+    public void scheduledDispatch() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            dispatch(scheduledDryRun);
+        } catch (RuntimeException e) {
+            logger.error("Route dispatch failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Sincronizado para que la corrida programada y una manual no armen dos planes sobre el mismo snapshot
+    @Override
+    public synchronized DispatchPlanDTO dispatch(boolean dryRun) {
+        // La asignacion push es opt-in del operador; sin habilitarla solo se puede ver el plan
+        if (!dryRun && !enabled) {
+            throw new ApiException(RouteApiMessages.DISPATCH_DISABLED_CODE, RouteApiMessages.DISPATCH_DISABLED_DESC,
+                    HttpStatus.FORBIDDEN.value());
+        }
+        Instant now = Instant.now();
+        List<AvailableRouteEntry> routes = new ArrayList<>(routeRepository.findAvailableEntries(RouteStatus.PENDING));
+        // Las mas viejas primero: si el lote no alcanza, esperan menos las que mas llevan esperando
+        routes.sort(Comparator.comparing(AvailableRouteEntry::getLastUpdatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(AvailableRouteEntry::getRouteId));
+        if (routes.size() > batchSize) {
+            routes = routes.subList(0, batchSize);
+        }
+        List<Courier> couriers = routes.isEmpty() ? List.of() : availableCouriers(now);
+
+        int[] capacity = new int[couriers.size()];
+        int slots = 0;
+        for (int j = 0; j < couriers.size(); j++) {
+            capacity[j] = maxActiveRoutes - couriers.get(j).active;
+            slots += capacity[j];
+        }
+        // Destinos en arreglos paralelos: cada repartidor es una columna de la matriz calculada en un solo lote
+        int n = routes.size();
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = routes.get(i).getLatitude();
+            longitudes[i] = routes.get(i).getLongitude();
+        }
+        double[][] cost = new double[n][couriers.size()];
+        double[] column = new double[n];
+        for (int j = 0; j < couriers.size(); j++) {
+            Courier courier = couriers.get(j);
+            HaversineKernel.distancesFrom(courier.latitude, courier.longitude, latitudes, longitudes, column, n);
+            for (int i = 0; i < n; i++) {
+                cost[i][j] = column[i] <= maxDistanceMeters ? column[i] : BatchAssignment.INFEASIBLE;
+            }
+        }
+
+        boolean exact = Math.max(routes.size(), slots) <= hungarianMaxSize;
+        int[] solution = exact ? BatchAssignment.hungarian(cost, capacity) : BatchAssignment.greedy(cost, capacity);
+        List<DispatchAssignmentDTO> assignments = new ArrayList<>();
+        for (int i = 0; i < solution.length; i++) {
+            if (solution[i] >= 0) {
+                assignments.add(DispatchAssignmentDTO.builder()
+                        .routeId(routes.get(i).getRouteId())
+                        .userId(couriers.get(solution[i]).userId)
+                        .distanceMeters(cost[i][solution[i]])
+                        .build());
+            }
+        }
+        double totalMeters = BatchAssignment.total(cost, solution);
+
+        int committed = dryRun || assignments.isEmpty() ? 0 : commit(assignments, Timestamp.from(now));
+        if (!assignments.isEmpty()) {
+            logger.info("Route dispatch{}: {} pending, {} couriers, {} assigned ({}), {} committed, {} m total",
+                    dryRun ? " (dry run)" : "", routes.size(), couriers.size(), assignments.size(),
+                    exact ? HUNGARIAN : GREEDY, committed, Math.round(totalMeters));
+        }
+        return DispatchPlanDTO.builder()
+                .dryRun(dryRun)
+                .algorithm(exact ? HUNGARIAN : GREEDY)
+                .pendingRoutes(routes.size())
+                .availableCouriers(couriers.size())
+                .assignments(assignments)
+                .totalMeters(totalMeters)
+                .committed(committed)
+                .build();
+    }
+
+    private int commit(List<DispatchAssignmentDTO> assignments, Timestamp now) {
+        List<DispatchAssignmentDTO> applied = transactionTemplate.execute(status -> {
+            List<DispatchAssignmentDTO> written = routeBatchRepository.assignPending(assignments, now);
+            Map<Long, Integer> perCourier = new LinkedHashMap<>();
+            for (DispatchAssignmentDTO assignment : written) {
+                eventPublisher.publishEvent(new RouteStatusChangedEvent(assignment.getRouteId(), assignment.getUserId(),
+                        RouteStatus.PENDING, RouteStatus.INITIATED));
+                perCourier.merge(assignment.getUserId(), 1, Integer::sum);
+            }
+            perCourier.forEach((userId, count) -> outboxService.enqueueUserPush(userId, NotificationMessage.builder()
+                    .title("Nuevas rutas asignadas")
+                    .body(count == 1 ? "Se te asigno una nueva ruta." : "Se te asignaron " + count + " nuevas rutas.")
+                    .build()));
+            return written;
+        });
+        return applied == null ? 0 : applied.size();
+    }
+
+    private List<Courier> availableCouriers(Instant now) {
+        Map<Long, Courier> byUser = new LinkedHashMap<>();
+        for (CourierRouteRow row : routeRepository.findCourierRoutesSince(Timestamp.from(now.minus(courierWindow)))) {
+            byUser.computeIfAbsent(row.getUserId(), Courier::new).locate(row);
+        }
+        if (byUser.isEmpty()) {
+            return List.of();
+        }
+        // Las en curso que no se tocaron dentro de la ventana tambien cuentan como carga
+        for (CourierRouteRow row : routeRepository.findCourierRoutes(byUser.keySet(), RouteStatus.INITIATED)) {
+            Courier courier = byUser.get(row.getUserId());
+            courier.active++;
+            courier.locate(row);
+        }
+        return byUser.values().stream()
+                .filter(courier -> courier.lastSeen != null && courier.active < maxActiveRoutes)
+                .toList();
+    }
+
+    private static class Courier {
+        private final Long userId;
+        private int active;
+        private double latitude;
+        private double longitude;
+        private Timestamp lastSeen;
+
+        private Courier(Long userId) {
+            this.userId = userId;
+        }
+
+        // Se queda con el destino de la ruta tocada mas recientemente que tenga coordenadas
+        private void locate(CourierRouteRow row) {
+            if (row.getLatitude() == null || row.getLongitude() == null || row.getLastUpdatedAt() == null) {
+                return;
+            }
+            if (lastSeen == null || row.getLastUpdatedAt().after(lastSeen)) {
+                latitude = row.getLatitude();
+                longitude = row.getLongitude();
+                lastSeen = row.getLastUpdatedAt();
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.matiasugluck.deremate_backend.dto.route.EtaDTO;
+import com.matiasugluck.deremate_backend.dto.route.EtaSampleRow;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.repository.RouteRepository;
+import com.matiasugluck.deremate_backend.service.EtaService;
+import com.matiasugluck.deremate_backend.utils.DurationStats;
+import com.matiasugluck.deremate_backend.utils.GeoHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ETA de rutas a partir de lo que tardaron las completadas (completedAt - startedAt). Mantiene en
+ * memoria estadisticas incrementales por celda geohash del destino y hora de la semana en que se
+ * inicio, asi responder un ETA no consulta la base. Si la celda no tiene min-samples muestras en esa
+ * hora se usa, en orden, la celda en cualquier hora, la hora en cualquier celda y el total.
+ * <p>
+ * Las completadas antes de crear el servicio las carga un backfill al iniciar; las posteriores
+ * llegan con el evento de cambio de estado, asi ninguna se cuenta dos veces.
+ */
+@Service
+public class EtaServiceImpl implements EtaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EtaServiceImpl.class);
+    private static final int HOURS_PER_WEEK = 7 * 24;
+    // Error relativo de los cuantiles
+    private static final double RELATIVE_ACCURACY = 0.02;
+
+    private final RouteRepository routeRepository;
+    private final ZoneId zoneId;
+    private final int precision;
+    private final int minSamples;
+    private final long maxDurationSeconds;
+    private final Duration backfillWindow;
+    private final int backfillChunkSize;
+    // Las completadas desde aca las cuenta el listener; las anteriores, el backfill
+    private final Instant liveSince = Instant.now();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, CellStats> byCell = new HashMap<>();
+    private final DurationStats[] byHour = new DurationStats[HOURS_PER_WEEK];
+    private final DurationStats global = new DurationStats(RELATIVE_ACCURACY);
+
+    public EtaServiceImpl(RouteRepository routeRepository,
+                          @Value("${analytics.time-zone:America/Argentina/Buenos_Aires}") String timeZone,
+                          @Value("${eta.precision:5}") int precision,
+                          @Value("${eta.min-samples:5}") int minSamples,
+                          @Value("${eta.max-duration-hours:12}") long maxDurationHours,
+                          @Value("${eta.backfill.days:180}") long backfillDays,
+                          @Value("${eta.backfill.chunk-size:1000}") int backfillChunkSize) {
+        this.routeRepository = routeRepository;
+        this.zoneId = ZoneId.of(timeZone);
+        this.precision = precision;
+        this.minSamples = minSamples;
+        this.maxDurationSeconds = Duration.ofHours(maxDurationHours).toSeconds();
+        this.backfillWindow = Duration.ofDays(backfillDays);
+        this.backfillChunkSize = backfillChunkSize;
+    }
+
+    /**
+     * ETA de una ruta pendiente (si se iniciara ahora) o en curso (lo que le falta desde startedAt).
+     *
+     * @return null si la ruta ya termino, no tiene destino o todavia no hay muestras suficientes
+     */
+    @Override
+    public EtaDTO estimate(Double latitude, Double longitude, RouteStatus status, Timestamp startedAt) {
+        boolean running = status == RouteStatus.INITIATED && startedAt != null;
+        if ((status != RouteStatus.PENDING && !running) || !isValid(latitude, longitude)) {
+            return null;
+        }
+        Instant now = Instant.now();
+        Instant start = running ? startedAt.toInstant() : now;
+        String cell = GeoHash.encode(latitude, longitude, precision);
+        int hour = hourOfWeek(start);
+
+        String basis;
+        long samples;
+        double median;
+        double p90;
+        double mean;
+        double stdDev;
+        lock.readLock().lock();
+        try {
+            CellStats cellStats = byCell.get(cell);
+            DurationStats stats;
+            if (cellStats != null && enough(cellStats.byHour[hour])) {
+                stats = cellStats.byHour[hour];
+                basis = "CELL_HOUR";
+            } else if (cellStats != null && enough(cellStats.all)) {
+                stats = cellStats.all;
+                basis = "CELL";
+            } else if (enough(byHour[hour])) {
+                stats = byHour[hour];
+                basis = "HOUR";
+            } else if (enough(global)) {
+                stats = global;
+                basis = "GLOBAL";
+            } else {
+                return null;
+            }
+            samples = stats.count();
+            median = stats.quantile(0.5);
+            p90 = stats.quantile(0.9);
+            mean = stats.mean();
+            stdDev = stats.stdDev();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long elapsed = Duration.between(start, now).toSeconds();
+        return EtaDTO.builder()
+                .expectedSeconds(Math.max(0, Math.round(median) - elapsed))
+                .p90Seconds(Math.max(0, Math.round(p90) - elapsed))
+                .estimatedCompletionAt(Timestamp.from(start.plusSeconds(Math.round(median))))
+                .meanSeconds(mean)
+                .stdDevSeconds(stdDev)
+                .samples(samples)
+                .basis(basis)
+                .build();
+    }
+
+    // La ruta se completa con PUT /routes/{id}/complete o al confirmar su entrega
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteStatusChanged(RouteStatusChangedEvent event) {
+        if (event.getNewStatus() != RouteStatus.COMPLETED) {
+            return;
+        }
+        routeRepository.findEtaSample(event.getRouteId()).ifPresent(sample -> {
+            if (sample.getCompletedAt() != null && !sample.getCompletedAt().toInstant().isBefore(liveSince)) {
+                record(sample);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            backfill();
+        } catch (RuntimeException e) {
+            logger.error("ETA backfill failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Carga, por lotes en orden de id, las rutas completadas dentro de la ventana y antes de que
+     * empezara a escuchar eventos.
+     *
+     * @return cantidad de muestras cargadas
+     */
+    @Override
+    public int backfill() {
+        Timestamp since = Timestamp.from(liveSince.minus(backfillWindow));
+        Timestamp until = Timestamp.from(liveSince);
+        long afterId = 0;
+        int loaded = 0;
+        while (true) {
+            List<EtaSampleRow> chunk = routeRepository.findCompletedSamples(afterId, RouteStatus.COMPLETED, since, until,
+                    PageRequest.of(0, backfillChunkSize));
+            for (EtaSampleRow sample : chunk) {
+                if (record(sample)) {
+                    loaded++;
+                }
+            }
+            if (chunk.size() < backfillChunkSize) {
+                break;
+            }
+            afterId = chunk.get(chunk.size() - 1).getRouteId();
+        }
+        logger.info("ETA statistics loaded from {} completed routes", loaded);
+        return loaded;
+    }
+
+    private boolean record(EtaSampleRow sample) {
+        if (sample.getStartedAt() == null || sample.getCompletedAt() == null
+                || !isValid(sample.getLatitude(), sample.getLongitude())) {
+            return false;
+        }
+        long seconds = Duration.between(sample.getStartedAt().toInstant(), sample.getCompletedAt().toInstant()).toSeconds();
+        // Las que quedaron abiertas de mas (se olvidaron de completarlas) no representan un recorrido
+        if (seconds <= 0 || seconds > maxDurationSeconds) {
+            return false;
+        }
+        String cell = GeoHash.encode(sample.getLatitude(), sample.getLongitude(), precision);
+        int hour = hourOfWeek(sample.getStartedAt().toInstant());
+        lock.writeLock().lock();
+        try {
+            CellStats cellStats = byCell.computeIfAbsent(cell, key -> new CellStats());
+            if (cellStats.byHour[hour] == null) {
+                cellStats.byHour[hour] = new DurationStats(RELATIVE_ACCURACY);
+            }
+            if (byHour[hour] == null) {
+                byHour[hour] = new DurationStats(RELATIVE_ACCURACY);
+            }
+            cellStats.byHour[hour].add(seconds);
+            cellStats.all.add(seconds);
+            byHour[hour].add(seconds);
+            global.add(seconds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    private boolean enough(DurationStats stats) {
+        return stats != null && stats.count() >= minSamples;
+    }
+
+    // 0 = lunes de 0 a 1, 167 = domingo de 23 a 24, en la zona horaria de la operacion
+    private int hourOfWeek(Instant instant) {
+        ZonedDateTime local = instant.atZone(zoneId);
+        return (local.getDayOfWeek().getValue() - 1) * 24 + local.getHour();
+    }
+
+    private static boolean isValid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null && Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180;
+    }
+
+    private static class CellStats {
+        private final DurationStats all = new DurationStats(RELATIVE_ACCURACY);
+        private final DurationStats[] byHour = new DurationStats[HOURS_PER_WEEK];
+    }
+}
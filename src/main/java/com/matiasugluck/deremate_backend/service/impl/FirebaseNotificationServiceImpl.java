@@ -5,14 +5,25 @@ import com.matiasugluck.deremate_backend.dto.GenericResponseDTO;
 import com.matiasugluck.deremate_backend.entity.Device;
 import com.matiasugluck.deremate_backend.entity.NotificationMessage;
 import com.matiasugluck.deremate_backend.entity.User;
+import com.matiasugluck.deremate_backend.exception.NotificationDeliveryException;
 import com.matiasugluck.deremate_backend.repository.DeviceRepository;
 import com.matiasugluck.deremate_backend.service.FirebaseNotificationService;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 public class FirebaseNotificationServiceImpl implements FirebaseNotificationService {
+    // Maximo de tokens por llamada a sendEachForMulticast
+    static final int MULTICAST_BATCH_SIZE = 500;
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebaseNotificationServiceImpl.class);
+
     final DeviceRepository deviceRepository;
     final FirebaseMessaging firebaseMessaging;
 
@@ -66,4 +77,76 @@ public class FirebaseNotificationServiceImpl implements FirebaseNotificationServ
             return "Failure";
         }
     }
+
+    /**
+     * Envia la misma notificacion a todos los tokens en lotes de hasta 500 (sendEachForMulticast).
+     * Los tokens que FCM reporta como UNREGISTERED se eliminan al final con un unico DELETE en su
+     * propia transaccion; si ese DELETE falla solo se registra. Si algun lote falla completo, o FCM
+     * devuelve un error transitorio para algun token, se lanza NotificationDeliveryException con
+     * esos tokens para que el outbox reintente solo a ellos.
+     *
+     * @return cantidad de envios exitosos
+     */
+    @Override
+    public int sendMulticast(NotificationMessage notificationMessage, List<String> recipientTokens) {
+        Notification notification = Notification.builder()
+                .setTitle(notificationMessage.getTitle())
+                .setBody(notificationMessage.getBody())
+                .setImage(notificationMessage.getImage())
+                .build();
+
+        int successCount = 0;
+        List<String> failedTokens = new ArrayList<>();
+        List<String> unregisteredTokens = new ArrayList<>();
+        for (int from = 0; from < recipientTokens.size(); from += MULTICAST_BATCH_SIZE) {
+            List<String> batch = recipientTokens.subList(from, Math.min(from + MULTICAST_BATCH_SIZE, recipientTokens.size()));
+            MulticastMessage message = MulticastMessage.builder()
+                    .setNotification(notification)
+                    .putAllData(notificationMessage.getData())
+                    .addAllTokens(batch)
+                    .build();
+            try {
+                BatchResponse response = firebaseMessaging.sendEachForMulticast(message);
+                successCount += response.getSuccessCount();
+                List<SendResponse> responses = response.getResponses();
+                for (int i = 0; i < responses.size(); i++) {
+                    FirebaseMessagingException exception = responses.get(i).getException();
+                    if (exception == null) {
+                        continue;
+                    }
+                    if (exception.getMessagingErrorCode() == MessagingErrorCode.UNREGISTERED) {
+                        unregisteredTokens.add(batch.get(i));
+                    } else if (isTransient(exception.getMessagingErrorCode())) {
+                        failedTokens.add(batch.get(i));
+                    }
+                }
+            } catch (FirebaseMessagingException e) {
+                logger.error("Multicast batch of {} tokens failed: {}", batch.size(), e.getMessage());
+                failedTokens.addAll(batch);
+            }
+        }
+
+        if (!unregisteredTokens.isEmpty()) {
+            try {
+                int removed = deviceRepository.deleteByDeviceIdIn(unregisteredTokens);
+                logger.info("Removed {} unregistered device tokens", removed);
+            } catch (RuntimeException e) {
+                // Se vuelven a detectar en el proximo envio
+                logger.warn("Could not remove {} unregistered device tokens: {}", unregisteredTokens.size(), e.getMessage());
+            }
+        }
+        if (!failedTokens.isEmpty()) {
+            throw new NotificationDeliveryException(failedTokens.size() + " token(s) failed, " + successCount + " messages sent",
+                    failedTokens);
+        }
+        return successCount;
+    }
+
+    // Errores por los que vale la pena reintentar el mismo token
+    private static boolean isTransient(MessagingErrorCode code) {
+        return code == null
+                || code == MessagingErrorCode.UNAVAILABLE
+                || code == MessagingErrorCode.INTERNAL
+                || code == MessagingErrorCode.QUOTA_EXCEEDED;
+    }
 }
@@ -0,0 +1,149 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matiasugluck.deremate_backend.constants.RouteApiMessages;
+import com.matiasugluck.deremate_backend.dto.route.ItineraryDTO;
+import com.matiasugluck.deremate_backend.dto.route.ItineraryStopDTO;
+import com.matiasugluck.deremate_backend.dto.route.ItineraryStopRow;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.DeliveryRepository;
+import com.matiasugluck.deremate_backend.service.ItineraryService;
+import com.matiasugluck.deremate_backend.utils.GeoDistance;
+import com.matiasugluck.deremate_backend.utils.StopSequencer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recorrido sugerido para las entregas pendientes de cada repartidor (rutas en curso).
+ * El orden sale de {@link StopSequencer} con un tiempo maximo por repartidor; el plan de todos
+ * los repartidores reparte un problema por tarea en un ForkJoinPool propio, para no competir con
+ * el pool comun ni con los hilos de las requests. Ese plan se cachea all-cache-ms y los pedidos que
+ * llegan mientras se calcula esperan el mismo resultado, asi que se resuelve a lo sumo una vez por
+ * periodo sin importar cuantos lo consulten. Las paradas sin coordenadas van al final.
+ */
+@Service
+public class ItineraryServiceImpl implements ItineraryService {
+
+    private final DeliveryRepository deliveryRepository;
+    private final long budgetNanos;
+    private final ForkJoinPool pool;
+    // Una sola entrada: el plan de todos los repartidores
+    private final Cache<Boolean, List<ItineraryDTO>> allItineraries;
+
+    public ItineraryServiceImpl(DeliveryRepository deliveryRepository,
+                                @Value("${routes.itinerary.time-budget-ms:200}") long budgetMillis,
+                                @Value("${routes.itinerary.parallelism:0}") int parallelism,
+                                @Value("${routes.itinerary.all-cache-ms:10000}") long allCacheMillis) {
+        this.deliveryRepository = deliveryRepository;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.allItineraries = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofMillis(allCacheMillis))
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public ItineraryDTO getItinerary(Long userId, Double latitude, Double longitude) {
+        double[] start = null;
+        if (latitude != null || longitude != null) {
+            if (latitude == null || longitude == null || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+                throw new ApiException(
+                        RouteApiMessages.INVALID_LOCATION_CODE,
+                        RouteApiMessages.INVALID_LOCATION_DESC,
+                        HttpStatus.BAD_REQUEST.value());
+            }
+            start = new double[]{latitude, longitude};
+        }
+        List<ItineraryStopRow> rows = deliveryRepository.findItineraryStops(userId, RouteStatus.INITIATED, DeliveryStatus.NOT_DELIVERED);
+        return solve(userId, rows, start);
+    }
+
+    // La carga corre dentro de la operacion atomica sobre la clave: los pedidos concurrentes la esperan
+    @Override
+    public List<ItineraryDTO> getAllItineraries() {
+        return allItineraries.get(Boolean.TRUE, key -> solveAll());
+    }
+
+    private List<ItineraryDTO> solveAll() {
+        Map<Long, List<ItineraryStopRow>> byUser = new LinkedHashMap<>();
+        for (ItineraryStopRow row : deliveryRepository.findAllItineraryStops(RouteStatus.INITIATED, DeliveryStatus.NOT_DELIVERED)) {
+            byUser.computeIfAbsent(row.getUserId(), id -> new ArrayList<>()).add(row);
+        }
+        List<ForkJoinTask<ItineraryDTO>> tasks = new ArrayList<>(byUser.size());
+        byUser.forEach((userId, rows) -> tasks.add(pool.submit(() -> solve(userId, rows, null))));
+        List<ItineraryDTO> itineraries = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<ItineraryDTO> task : tasks) {
+            itineraries.add(task.join());
+        }
+        return List.copyOf(itineraries);
+    }
+
+    private ItineraryDTO solve(Long userId, List<ItineraryStopRow> rows, double[] start) {
+        List<ItineraryStopRow> located = new ArrayList<>(rows.size());
+        List<ItineraryStopRow> unlocated = new ArrayList<>();
+        for (ItineraryStopRow row : rows) {
+            (row.getLatitude() != null && row.getLongitude() != null ? located : unlocated).add(row);
+        }
+        double[] latitudes = new double[located.size()];
+        double[] longitudes = new double[located.size()];
+        int[] listed = new int[located.size()];
+        for (int i = 0; i < located.size(); i++) {
+            latitudes[i] = located.get(i).getLatitude();
+            longitudes[i] = located.get(i).getLongitude();
+            listed[i] = i;
+        }
+        int[] order = StopSequencer.sequence(latitudes, longitudes, start, budgetNanos);
+
+        List<ItineraryStopDTO> stops = new ArrayList<>(rows.size());
+        double[] previous = start;
+        for (int index : order) {
+            ItineraryStopRow row = located.get(index);
+            Double leg = previous == null ? null
+                    : GeoDistance.haversineMeters(previous[0], previous[1], row.getLatitude(), row.getLongitude());
+            stops.add(toStop(stops.size() + 1, row, leg));
+            previous = new double[]{row.getLatitude(), row.getLongitude()};
+        }
+        for (ItineraryStopRow row : unlocated) {
+            stops.add(toStop(stops.size() + 1, row, null));
+        }
+        return ItineraryDTO.builder()
+                .userId(userId)
+                .stops(stops)
+                .totalMeters(StopSequencer.length(latitudes, longitudes, start, order))
+                .unsequencedMeters(StopSequencer.length(latitudes, longitudes, start, listed))
+                .build();
+    }
+
+    private static ItineraryStopDTO toStop(int position, ItineraryStopRow row, Double legMeters) {
+        return ItineraryStopDTO.builder()
+                .position(position)
+                .deliveryId(row.getDeliveryId())
+                .routeId(row.getRouteId())
+                .description(row.getDescription())
+                .packageLocation(row.getPackageLocation())
+                .latitude(row.getLatitude())
+                .longitude(row.getLongitude())
+                .legMeters(legMeters)
+                .build();
+    }
+}
@@ -0,0 +1,198 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.matiasugluck.deremate_backend.constants.RouteApiMessages;
+import com.matiasugluck.deremate_backend.dto.route.LocationPingDTO;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.CourierTrackRepository;
+import com.matiasugluck.deremate_backend.repository.RouteRepository;
+import com.matiasugluck.deremate_backend.service.LocationTrackingService;
+import com.matiasugluck.deremate_backend.utils.LocationRingBuffer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posiciones GPS de los repartidores con rutas en curso. Cada posicion se guarda en el buffer
+ * circular del repartidor (fuera del heap, sin crear objetos) y un flush periodico las escribe en
+ * courier_track en batches de hasta batch-size filas. Una posicion solo se descarta del buffer
+ * despues de escribirse; si el flush falla se reintenta en el siguiente.
+ * <p>
+ * Que el repartidor tenga una ruta en curso se consulta a la base solo con su primera posicion y
+ * se recuerda hasta que alguna de sus rutas cambia de estado. Los buffers que quedan vacios y sin
+ * posiciones nuevas durante idle-evict-minutes se liberan.
+ */
+@Service
+public class LocationTrackingServiceImpl implements LocationTrackingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationTrackingServiceImpl.class);
+    private final RouteRepository routeRepository;
+    private final CourierTrackRepository courierTrackRepository;
+    private final int bufferCapacity;
+    private final long idleEvictNanos;
+
+    private final Map<Long, LocationRingBuffer> buffers = new ConcurrentHashMap<>();
+    private final Set<Long> activeCouriers = ConcurrentHashMap.newKeySet();
+
+    // Arreglos del flush, reutilizados entre corridas (el flush es sincronizado)
+    private final long[] userIds;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] epochMillis;
+    private final List<Peeked> peeked = new ArrayList<>();
+
+    public LocationTrackingServiceImpl(RouteRepository routeRepository,
+                                       CourierTrackRepository courierTrackRepository,
+                                       @Value("${tracking.buffer-capacity:64}") int bufferCapacity,
+                                       @Value("${tracking.batch-size:5000}") int batchSize,
+                                       @Value("${tracking.idle-evict-minutes:30}") long idleEvictMinutes) {
+        this.routeRepository = routeRepository;
+        this.courierTrackRepository = courierTrackRepository;
+        this.bufferCapacity = bufferCapacity;
+        this.idleEvictNanos = TimeUnit.MINUTES.toNanos(idleEvictMinutes);
+        this.userIds = new long[batchSize];
+        this.latitudes = new double[batchSize];
+        this.longitudes = new double[batchSize];
+        this.epochMillis = new long[batchSize];
+    }
+
+    @Override
+    public void recordPing(Long userId, LocationPingDTO ping) {
+        Double latitude = ping.getLatitude();
+        Double longitude = ping.getLongitude();
+        if (latitude == null || longitude == null || !(Math.abs(latitude) <= 90) || !(Math.abs(longitude) <= 180)) {
+            throw new ApiException(RouteApiMessages.INVALID_LOCATION_CODE, RouteApiMessages.INVALID_LOCATION_DESC,
+                    HttpStatus.BAD_REQUEST.value());
+        }
+        if (!activeCouriers.contains(userId)) {
+            if (!routeRepository.existsByAssignedToIdAndStatus(userId, RouteStatus.INITIATED)) {
+                throw new ApiException(RouteApiMessages.NO_ACTIVE_ROUTE_CODE, RouteApiMessages.NO_ACTIVE_ROUTE_DESC,
+                        HttpStatus.BAD_REQUEST.value());
+            }
+            activeCouriers.add(userId);
+        }
+
+        // Nunca despues de la hora del servidor; el buffer evita que vuelva antes de la posicion anterior
+        long now = System.currentTimeMillis();
+        long recordedAt = ping.getRecordedAt() == null ? now : Math.min(ping.getRecordedAt(), now);
+        while (true) {
+            LocationRingBuffer buffer = buffers.computeIfAbsent(userId, id -> new LocationRingBuffer(bufferCapacity));
+            if (buffer.offer(latitude, longitude, recordedAt)) {
+                return;
+            }
+            // El flush lo cerro por inactividad justo ahora: se reemplaza por uno nuevo
+            buffers.remove(userId, buffer);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${tracking.flush-interval-ms:5000}",
+            fixedDelayString = "${tracking.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Courier track flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        scheduledFlush();
+    }
+
+    @Override
+    public synchronized int flush() {
+        long idleCutoff = System.nanoTime() - idleEvictNanos;
+        int written = 0;
+        int filled = 0;
+        long overwritten = 0;
+        for (Map.Entry<Long, LocationRingBuffer> entry : buffers.entrySet()) {
+            LocationRingBuffer buffer = entry.getValue();
+            overwritten += buffer.takeOverwritten();
+            while (true) {
+                long result = buffer.peek(latitudes, longitudes, epochMillis, filled, userIds.length - filled);
+                int count = LocationRingBuffer.count(result);
+                if (count == 0) {
+                    break;
+                }
+                long userId = entry.getKey();
+                for (int i = filled; i < filled + count; i++) {
+                    userIds[i] = userId;
+                }
+                filled += count;
+                peeked.add(new Peeked(buffer, LocationRingBuffer.first(result) + count));
+                if (filled < userIds.length) {
+                    break;
+                }
+                written += write(filled);
+                filled = 0;
+            }
+            if (buffer.closeIfIdle(idleCutoff)) {
+                buffers.remove(entry.getKey(), buffer);
+            }
+        }
+        written += write(filled);
+
+        if (overwritten > 0) {
+            logger.warn("Courier track buffers overwrote {} positions before they were flushed", overwritten);
+        }
+        if (written > 0) {
+            logger.debug("Flushed {} courier positions from {} buffers", written, buffers.size());
+        }
+        return written;
+    }
+
+    private int write(int count) {
+        if (count > 0) {
+            try {
+                courierTrackRepository.insertAll(userIds, latitudes, longitudes, epochMillis, count);
+            } catch (RuntimeException e) {
+                // No se libera nada: las posiciones siguen en los buffers para el proximo flush
+                peeked.clear();
+                throw e;
+            }
+        }
+        for (Peeked p : peeked) {
+            p.buffer.release(p.upTo);
+        }
+        peeked.clear();
+        return count;
+    }
+
+    // Con cada cambio de estado se olvida al repartidor; su proxima posicion vuelve a consultar la base
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteStatusChanged(RouteStatusChangedEvent event) {
+        if (event.getAssignedUserId() == null) {
+            return;
+        }
+        if (event.getNewStatus() == RouteStatus.INITIATED) {
+            activeCouriers.add(event.getAssignedUserId());
+        } else {
+            activeCouriers.remove(event.getAssignedUserId());
+        }
+    }
+
+    // Buffer copiado en el batch en curso y hasta que posicion liberarlo cuando se escriba
+    private static class Peeked {
+        private final LocationRingBuffer buffer;
+        private final long upTo;
+
+        private Peeked(LocationRingBuffer buffer, long upTo) {
+            this.buffer = buffer;
+            this.upTo = upTo;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matiasugluck.deremate_backend.dto.outbox.EmailPayload;
+import com.matiasugluck.deremate_backend.dto.outbox.PushPayload;
+import com.matiasugluck.deremate_backend.entity.NotificationMessage;
+import com.matiasugluck.deremate_backend.entity.OutboxMessage;
+import com.matiasugluck.deremate_backend.enums.OutboxMessageType;
+import com.matiasugluck.deremate_backend.enums.OutboxStatus;
+import com.matiasugluck.deremate_backend.exception.NotificationDeliveryException;
+import com.matiasugluck.deremate_backend.repository.DeviceRepository;
+import com.matiasugluck.deremate_backend.repository.OutboxMessageRepository;
+import com.matiasugluck.deremate_backend.service.FirebaseNotificationService;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Envia los mensajes pendientes de la tabla outbox.
+ * Cada ejecucion reclama un lote con SKIP LOCKED en una transaccion corta que corre su
+ * next_attempt_at claim-timeout-ms hacia adelante (asi otra instancia no lo toma y, si esta se cae,
+ * se reintenta al vencer), lo envia sin transaccion ni locks abiertos y marca el resultado en otra
+ * transaccion corta. Los fallos se reintentan con backoff exponencial hasta agotar los intentos
+ * (FAILED); un push que fallo en parte se reintenta solo a los tokens que fallaron.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final DeviceRepository deviceRepository;
+    private final FirebaseNotificationService firebaseNotificationService;
+    private final JavaMailSender mailSender;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final String emailFrom;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+
+    public OutboxDispatcher(OutboxMessageRepository outboxMessageRepository,
+                            DeviceRepository deviceRepository,
+                            FirebaseNotificationService firebaseNotificationService,
+                            JavaMailSender mailSender,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${spring.mail.username}") String emailFrom,
+                            @Value("${outbox.dispatcher.batch-size:50}") int batchSize,
+                            @Value("${outbox.dispatcher.max-attempts:8}") int maxAttempts,
+                            @Value("${outbox.dispatcher.base-backoff-ms:5000}") long baseBackoffMs,
+                            @Value("${outbox.dispatcher.max-backoff-ms:900000}") long maxBackoffMs,
+                            @Value("${outbox.dispatcher.claim-timeout-ms:300000}") long claimTimeoutMs) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.deviceRepository = deviceRepository;
+        this.firebaseNotificationService = firebaseNotificationService;
+        this.mailSender = mailSender;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.emailFrom = emailFrom;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofMillis(baseBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMs);
+    }
+
+    /**
+     * @return cantidad de mensajes enviados en esta ejecucion
+     */
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.poll-interval-ms:1000}")
+    public int dispatch() {
+        Instant now = Instant.now();
+        List<OutboxMessage> batch = transactionTemplate.execute(status -> claim(now));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        int sent = 0;
+        for (OutboxMessage message : batch) {
+            try {
+                send(message);
+                message.setStatus(OutboxStatus.SENT);
+                message.setSentAt(Timestamp.from(Instant.now()));
+                message.setLastError(null);
+                sent++;
+            } catch (Exception e) {
+                scheduleRetry(message, e, now);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxMessageRepository.saveAll(batch));
+        logger.debug("Outbox dispatch: {} sent, {} pending retry or failed", sent, batch.size() - sent);
+        return sent;
+    }
+
+    // Las filas quedan reservadas por claim-timeout al confirmar; el lock se suelta enseguida
+    private List<OutboxMessage> claim(Instant now) {
+        List<OutboxMessage> batch = outboxMessageRepository.claimBatch(Timestamp.from(now), batchSize);
+        Timestamp claimedUntil = Timestamp.from(now.plus(claimTimeout));
+        for (OutboxMessage message : batch) {
+            message.setNextAttemptAt(claimedUntil);
+        }
+        outboxMessageRepository.saveAll(batch);
+        return batch;
+    }
+
+    private void send(OutboxMessage message) throws Exception {
+        if (message.getType() == OutboxMessageType.EMAIL) {
+            sendEmail(objectMapper.readValue(message.getPayload(), EmailPayload.class));
+        } else {
+            sendPush(message, objectMapper.readValue(message.getPayload(), PushPayload.class));
+        }
+    }
+
+    private void sendPush(OutboxMessage message, PushPayload payload) throws Exception {
+        List<String> tokens;
+        if (payload.getTokens() != null) {
+            tokens = payload.getTokens();
+        } else if (message.getType() == OutboxMessageType.PUSH_BROADCAST) {
+            tokens = deviceRepository.findAllDeviceIds();
+        } else {
+            tokens = deviceRepository.findDeviceIdsByUserId(payload.getUserId());
+        }
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        NotificationMessage notification = NotificationMessage.builder()
+                .title(payload.getTitle())
+                .body(payload.getBody())
+                .data(payload.getData())
+                .build();
+        try {
+            firebaseNotificationService.sendMulticast(notification, tokens);
+        } catch (NotificationDeliveryException e) {
+            // El reintento va solo a los que fallaron; los demas ya recibieron la notificacion
+            if (!e.getFailedTokens().isEmpty()) {
+                payload.setTokens(List.copyOf(e.getFailedTokens()));
+                message.setPayload(objectMapper.writeValueAsString(payload));
+            }
+            throw e;
+        }
+    }
+
+    private void sendEmail(EmailPayload payload) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, StandardCharsets.UTF_8.name());
+        helper.setFrom(emailFrom);
+        helper.setTo(payload.getTo());
+        helper.setSubject(payload.getSubject());
+        helper.setText(payload.getHtmlBody(), true);
+        mailSender.send(message);
+    }
+
+    private void scheduleRetry(OutboxMessage message, Exception error, Instant now) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(truncate(error.getClass().getSimpleName() + ": " + error.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            message.setStatus(OutboxStatus.FAILED);
+            logger.error("Outbox message {} ({}) failed permanently after {} attempts: {}",
+                    message.getId(), message.getType(), attempts, error.getMessage());
+            return;
+        }
+
+        // 5s, 10s, 20s, ... hasta maxBackoff
+        Duration backoff = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (backoff.compareTo(maxBackoff) > 0) {
+            backoff = maxBackoff;
+        }
+        message.setNextAttemptAt(Timestamp.from(now.plus(backoff)));
+        logger.warn("Outbox message {} ({}) attempt {} failed, retrying in {}s: {}",
+                message.getId(), message.getType(), attempts, backoff.toSeconds(), error.getMessage());
+    }
+
+    private static String truncate(String value) {
+        return value.length() > MAX_ERROR_LENGTH ? value.substring(0, MAX_ERROR_LENGTH) : value;
+    }
+}
@@ -0,0 +1,69 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matiasugluck.deremate_backend.dto.outbox.EmailPayload;
+import com.matiasugluck.deremate_backend.dto.outbox.PushPayload;
+import com.matiasugluck.deremate_backend.entity.NotificationMessage;
+import com.matiasugluck.deremate_backend.entity.OutboxMessage;
+import com.matiasugluck.deremate_backend.enums.OutboxMessageType;
+import com.matiasugluck.deremate_backend.enums.OutboxStatus;
+import com.matiasugluck.deremate_backend.repository.OutboxMessageRepository;
+import com.matiasugluck.deremate_backend.service.OutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Registra notificaciones y emails en la tabla outbox. Se une a la transaccion del llamador,
+ * por lo que si el cambio de negocio hace rollback el mensaje nunca se envia.
+ * El envio real lo hace OutboxDispatcher en segundo plano.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional
+    public void enqueueBroadcast(NotificationMessage notificationMessage) {
+        save(OutboxMessageType.PUSH_BROADCAST, toPushPayload(null, notificationMessage));
+    }
+
+    @Override
+    @Transactional
+    public void enqueueUserPush(Long userId, NotificationMessage notificationMessage) {
+        save(OutboxMessageType.PUSH_USER, toPushPayload(userId, notificationMessage));
+    }
+
+    @Override
+    @Transactional
+    public void enqueueEmail(String to, String subject, String htmlBody) {
+        save(OutboxMessageType.EMAIL, new EmailPayload(to, subject, htmlBody));
+    }
+
+    private PushPayload toPushPayload(Long userId, NotificationMessage notificationMessage) {
+        return new PushPayload(userId, notificationMessage.getTitle(), notificationMessage.getBody(), notificationMessage.getData(), null);
+    }
+
+    private void save(OutboxMessageType type, Object payload) {
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            outboxMessageRepository.save(OutboxMessage.builder()
+                    .type(type)
+                    .status(OutboxStatus.PENDING)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .attempts(0)
+                    .nextAttemptAt(now)
+                    .createdAt(now)
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload could not be serialized", e);
+        }
+    }
+}
@@ -3,13 +3,18 @@ package com.matiasugluck.deremate_backend.service.impl;
 import com.matiasugluck.deremate_backend.constants.PointsApiMessages;
 import com.matiasugluck.deremate_backend.dto.points.RewardSpinDTO;
 import com.matiasugluck.deremate_backend.dto.points.RewardSpinOption;
+import com.matiasugluck.deremate_backend.dto.points.TrackDistanceDTO;
 import com.matiasugluck.deremate_backend.dto.points.UserPointsDTO;
 import com.matiasugluck.deremate_backend.entity.User;
 import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.CourierTrackRepository;
 import com.matiasugluck.deremate_backend.repository.UserRepository;
 import com.matiasugluck.deremate_backend.service.PointsService;
+import com.matiasugluck.deremate_backend.utils.HaversineKernel;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Random;
@@ -19,7 +24,18 @@ import java.util.Random;
 @RequiredArgsConstructor
 public class PointsServiceImpl implements PointsService {
 
+    // Un tramo mas rapido que esto (unos 120 km/h) es un salto del GPS y no suma distancia
+    private static final double MAX_SPEED_METERS_PER_SECOND = 120 / 3.6;
+    // Un tramo con un hueco mayor no se paga: no se sabe por donde anduvo y los tiempos pueden venir de
+    // buffers distintos (inactividad o reinicio), donde la hora de la posicion anterior no acota a la nueva
+    private static final long MAX_LEG_GAP_MILLIS = 5 * 60_000;
+    // Posiciones leidas por canje; las que sobran quedan para el siguiente
+    private static final int MAX_TRACK_POSITIONS = 5000;
+    // Metros por punto (2 puntos por kilometro)
+    private static final double METERS_PER_POINT = 500;
+
     private final UserRepository userRepository;
+    private final CourierTrackRepository courierTrackRepository;
 
     private final List<RewardSpinOption> wheelOptions = List.of(
             new RewardSpinOption("Nada", 0, false),
@@ -51,10 +67,76 @@ public class PointsServiceImpl implements PointsService {
         addCustomPoints(userId, 10);
     }
 
+    /**
+     * Suma 2 puntos por kilometro recorrido segun las posiciones que el servidor guardo en
+     * courier_track (POST /routes/location) desde el ultimo canje; el cliente no informa distancias.
+     * Los tramos mas rapidos que MAX_SPEED son saltos del GPS y no cuentan, igual que los que van hacia
+     * atras en el tiempo o tienen un hueco de mas de MAX_LEG_GAP. El canje avanza hasta la
+     * ultima posicion con la que se completo un punto: lo recorrido despues se cuenta en el proximo.
+     */
     @Override
-    public void addPointsByDistance(Long userId, double kilometers) {
-        int earnedPoints = (int) Math.floor(kilometers * 2);
-        addCustomPoints(userId, earnedPoints);
+    @Transactional
+    public TrackDistanceDTO addPointsByTrack(Long userId) {
+        long creditedUpTo = courierTrackRepository.findCreditedUpTo(userId)
+                .orElseThrow(() -> new ApiException(
+                        PointsApiMessages.USER_NOT_FOUND_CODE,
+                        PointsApiMessages.USER_NOT_FOUND_DESC,
+                        404
+                ));
+
+        // Lugar extra para la posicion ya canjeada, que es el inicio del primer tramo
+        long[] ids = new long[MAX_TRACK_POSITIONS + 1];
+        double[] latitudes = new double[ids.length];
+        double[] longitudes = new double[ids.length];
+        long[] recordedAt = new long[ids.length];
+        int count = courierTrackRepository.findFrom(userId, creditedUpTo, ids, latitudes, longitudes, recordedAt);
+
+        int legs = Math.max(0, count - 1);
+        double[] meters = new double[legs];
+        HaversineKernel.pairwise(latitudes, longitudes, 0, latitudes, longitudes, 1, meters, legs);
+        double total = 0;
+        double credited = 0;
+        int discarded = 0;
+        int creditedDiscarded = 0;
+        int creditedLast = -1;
+        for (int i = 0; i < legs; i++) {
+            long gapMillis = recordedAt[i + 1] - recordedAt[i];
+            if (gapMillis < 0 || gapMillis > MAX_LEG_GAP_MILLIS
+                    || meters[i] > MAX_SPEED_METERS_PER_SECOND * gapMillis / 1000.0) {
+                discarded++;
+            } else {
+                total += meters[i];
+            }
+            if (Math.floor(total / METERS_PER_POINT) > Math.floor(credited / METERS_PER_POINT)) {
+                credited = total;
+                creditedDiscarded = discarded;
+                creditedLast = i + 1;
+            }
+        }
+        // Muchas posiciones sin completar un punto (repartidor quieto): se avanza igual para no releerlas siempre
+        if (creditedLast < 0 && count == ids.length) {
+            creditedLast = count - 1;
+            creditedDiscarded = discarded;
+        }
+
+        int earnedPoints = (int) Math.floor(credited / METERS_PER_POINT);
+        if (creditedLast >= 0 && ids[creditedLast] != creditedUpTo) {
+            if (!courierTrackRepository.advanceCreditedUpTo(userId, creditedUpTo, ids[creditedLast])) {
+                throw new ApiException(
+                        PointsApiMessages.TRACK_ALREADY_CREDITED_CODE,
+                        PointsApiMessages.TRACK_ALREADY_CREDITED_DESC,
+                        HttpStatus.CONFLICT.value());
+            }
+            if (earnedPoints > 0) {
+                addCustomPoints(userId, earnedPoints);
+            }
+        }
+        return TrackDistanceDTO.builder()
+                .userId(userId)
+                .kilometers(credited / 1000)
+                .earnedPoints(earnedPoints)
+                .discardedLegs(creditedDiscarded)
+                .build();
     }
 
     @Override
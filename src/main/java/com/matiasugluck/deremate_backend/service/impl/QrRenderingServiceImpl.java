@@ -0,0 +1,129 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matiasugluck.deremate_backend.constants.DeliveryApiMessages;
+import com.matiasugluck.deremate_backend.dto.delivery.QrImageDTO;
+import com.matiasugluck.deremate_backend.event.DeliveryCreatedEvent;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.DeliveryRepository;
+import com.matiasugluck.deremate_backend.service.QrRenderingService;
+import com.matiasugluck.deremate_backend.utils.QRCodeGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Sirve los QR de las entregas como PNG desde una cache en memoria acotada por bytes.
+ * El contenido del QR depende solo del id de la entrega, por lo que cada imagen se
+ * renderiza una vez y su ETag (hash del PNG) es estable entre lecturas.
+ * Las entregas nuevas se pre-renderizan en segundo plano despues del commit; si la cola
+ * esta llena se omiten y se renderizan en la primera lectura.
+ */
+@Service
+public class QrRenderingServiceImpl implements QrRenderingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QrRenderingServiceImpl.class);
+
+    // Overhead aproximado por entrada (clave, ETag y nodo de la cache)
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final DeliveryRepository deliveryRepository;
+    private final Cache<Long, QrImageDTO> cache;
+    private final BlockingQueue<Long> queue;
+    private final int batchSize;
+
+    public QrRenderingServiceImpl(DeliveryRepository deliveryRepository,
+                                  @Value("${qr.cache.max-bytes:16777216}") long maxCacheBytes,
+                                  @Value("${qr.rendering.queue-capacity:1000}") int queueCapacity,
+                                  @Value("${qr.rendering.batch-size:50}") int batchSize) {
+        this.deliveryRepository = deliveryRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxCacheBytes)
+                .weigher((Long id, QrImageDTO image) -> image.getPng().length + ENTRY_OVERHEAD_BYTES)
+                .build();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public QrImageDTO getQrImage(Long deliveryId) {
+        QrImageDTO image = cache.getIfPresent(deliveryId);
+        if (image != null) {
+            return image;
+        }
+        // Solo se valida la existencia en un miss, para no cachear QRs de entregas inexistentes
+        if (!deliveryRepository.existsById(deliveryId)) {
+            throw new ApiException(
+                    DeliveryApiMessages.DELIVERY_NOT_FOUND_CODE,
+                    DeliveryApiMessages.DELIVERY_NOT_FOUND_DESC,
+                    HttpStatus.NOT_FOUND.value());
+        }
+        return cache.get(deliveryId, this::render);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryCreated(DeliveryCreatedEvent event) {
+        enqueue(event.getDeliveryId());
+    }
+
+    @Override
+    public boolean enqueue(Long deliveryId) {
+        if (!queue.offer(deliveryId)) {
+            logger.debug("QR rendering queue is full, delivery {} will be rendered on first read", deliveryId);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${qr.rendering.poll-interval-ms:500}")
+    public int renderPending() {
+        List<Long> ids = new ArrayList<>(batchSize);
+        queue.drainTo(ids, batchSize);
+
+        int rendered = 0;
+        for (Long id : ids) {
+            if (cache.getIfPresent(id) != null) {
+                continue;
+            }
+            try {
+                cache.put(id, render(id));
+                rendered++;
+            } catch (ApiException e) {
+                logger.error("Failed to pre-render QR for delivery {}: {}", id, e.getMessage());
+            }
+        }
+        return rendered;
+    }
+
+    private QrImageDTO render(Long deliveryId) {
+        try {
+            byte[] png = QRCodeGenerator.generateQRCodePng(deliveryId);
+            return new QrImageDTO(png, etagOf(png));
+        } catch (Exception e) {
+            throw new ApiException(
+                    DeliveryApiMessages.QR_RENDER_ERROR_CODE,
+                    DeliveryApiMessages.QR_RENDER_ERROR_DESC,
+                    HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                    e);
+        }
+    }
+
+    private static String etagOf(byte[] png) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(png);
+        return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    }
+}
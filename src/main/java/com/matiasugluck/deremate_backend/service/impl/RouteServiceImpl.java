@@ -1,36 +1,55 @@
 package com.matiasugluck.deremate_backend.service.impl;
 
 import com.matiasugluck.deremate_backend.constants.RouteApiMessages;
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
 import com.matiasugluck.deremate_backend.dto.RouteDTO;
 import com.matiasugluck.deremate_backend.dto.route.AvailableRouteDTO;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRoutesFilter;
 import com.matiasugluck.deremate_backend.dto.route.CreateRouteDTO;
 import com.matiasugluck.deremate_backend.entity.Coordinates;
 import com.matiasugluck.deremate_backend.entity.Route;
 import com.matiasugluck.deremate_backend.entity.User;
 import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.event.RouteCreatedEvent;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
 import com.matiasugluck.deremate_backend.exception.ApiException;
 import com.matiasugluck.deremate_backend.repository.RouteRepository;
-import com.matiasugluck.deremate_backend.repository.UserRepository;
+import com.matiasugluck.deremate_backend.service.AvailableRouteIndexService;
+import com.matiasugluck.deremate_backend.service.EtaService;
 import com.matiasugluck.deremate_backend.service.RouteService;
+import com.matiasugluck.deremate_backend.utils.CursorPagination;
+import com.matiasugluck.deremate_backend.utils.RouteClaimRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class RouteServiceImpl implements RouteService {
 
     private final RouteRepository routeRepository;
-    private final UserRepository userRepository;
+    private final CursorPagination cursorPagination;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AvailableRouteIndexService availableRouteIndexService;
+    private final RouteClaimRegistry routeClaimRegistry;
+    private final EtaService etaService;
 
     @Override
-    public List<RouteDTO> getAllRoutes() {
-        return routeRepository.findAll().stream().map(Route::toDto).toList();
+    public CursorPageDTO<RouteDTO> getAllRoutes(String cursor, Integer size) {
+        int pageSize = cursorPagination.resolveSize(size);
+        CursorPagination.Cursor after = cursorPagination.decode(cursor);
+        List<Route> rows = after == null
+                ? routeRepository.findPage(cursorPagination.probe(pageSize))
+                : routeRepository.findPageAfter(after.getSortKey(), after.getId(), cursorPagination.probe(pageSize));
+        return cursorPagination.toPage(rows, pageSize, this::toDto, Route::getLastUpdatedAt, Route::getId);
     }
 
     @Override
@@ -46,19 +65,55 @@ public class RouteServiceImpl implements RouteService {
 
                 .status(RouteStatus.PENDING)
                 .build();
-        return routeRepository.save(route).toDto();
+        Route saved = routeRepository.save(route);
+        eventPublisher.publishEvent(new RouteCreatedEvent(saved.getId(), saved.getDescription(), saved.getDestination(),
+                saved.getLastUpdatedAt()));
+        return toDto(saved);
     }
 
+    /**
+     * Toma una ruta pendiente como compare-and-set: primero el registro en memoria descarta a los
+     * que llegan despues del primero, y despues un UPDATE condicional decide en la base.
+     * Al perdedor se le responde 409 con el nombre de quien la tomo.
+     */
     @Override
-    public RouteDTO assignRouteToUser(Long routeId, Long userId) {
+    @Transactional
+    public RouteDTO assignRouteToUser(Long routeId, User user) {
+        String userName = displayName(user);
+        RouteClaimRegistry.Claim holder = routeClaimRegistry.tryClaim(routeId, user.getId(), userName);
+        if (!holder.getUserId().equals(user.getId())) {
+            throw alreadyClaimed(holder.getUserName());
+        }
+        // Si la transaccion no confirma (perdio en la base o fallo), el registro se libera para los demas
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        routeClaimRegistry.release(routeId, user.getId());
+                    }
+                }
+            });
+        }
+
+        int updated = routeRepository.assignIfAvailable(routeId, user, RouteStatus.PENDING, RouteStatus.INITIATED,
+                Timestamp.from(Instant.now()));
         Route route = routeRepository.findById(routeId)
                 .orElseThrow(() -> new ApiException(
                         RouteApiMessages.ROUTE_NOT_FOUND_CODE,
                         RouteApiMessages.ROUTE_NOT_FOUND_DESC,
                         HttpStatus.NOT_FOUND.value())
                 );
-
-        if (!route.getStatus().equals(RouteStatus.PENDING)) {
+        if (updated == 0) {
+            User winner = route.getAssignedTo();
+            // Un doble toque del mismo repartidor devuelve la ruta que ya tiene
+            if (winner != null && winner.getId().equals(user.getId())) {
+                return toDto(route);
+            }
+            if (winner != null) {
+                routeClaimRegistry.recordWinner(routeId, winner.getId(), displayName(winner));
+                throw alreadyClaimed(displayName(winner));
+            }
             throw new ApiException(
                     RouteApiMessages.INVALID_ROUTE_REQUEST_CODE,
                     RouteApiMessages.NOT_POSSIBLE_TO_ASSIGN,
@@ -66,36 +121,42 @@ public class RouteServiceImpl implements RouteService {
             );
         }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ApiException("USER_NOT_FOUND", "Usuario no encontrado", HttpStatus.BAD_REQUEST.value()));
+        eventPublisher.publishEvent(new RouteStatusChangedEvent(routeId, user.getId(), RouteStatus.PENDING, RouteStatus.INITIATED));
+        return toDto(route);
+    }
 
-//        boolean hasActiveRoute = !routeRepository.findByAssignedToIdAndStatus(userId, RouteStatus.INITIATED).isEmpty();
-//        if (hasActiveRoute) {
-//            throw new ApiException(
-//                    RouteApiMessages.INVALID_ROUTE_REQUEST_CODE,
-//                    RouteApiMessages.ALREADY_ACTIVE_ROUTE,
-//                    HttpStatus.BAD_REQUEST.value()
-//            );
-//        }
+    private RouteDTO toDto(Route route) {
+        RouteDTO dto = route.toDto();
+        dto.setEta(etaService.estimate(dto.getDestinationLatitude(), dto.getDestinationLongitude(), dto.getStatus(),
+                dto.getStartedAt()));
+        return dto;
+    }
 
-        route.setStartedAt(Timestamp.from(Instant.now()));
-        route.setAssignedTo(user);
-        route.setStatus(RouteStatus.INITIATED);
+    private static ApiException alreadyClaimed(String winnerName) {
+        return new ApiException(
+                RouteApiMessages.ROUTE_ALREADY_CLAIMED_CODE,
+                String.format(RouteApiMessages.ROUTE_ALREADY_CLAIMED_DESC, winnerName),
+                HttpStatus.CONFLICT.value());
+    }
 
-        return routeRepository.save(route).toDto();
+    private static String displayName(User user) {
+        String name = ((user.getFirstname() != null ? user.getFirstname() : "") + " "
+                + (user.getLastname() != null ? user.getLastname() : "")).trim();
+        return name.isEmpty() ? "otro repartidor" : name;
     }
 
     @Override
     public List<RouteDTO> getRoutesByUser(Long userId) {
-        return routeRepository.findByAssignedToId(userId).stream().map(Route::toDto).toList();
+        return routeRepository.findByAssignedToId(userId).stream().map(this::toDto).toList();
     }
 
     @Override
     public List<RouteDTO> getRoutesByUserAndStatus(Long userId, RouteStatus status) {
-        return routeRepository.findByAssignedToIdAndStatus(userId, status).stream().map(Route::toDto).toList();
+        return routeRepository.findByAssignedToIdAndStatus(userId, status).stream().map(this::toDto).toList();
     }
 
     @Override
+    @Transactional
     public RouteDTO completeRoute(Long routeId) {
         Route route = routeRepository.findById(routeId)
                 .orElseThrow(() -> new RuntimeException(RouteApiMessages.ROUTE_NOT_FOUND_CODE));
@@ -104,28 +165,54 @@ public class RouteServiceImpl implements RouteService {
             throw new IllegalStateException(RouteApiMessages.NOT_POSSIBLE_TO_COMPLETE);
         }
 
+        Long assignedUserId = route.getAssignedTo() != null ? route.getAssignedTo().getId() : null;
+        eventPublisher.publishEvent(new RouteStatusChangedEvent(route.getId(), assignedUserId, route.getStatus(), RouteStatus.COMPLETED));
         route.setStatus(RouteStatus.COMPLETED);
         route.setCompletedAt(Timestamp.from(Instant.now()));
 
-        return routeRepository.save(route).toDto();
+        return toDto(routeRepository.save(route));
     }
 
     @Override
-    public List<AvailableRouteDTO> getAvailableRoutes(
-            String originNeighborhood,
-            String destinationNeighborhood
-    ) {
-        List<Route> routes = routeRepository.findByAssignedToIsNullAndStatus(RouteStatus.PENDING);
-        return routes.stream()
-                .map(r -> AvailableRouteDTO.builder()
+    public CursorPageDTO<AvailableRouteDTO> getAvailableRoutes(AvailableRoutesFilter filter, String cursor, Integer size) {
+        // Los filtros por posicion o barrio se resuelven en el indice espacial, sin consultar la base
+        if (filter != null && filter.isSpatial()) {
+            return withEta(availableRouteIndexService.search(filter, cursor, size));
+        }
+        int pageSize = cursorPagination.resolveSize(size);
+        CursorPagination.Cursor after = cursorPagination.decode(cursor);
+        List<Route> routes = after == null
+                ? routeRepository.findAvailable(RouteStatus.PENDING, cursorPagination.probe(pageSize))
+                : routeRepository.findAvailableAfter(RouteStatus.PENDING, after.getSortKey(), after.getId(), cursorPagination.probe(pageSize));
+        return withEta(cursorPagination.toPage(routes, pageSize,
+                r -> AvailableRouteDTO.builder()
                         .id(r.getId())
                         .description(r.getDescription())
                         .destinationLatitude(r.getDestination().getLatitude())
                         .destinationLongitude(r.getDestination().getLongitude())
                         .status(r.getStatus())
-                        .build()
-                )
-                .collect(Collectors.toList());
+                        .build(),
+                Route::getLastUpdatedAt, Route::getId));
     }
 
+    @Override
+    public List<AvailableRouteDTO> getNearestRoutes(Double latitude, Double longitude, Integer k) {
+        List<AvailableRouteDTO> routes = availableRouteIndexService.nearest(latitude, longitude, k);
+        routes.forEach(this::setEta);
+        return routes;
+    }
+
+    private CursorPageDTO<AvailableRouteDTO> withEta(CursorPageDTO<AvailableRouteDTO> page) {
+        page.getItems().forEach(this::setEta);
+        return page;
+    }
+
+    private void setEta(AvailableRouteDTO route) {
+        route.setEta(etaService.estimate(route.getDestinationLatitude(), route.getDestinationLongitude(), route.getStatus(), null));
+    }
+
+    @Override
+    public List<String> getNeighborhoods() {
+        return availableRouteIndexService.getNeighborhoods();
+    }
 }
@@ -0,0 +1,317 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.matiasugluck.deremate_backend.dto.stream.StatusChangeDTO;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.enums.StreamScope;
+import com.matiasugluck.deremate_backend.event.DeliveryCreatedEvent;
+import com.matiasugluck.deremate_backend.event.DeliveryStatusChangedEvent;
+import com.matiasugluck.deremate_backend.event.RouteCreatedEvent;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.service.StatusStreamService;
+import com.matiasugluck.deremate_backend.utils.EventReplayLog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Stream SSE de los cambios de estado de rutas y entregas, para que las apps dejen de consultar
+ * /routes/, /routes/available y /delivery/. Los cambios llegan de los eventos de dominio despues
+ * del commit, se numeran y se guardan en un log acotado (replay-size); un cliente que reconecta
+ * con Last-Event-ID recibe lo que se perdio, o un evento "reset" si ya no esta en el log y tiene
+ * que volver a pedir el estado por REST.
+ * <p>
+ * El log y la lista de suscriptores se manejan en un unico hilo, que solo encola: cada suscriptor
+ * tiene su cola acotada (subscriber-queue-size) y la escribe un hilo virtual propio, asi un cliente
+ * lento bloquea solo su escritura. Un suscriptor cuya cola se llena se desconecta; al reconectar con
+ * Last-Event-ID recupera lo perdido del log. Cada cliente recibe los eventos en orden y sin huecos
+ * entre el replay y lo nuevo. Los ids son por instancia: detras de un balanceador la reconexion
+ * tiene que volver a la misma, o recibe "reset".
+ */
+@Service
+public class StatusStreamServiceImpl implements StatusStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatusStreamServiceImpl.class);
+    private static final String ROUTE = "ROUTE";
+    private static final String DELIVERY = "DELIVERY";
+    private static final String RESET = "reset";
+
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    private final EventReplayLog<Entry> log;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "status-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Escrituras al cliente, que pueden bloquear: una tarea a la vez por suscriptor
+    private final ExecutorService writers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("status-stream-writer-", 0).factory());
+
+    public StatusStreamServiceImpl(@Value("${stream.timeout-ms:1800000}") long timeoutMillis,
+                                   @Value("${stream.replay-size:10000}") int replaySize,
+                                   @Value("${stream.subscriber-queue-size:1000}") int queueCapacity) {
+        this.timeoutMillis = timeoutMillis;
+        this.queueCapacity = queueCapacity;
+        this.log = new EventReplayLog<>(replaySize);
+    }
+
+    @Override
+    public SseEmitter subscribe(Long userId, StreamScope scope, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(userId, scope, emitter);
+        emitter.onCompletion(() -> execute(() -> subscribers.remove(subscriber)));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> emitter.complete());
+
+        Long resumeAfter = parseEventId(lastEventId);
+        execute(() -> {
+            boolean open = resumeAfter == null
+                    ? enqueue(subscriber, SseEmitter.event().comment("connected"))
+                    : resume(subscriber, resumeAfter);
+            if (open) {
+                subscribers.add(subscriber);
+            }
+        });
+        return emitter;
+    }
+
+    private boolean resume(Subscriber subscriber, long afterId) {
+        List<Entry> missed = new ArrayList<>();
+        if (!log.replay(afterId, (entry, id) -> {
+            if (subscriber.accepts(entry)) {
+                missed.add(entry);
+            }
+        }) || missed.size() > queueCapacity) {
+            return enqueue(subscriber, SseEmitter.event().id(String.valueOf(log.lastId())).name(RESET).data(""));
+        }
+        for (Entry entry : missed) {
+            if (!enqueue(subscriber, entry.toEvent())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteCreated(RouteCreatedEvent event) {
+        publish(ROUTE, event.getRouteId(), null, null, RouteStatus.PENDING.name(), null, true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryCreated(DeliveryCreatedEvent event) {
+        publish(DELIVERY, event.getRouteId(), event.getDeliveryId(), null, DeliveryStatus.NOT_DELIVERED.name(), null, true);
+    }
+
+    // Que una ruta entre o salga de PENDING les interesa tambien a los que miran las disponibles
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteStatusChanged(RouteStatusChangedEvent event) {
+        boolean availability = event.getPreviousStatus() == RouteStatus.PENDING || event.getNewStatus() == RouteStatus.PENDING;
+        publish(ROUTE, event.getRouteId(), null, name(event.getPreviousStatus()), name(event.getNewStatus()),
+                event.getAssignedUserId(), availability);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryStatusChanged(DeliveryStatusChangedEvent event) {
+        publish(DELIVERY, event.getRouteId(), event.getDeliveryId(), name(event.getPreviousStatus()),
+                name(event.getNewStatus()), event.getAssignedUserId(), false);
+    }
+
+    private void publish(String entity, Long routeId, Long deliveryId, String previousStatus, String newStatus,
+                         Long assignedUserId, boolean availability) {
+        StatusChangeDTO change = StatusChangeDTO.builder()
+                .entity(entity)
+                .routeId(routeId)
+                .deliveryId(deliveryId)
+                .previousStatus(previousStatus)
+                .newStatus(newStatus)
+                .assignedUserId(assignedUserId)
+                .occurredAt(Timestamp.from(Instant.now()))
+                .build();
+        Entry entry = new Entry(change, availability);
+        execute(() -> {
+            change.setEventId(log.append(entry));
+            Iterator<Subscriber> iterator = subscribers.iterator();
+            while (iterator.hasNext()) {
+                Subscriber subscriber = iterator.next();
+                if (subscriber.accepts(entry) && !enqueue(subscriber, entry.toEvent())) {
+                    iterator.remove();
+                }
+            }
+        });
+    }
+
+    // Mantiene vivas las conexiones detras de proxies y descubre las que se cortaron
+    @Scheduled(fixedDelayString = "${stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        execute(() -> subscribers.removeIf(subscriber -> !enqueue(subscriber, SseEmitter.event().comment("ping"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        execute(() -> subscribers.forEach(subscriber -> close(subscriber)));
+        executor.shutdown();
+        writers.shutdown();
+    }
+
+    /**
+     * Encola un evento para el suscriptor sin bloquear y, si no hay una escritura en curso, la
+     * arranca. Corre en el hilo del stream.
+     *
+     * @return false si el suscriptor ya no recibe eventos (desconectado o se lleno su cola)
+     */
+    private boolean enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        synchronized (subscriber) {
+            if (subscriber.closed) {
+                return false;
+            }
+            if (subscriber.queue.size() >= queueCapacity) {
+                logger.info("Dropping status stream subscriber {}: {} events behind", subscriber.userId, subscriber.queue.size());
+                subscriber.queue.clear();
+                subscriber.closed = true;
+                if (!subscriber.writing) {
+                    write(subscriber.emitter::complete);
+                }
+                // Si hay una escritura bloqueada, la tarea completa el emitter cuando vuelva
+                return false;
+            }
+            subscriber.queue.add(event);
+            if (subscriber.writing) {
+                return true;
+            }
+            subscriber.writing = true;
+        }
+        write(() -> drain(subscriber));
+        return true;
+    }
+
+    // Escribe la cola del suscriptor en orden; corre en su hilo virtual
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            synchronized (subscriber) {
+                event = subscriber.closed ? null : subscriber.queue.poll();
+                if (event == null) {
+                    subscriber.writing = false;
+                    if (subscriber.closed) {
+                        break;
+                    }
+                    return;
+                }
+            }
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado o emitter ya completado
+                logger.debug("Dropping status stream subscriber {}: {}", subscriber.userId, e.getMessage());
+                synchronized (subscriber) {
+                    subscriber.closed = true;
+                    subscriber.queue.clear();
+                    subscriber.writing = false;
+                }
+                break;
+            }
+        }
+        subscriber.emitter.complete();
+    }
+
+    private void close(Subscriber subscriber) {
+        synchronized (subscriber) {
+            subscriber.closed = true;
+            subscriber.queue.clear();
+            if (subscriber.writing) {
+                return;
+            }
+        }
+        subscriber.emitter.complete();
+    }
+
+    private void write(Runnable task) {
+        try {
+            writers.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Apagandose
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Apagandose
+        }
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            // Id que no es nuestro: se trata como imposible de reanudar
+            return -1L;
+        }
+    }
+
+    private static String name(Enum<?> status) {
+        return status == null ? null : status.name();
+    }
+
+    private static class Entry {
+        private final StatusChangeDTO change;
+        // Ruta que entra o sale de las disponibles
+        private final boolean availability;
+
+        private Entry(StatusChangeDTO change, boolean availability) {
+            this.change = change;
+            this.availability = availability;
+        }
+
+        private SseEmitter.SseEventBuilder toEvent() {
+            return SseEmitter.event()
+                    .id(String.valueOf(change.getEventId()))
+                    .name(change.getEntity().toLowerCase())
+                    .data(change);
+        }
+    }
+
+    private static class Subscriber {
+        private final Long userId;
+        private final StreamScope scope;
+        private final SseEmitter emitter;
+        // Eventos encolados y todavia no escritos; se accede sincronizando sobre el suscriptor
+        private final ArrayDeque<SseEmitter.SseEventBuilder> queue = new ArrayDeque<>();
+        private boolean writing;
+        private boolean closed;
+
+        private Subscriber(Long userId, StreamScope scope, SseEmitter emitter) {
+            this.userId = userId;
+            this.scope = scope;
+            this.emitter = emitter;
+        }
+
+        private boolean accepts(Entry entry) {
+            return scope == StreamScope.ALL
+                    || userId.equals(entry.change.getAssignedUserId())
+                    || (scope == StreamScope.AVAILABLE && entry.availability);
+        }
+    }
+}
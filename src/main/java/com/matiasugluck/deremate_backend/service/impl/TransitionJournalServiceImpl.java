@@ -0,0 +1,200 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.matiasugluck.deremate_backend.constants.AuditApiMessages;
+import com.matiasugluck.deremate_backend.constants.ValidationApiMessages;
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.audit.TransitionDTO;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.enums.TransitionEntity;
+import com.matiasugluck.deremate_backend.event.DeliveryCreatedEvent;
+import com.matiasugluck.deremate_backend.event.DeliveryStatusChangedEvent;
+import com.matiasugluck.deremate_backend.event.RouteCreatedEvent;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.service.TransitionJournalService;
+import com.matiasugluck.deremate_backend.utils.CursorPagination;
+import com.matiasugluck.deremate_backend.utils.TransitionJournal;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Historial de transiciones de estado de rutas y entregas en un {@link TransitionJournal}: las
+ * filas de route y delivery se pisan en cada cambio, el journal guarda la secuencia completa sin
+ * agregar filas a la base. Se escribe con los eventos de dominio despues del commit, asi solo
+ * quedan las transiciones confirmadas; el force a disco es periodico (force-interval-ms).
+ * <p>
+ * Entidad y estados se guardan como ordinal + 1 (0 = sin estado anterior): los valores nuevos de
+ * RouteStatus y DeliveryStatus van siempre al final del enum. Las consultas recorren el journal
+ * en orden; si no se puede abrir el directorio se sigue sin historial y las consultas devuelven 503.
+ */
+@Service
+public class TransitionJournalServiceImpl implements TransitionJournalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransitionJournalServiceImpl.class);
+    private static final RouteStatus[] ROUTE_STATUSES = RouteStatus.values();
+    private static final DeliveryStatus[] DELIVERY_STATUSES = DeliveryStatus.values();
+    private static final TransitionEntity[] ENTITIES = TransitionEntity.values();
+
+    private final CursorPagination cursorPagination;
+    private final TransitionJournal journal;
+
+    public TransitionJournalServiceImpl(CursorPagination cursorPagination,
+                                        @Value("${journal.enabled:true}") boolean enabled,
+                                        @Value("${journal.directory:data/journal}") String directory,
+                                        @Value("${journal.segment-size-mb:64}") int segmentSizeMb) {
+        this.cursorPagination = cursorPagination;
+        this.journal = enabled ? open(Path.of(directory), segmentSizeMb) : null;
+    }
+
+    private static TransitionJournal open(Path directory, int segmentSizeMb) {
+        try {
+            TransitionJournal journal = new TransitionJournal(directory, segmentSizeMb * 1024 * 1024);
+            logger.info("Transition journal at {} (last sequence {})", directory.toAbsolutePath(), journal.lastSequence());
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not open transition journal at {}: {}", directory.toAbsolutePath(), e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteCreated(RouteCreatedEvent event) {
+        append(TransitionEntity.ROUTE, event.getRouteId(), null, RouteStatus.PENDING, null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryCreated(DeliveryCreatedEvent event) {
+        append(TransitionEntity.DELIVERY, event.getDeliveryId(), null, DeliveryStatus.NOT_DELIVERED, null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteStatusChanged(RouteStatusChangedEvent event) {
+        append(TransitionEntity.ROUTE, event.getRouteId(), event.getPreviousStatus(), event.getNewStatus(),
+                event.getAssignedUserId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryStatusChanged(DeliveryStatusChangedEvent event) {
+        append(TransitionEntity.DELIVERY, event.getDeliveryId(), event.getPreviousStatus(), event.getNewStatus(),
+                event.getAssignedUserId());
+    }
+
+    private void append(TransitionEntity entity, Long entityId, Enum<?> from, Enum<?> to, Long userId) {
+        if (journal == null || entityId == null || to == null) {
+            return;
+        }
+        try {
+            journal.append(entity.ordinal() + 1, entityId, from == null ? 0 : from.ordinal() + 1, to.ordinal() + 1,
+                    userId == null ? 0 : userId, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            // El cambio ya se confirmo en la base: se registra el error y se sigue
+            logger.error("Could not journal {} {} transition to {}: {}", entity, entityId, to, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Transiciones que cumplen todos los filtros dados, de la mas vieja a la mas nueva. El cursor
+     * es la secuencia de la ultima devuelta.
+     */
+    @Override
+    public CursorPageDTO<TransitionDTO> find(TransitionEntity entity, Long entityId, Long userId, Instant from, Instant to,
+                                             String cursor, Integer size) {
+        if (journal == null) {
+            throw new ApiException(AuditApiMessages.JOURNAL_UNAVAILABLE_CODE, AuditApiMessages.JOURNAL_UNAVAILABLE_DESC,
+                    HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+        long afterSequence = decodeCursor(cursor);
+        int pageSize = cursorPagination.resolveSize(size);
+        int entityCode = entity == null ? 0 : entity.ordinal() + 1;
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+
+        List<TransitionDTO> items = new ArrayList<>();
+        boolean[] more = {false};
+        try {
+            journal.read(afterSequence + 1, (sequence, epochMillis, id, user, entityType, fromStatus, toStatus) -> {
+                if (entityType < 1 || entityType > ENTITIES.length
+                        || (entityCode != 0 && entityType != entityCode)
+                        || (entityId != null && id != entityId)
+                        || (userId != null && user != userId)
+                        || epochMillis < fromMillis || epochMillis >= toMillis) {
+                    return true;
+                }
+                if (items.size() == pageSize) {
+                    more[0] = true;
+                    return false;
+                }
+                items.add(toDto(sequence, epochMillis, id, user, entityType, fromStatus, toStatus));
+                return true;
+            });
+        } catch (IOException e) {
+            logger.error("Could not read transition journal: {}", e.getMessage(), e);
+            throw new ApiException(AuditApiMessages.JOURNAL_UNAVAILABLE_CODE, AuditApiMessages.JOURNAL_UNAVAILABLE_DESC,
+                    HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+        String nextCursor = more[0] ? String.valueOf(items.get(items.size() - 1).getSequence()) : null;
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+
+    @Scheduled(fixedDelayString = "${journal.force-interval-ms:1000}")
+    public void force() {
+        if (journal != null) {
+            journal.force();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private static TransitionDTO toDto(long sequence, long epochMillis, long entityId, long userId, int entityType,
+                                       int fromStatus, int toStatus) {
+        TransitionEntity entity = ENTITIES[entityType - 1];
+        return TransitionDTO.builder()
+                .sequence(sequence)
+                .entity(entity)
+                .entityId(entityId)
+                .fromStatus(statusName(entity, fromStatus))
+                .toStatus(statusName(entity, toStatus))
+                .userId(userId == 0 ? null : userId)
+                .occurredAt(new Timestamp(epochMillis))
+                .build();
+    }
+
+    private static String statusName(TransitionEntity entity, int code) {
+        if (code == 0) {
+            return null;
+        }
+        Enum<?>[] statuses = entity == TransitionEntity.ROUTE ? ROUTE_STATUSES : DELIVERY_STATUSES;
+        return code <= statuses.length ? statuses[code - 1].name() : String.valueOf(code);
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(cursor.trim()));
+        } catch (NumberFormatException e) {
+            throw new ApiException(ValidationApiMessages.INVALID_CURSOR_CODE, ValidationApiMessages.INVALID_CURSOR_DESC,
+                    HttpStatus.BAD_REQUEST.value());
+        }
+    }
+}
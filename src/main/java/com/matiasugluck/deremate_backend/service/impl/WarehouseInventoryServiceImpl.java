@@ -0,0 +1,309 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.PackageInWarehouseDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.WarehouseItemDTO;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.event.DeliveryCreatedEvent;
+import com.matiasugluck.deremate_backend.event.DeliveryStatusChangedEvent;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.repository.DeliveryRepository;
+import com.matiasugluck.deremate_backend.service.WarehouseInventoryService;
+import com.matiasugluck.deremate_backend.utils.CursorPagination;
+import com.matiasugluck.deremate_backend.utils.LongObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Indice en memoria de los paquetes en el deposito (sin repartidor y NOT_DELIVERED).
+ * Se arma al iniciar, se mantiene con los eventos de alta, asignacion, entrega y cancelacion
+ * (despues del commit) y se reconcilia periodicamente contra la base.
+ * Cada cambio incrementa la version; las lecturas usan una foto ordenada que se rearma
+ * una sola vez por version, asi los pollers no tocan la base ni reordenan en cada pedido.
+ */
+@Service
+public class WarehouseInventoryServiceImpl implements WarehouseInventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarehouseInventoryServiceImpl.class);
+
+    private static final Timestamp NO_DATE = new Timestamp(0);
+    private static final Comparator<WarehouseItemDTO> ORDER =
+            Comparator.comparing(WarehouseInventoryServiceImpl::sortKey).thenComparing(WarehouseItemDTO::getDeliveryId);
+
+    private final DeliveryRepository deliveryRepository;
+    private final CursorPagination cursorPagination;
+
+    private final Object lock = new Object();
+    private final Object reconcileLock = new Object();
+    private Index index = new Index(16);
+    // Cambios recibidos mientras se lee la base en una reconciliacion; se vuelven a aplicar sobre el indice nuevo
+    private List<Consumer<Index>> pendingDuringReconcile;
+    // Arranca en el instante de inicio para que un ETag de una ejecucion anterior no coincida por casualidad
+    private volatile long version = System.currentTimeMillis();
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of());
+
+    public WarehouseInventoryServiceImpl(DeliveryRepository deliveryRepository, CursorPagination cursorPagination) {
+        this.deliveryRepository = deliveryRepository;
+        this.cursorPagination = cursorPagination;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public CursorPageDTO<PackageInWarehouseDTO> getPackages(String packageLocation, String cursor, Integer size) {
+        int pageSize = cursorPagination.resolveSize(size);
+        CursorPagination.Cursor after = cursorPagination.decode(cursor);
+        Snapshot current = currentSnapshot();
+
+        List<WarehouseItemDTO> items = packageLocation == null
+                ? current.items
+                : current.byLocation.getOrDefault(packageLocation, List.of());
+        int from = after == null ? 0 : firstAfter(items, after);
+        List<WarehouseItemDTO> rows = items.subList(from, Math.min(items.size(), from + pageSize + 1));
+        return cursorPagination.toPage(rows, pageSize, WarehouseInventoryServiceImpl::toDto,
+                WarehouseInventoryServiceImpl::sortKey, WarehouseItemDTO::getDeliveryId);
+    }
+
+    @Override
+    public Map<String, Integer> getLocationCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        currentSnapshot().byLocation.forEach((location, items) -> counts.put(location, items.size()));
+        return counts;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryCreated(DeliveryCreatedEvent event) {
+        WarehouseItemDTO item = new WarehouseItemDTO(event.getDeliveryId(), event.getRouteId(),
+                event.getPackageLocation(), event.getCreatedDate());
+        mutate(index -> index.add(item));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryStatusChanged(DeliveryStatusChangedEvent event) {
+        if (event.getNewStatus() != DeliveryStatus.NOT_DELIVERED) {
+            mutate(index -> index.removeDelivery(event.getDeliveryId()));
+        }
+    }
+
+    // Una ruta que deja de estar PENDING (asignada, completada o cancelada) saca su paquete del deposito
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteStatusChanged(RouteStatusChangedEvent event) {
+        if (event.getNewStatus() != RouteStatus.PENDING || event.getAssignedUserId() != null) {
+            mutate(index -> index.removeRoute(event.getRouteId()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * Recarga el indice desde la base. Solo cambia la version si encontro diferencias.
+     *
+     * @return cantidad de entradas que no coincidian con la base
+     */
+    @Override
+    @Scheduled(initialDelayString = "${warehouse.index.reconcile-interval-ms:300000}",
+            fixedDelayString = "${warehouse.index.reconcile-interval-ms:300000}")
+    public int reconcile() {
+        synchronized (reconcileLock) {
+            synchronized (lock) {
+                pendingDuringReconcile = new ArrayList<>();
+            }
+
+            List<WarehouseItemDTO> rows;
+            try {
+                rows = deliveryRepository.findWarehouseItems(DeliveryStatus.NOT_DELIVERED);
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    pendingDuringReconcile = null;
+                }
+                logger.error("Warehouse index reconciliation failed: {}", e.getMessage(), e);
+                return 0;
+            }
+
+            Index fresh = new Index(rows.size());
+            rows.forEach(fresh::add);
+            synchronized (lock) {
+                pendingDuringReconcile.forEach(change -> change.accept(fresh));
+                pendingDuringReconcile = null;
+
+                int drift = index.countDifferences(fresh);
+                if (drift > 0) {
+                    index = fresh;
+                    changed();
+                    logger.info("Warehouse index reconciled: {} packages, {} entries corrected", fresh.size(), drift);
+                }
+                return drift;
+            }
+        }
+    }
+
+    private void mutate(Consumer<Index> change) {
+        synchronized (lock) {
+            int before = index.modCount;
+            change.accept(index);
+            if (pendingDuringReconcile != null) {
+                pendingDuringReconcile.add(change);
+            }
+            if (index.modCount != before) {
+                changed();
+            }
+        }
+    }
+
+    // Debe llamarse con el lock tomado
+    private void changed() {
+        version++;
+        snapshot = null;
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            if (snapshot == null) {
+                snapshot = index.snapshot();
+            }
+            return snapshot;
+        }
+    }
+
+    // Primer elemento estrictamente posterior al cursor (busqueda binaria sobre la foto ordenada)
+    private static int firstAfter(List<WarehouseItemDTO> items, CursorPagination.Cursor cursor) {
+        int low = 0;
+        int high = items.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            WarehouseItemDTO item = items.get(mid);
+            int cmp = sortKey(item).compareTo(cursor.getSortKey());
+            if (cmp == 0) {
+                cmp = item.getDeliveryId().compareTo(cursor.getId());
+            }
+            if (cmp <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Timestamp sortKey(WarehouseItemDTO item) {
+        return item.getCreatedDate() != null ? item.getCreatedDate() : NO_DATE;
+    }
+
+    private static PackageInWarehouseDTO toDto(WarehouseItemDTO item) {
+        return new PackageInWarehouseDTO(item.getDeliveryId(), DeliveryStatus.NOT_DELIVERED.name(),
+                item.getPackageLocation(), item.getCreatedDate());
+    }
+
+    private static class Snapshot {
+        private final List<WarehouseItemDTO> items;
+        private final Map<String, List<WarehouseItemDTO>> byLocation;
+
+        private Snapshot(List<WarehouseItemDTO> items, Map<String, List<WarehouseItemDTO>> byLocation) {
+            this.items = items;
+            this.byLocation = byLocation;
+        }
+    }
+
+    // Entregas por id y por ruta (la asignacion llega con el id de ruta)
+    private static class Index {
+        private final LongObjectHashMap<WarehouseItemDTO> byDeliveryId;
+        private final LongObjectHashMap<WarehouseItemDTO> byRouteId;
+        private int modCount;
+
+        private Index(int expectedSize) {
+            byDeliveryId = new LongObjectHashMap<>(expectedSize);
+            byRouteId = new LongObjectHashMap<>(expectedSize);
+        }
+
+        private int size() {
+            return byDeliveryId.size();
+        }
+
+        private void add(WarehouseItemDTO item) {
+            WarehouseItemDTO previous = byDeliveryId.put(item.getDeliveryId(), item);
+            if (previous != null && !previous.getRouteId().equals(item.getRouteId())) {
+                byRouteId.remove(previous.getRouteId());
+            }
+            byRouteId.put(item.getRouteId(), item);
+            modCount++;
+        }
+
+        private void removeDelivery(long deliveryId) {
+            WarehouseItemDTO removed = byDeliveryId.remove(deliveryId);
+            if (removed != null) {
+                byRouteId.remove(removed.getRouteId());
+                modCount++;
+            }
+        }
+
+        private void removeRoute(long routeId) {
+            WarehouseItemDTO removed = byRouteId.remove(routeId);
+            if (removed != null) {
+                byDeliveryId.remove(removed.getDeliveryId());
+                modCount++;
+            }
+        }
+
+        private int countDifferences(Index other) {
+            int[] differences = {0};
+            byDeliveryId.forEachValue(item -> {
+                WarehouseItemDTO match = other.byDeliveryId.get(item.getDeliveryId());
+                if (match == null || !sameItem(item, match)) {
+                    differences[0]++;
+                }
+            });
+            other.byDeliveryId.forEachValue(item -> {
+                if (!byDeliveryId.containsKey(item.getDeliveryId())) {
+                    differences[0]++;
+                }
+            });
+            return differences[0];
+        }
+
+        private static boolean sameItem(WarehouseItemDTO a, WarehouseItemDTO b) {
+            return a.getRouteId().equals(b.getRouteId())
+                    && Objects.equals(a.getPackageLocation(), b.getPackageLocation());
+        }
+
+        private Snapshot snapshot() {
+            List<WarehouseItemDTO> items = new ArrayList<>(byDeliveryId.size());
+            byDeliveryId.forEachValue(items::add);
+            items.sort(ORDER);
+
+            Map<String, List<WarehouseItemDTO>> byLocation = new TreeMap<>();
+            for (WarehouseItemDTO item : items) {
+                String location = item.getPackageLocation() != null ? item.getPackageLocation() : "";
+                byLocation.computeIfAbsent(location, key -> new ArrayList<>()).add(item);
+            }
+            byLocation.replaceAll((location, grouped) -> Collections.unmodifiableList(grouped));
+            return new Snapshot(Collections.unmodifiableList(items), Collections.unmodifiableMap(byLocation));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.matiasugluck.deremate_backend.service.impl;
+
+import com.matiasugluck.deremate_backend.constants.AnalyticsApiMessages;
+import com.matiasugluck.deremate_backend.dto.delivery.TopDeliveryZonesDTO;
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.ZoneWindow;
+import com.matiasugluck.deremate_backend.event.DeliveryCreatedEvent;
+import com.matiasugluck.deremate_backend.event.DeliveryStatusChangedEvent;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.DeliveryRollupRepository;
+import com.matiasugluck.deremate_backend.service.ZoneActivityService;
+import com.matiasugluck.deremate_backend.utils.GeoHash;
+import com.matiasugluck.deremate_backend.utils.SpaceSaving;
+import com.matiasugluck.deremate_backend.utils.WindowedHeavyHitters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zonas (celdas geohash del destino) con mas actividad en la ultima hora, dia y semana.
+ * Se alimenta de los eventos de alta y cierre de entregas (despues del commit) sobre resumenes
+ * Space-Saving por ventana, asi el mapa en vivo se arma en O(k) sin consultar la base y con
+ * memoria acotada por analytics.live-zones.capacity. Las cuentas son aproximadas: pueden
+ * sobreestimar en a lo sumo (eventos de la ventana / capacidad).
+ * Al iniciar se cargan las entregas creadas en la ultima semana para no arrancar con el mapa vacio.
+ */
+@Service
+public class ZoneActivityServiceImpl implements ZoneActivityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZoneActivityServiceImpl.class);
+
+    private final DeliveryRollupRepository rollupRepository;
+    private final int precision;
+    private final int maxTopZones;
+    private final Map<ZoneWindow, Sketches> windows = new EnumMap<>(ZoneWindow.class);
+
+    public ZoneActivityServiceImpl(DeliveryRollupRepository rollupRepository,
+                                   @Value("${analytics.live-zones.precision:6}") int precision,
+                                   @Value("${analytics.live-zones.capacity:256}") int capacity,
+                                   @Value("${analytics.top-zones.max-limit:100}") int maxTopZones) {
+        if (precision < 1 || precision > GeoHash.MAX_PRECISION) {
+            throw new IllegalArgumentException("analytics.live-zones.precision must be between 1 and " + GeoHash.MAX_PRECISION);
+        }
+        this.rollupRepository = rollupRepository;
+        this.precision = precision;
+        this.maxTopZones = maxTopZones;
+        for (ZoneWindow window : ZoneWindow.values()) {
+            windows.put(window, new Sketches(window, capacity));
+        }
+    }
+
+    @Override
+    public List<TopDeliveryZonesDTO> getTopZones(ZoneWindow window, Integer limit) {
+        int k = limit != null ? limit : 10;
+        if (k < 1 || k > maxTopZones) {
+            throw new ApiException(
+                    AnalyticsApiMessages.INVALID_LIMIT_CODE,
+                    AnalyticsApiMessages.INVALID_LIMIT_DESC,
+                    HttpStatus.BAD_REQUEST.value());
+        }
+        long now = System.currentTimeMillis();
+        Sketches sketches = windows.get(window != null ? window : ZoneWindow.LAST_HOUR);
+        List<TopDeliveryZonesDTO> result = new ArrayList<>(k);
+        synchronized (sketches) {
+            for (SpaceSaving.Entry<String> zone : sketches.created.top(k, now)) {
+                double[] center = GeoHash.center(zone.getKey());
+                result.add(new TopDeliveryZonesDTO(zone.getKey(), center[0], center[1], zone.getCount(),
+                        sketches.delivered.estimate(zone.getKey(), now),
+                        sketches.rejected.estimate(zone.getKey(), now)));
+            }
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryCreated(DeliveryCreatedEvent event) {
+        record(event.getDestination(), null, System.currentTimeMillis());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryStatusChanged(DeliveryStatusChangedEvent event) {
+        if (event.getNewStatus() == DeliveryStatus.DELIVERED || event.getNewStatus() == DeliveryStatus.REJECTED) {
+            record(event.getDestination(), event.getNewStatus(), System.currentTimeMillis());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long now = System.currentTimeMillis();
+        Timestamp since = new Timestamp(now - ZoneWindow.LAST_WEEK.getLength().toMillis());
+        int[] loaded = {0};
+        rollupRepository.forEachSourceCreatedSince(since, source -> {
+            Coordinates destination = new Coordinates(source.getLatitude(), source.getLongitude());
+            record(destination, null, source.getCreatedDate().getTime());
+            if (source.getCompletedAt() != null) {
+                record(destination, source.getStatus(), source.getCompletedAt().getTime());
+            }
+            loaded[0]++;
+        });
+        logger.info("Zone activity loaded with {} deliveries since {}", loaded[0], since);
+    }
+
+    // closedStatus null = alta de la entrega
+    private void record(Coordinates destination, DeliveryStatus closedStatus, long timestamp) {
+        String zone = zoneOf(destination);
+        if (zone == null) {
+            return;
+        }
+        for (Sketches sketches : windows.values()) {
+            synchronized (sketches) {
+                WindowedHeavyHitters<String> target = closedStatus == null ? sketches.created
+                        : closedStatus == DeliveryStatus.DELIVERED ? sketches.delivered
+                        : closedStatus == DeliveryStatus.REJECTED ? sketches.rejected
+                        : null;
+                if (target != null) {
+                    target.add(zone, timestamp);
+                }
+            }
+        }
+    }
+
+    private String zoneOf(Coordinates destination) {
+        if (destination == null || destination.getLatitude() == null || destination.getLongitude() == null
+                || Math.abs(destination.getLatitude()) > 90 || Math.abs(destination.getLongitude()) > 180) {
+            return null;
+        }
+        return GeoHash.encode(destination.getLatitude(), destination.getLongitude(), precision);
+    }
+
+    private static class Sketches {
+        private final WindowedHeavyHitters<String> created;
+        private final WindowedHeavyHitters<String> delivered;
+        private final WindowedHeavyHitters<String> rejected;
+
+        private Sketches(ZoneWindow window, int capacity) {
+            long paneMillis = window.getPane().toMillis();
+            this.created = new WindowedHeavyHitters<>(paneMillis, window.getPanes(), capacity);
+            this.delivered = new WindowedHeavyHitters<>(paneMillis, window.getPanes(), capacity);
+            this.rejected = new WindowedHeavyHitters<>(paneMillis, window.getPanes(), capacity);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import java.util.Arrays;
+
+/**
+ * Asignacion de costo minimo entre rutas (filas) y repartidores (columnas), donde cada
+ * repartidor acepta hasta capacity[j] rutas. cost[i][j] es el costo de darle la ruta i al
+ * repartidor j; {@link #INFEASIBLE} marca los pares que no se pueden asignar.
+ * <p>
+ * {@link #hungarian} da el optimo: primero maximiza la cantidad de rutas asignadas y despues
+ * minimiza el costo total. Es O(n^2 m) sobre las plazas, asi que solo conviene en lotes chicos.
+ * {@link #greedy} toma los pares mas baratos y despues los mejora con movidas e intercambios
+ * hasta que ninguno baja el costo. Ambos devuelven, por ruta, el repartidor asignado o -1.
+ */
+public final class BatchAssignment {
+
+    public static final double INFEASIBLE = Double.POSITIVE_INFINITY;
+    private static final double EPSILON = 1e-6;
+    private static final int MAX_PASSES = 50;
+
+    private BatchAssignment() {
+    }
+
+    public static int[] hungarian(double[][] cost, int[] capacity) {
+        int n = cost.length;
+        int slots = 0;
+        for (int c : capacity) {
+            slots += Math.max(0, c);
+        }
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        if (n == 0 || slots == 0) {
+            return assignment;
+        }
+
+        // Una columna por plaza libre de cada repartidor
+        int[] slotCourier = new int[slots];
+        for (int j = 0, s = 0; j < capacity.length; j++) {
+            for (int k = 0; k < capacity[j]; k++) {
+                slotCourier[s++] = j;
+            }
+        }
+
+        // Los pares imposibles cuestan mas que cualquier asignacion completa de pares posibles,
+        // asi el optimo nunca cambia una ruta asignada por kilometros de menos
+        double maxFinite = 0;
+        for (double[] row : cost) {
+            for (double c : row) {
+                if (c != INFEASIBLE) {
+                    maxFinite = Math.max(maxFinite, c);
+                }
+            }
+        }
+        double big = (maxFinite + 1) * (Math.min(n, slots) + 1);
+
+        // El algoritmo necesita filas <= columnas: si hay mas rutas que plazas se transpone
+        boolean transposed = n > slots;
+        int rows = transposed ? slots : n;
+        int cols = transposed ? n : slots;
+        double[][] a = new double[rows][cols];
+        for (int i = 0; i < n; i++) {
+            for (int s = 0; s < slots; s++) {
+                double c = cost[i][slotCourier[s]];
+                double value = c == INFEASIBLE ? big : c;
+                if (transposed) {
+                    a[s][i] = value;
+                } else {
+                    a[i][s] = value;
+                }
+            }
+        }
+
+        int[] rowToCol = solveRectangular(a, rows, cols);
+        for (int r = 0; r < rows; r++) {
+            int route = transposed ? rowToCol[r] : r;
+            int slot = transposed ? r : rowToCol[r];
+            if (route >= 0 && slot >= 0 && cost[route][slotCourier[slot]] != INFEASIBLE) {
+                assignment[route] = slotCourier[slot];
+            }
+        }
+        return assignment;
+    }
+
+    public static int[] greedy(double[][] cost, int[] capacity) {
+        int n = cost.length;
+        int couriers = capacity.length;
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        int[] remaining = capacity.clone();
+
+        int feasible = 0;
+        for (double[] row : cost) {
+            for (double c : row) {
+                if (c != INFEASIBLE) {
+                    feasible++;
+                }
+            }
+        }
+        Integer[] pairs = new Integer[feasible];
+        for (int i = 0, p = 0; i < n; i++) {
+            for (int j = 0; j < couriers; j++) {
+                if (cost[i][j] != INFEASIBLE) {
+                    pairs[p++] = i * couriers + j;
+                }
+            }
+        }
+        Arrays.sort(pairs, (x, y) -> Double.compare(cost[x / couriers][x % couriers], cost[y / couriers][y % couriers]));
+        for (int pair : pairs) {
+            int i = pair / couriers;
+            int j = pair % couriers;
+            if (assignment[i] < 0 && remaining[j] > 0) {
+                assignment[i] = j;
+                remaining[j]--;
+            }
+        }
+
+        boolean improved = true;
+        for (int pass = 0; improved && pass < MAX_PASSES; pass++) {
+            improved = moveToFreeCouriers(cost, assignment, remaining);
+            improved |= swapPairs(cost, assignment);
+        }
+        return assignment;
+    }
+
+    /**
+     * @return costo total de las rutas asignadas
+     */
+    public static double total(double[][] cost, int[] assignment) {
+        double total = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                total += cost[i][assignment[i]];
+            }
+        }
+        return total;
+    }
+
+    // Pasa cada ruta al repartidor con plaza libre mas barato, si mejora (una ruta sin asignar siempre mejora)
+    private static boolean moveToFreeCouriers(double[][] cost, int[] assignment, int[] remaining) {
+        boolean improved = false;
+        for (int i = 0; i < assignment.length; i++) {
+            int current = assignment[i];
+            double best = current < 0 ? INFEASIBLE : cost[i][current] - EPSILON;
+            int target = -1;
+            for (int j = 0; j < remaining.length; j++) {
+                if (remaining[j] > 0 && j != current && cost[i][j] < best) {
+                    best = cost[i][j];
+                    target = j;
+                }
+            }
+            if (target >= 0) {
+                if (current >= 0) {
+                    remaining[current]++;
+                }
+                remaining[target]--;
+                assignment[i] = target;
+                improved = true;
+            }
+        }
+        return improved;
+    }
+
+    // Intercambia los repartidores de dos rutas asignadas si baja la suma de ambas
+    private static boolean swapPairs(double[][] cost, int[] assignment) {
+        boolean improved = false;
+        for (int i = 0; i < assignment.length; i++) {
+            for (int k = i + 1; k < assignment.length; k++) {
+                int a = assignment[i];
+                int b = assignment[k];
+                if (a < 0 || b < 0 || a == b) {
+                    continue;
+                }
+                double swapped = cost[i][b] + cost[k][a];
+                if (swapped < cost[i][a] + cost[k][b] - EPSILON) {
+                    assignment[i] = b;
+                    assignment[k] = a;
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // Metodo hungaro con potenciales (filas <= columnas); devuelve la columna de cada fila
+    private static int[] solveRectangular(double[][] a, int n, int m) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        double cur = a[i0 - 1][j - 1] - u[i0] - v[j];
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        int[] rowToCol = new int[n];
+        Arrays.fill(rowToCol, -1);
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                rowToCol[p[j] - 1] = j - 1;
+            }
+        }
+        return rowToCol;
+    }
+}
@@ -0,0 +1,94 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import com.matiasugluck.deremate_backend.constants.ValidationApiMessages;
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Paginacion por keyset: cada pagina se pide a partir de la clave (fecha, id) de la ultima fila
+ * de la anterior, asi la base nunca recorre las filas ya devueltas (sin OFFSET).
+ * El cliente solo ve un token opaco en base64url.
+ */
+@Component
+public class CursorPagination {
+
+    private final int defaultSize;
+    private final int maxSize;
+
+    public CursorPagination(@Value("${pagination.default-size:20}") int defaultSize,
+                            @Value("${pagination.max-size:100}") int maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    public int resolveSize(Integer requested) {
+        if (requested == null) {
+            return defaultSize;
+        }
+        return Math.max(1, Math.min(requested, maxSize));
+    }
+
+    // Se pide una fila de mas para saber si existe una pagina siguiente sin hacer un COUNT
+    public Pageable probe(int size) {
+        return PageRequest.of(0, size + 1);
+    }
+
+    public Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(',');
+            return new Cursor(Timestamp.from(Instant.parse(raw.substring(0, separator))), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ApiException(
+                    ValidationApiMessages.INVALID_CURSOR_CODE,
+                    ValidationApiMessages.INVALID_CURSOR_DESC,
+                    HttpStatus.BAD_REQUEST.value()
+            );
+        }
+    }
+
+    public String encode(Timestamp sortKey, Long id) {
+        String raw = sortKey.toInstant() + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Arma la pagina a partir de las size + 1 filas leidas con {@link #probe(int)}.
+     */
+    public <E, D> CursorPageDTO<D> toPage(List<E> rows, int size, Function<E, D> mapper,
+                                          Function<E, Timestamp> sortKey, Function<E, Long> id) {
+        boolean hasMore = rows.size() > size;
+        List<E> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            E last = page.get(page.size() - 1);
+            nextCursor = encode(sortKey.apply(last), id.apply(last));
+        }
+        return new CursorPageDTO<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Cursor {
+        private final Timestamp sortKey;
+        private final Long id;
+    }
+}
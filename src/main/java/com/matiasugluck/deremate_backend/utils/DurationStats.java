@@ -0,0 +1,48 @@
+package com.matiasugluck.deremate_backend.utils;
+
+/**
+ * Estadisticas incrementales de duraciones: cantidad, media y varianza por Welford (estable
+ * numericamente, sin guardar los valores) mas un {@link QuantileSketch} para mediana y p90.
+ * No es thread-safe.
+ */
+public class DurationStats {
+
+    private final QuantileSketch sketch;
+    private long count;
+    private double mean;
+    // Suma de cuadrados de las diferencias con la media
+    private double m2;
+
+    public DurationStats(double relativeAccuracy) {
+        this.sketch = new QuantileSketch(relativeAccuracy);
+    }
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        sketch.add(value);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    // Varianza muestral; 0 con menos de dos valores
+    public double variance() {
+        return count > 1 ? m2 / (count - 1) : 0;
+    }
+
+    public double stdDev() {
+        return Math.sqrt(variance());
+    }
+
+    public double quantile(double q) {
+        return sketch.quantile(q);
+    }
+}
@@ -0,0 +1,50 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Ultimos eventos publicados, numerados desde 1, en un arreglo circular de tamano fijo: al
+ * llenarse, el evento nuevo pisa al mas viejo. Permite reenviar lo publicado despues de un id
+ * (Last-Event-ID) mientras siga retenido. No es thread-safe: lo usa un unico hilo.
+ */
+public class EventReplayLog<T> {
+
+    private final Object[] events;
+    private long nextId = 1;
+
+    public EventReplayLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.events = new Object[capacity];
+    }
+
+    // Guarda el evento y devuelve su id
+    public long append(T event) {
+        long id = nextId++;
+        events[(int) (id % events.length)] = event;
+        return id;
+    }
+
+    public long lastId() {
+        return nextId - 1;
+    }
+
+    /**
+     * Entrega en orden los eventos con id mayor a afterId.
+     *
+     * @return false si no se puede reanudar sin perder eventos: afterId ya no esta retenido o es
+     * posterior al ultimo publicado (p. ej. el id es de antes de un reinicio)
+     */
+    @SuppressWarnings("unchecked")
+    public boolean replay(long afterId, ObjLongConsumer<T> consumer) {
+        long oldest = Math.max(1, nextId - events.length);
+        if (afterId < oldest - 1 || afterId >= nextId) {
+            return false;
+        }
+        for (long id = afterId + 1; id < nextId; id++) {
+            consumer.accept((T) events[(int) (id % events.length)], id);
+        }
+        return true;
+    }
+}
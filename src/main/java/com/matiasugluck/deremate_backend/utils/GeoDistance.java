@@ -0,0 +1,24 @@
+package com.matiasugluck.deremate_backend.utils;
+
+/**
+ * Distancias sobre la esfera terrestre (haversine). Suficiente para distancias urbanas:
+ * el error contra el elipsoide es menor al 0.5%.
+ */
+public final class GeoDistance {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    // Metros por grado de latitud (y de longitud en el ecuador)
+    public static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180;
+
+    private GeoDistance() {
+    }
+
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLon = Math.sin(dLon / 2);
+        double a = sinLat * sinLat + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,147 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Indice espacial de puntos por celdas de la grilla geohash: una celda de precision p es el
+ * mismo rectangulo que un geohash de p caracteres, pero se identifica con sus coordenadas
+ * enteras (x, y) para poder recorrer vecinas sin decodificar strings.
+ * Busquedas por rectangulo visitan solo las celdas que lo cubren (los k mas cercanos se
+ * resuelven con {@link KdTree}). No es thread-safe.
+ */
+public class GeoGrid<V> {
+
+    private final int lonCells;
+    private final int latCells;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final LongObjectHashMap<Point<V>> points = new LongObjectHashMap<>();
+    private final LongObjectHashMap<List<Point<V>>> cells = new LongObjectHashMap<>();
+
+    public GeoGrid(int precision) {
+        if (precision < 1 || precision > GeoHash.MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between 1 and " + GeoHash.MAX_PRECISION);
+        }
+        // Los bits de un geohash alternan longitud y latitud empezando por longitud
+        int bits = precision * 5;
+        this.lonCells = 1 << ((bits + 1) / 2);
+        this.latCells = 1 << (bits / 2);
+        this.cellWidth = 360.0 / lonCells;
+        this.cellHeight = 180.0 / latCells;
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    public V get(long id) {
+        Point<V> point = points.get(id);
+        return point == null ? null : point.value;
+    }
+
+    public void put(long id, double latitude, double longitude, V value) {
+        remove(id);
+        Point<V> point = new Point<>(id, latitude, longitude, value, cellOf(latitude, longitude));
+        points.put(id, point);
+        List<Point<V>> cell = cells.get(point.cell);
+        if (cell == null) {
+            cell = new ArrayList<>(4);
+            cells.put(point.cell, cell);
+        }
+        cell.add(point);
+    }
+
+    public V remove(long id) {
+        Point<V> point = points.remove(id);
+        if (point == null) {
+            return null;
+        }
+        List<Point<V>> cell = cells.get(point.cell);
+        cell.remove(point);
+        if (cell.isEmpty()) {
+            cells.remove(point.cell);
+        }
+        return point.value;
+    }
+
+    public void clear() {
+        points.clear();
+        cells.clear();
+    }
+
+    public void forEach(PointConsumer<V> consumer) {
+        points.forEachValue(point -> consumer.accept(point.id, point.latitude, point.longitude, point.value));
+    }
+
+    /**
+     * Visita los puntos dentro del rectangulo dado (bordes incluidos).
+     */
+    public void forEachInBox(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude,
+                             PointConsumer<V> consumer) {
+        int minX = x(minLongitude), maxX = x(maxLongitude);
+        int minY = y(minLatitude), maxY = y(maxLatitude);
+        long boxCells = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        if (boxCells > cells.size()) {
+            // El rectangulo cubre mas celdas que las ocupadas: conviene recorrer los puntos
+            points.forEachValue(point -> {
+                if (point.latitude >= minLatitude && point.latitude <= maxLatitude
+                        && point.longitude >= minLongitude && point.longitude <= maxLongitude) {
+                    consumer.accept(point.id, point.latitude, point.longitude, point.value);
+                }
+            });
+            return;
+        }
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                List<Point<V>> cell = cells.get(key(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                for (Point<V> point : cell) {
+                    if (point.latitude >= minLatitude && point.latitude <= maxLatitude
+                            && point.longitude >= minLongitude && point.longitude <= maxLongitude) {
+                        consumer.accept(point.id, point.latitude, point.longitude, point.value);
+                    }
+                }
+            }
+        }
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return key(x(longitude), y(latitude));
+    }
+
+    private int x(double longitude) {
+        return Math.max(0, Math.min(lonCells - 1, (int) Math.floor((longitude + 180) / cellWidth)));
+    }
+
+    private int y(double latitude) {
+        return Math.max(0, Math.min(latCells - 1, (int) Math.floor((latitude + 90) / cellHeight)));
+    }
+
+    private long key(int cx, int cy) {
+        return (long) cx * latCells + cy;
+    }
+
+    @FunctionalInterface
+    public interface PointConsumer<V> {
+        void accept(long id, double latitude, double longitude, V value);
+    }
+
+    private static class Point<V> {
+        private final long id;
+        private final double latitude;
+        private final double longitude;
+        private final V value;
+        private final long cell;
+
+        private Point(long id, double latitude, double longitude, V value, long cell) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.value = value;
+            this.cell = cell;
+        }
+    }
+}
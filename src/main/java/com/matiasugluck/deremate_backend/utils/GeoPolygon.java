@@ -0,0 +1,90 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import java.util.List;
+
+/**
+ * Poligono simple en coordenadas geograficas (sin agujeros). La inclusion se evalua con
+ * ray casting en el plano lat/lon, valido para areas chicas como un barrio.
+ */
+public class GeoPolygon {
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+
+    /**
+     * @param vertices pares {latitud, longitud}; el poligono se cierra solo
+     */
+    public GeoPolygon(List<double[]> vertices) {
+        if (vertices.size() < 3) {
+            throw new IllegalArgumentException("a polygon needs at least 3 vertices");
+        }
+        int n = vertices.size();
+        latitudes = new double[n];
+        longitudes = new double[n];
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = vertices.get(i)[0];
+            longitudes[i] = vertices.get(i)[1];
+            minLat = Math.min(minLat, latitudes[i]);
+            maxLat = Math.max(maxLat, latitudes[i]);
+            minLon = Math.min(minLon, longitudes[i]);
+            maxLon = Math.max(maxLon, longitudes[i]);
+        }
+        minLatitude = minLat;
+        maxLatitude = maxLat;
+        minLongitude = minLon;
+        maxLongitude = maxLon;
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        if (latitude < minLatitude || latitude > maxLatitude || longitude < minLongitude || longitude > maxLongitude) {
+            return false;
+        }
+        boolean inside = false;
+        for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+            if ((latitudes[i] > latitude) != (latitudes[j] > latitude)
+                    && longitude < (longitudes[j] - longitudes[i]) * (latitude - latitudes[i]) / (latitudes[j] - latitudes[i]) + longitudes[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * @return {latitud, longitud} del centroide del area (formula del poligono en el plano)
+     */
+    public double[] centroid() {
+        double area = 0, lat = 0, lon = 0;
+        for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+            double cross = longitudes[j] * latitudes[i] - longitudes[i] * latitudes[j];
+            area += cross;
+            lon += (longitudes[j] + longitudes[i]) * cross;
+            lat += (latitudes[j] + latitudes[i]) * cross;
+        }
+        if (area == 0) {
+            return new double[]{(minLatitude + maxLatitude) / 2, (minLongitude + maxLongitude) / 2};
+        }
+        return new double[]{lat / (3 * area), lon / (3 * area)};
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+}
@@ -0,0 +1,120 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Distancias haversine por lotes sobre arreglos primitivos (estructura de arreglos: latitudes y
+ * longitudes en arreglos separados), para armar filas de matrices de costo, rankear candidatos
+ * y medir recorridos sin una llamada por par.
+ * <p>
+ * Si la JVM arranca con {@code --add-modules jdk.incubator.vector} usa {@link VectorHaversineKernel}
+ * (varias distancias por instruccion); si no, o con {@code -Ddistance.kernel.scalar=true}, la
+ * version escalar de este archivo. Ambas calculan la misma formula que {@link GeoDistance}.
+ */
+public final class HaversineKernel {
+
+    private static final Logger logger = LoggerFactory.getLogger(HaversineKernel.class);
+
+    static final double TWO_R = 2 * GeoDistance.EARTH_RADIUS_METERS;
+    // Grados a radianes, y a medio angulo en radianes (el haversine usa sin(d/2))
+    static final double RADIANS = Math.PI / 180;
+    static final double HALF_RADIANS = Math.PI / 360;
+
+    private static final boolean VECTORIZED = vectorAvailable();
+
+    private HaversineKernel() {
+    }
+
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * out[i] = metros desde (latitude, longitude) hasta (latitudes[i], longitudes[i]), para i en [from, to).
+     */
+    public static void distancesFrom(double latitude, double longitude, double[] latitudes, double[] longitudes,
+                                     double[] out, int from, int to) {
+        if (VECTORIZED) {
+            VectorHaversineKernel.distancesFrom(latitude, longitude, latitudes, longitudes, out, from, to);
+        } else {
+            scalarDistancesFrom(latitude, longitude, latitudes, longitudes, out, from, to);
+        }
+    }
+
+    public static void distancesFrom(double latitude, double longitude, double[] latitudes, double[] longitudes,
+                                     double[] out, int length) {
+        distancesFrom(latitude, longitude, latitudes, longitudes, out, 0, length);
+    }
+
+    /**
+     * out[i] = metros entre el punto offsetA + i de a y el punto offsetB + i de b, para i en [0, length).
+     */
+    public static void pairwise(double[] latitudesA, double[] longitudesA, int offsetA,
+                                double[] latitudesB, double[] longitudesB, int offsetB,
+                                double[] out, int length) {
+        if (VECTORIZED) {
+            VectorHaversineKernel.pairwise(latitudesA, longitudesA, offsetA, latitudesB, longitudesB, offsetB, out, length);
+        } else {
+            scalarPairwise(latitudesA, longitudesA, offsetA, latitudesB, longitudesB, offsetB, out, length);
+        }
+    }
+
+    /**
+     * @return largo en metros de la polilinea que une los primeros length puntos en orden
+     */
+    public static double pathLength(double[] latitudes, double[] longitudes, int length) {
+        if (length < 2) {
+            return 0;
+        }
+        double[] legs = new double[length - 1];
+        pairwise(latitudes, longitudes, 0, latitudes, longitudes, 1, legs, length - 1);
+        double total = 0;
+        for (double leg : legs) {
+            total += leg;
+        }
+        return total;
+    }
+
+    public static void scalarDistancesFrom(double latitude, double longitude, double[] latitudes, double[] longitudes,
+                                           double[] out, int from, int to) {
+        double cosLat = Math.cos(latitude * RADIANS);
+        for (int i = from; i < to; i++) {
+            out[i] = distance(latitude, longitude, cosLat, latitudes[i], longitudes[i]);
+        }
+    }
+
+    public static void scalarPairwise(double[] latitudesA, double[] longitudesA, int offsetA,
+                                      double[] latitudesB, double[] longitudesB, int offsetB,
+                                      double[] out, int length) {
+        for (int i = 0; i < length; i++) {
+            double latitude = latitudesA[offsetA + i];
+            out[i] = distance(latitude, longitudesA[offsetA + i], Math.cos(latitude * RADIANS),
+                    latitudesB[offsetB + i], longitudesB[offsetB + i]);
+        }
+    }
+
+    // Misma formula y mismo orden de operaciones que la version vectorial, para que den igual
+    static double distance(double lat1, double lon1, double cosLat1, double lat2, double lon2) {
+        double sinLat = Math.sin((lat2 - lat1) * HALF_RADIANS);
+        double sinLon = Math.sin((lon2 - lon1) * HALF_RADIANS);
+        double a = sinLat * sinLat + Math.cos(lat2 * RADIANS) * cosLat1 * (sinLon * sinLon);
+        return TWO_R * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static boolean vectorAvailable() {
+        if (Boolean.getBoolean("distance.kernel.scalar")
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            // Con un solo carril no hay nada que ganar
+            int lanes = VectorHaversineKernel.lanes();
+            logger.info("Haversine kernel using the Vector API ({} lanes)", lanes);
+            return lanes > 1;
+        } catch (LinkageError e) {
+            logger.warn("Vector API not usable, haversine kernel falls back to scalar: {}", e.getMessage());
+            return false;
+        }
+    }
+}
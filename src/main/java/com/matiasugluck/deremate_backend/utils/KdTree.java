@@ -0,0 +1,292 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * KD-tree estatico de puntos geograficos para buscar los k mas cercanos con distancia haversine.
+ * Cada punto se guarda como vector unitario en 3D: la distancia euclidea (cuerda) crece con la
+ * distancia sobre la esfera, asi que podar por el plano de corte en 3D es exacto y no falla cerca
+ * del antimeridiano ni depende de la latitud. El arbol es implicito (la mediana de cada rango
+ * queda en el medio del arreglo), sin nodos ni objetos por punto. Inmutable y thread-safe.
+ */
+public class KdTree<V> {
+
+    private final long[] ids;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    private final Object[] values;
+    private final byte[] axes;
+
+    /**
+     * @param ids        identificador de cada punto
+     * @param latitudes  latitud de cada punto
+     * @param longitudes longitud de cada punto
+     * @param values     valor asociado a cada punto
+     */
+    public KdTree(long[] ids, double[] latitudes, double[] longitudes, List<V> values) {
+        int n = ids.length;
+        if (latitudes.length != n || longitudes.length != n || values.size() != n) {
+            throw new IllegalArgumentException("all arrays must have the same length");
+        }
+        this.ids = ids.clone();
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.zs = new double[n];
+        this.values = values.toArray();
+        this.axes = new byte[n];
+        for (int i = 0; i < n; i++) {
+            double lat = Math.toRadians(latitudes[i]);
+            double lon = Math.toRadians(longitudes[i]);
+            xs[i] = Math.cos(lat) * Math.cos(lon);
+            ys[i] = Math.cos(lat) * Math.sin(lon);
+            zs[i] = Math.sin(lat);
+        }
+        build(0, n);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param accept filtro por id (por ejemplo, para excluir puntos borrados despues de armar el arbol)
+     * @return hasta k puntos aceptados a no mas de maxMeters, del mas cercano al mas lejano
+     */
+    @SuppressWarnings("unchecked")
+    public List<Neighbor<V>> nearest(double latitude, double longitude, int k, double maxMeters, LongPredicate accept) {
+        if (k <= 0 || ids.length == 0) {
+            return List.of();
+        }
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double[] query = {Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+        Heap heap = new Heap(Math.min(k, ids.length), chordSquared(maxMeters));
+        search(0, ids.length, query, accept, heap);
+
+        List<Neighbor<V>> result = new ArrayList<>(heap.size);
+        for (int i = 0; i < heap.size; i++) {
+            int index = heap.indexes[i];
+            result.add(new Neighbor<>(ids[index], (V) values[index], metersFromChordSquared(heap.distances[i])));
+        }
+        result.sort((a, b) -> a.distanceMeters != b.distanceMeters
+                ? Double.compare(a.distanceMeters, b.distanceMeters)
+                : Long.compare(a.id, b.id));
+        return Collections.unmodifiableList(result);
+    }
+
+    private void search(int from, int to, double[] query, LongPredicate accept, Heap heap) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        double dx = xs[mid] - query[0];
+        double dy = ys[mid] - query[1];
+        double dz = zs[mid] - query[2];
+        double distance = dx * dx + dy * dy + dz * dz;
+        if (distance < heap.bound() && accept.test(ids[mid])) {
+            heap.offer(mid, distance);
+        }
+        if (to - from == 1) {
+            return;
+        }
+        double diff = switch (axes[mid]) {
+            case 0 -> query[0] - xs[mid];
+            case 1 -> query[1] - ys[mid];
+            default -> query[2] - zs[mid];
+        };
+        // Primero el lado de la consulta; el otro solo si el plano de corte esta mas cerca que el peor candidato
+        if (diff < 0) {
+            search(from, mid, query, accept, heap);
+            if (diff * diff < heap.bound()) {
+                search(mid + 1, to, query, accept, heap);
+            }
+        } else {
+            search(mid + 1, to, query, accept, heap);
+            if (diff * diff < heap.bound()) {
+                search(from, mid, query, accept, heap);
+            }
+        }
+    }
+
+    // Ordena el rango para que la mediana del eje de mayor dispersion quede en el medio
+    private void build(int from, int to) {
+        if (to - from <= 1) {
+            return;
+        }
+        int axis = widestAxis(from, to);
+        int mid = (from + to) >>> 1;
+        select(from, to - 1, mid, axis);
+        axes[mid] = (byte) axis;
+        build(from, mid);
+        build(mid + 1, to);
+    }
+
+    private int widestAxis(int from, int to) {
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double minZ = Double.POSITIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+            minZ = Math.min(minZ, zs[i]);
+            maxZ = Math.max(maxZ, zs[i]);
+        }
+        double spreadX = maxX - minX, spreadY = maxY - minY, spreadZ = maxZ - minZ;
+        if (spreadX >= spreadY && spreadX >= spreadZ) {
+            return 0;
+        }
+        return spreadY >= spreadZ ? 1 : 2;
+    }
+
+    // Quickselect (Hoare) sobre [left, right]: deja en k el elemento que iria ahi si el rango estuviera ordenado
+    private void select(int left, int right, int k, int axis) {
+        while (right > left) {
+            double pivot = coordinate((left + right) >>> 1, axis);
+            int i = left, j = right;
+            while (i <= j) {
+                while (coordinate(i, axis) < pivot) {
+                    i++;
+                }
+                while (coordinate(j, axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double coordinate(int index, int axis) {
+        return switch (axis) {
+            case 0 -> xs[index];
+            case 1 -> ys[index];
+            default -> zs[index];
+        };
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double t = xs[a];
+        xs[a] = xs[b];
+        xs[b] = t;
+        t = ys[a];
+        ys[a] = ys[b];
+        ys[b] = t;
+        t = zs[a];
+        zs[a] = zs[b];
+        zs[b] = t;
+        Object value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+
+    private static double chordSquared(double meters) {
+        if (Double.isInfinite(meters) || meters >= Math.PI * GeoDistance.EARTH_RADIUS_METERS) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double chord = 2 * Math.sin(meters / (2 * GeoDistance.EARTH_RADIUS_METERS));
+        return chord * chord;
+    }
+
+    private static double metersFromChordSquared(double chordSquared) {
+        return 2 * GeoDistance.EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(chordSquared) / 2));
+    }
+
+    /**
+     * Max-heap acotado a k candidatos sobre arreglos primitivos: la raiz es el peor, y mientras no
+     * este lleno la cota de poda es el radio maximo pedido.
+     */
+    private static class Heap {
+        private final int[] indexes;
+        private final double[] distances;
+        private final double limit;
+        private int size;
+
+        private Heap(int capacity, double limit) {
+            this.indexes = new int[capacity];
+            this.distances = new double[capacity];
+            this.limit = limit;
+        }
+
+        private double bound() {
+            return size < indexes.length ? limit : distances[0];
+        }
+
+        private void offer(int index, double distance) {
+            if (size < indexes.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distances[parent] >= distance) {
+                        break;
+                    }
+                    indexes[i] = indexes[parent];
+                    distances[i] = distances[parent];
+                    i = parent;
+                }
+                indexes[i] = index;
+                distances[i] = distance;
+                return;
+            }
+            // Reemplaza la raiz y la hunde
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                indexes[i] = indexes[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            indexes[i] = index;
+            distances[i] = distance;
+        }
+    }
+
+    public static class Neighbor<V> {
+        private final long id;
+        private final V value;
+        private final double distanceMeters;
+
+        private Neighbor(long id, V value, double distanceMeters) {
+            this.id = id;
+            this.value = value;
+            this.distanceMeters = distanceMeters;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+    }
+}
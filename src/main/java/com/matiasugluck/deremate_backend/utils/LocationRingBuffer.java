@@ -0,0 +1,115 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Buffer circular de posiciones de un repartidor, fuera del heap. Cada registro ocupa 24 bytes
+ * fijos (latitud, longitud y epoch en milisegundos), asi guardar una posicion no crea objetos.
+ * Si se llena antes de que se vacie, la posicion nueva pisa a la mas vieja. Los tiempos guardados
+ * nunca retroceden: una posicion anterior a la ultima recibida se guarda con el tiempo de esa.
+ * <p>
+ * Las posiciones se numeran en orden de llegada: {@link #peek} copia desde la mas vieja sin
+ * sacarlas y {@link #release} las descarta recien cuando se escribieron, asi un flush fallido
+ * no pierde nada. Cerrado (ver {@link #closeIfIdle}) no acepta mas posiciones.
+ */
+public class LocationRingBuffer {
+
+    static final int RECORD_BYTES = 24;
+
+    private final ByteBuffer records;
+    private final int capacity;
+    // Numero de la proxima posicion a escribir y de la mas vieja que sigue en el buffer
+    private long head;
+    private long tail;
+    private long overwritten;
+    private long lastOfferNanos;
+    private long lastEpochMillis = Long.MIN_VALUE;
+    private boolean closed;
+
+    public LocationRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.records = ByteBuffer.allocateDirect(capacity * RECORD_BYTES).order(ByteOrder.nativeOrder());
+        this.lastOfferNanos = System.nanoTime();
+    }
+
+    /**
+     * Guarda una posicion, pisando la mas vieja si el buffer esta lleno.
+     *
+     * @return false si el buffer ya esta cerrado
+     */
+    public synchronized boolean offer(double latitude, double longitude, long epochMillis) {
+        if (closed) {
+            return false;
+        }
+        if (head - tail == capacity) {
+            tail++;
+            overwritten++;
+        }
+        int offset = (int) (head % capacity) * RECORD_BYTES;
+        records.putDouble(offset, latitude);
+        records.putDouble(offset + 8, longitude);
+        lastEpochMillis = Math.max(lastEpochMillis, epochMillis);
+        records.putLong(offset + 16, lastEpochMillis);
+        head++;
+        lastOfferNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Copia hasta max posiciones, desde la mas vieja, a los arreglos a partir de from.
+     *
+     * @return el numero de la primera posicion copiada en los 32 bits altos y la cantidad en los bajos;
+     * usar {@link #first} y {@link #count}
+     */
+    public synchronized long peek(double[] latitudes, double[] longitudes, long[] epochMillis, int from, int max) {
+        int count = (int) Math.min(head - tail, max);
+        for (int i = 0; i < count; i++) {
+            int offset = (int) ((tail + i) % capacity) * RECORD_BYTES;
+            latitudes[from + i] = records.getDouble(offset);
+            longitudes[from + i] = records.getDouble(offset + 8);
+            epochMillis[from + i] = records.getLong(offset + 16);
+        }
+        return (tail << 32) | count;
+    }
+
+    public static long first(long peeked) {
+        return peeked >>> 32;
+    }
+
+    public static int count(long peeked) {
+        return (int) peeked;
+    }
+
+    // Descarta las posiciones anteriores a upTo; las que ya se pisaron mientras tanto no cuentan
+    public synchronized void release(long upTo) {
+        if (upTo > tail) {
+            tail = Math.min(upTo, head);
+        }
+    }
+
+    public synchronized int size() {
+        return (int) (head - tail);
+    }
+
+    // Posiciones pisadas sin haberse escrito desde la ultima llamada
+    public synchronized long takeOverwritten() {
+        long result = overwritten;
+        overwritten = 0;
+        return result;
+    }
+
+    /**
+     * Cierra el buffer si esta vacio y no recibe posiciones desde antes de cutoffNanos.
+     * Quien lo usa debe reemplazarlo por uno nuevo cuando offer devuelve false.
+     */
+    public synchronized boolean closeIfIdle(long cutoffNanos) {
+        if (head == tail && lastOfferNanos - cutoffNanos < 0) {
+            closed = true;
+        }
+        return closed;
+    }
+}
@@ -0,0 +1,66 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Poligonos de los barrios, cargados al iniciar desde un JSON [{"name", "polygon": [[lat, lon], ...]}].
+ * Los nombres se comparan sin mayusculas ni tildes ("nunez" encuentra "Núñez").
+ * Los poligonos incluidos son aproximados; routes.neighborhoods.location permite usar otros.
+ */
+@Component
+public class NeighborhoodCatalog {
+
+    private final Map<String, GeoPolygon> polygons;
+    private final List<String> names;
+
+    public NeighborhoodCatalog(@Value("${routes.neighborhoods.location:classpath:geo/neighborhoods.json}") Resource resource,
+                               ObjectMapper objectMapper) {
+        Map<String, GeoPolygon> byKey = new LinkedHashMap<>();
+        List<String> displayNames = new ArrayList<>();
+        try (InputStream in = resource.getInputStream()) {
+            for (JsonNode neighborhood : objectMapper.readTree(in)) {
+                List<double[]> vertices = new ArrayList<>();
+                for (JsonNode vertex : neighborhood.get("polygon")) {
+                    vertices.add(new double[]{vertex.get(0).asDouble(), vertex.get(1).asDouble()});
+                }
+                String name = neighborhood.get("name").asText();
+                byKey.put(normalize(name), new GeoPolygon(vertices));
+                displayNames.add(name);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load neighborhoods from " + resource, e);
+        }
+        this.polygons = Collections.unmodifiableMap(byKey);
+        this.names = Collections.unmodifiableList(displayNames);
+    }
+
+    public Optional<GeoPolygon> find(String name) {
+        return Optional.ofNullable(polygons.get(normalize(name)));
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    private static String normalize(String name) {
+        return Normalizer.normalize(name.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+}
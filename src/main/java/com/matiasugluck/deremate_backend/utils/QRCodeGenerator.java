@@ -8,11 +8,10 @@ import com.google.zxing.qrcode.QRCodeWriter;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Base64;
 
 public class QRCodeGenerator {
     // Se incluye el ID de la entrega y los productos
-    public static String generateQRCodeBase64(Long deliveryId) throws WriterException, IOException {
+    public static byte[] generateQRCodePng(Long deliveryId) throws WriterException, IOException {
         int width = 300;
         int height = 300;
 
@@ -25,6 +24,6 @@ public class QRCodeGenerator {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
 
-        return Base64.getEncoder().encodeToString(outputStream.toByteArray());
+        return outputStream.toByteArray();
     }
 }
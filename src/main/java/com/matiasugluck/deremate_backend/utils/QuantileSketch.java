@@ -0,0 +1,85 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import java.util.Arrays;
+
+/**
+ * Sketch de cuantiles con error relativo acotado (a la DDSketch). Cada valor positivo cae en el
+ * bucket ceil(log_gamma(x)) con gamma = (1 + alpha) / (1 - alpha), y el cuantil se responde con el
+ * punto medio del bucket, a menos de alpha (relativo) del valor real. Agregar un valor es O(1).
+ * <p>
+ * Guarda un contador por bucket entre el menor y el mayor visto: con alpha = 2%, duraciones de
+ * 20 minutos a 3 horas ocupan ~55. No es thread-safe.
+ */
+public class QuantileSketch {
+
+    private final double gamma;
+    private final double logGamma;
+    private int[] counts = new int[0];
+    // Indice de bucket de counts[0]
+    private int offset;
+    // Valores <= 0
+    private long zeroCount;
+    private long count;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be between 0 and 1");
+        }
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        count++;
+        if (!(value > 0)) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        ensure(index);
+        counts[index - offset]++;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @param q entre 0 y 1
+     * @return el cuantil aproximado, o NaN si no hay valores
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = Math.max(0, Math.min(1, q)) * (count - 1);
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                return 2 * Math.pow(gamma, i + offset) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, counts.length - 1 + offset) / (gamma + 1);
+    }
+
+    private void ensure(int index) {
+        if (counts.length == 0) {
+            counts = new int[16];
+            offset = index - 8;
+            return;
+        }
+        if (index < offset) {
+            int grow = Math.max(offset - index, counts.length);
+            int[] grown = new int[counts.length + grow];
+            System.arraycopy(counts, 0, grown, grow, counts.length);
+            counts = grown;
+            offset -= grow;
+        } else if (index >= offset + counts.length) {
+            counts = Arrays.copyOf(counts, counts.length + Math.max(index - offset - counts.length + 1, counts.length));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro en memoria de quien tomo cada ruta, delante del UPDATE condicional.
+ * Cuando se publica una ruta llegan decenas de pedidos casi juntos: el primero que la registra
+ * sigue hasta la base y el resto se rechaza aca, sin consultarla, sabiendo quien gano.
+ * Registrar es un putIfAbsent (o un replace si el registro anterior vencio), sin locks.
+ * <p>
+ * Es por instancia: con varias instancias la garantia la sigue dando el UPDATE condicional,
+ * este registro solo evita que los perdedores lleguen a la base. Los registros vencen a los
+ * ttl milisegundos; el que gano en memoria pero fallo en la base libera el suyo enseguida.
+ */
+@Component
+public class RouteClaimRegistry {
+
+    private final ConcurrentHashMap<Long, Claim> claims = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public RouteClaimRegistry(@Value("${routes.claim.ttl-ms:30000}") long ttlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Intenta registrar al usuario como quien toma la ruta.
+     *
+     * @return el registro vigente: el propio si lo consiguio (o ya lo tenia), el de otro usuario si no
+     */
+    public Claim tryClaim(Long routeId, Long userId, String userName) {
+        long now = System.nanoTime();
+        Claim mine = new Claim(userId, userName, now + ttlNanos);
+        while (true) {
+            Claim current = claims.get(routeId);
+            if (current == null) {
+                current = claims.putIfAbsent(routeId, mine);
+                if (current == null) {
+                    return mine;
+                }
+            }
+            if (current.expiresAt - now > 0) {
+                return current;
+            }
+            // Registro vencido: se reemplaza solo si nadie lo cambio mientras tanto
+            if (claims.replace(routeId, current, mine)) {
+                return mine;
+            }
+        }
+    }
+
+    /**
+     * Anota al ganador que se conocio por la base (p. ej. otra instancia o el despacho por lotes),
+     * para rechazar en memoria a los siguientes.
+     */
+    public void recordWinner(Long routeId, Long userId, String userName) {
+        claims.put(routeId, new Claim(userId, userName, System.nanoTime() + ttlNanos));
+    }
+
+    // Libera el registro si sigue siendo de ese usuario
+    public void release(Long routeId, Long userId) {
+        Claim current = claims.get(routeId);
+        if (current != null && current.userId.equals(userId)) {
+            claims.remove(routeId, current);
+        }
+    }
+
+    public int size() {
+        return claims.size();
+    }
+
+    @Scheduled(fixedDelayString = "${routes.claim.ttl-ms:30000}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        claims.values().removeIf(claim -> claim.expiresAt - now <= 0);
+    }
+
+    public static final class Claim {
+        private final Long userId;
+        private final String userName;
+        private final long expiresAt;
+
+        private Claim(Long userId, String userName, long expiresAt) {
+            this.userId = userId;
+            this.userName = userName;
+            this.expiresAt = expiresAt;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumen Space-Saving (Metwally et al.) para encontrar las claves mas frecuentes de un stream
+ * con memoria acotada: guarda como maximo capacity contadores. Cuando llega una clave nueva y
+ * no hay lugar, reemplaza a la de menor cuenta y hereda esa cuenta como error.
+ * <p>
+ * Los contadores se agrupan en buckets por cuenta, ordenados en una lista doblemente enlazada
+ * (Stream-Summary): sumar 1 es O(1) y recorrer las k mayores es O(k).
+ * Garantias: la cuenta estimada nunca es menor a la real y la sobreestima en a lo sumo
+ * total / capacity. No es thread-safe.
+ */
+public class SpaceSaving<K> {
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    // Bucket de menor cuenta (de aca salen los reemplazos) y de mayor cuenta (de aca arranca top)
+    private Bucket<K> min;
+    private Bucket<K> max;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(K key) {
+        offer(key, 1);
+    }
+
+    public void offer(K key, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        total += weight;
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            increment(counter, weight);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter<>(key, 0);
+            counters.put(key, counter);
+            // Con peso 1 va siempre al principio; con pesos mayores se busca su lugar
+            Bucket<K> after = null;
+            for (Bucket<K> bucket = min; bucket != null && bucket.count <= weight; bucket = bucket.next) {
+                after = bucket;
+            }
+            attach(counter, after, weight);
+            return;
+        }
+        // Reemplaza a la clave de menor cuenta
+        counter = min.head;
+        counters.remove(counter.key);
+        counter.key = key;
+        counter.error = min.count;
+        counters.put(key, counter);
+        increment(counter, weight);
+    }
+
+    /**
+     * @return cuenta estimada (cota superior de la real), 0 si la clave no esta en el resumen
+     */
+    public long estimate(K key) {
+        Counter<K> counter = counters.get(key);
+        return counter == null ? 0 : counter.bucket.count;
+    }
+
+    /**
+     * @return cuanto puede estar sobreestimada la cuenta de la clave
+     */
+    public long error(K key) {
+        Counter<K> counter = counters.get(key);
+        return counter == null ? 0 : counter.error;
+    }
+
+    /**
+     * @return hasta k claves de mayor a menor cuenta
+     */
+    public List<Entry<K>> top(int k) {
+        List<Entry<K>> result = new ArrayList<>(Math.min(k, counters.size()));
+        for (Bucket<K> bucket = max; bucket != null && result.size() < k; bucket = bucket.prev) {
+            for (Counter<K> counter = bucket.head; counter != null && result.size() < k; counter = counter.next) {
+                result.add(new Entry<>(counter.key, bucket.count, counter.error));
+            }
+        }
+        return result;
+    }
+
+    public void forEach(EntryConsumer<K> consumer) {
+        for (Bucket<K> bucket = max; bucket != null; bucket = bucket.prev) {
+            for (Counter<K> counter = bucket.head; counter != null; counter = counter.next) {
+                consumer.accept(counter.key, bucket.count, counter.error);
+            }
+        }
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    public void clear() {
+        counters.clear();
+        min = null;
+        max = null;
+        total = 0;
+    }
+
+    private void increment(Counter<K> counter, long weight) {
+        Bucket<K> from = counter.bucket;
+        long target = from.count + weight;
+        // Busca hacia arriba el bucket donde va la nueva cuenta; con peso 1 es el siguiente
+        Bucket<K> after = from;
+        while (after.next != null && after.next.count <= target) {
+            after = after.next;
+        }
+        detach(counter);
+        if (after == from && from.head == null) {
+            // El bucket quedo vacio y fue desenganchado: se inserta despues de su anterior
+            after = from.prev;
+        }
+        attach(counter, after, target);
+    }
+
+    /**
+     * Engancha el contador en el bucket con la cuenta dada, que va inmediatamente despues de
+     * after (o al principio si after es null), creandolo si no existe.
+     */
+    private void attach(Counter<K> counter, Bucket<K> after, long count) {
+        Bucket<K> bucket;
+        if (after != null && after.count == count) {
+            bucket = after;
+        } else {
+            Bucket<K> next = after == null ? min : after.next;
+            if (next != null && next.count == count) {
+                bucket = next;
+            } else {
+                bucket = new Bucket<>(count);
+                bucket.prev = after;
+                bucket.next = next;
+                if (after != null) {
+                    after.next = bucket;
+                } else {
+                    min = bucket;
+                }
+                if (next != null) {
+                    next.prev = bucket;
+                } else {
+                    max = bucket;
+                }
+            }
+        }
+        counter.bucket = bucket;
+        counter.prev = null;
+        counter.next = bucket.head;
+        if (bucket.head != null) {
+            bucket.head.prev = counter;
+        }
+        bucket.head = counter;
+    }
+
+    private void detach(Counter<K> counter) {
+        Bucket<K> bucket = counter.bucket;
+        if (counter.prev != null) {
+            counter.prev.next = counter.next;
+        } else {
+            bucket.head = counter.next;
+        }
+        if (counter.next != null) {
+            counter.next.prev = counter.prev;
+        }
+        counter.prev = null;
+        counter.next = null;
+        if (bucket.head == null) {
+            if (bucket.prev != null) {
+                bucket.prev.next = bucket.next;
+            } else {
+                min = bucket.next;
+            }
+            if (bucket.next != null) {
+                bucket.next.prev = bucket.prev;
+            } else {
+                max = bucket.prev;
+            }
+        }
+    }
+
+    public static class Entry<K> {
+        private final K key;
+        private final long count;
+        private final long error;
+
+        public Entry(K key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<K> {
+        void accept(K key, long count, long error);
+    }
+
+    private static class Bucket<K> {
+        private final long count;
+        private Bucket<K> prev;
+        private Bucket<K> next;
+        private Counter<K> head;
+
+        private Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private static class Counter<K> {
+        private K key;
+        private long error;
+        private Bucket<K> bucket;
+        private Counter<K> prev;
+        private Counter<K> next;
+
+        private Counter(K key, long error) {
+            this.key = key;
+            this.error = error;
+        }
+    }
+}
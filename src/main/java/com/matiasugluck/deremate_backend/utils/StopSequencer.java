@@ -0,0 +1,233 @@
+package com.matiasugluck.deremate_backend.utils;
+
+/**
+ * Orden de visita casi optimo de un conjunto de paradas (camino abierto: no vuelve al inicio),
+ * con distancia haversine. Arranca con vecino mas cercano desde la posicion del repartidor (o,
+ * sin posicion, desde la parada que da el mejor camino) y lo mejora con 2-opt (invertir un tramo)
+ * y Or-opt (mover un tramo de 1 a 3 paradas, en cualquier sentido) hasta que ninguna jugada
+ * acorte el camino o se agote el tiempo. Sin estado; se puede usar desde varios hilos.
+ */
+public final class StopSequencer {
+
+    private static final double EPSILON = 1e-7;
+    private static final int MAX_SEGMENT = 3;
+
+    private StopSequencer() {
+    }
+
+    /**
+     * @param latitudes    latitud de cada parada
+     * @param longitudes   longitud de cada parada
+     * @param start        {latitud, longitud} desde donde sale el repartidor, o null si es libre
+     * @param budgetNanos  tiempo maximo de mejora; el camino inicial se devuelve siempre
+     * @return indices de las paradas en el orden de visita
+     */
+    public static int[] sequence(double[] latitudes, double[] longitudes, double[] start, long budgetNanos) {
+        long deadline = System.nanoTime() + Math.max(0, budgetNanos);
+        int n = latitudes.length;
+        if (n <= 1) {
+            return n == 0 ? new int[0] : new int[]{0};
+        }
+        // El inicio, si existe, es el nodo n y queda fijo en la primera posicion
+        int nodes = start != null ? n + 1 : n;
+        double[] nodeLatitudes = new double[nodes];
+        double[] nodeLongitudes = new double[nodes];
+        for (int i = 0; i < nodes; i++) {
+            nodeLatitudes[i] = lat(latitudes, start, i);
+            nodeLongitudes[i] = lon(longitudes, start, i);
+        }
+        // Cada fila se calcula por lote desde la diagonal y se copia al triangulo inferior (la matriz queda simetrica)
+        double[][] distances = new double[nodes][nodes];
+        for (int i = 0; i < nodes; i++) {
+            HaversineKernel.distancesFrom(nodeLatitudes[i], nodeLongitudes[i], nodeLatitudes, nodeLongitudes,
+                    distances[i], i + 1, nodes);
+            for (int j = i + 1; j < nodes; j++) {
+                distances[j][i] = distances[i][j];
+            }
+        }
+
+        Tour tour;
+        if (start != null) {
+            tour = new Tour(distances, nearestNeighbour(distances, n), 1);
+        } else {
+            tour = new Tour(distances, nearestNeighbour(distances, 0), 0);
+            for (int seed = 1; seed < n && System.nanoTime() < deadline; seed++) {
+                Tour candidate = new Tour(distances, nearestNeighbour(distances, seed), 0);
+                if (candidate.length() < tour.length()) {
+                    tour = candidate;
+                }
+            }
+        }
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = tour.twoOpt(deadline) | tour.orOpt(deadline);
+        }
+
+        int[] order = new int[n];
+        System.arraycopy(tour.nodes, tour.first, order, 0, n);
+        return order;
+    }
+
+    /**
+     * @return largo en metros del camino que recorre las paradas en el orden dado, desde start si no es null
+     */
+    public static double length(double[] latitudes, double[] longitudes, double[] start, int[] order) {
+        double total = 0;
+        double prevLat = start != null ? start[0] : Double.NaN;
+        double prevLon = start != null ? start[1] : Double.NaN;
+        for (int index : order) {
+            if (!Double.isNaN(prevLat)) {
+                total += GeoDistance.haversineMeters(prevLat, prevLon, latitudes[index], longitudes[index]);
+            }
+            prevLat = latitudes[index];
+            prevLon = longitudes[index];
+        }
+        return total;
+    }
+
+    private static int[] nearestNeighbour(double[][] distances, int seed) {
+        int nodes = distances.length;
+        int[] order = new int[nodes];
+        boolean[] visited = new boolean[nodes];
+        order[0] = seed;
+        visited[seed] = true;
+        for (int position = 1; position < nodes; position++) {
+            int from = order[position - 1];
+            int best = -1;
+            for (int candidate = 0; candidate < nodes; candidate++) {
+                if (!visited[candidate] && (best < 0 || distances[from][candidate] < distances[from][best])) {
+                    best = candidate;
+                }
+            }
+            order[position] = best;
+            visited[best] = true;
+        }
+        return order;
+    }
+
+    private static double lat(double[] latitudes, double[] start, int node) {
+        return node < latitudes.length ? latitudes[node] : start[0];
+    }
+
+    private static double lon(double[] longitudes, double[] start, int node) {
+        return node < longitudes.length ? longitudes[node] : start[1];
+    }
+
+    // Camino abierto sobre los nodos; las posiciones antes de first no se mueven
+    private static class Tour {
+        private final double[][] distances;
+        private final int first;
+        private int[] nodes;
+
+        private Tour(double[][] distances, int[] nodes, int first) {
+            this.distances = distances;
+            this.nodes = nodes;
+            this.first = first;
+        }
+
+        private double length() {
+            double total = 0;
+            for (int i = 1; i < nodes.length; i++) {
+                total += distances[nodes[i - 1]][nodes[i]];
+            }
+            return total;
+        }
+
+        // Un extremo inexistente (antes del principio o despues del final) no suma distancia
+        private double edge(int a, int b) {
+            return a < 0 || b < 0 ? 0 : distances[a][b];
+        }
+
+        private int at(int position) {
+            return position >= 0 && position < nodes.length ? nodes[position] : -1;
+        }
+
+        private boolean twoOpt(long deadline) {
+            boolean improved = false;
+            for (int i = first; i < nodes.length - 1; i++) {
+                if (System.nanoTime() >= deadline) {
+                    return improved;
+                }
+                for (int j = i + 1; j < nodes.length; j++) {
+                    int a = at(i - 1), b = nodes[i], c = nodes[j], d = at(j + 1);
+                    double delta = edge(a, c) + edge(b, d) - edge(a, b) - edge(c, d);
+                    if (delta < -EPSILON) {
+                        reverse(i, j);
+                        improved = true;
+                    }
+                }
+            }
+            return improved;
+        }
+
+        private boolean orOpt(long deadline) {
+            boolean improved = false;
+            for (int length = 1; length <= MAX_SEGMENT; length++) {
+                for (int i = first; i + length <= nodes.length; i++) {
+                    if (System.nanoTime() >= deadline) {
+                        return improved;
+                    }
+                    if (moveSegment(i, length)) {
+                        improved = true;
+                    }
+                }
+            }
+            return improved;
+        }
+
+        // Busca el mejor lugar para el tramo [i, i + length) y lo mueve si acorta el camino
+        private boolean moveSegment(int i, int length) {
+            int head = nodes[i], tail = nodes[i + length - 1];
+            int before = at(i - 1), after = at(i + length);
+            double removeGain = edge(before, head) + edge(tail, after) - edge(before, after);
+
+            int[] rest = new int[nodes.length - length];
+            System.arraycopy(nodes, 0, rest, 0, i);
+            System.arraycopy(nodes, i + length, rest, i, nodes.length - i - length);
+
+            double bestDelta = -EPSILON;
+            int bestGap = -1;
+            boolean bestReversed = false;
+            // El hueco g queda entre rest[g - 1] y rest[g]
+            for (int gap = first; gap <= rest.length; gap++) {
+                if (gap == i) {
+                    continue;
+                }
+                int x = gap > 0 ? rest[gap - 1] : -1;
+                int y = gap < rest.length ? rest[gap] : -1;
+                double forward = edge(x, head) + edge(tail, y) - edge(x, y) - removeGain;
+                double reversed = edge(x, tail) + edge(head, y) - edge(x, y) - removeGain;
+                if (forward < bestDelta) {
+                    bestDelta = forward;
+                    bestGap = gap;
+                    bestReversed = false;
+                }
+                if (reversed < bestDelta) {
+                    bestDelta = reversed;
+                    bestGap = gap;
+                    bestReversed = true;
+                }
+            }
+            if (bestGap < 0) {
+                return false;
+            }
+            int[] moved = new int[nodes.length];
+            System.arraycopy(rest, 0, moved, 0, bestGap);
+            for (int k = 0; k < length; k++) {
+                moved[bestGap + k] = bestReversed ? nodes[i + length - 1 - k] : nodes[i + k];
+            }
+            System.arraycopy(rest, bestGap, moved, bestGap + length, rest.length - bestGap);
+            nodes = moved;
+            return true;
+        }
+
+        private void reverse(int i, int j) {
+            while (i < j) {
+                int t = nodes[i];
+                nodes[i++] = nodes[j];
+                nodes[j--] = t;
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal append-only de transiciones de estado en archivos de segmento mapeados en memoria.
+ * Cada registro ocupa {@link #RECORD_BYTES} bytes fijos:
+ * <pre>
+ *  0 secuencia (long, desde 1)     8 epoch en milisegundos (long)
+ * 16 id de la entidad (long)       24 usuario (long, 0 = ninguno)
+ * 32 tipo de entidad (byte)        33 estado anterior (byte, 0 = ninguno)
+ * 34 estado nuevo (byte)           35 reservado
+ * 36 CRC32C de los bytes 0-35 (int)
+ * </pre>
+ * Los codigos de entidad y estado los define quien escribe. El CRC se escribe ultimo: un registro
+ * cortado a mitad (la JVM murio escribiendolo) no lo valida y ahi termina el segmento. Al abrir
+ * se recorre el ultimo segmento hasta el primer registro invalido y se sigue escribiendo desde ahi.
+ * <p>
+ * Cada segmento se llama con la secuencia de su primer registro y tiene un tamano fijo; al
+ * llenarse se abre el siguiente. Escribir es copiar 40 bytes a la pagina mapeada: llega al disco
+ * con {@link #force()} o cuando el sistema operativo la baje (sobrevive a que se caiga el proceso,
+ * no a que se caiga la maquina antes del force). Un unico escritor por directorio.
+ */
+public class TransitionJournal implements Closeable {
+
+    public static final int RECORD_BYTES = 40;
+    private static final int CRC_OFFSET = 36;
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final CRC32C crc = new CRC32C();
+    private final byte[] scratch = new byte[CRC_OFFSET];
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    // Registros escritos en el segmento actual
+    private int position;
+    private volatile long lastSequence;
+
+    public TransitionJournal(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < RECORD_BYTES) {
+            throw new IllegalArgumentException("segmentBytes must hold at least one record");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = segmentBytes / RECORD_BYTES;
+        Files.createDirectories(directory);
+
+        List<Segment> segments = segments(directory);
+        if (segments.isEmpty()) {
+            open(1);
+        } else {
+            Segment last = segments.get(segments.size() - 1);
+            channel = FileChannel.open(last.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_BYTES);
+            long expected = last.firstSequence;
+            while (position < recordsPerSegment && isValid(segment, position * RECORD_BYTES, expected, crc, scratch)) {
+                position++;
+                expected++;
+            }
+            lastSequence = expected - 1;
+        }
+    }
+
+    /**
+     * Agrega una transicion.
+     *
+     * @return la secuencia asignada
+     */
+    public synchronized long append(int entity, long entityId, int fromStatus, int toStatus, long userId, long epochMillis)
+            throws IOException {
+        if (position == recordsPerSegment) {
+            roll();
+        }
+        long sequence = lastSequence + 1;
+        int offset = position * RECORD_BYTES;
+        segment.putLong(offset, sequence);
+        segment.putLong(offset + 8, epochMillis);
+        segment.putLong(offset + 16, entityId);
+        segment.putLong(offset + 24, userId);
+        segment.put(offset + 32, (byte) entity);
+        segment.put(offset + 33, (byte) fromStatus);
+        segment.put(offset + 34, (byte) toStatus);
+        segment.put(offset + 35, (byte) 0);
+        segment.putInt(offset + CRC_OFFSET, checksum(segment, offset, crc, scratch));
+        position++;
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    // Baja al disco lo escrito en el segmento actual
+    public synchronized void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Recorre en orden los registros desde fromSequence hasta el ultimo escrito al empezar, sin
+     * crear objetos por registro. Los segmentos anteriores a fromSequence ni se abren.
+     * Se puede usar mientras se escribe.
+     */
+    public void read(long fromSequence, RecordVisitor visitor) throws IOException {
+        long until = lastSequence;
+        List<Segment> segments = segments(directory);
+        CRC32C readerCrc = new CRC32C();
+        byte[] readerScratch = new byte[CRC_OFFSET];
+        for (int s = 0; s < segments.size(); s++) {
+            Segment current = segments.get(s);
+            if (s + 1 < segments.size() && segments.get(s + 1).firstSequence <= fromSequence) {
+                continue;
+            }
+            if (current.firstSequence > until) {
+                return;
+            }
+            try (FileChannel file = FileChannel.open(current.path, StandardOpenOption.READ)) {
+                ByteBuffer records = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                int count = (int) (file.size() / RECORD_BYTES);
+                long expected = current.firstSequence;
+                int first = (int) Math.max(0, Math.min(count, fromSequence - current.firstSequence));
+                expected += first;
+                for (int i = first; i < count && expected <= until; i++, expected++) {
+                    int offset = i * RECORD_BYTES;
+                    if (!isValid(records, offset, expected, readerCrc, readerScratch)) {
+                        break;
+                    }
+                    if (!visitor.visit(expected, records.getLong(offset + 8), records.getLong(offset + 16),
+                            records.getLong(offset + 24), records.get(offset + 32), records.get(offset + 33),
+                            records.get(offset + 34))) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            segment.force();
+            channel.close();
+            channel = null;
+            segment = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        segment.force();
+        channel.close();
+        open(lastSequence + 1);
+    }
+
+    private void open(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_BYTES);
+        position = 0;
+    }
+
+    private static boolean isValid(ByteBuffer records, int offset, long expectedSequence, CRC32C crc, byte[] scratch) {
+        return records.getLong(offset) == expectedSequence
+                && records.getInt(offset + CRC_OFFSET) == checksum(records, offset, crc, scratch);
+    }
+
+    private static int checksum(ByteBuffer records, int offset, CRC32C crc, byte[] scratch) {
+        records.get(offset, scratch);
+        crc.reset();
+        crc.update(scratch, 0, CRC_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    private static List<Segment> segments(Path directory) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .forEach(path -> {
+                        String name = path.getFileName().toString();
+                        segments.add(new Segment(path, Long.parseLong(name.substring(0, name.length() - SUFFIX.length()))));
+                    });
+        }
+        return segments;
+    }
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        // Devolver false para dejar de leer
+        boolean visit(long sequence, long epochMillis, long entityId, long userId, int entity, int fromStatus, int toStatus);
+    }
+
+    private static class Segment {
+        private final Path path;
+        private final long firstSequence;
+
+        private Segment(Path path, long firstSequence) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+        }
+    }
+}
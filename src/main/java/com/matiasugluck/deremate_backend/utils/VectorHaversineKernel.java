@@ -0,0 +1,70 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static com.matiasugluck.deremate_backend.utils.HaversineKernel.HALF_RADIANS;
+import static com.matiasugluck.deremate_backend.utils.HaversineKernel.RADIANS;
+import static com.matiasugluck.deremate_backend.utils.HaversineKernel.TWO_R;
+
+/**
+ * Version de {@link HaversineKernel} con la Vector API (modulo incubator): procesa tantas
+ * distancias por iteracion como carriles tenga el ancho preferido de la CPU, y el resto con la
+ * version escalar. Solo se carga si el modulo esta presente; usar siempre a traves de
+ * {@link HaversineKernel}, salvo para compararlas.
+ */
+public final class VectorHaversineKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorHaversineKernel() {
+    }
+
+    public static int lanes() {
+        return SPECIES.length();
+    }
+
+    public static void distancesFrom(double latitude, double longitude, double[] latitudes, double[] longitudes,
+                                     double[] out, int from, int to) {
+        double cosLat = Math.cos(latitude * RADIANS);
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, latitudes, i);
+            DoubleVector lon2 = DoubleVector.fromArray(SPECIES, longitudes, i);
+            DoubleVector sinLat = lat2.sub(latitude).mul(HALF_RADIANS).lanewise(VectorOperators.SIN);
+            DoubleVector sinLon = lon2.sub(longitude).mul(HALF_RADIANS).lanewise(VectorOperators.SIN);
+            DoubleVector cosLat2 = lat2.mul(RADIANS).lanewise(VectorOperators.COS);
+            DoubleVector a = sinLat.mul(sinLat).add(cosLat2.mul(cosLat).mul(sinLon.mul(sinLon)));
+            a.lanewise(VectorOperators.SQRT).min(1.0).lanewise(VectorOperators.ASIN).mul(TWO_R).intoArray(out, i);
+        }
+        for (; i < to; i++) {
+            out[i] = HaversineKernel.distance(latitude, longitude, cosLat, latitudes[i], longitudes[i]);
+        }
+    }
+
+    public static void pairwise(double[] latitudesA, double[] longitudesA, int offsetA,
+                                double[] latitudesB, double[] longitudesB, int offsetB,
+                                double[] out, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector lat1 = DoubleVector.fromArray(SPECIES, latitudesA, offsetA + i);
+            DoubleVector lon1 = DoubleVector.fromArray(SPECIES, longitudesA, offsetA + i);
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, latitudesB, offsetB + i);
+            DoubleVector lon2 = DoubleVector.fromArray(SPECIES, longitudesB, offsetB + i);
+            DoubleVector sinLat = lat2.sub(lat1).mul(HALF_RADIANS).lanewise(VectorOperators.SIN);
+            DoubleVector sinLon = lon2.sub(lon1).mul(HALF_RADIANS).lanewise(VectorOperators.SIN);
+            DoubleVector cosLat1 = lat1.mul(RADIANS).lanewise(VectorOperators.COS);
+            DoubleVector cosLat2 = lat2.mul(RADIANS).lanewise(VectorOperators.COS);
+            DoubleVector a = sinLat.mul(sinLat).add(cosLat2.mul(cosLat1).mul(sinLon.mul(sinLon)));
+            a.lanewise(VectorOperators.SQRT).min(1.0).lanewise(VectorOperators.ASIN).mul(TWO_R).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            double latitude = latitudesA[offsetA + i];
+            out[i] = HaversineKernel.distance(latitude, longitudesA[offsetA + i], Math.cos(latitude * RADIANS),
+                    latitudesB[offsetB + i], longitudesB[offsetB + i]);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.matiasugluck.deremate_backend.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Claves mas frecuentes en una ventana deslizante de tiempo, con memoria acotada.
+ * La ventana se divide en panes fijos, cada uno con su propio {@link SpaceSaving}; ademas se
+ * mantiene un resumen agregado de toda la ventana, que se actualiza en cada evento y se rearma
+ * desde los panes vigentes solo cuando vence alguno (una vez por pane). Asi top(k) es O(k).
+ * La ventana avanza de a un pane: cubre entre (panes - 1) y panes duraciones de pane.
+ * No es thread-safe.
+ */
+public class WindowedHeavyHitters<K> {
+
+    private final long paneMillis;
+    private final int capacity;
+    private final SpaceSaving<K>[] panes;
+    private final long[] paneEpochs;
+    private SpaceSaving<K> window;
+    private long currentEpoch = Long.MIN_VALUE;
+
+    @SuppressWarnings("unchecked")
+    public WindowedHeavyHitters(long paneMillis, int paneCount, int capacity) {
+        if (paneMillis <= 0 || paneCount <= 0) {
+            throw new IllegalArgumentException("pane duration and count must be positive");
+        }
+        this.paneMillis = paneMillis;
+        this.capacity = capacity;
+        this.panes = new SpaceSaving[paneCount];
+        this.paneEpochs = new long[paneCount];
+        for (int i = 0; i < paneCount; i++) {
+            panes[i] = new SpaceSaving<>(capacity);
+            paneEpochs[i] = Long.MIN_VALUE;
+        }
+        this.window = new SpaceSaving<>(capacity);
+    }
+
+    /**
+     * Registra una ocurrencia de la clave en el instante dado. Los eventos mas viejos que la ventana se descartan.
+     */
+    public void add(K key, long timestampMillis) {
+        long epoch = Math.floorDiv(timestampMillis, paneMillis);
+        advance(epoch);
+        if (epoch <= currentEpoch - panes.length) {
+            return;
+        }
+        int index = indexOf(epoch);
+        if (paneEpochs[index] != epoch) {
+            // Pane vencido (o nunca usado) que se reutiliza para este epoch
+            panes[index].clear();
+            paneEpochs[index] = epoch;
+        }
+        panes[index].offer(key);
+        window.offer(key);
+    }
+
+    /**
+     * @return hasta k claves de la ventana que termina en nowMillis, de mayor a menor cuenta
+     */
+    public List<SpaceSaving.Entry<K>> top(int k, long nowMillis) {
+        advance(Math.floorDiv(nowMillis, paneMillis));
+        return window.top(k);
+    }
+
+    public long estimate(K key, long nowMillis) {
+        advance(Math.floorDiv(nowMillis, paneMillis));
+        return window.estimate(key);
+    }
+
+    public long total(long nowMillis) {
+        advance(Math.floorDiv(nowMillis, paneMillis));
+        return window.total();
+    }
+
+    private void advance(long epoch) {
+        if (epoch <= currentEpoch) {
+            return;
+        }
+        currentEpoch = epoch;
+        boolean expired = false;
+        for (int i = 0; i < panes.length; i++) {
+            if (paneEpochs[i] != Long.MIN_VALUE && paneEpochs[i] <= epoch - panes.length) {
+                expired |= !panes[i].isEmpty();
+                panes[i].clear();
+                paneEpochs[i] = Long.MIN_VALUE;
+            }
+        }
+        if (expired) {
+            rebuildWindow();
+        }
+    }
+
+    // Suma los panes vigentes y carga las capacity claves mayores, de mayor a menor para que cada alta sea O(1)
+    private void rebuildWindow() {
+        Map<K, Long> sums = new HashMap<>();
+        for (SpaceSaving<K> pane : panes) {
+            pane.forEach((key, count, error) -> sums.merge(key, count, Long::sum));
+        }
+        List<Map.Entry<K, Long>> entries = new ArrayList<>(sums.entrySet());
+        entries.sort(Map.Entry.<K, Long>comparingByValue().reversed());
+
+        SpaceSaving<K> rebuilt = new SpaceSaving<>(capacity);
+        for (int i = 0; i < entries.size() && i < capacity; i++) {
+            rebuilt.offer(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+        window = rebuilt;
+    }
+
+    private int indexOf(long epoch) {
+        return (int) Math.floorMod(epoch, (long) panes.length);
+    }
+}
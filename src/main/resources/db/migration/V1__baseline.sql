@@ -0,0 +1,80 @@
+-- Esquema inicial, equivalente al que generaba spring.jpa.hibernate.ddl-auto (ids IDENTITY).
+-- En bases ya creadas por Hibernate esta version se marca como baseline y no se ejecuta: todo
+-- cambio posterior va en una version nueva, nunca aca.
+
+CREATE TABLE `user` (
+    id                BIGINT       NOT NULL AUTO_INCREMENT,
+    points            INTEGER      NOT NULL,
+    level             INTEGER      NOT NULL,
+    firstname         VARCHAR(255),
+    lastname          VARCHAR(255),
+    email             VARCHAR(255) NOT NULL,
+    password          VARCHAR(255),
+    created_at        DATETIME(6),
+    is_email_verified BIT          NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE product (
+    id          BIGINT NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(255),
+    description VARCHAR(255),
+    price       DECIMAL(38, 2),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE route (
+    id                    BIGINT NOT NULL AUTO_INCREMENT,
+    description           VARCHAR(255),
+    destination_latitude  FLOAT(53),
+    destination_longitude FLOAT(53),
+    status                ENUM ('PENDING','INITIATED','COMPLETED','CANCELLED'),
+    started_at            DATETIME(6),
+    completed_at          DATETIME(6),
+    last_updated_at       DATETIME(6),
+    user_id               BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_route_user FOREIGN KEY (user_id) REFERENCES `user` (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE delivery (
+    id                  BIGINT       NOT NULL AUTO_INCREMENT,
+    status              ENUM ('NOT_DELIVERED','DELIVERED','REJECTED'),
+    destination         VARCHAR(255),
+    package_location    VARCHAR(255),
+    created_date        DATETIME(6),
+    delivery_start_date DATETIME(6),
+    delivery_end_date   DATETIME(6),
+    qr_code             VARCHAR(500),
+    pin                 VARCHAR(255) NOT NULL,
+    route_id            BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_delivery_route UNIQUE (route_id),
+    CONSTRAINT fk_delivery_route FOREIGN KEY (route_id) REFERENCES route (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE delivery_products (
+    delivery_id BIGINT NOT NULL,
+    product_id  BIGINT NOT NULL,
+    CONSTRAINT fk_delivery_products_delivery FOREIGN KEY (delivery_id) REFERENCES delivery (id),
+    CONSTRAINT fk_delivery_products_product FOREIGN KEY (product_id) REFERENCES product (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE devices (
+    id        BIGINT NOT NULL AUTO_INCREMENT,
+    user_id   BIGINT,
+    device_id VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_devices_user FOREIGN KEY (user_id) REFERENCES `user` (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE verification_token (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    token         VARCHAR(255) NOT NULL,
+    user_id       BIGINT       NOT NULL,
+    expiry_date   DATETIME(6)  NOT NULL,
+    purpose       VARCHAR(255) NOT NULL,
+    attempt_count INTEGER      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_verification_token_user FOREIGN KEY (user_id) REFERENCES `user` (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,27 @@
+-- Indices para las consultas de los repositorios. Cada uno indica la consulta que cubre.
+-- QueryPlanTest corre EXPLAIN sobre esas consultas y falla si alguna recorre la tabla completa.
+
+-- UserRepository.findByEmail / existsByEmail (se ejecuta en cada request autenticado)
+CREATE UNIQUE INDEX uk_user_email ON `user` (email);
+
+-- RouteRepository.findByAssignedToIdAndStatus, findAvailable(After) (user_id IS NULL AND status, orden por last_updated_at)
+CREATE INDEX idx_route_user_status_updated ON route (user_id, status, last_updated_at);
+-- DeliveryRepository.findByUserId(After) y RouteRepository.findByAssignedToId: por usuario, orden por last_updated_at DESC
+CREATE INDEX idx_route_user_updated ON route (user_id, last_updated_at);
+-- RouteRepository.findPage(After): todas las rutas por last_updated_at DESC, id DESC
+CREATE INDEX idx_route_updated ON route (last_updated_at);
+
+-- DeliveryRepository.findAssignedAndNotDelivered(After): por estado, orden por created_date, id (id va implicito en InnoDB)
+CREATE INDEX idx_delivery_status_created ON delivery (status, created_date);
+-- DeliveryRepository.findWarehouseItems: estado + route_id para el JOIN, y las columnas proyectadas (cubre la consulta)
+CREATE INDEX idx_delivery_status_route ON delivery (status, route_id, package_location, created_date);
+
+-- VerificationTokenRepository.findByTokenAndPurposeAndUser_EmailAndExpiryDateAfterAndAttemptCountLessThan
+CREATE INDEX idx_verification_token_lookup ON verification_token (token, purpose, expiry_date);
+-- VerificationTokenRepository.findAllByUserAndPurposeAndExpiryDateAfter / findByUser
+CREATE INDEX idx_verification_token_user ON verification_token (user_id, purpose, expiry_date);
+
+-- DeviceRepository.deleteByDeviceId, deleteByDeviceIdIn y findAllDeviceIds (DISTINCT recorre solo el indice)
+CREATE INDEX idx_devices_device_id ON devices (device_id);
+-- DeviceRepository.findByUser, findDeviceIdsByUserId y deleteByUserAndDeviceId (cubre device_id)
+CREATE INDEX idx_devices_user_device ON devices (user_id, device_id);
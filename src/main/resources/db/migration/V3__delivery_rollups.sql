@@ -0,0 +1,42 @@
+-- Contadores de analitica que DeliveryServiceImpl mantiene en la misma transaccion que la entrega.
+-- Los dashboards leen estas tablas y nunca agrupan sobre delivery.
+
+CREATE TABLE delivery_status_rollup (
+    status         VARCHAR(32) NOT NULL,
+    delivery_count BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (status)
+) ENGINE = InnoDB;
+
+-- created_count por dia de creacion; delivered/rejected por dia de cierre de la ruta
+CREATE TABLE delivery_day_rollup (
+    day             DATE   NOT NULL,
+    created_count   BIGINT NOT NULL DEFAULT 0,
+    delivered_count BIGINT NOT NULL DEFAULT 0,
+    rejected_count  BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (day)
+) ENGINE = InnoDB;
+
+-- Zona = celda geohash del destino de la ruta (precision en analytics.zone-precision)
+CREATE TABLE delivery_zone_rollup (
+    zone            VARCHAR(12) NOT NULL,
+    delivery_count  BIGINT      NOT NULL DEFAULT 0,
+    delivered_count BIGINT      NOT NULL DEFAULT 0,
+    rejected_count  BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (zone),
+    INDEX idx_delivery_zone_rollup_count (delivery_count)
+) ENGINE = InnoDB;
+
+-- Estado del backfill: las entregas con id en (cursor_id, upper_bound] las cuenta el backfill, el resto se cuenta en linea
+CREATE TABLE delivery_rollup_backfill (
+    id          TINYINT     NOT NULL,
+    running     BIT         NOT NULL,
+    cursor_id   BIGINT      NOT NULL,
+    upper_bound BIGINT      NOT NULL,
+    started_at  DATETIME(6),
+    finished_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- Las entregas que ya existen se cargan con un backfill que arranca solo al desplegar esta version
+INSERT INTO delivery_rollup_backfill (id, running, cursor_id, upper_bound, started_at)
+SELECT 1, 1, 0, COALESCE(MAX(id), 0), NOW(6) FROM delivery;
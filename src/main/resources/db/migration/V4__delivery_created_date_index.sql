@@ -0,0 +1,2 @@
+-- ZoneActivityServiceImpl: al iniciar carga las entregas creadas en la ultima semana
+CREATE INDEX idx_delivery_created ON delivery (created_date);
@@ -0,0 +1,3 @@
+-- @Version de Delivery y Route; las transiciones de estado lo incrementan en el mismo UPDATE condicional
+ALTER TABLE delivery ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE route ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,11 @@
+-- Posiciones GPS de los repartidores con rutas en curso. Las escribe LocationTrackingServiceImpl
+-- en batches desde buffers en memoria; sin clave foranea para que los INSERT masivos no chequeen user
+CREATE TABLE courier_track (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id     BIGINT      NOT NULL,
+    latitude    FLOAT(53)   NOT NULL,
+    longitude   FLOAT(53)   NOT NULL,
+    recorded_at DATETIME(3) NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_courier_track_user_recorded (user_id, recorded_at)
+) ENGINE = InnoDB;
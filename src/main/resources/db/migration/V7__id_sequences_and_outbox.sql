@@ -0,0 +1,36 @@
+-- Tablas y cambios que agregaron el outbox (OutboxMessage) y los ids por tabla (@TableGenerator):
+-- van aca y no en V1 porque en las bases existentes V1 es el baseline y no se ejecuta.
+
+-- Secuencias de IdSequences; IdSequenceInitializer crea las filas por encima del MAX(id) al iniciar
+CREATE TABLE id_sequences (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val      BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE = InnoDB;
+
+-- Los ids de estas tablas los asigna id_sequences; sin AUTO_INCREMENT el esquema coincide con el
+-- que valida Hibernate. Las claves foraneas que apuntan a estas columnas no cambian (mismo tipo).
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE product MODIFY id BIGINT NOT NULL;
+ALTER TABLE route MODIFY id BIGINT NOT NULL;
+ALTER TABLE delivery MODIFY id BIGINT NOT NULL;
+ALTER TABLE devices MODIFY id BIGINT NOT NULL;
+ALTER TABLE verification_token MODIFY id BIGINT NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- El QR ya no se guarda: se genera y se sirve como PNG desde /delivery/{id}/qr
+ALTER TABLE delivery DROP COLUMN qr_code;
+
+CREATE TABLE outbox_message (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    type            ENUM ('PUSH_BROADCAST','PUSH_USER','EMAIL') NOT NULL,
+    status          ENUM ('PENDING','SENT','FAILED')            NOT NULL,
+    payload         TEXT         NOT NULL,
+    attempts        INTEGER      NOT NULL,
+    next_attempt_at DATETIME(6)  NOT NULL,
+    created_at      DATETIME(6)  NOT NULL,
+    sent_at         DATETIME(6),
+    last_error      VARCHAR(1000),
+    PRIMARY KEY (id),
+    INDEX idx_outbox_status_next_attempt (status, next_attempt_at)
+) ENGINE = InnoDB;
@@ -0,0 +1,6 @@
+-- Ultima posicion de courier_track ya convertida en puntos (POST /points/track); 0 = ninguna.
+-- No se mapea en User: solo la avanza un UPDATE condicional, asi un save del usuario no la pisa
+ALTER TABLE `user` ADD COLUMN track_points_after_id BIGINT NOT NULL DEFAULT 0;
+
+-- CourierTrackRepository.findFrom: posiciones de un usuario en orden de escritura
+CREATE INDEX idx_courier_track_user_id ON courier_track (user_id, id);
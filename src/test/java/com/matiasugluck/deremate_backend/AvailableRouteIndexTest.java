@@ -0,0 +1,152 @@
+package com.matiasugluck.deremate_backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matiasugluck.deremate_backend.constants.RouteApiMessages;
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRouteDTO;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRouteEntry;
+import com.matiasugluck.deremate_backend.dto.route.AvailableRoutesFilter;
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.event.DeliveryCreatedEvent;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.RouteRepository;
+import com.matiasugluck.deremate_backend.service.impl.AvailableRouteIndexServiceImpl;
+import com.matiasugluck.deremate_backend.utils.CursorPagination;
+import com.matiasugluck.deremate_backend.utils.NeighborhoodCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Busquedas del indice espacial de rutas disponibles: por radio (paginada), por barrio y k mas cercanas.
+ */
+public class AvailableRouteIndexTest {
+
+    // Obelisco, en San Nicolas
+    private static final double OBELISCO_LAT = -34.6037;
+    private static final double OBELISCO_LON = -58.3816;
+
+    private RouteRepository routeRepository;
+    private AvailableRouteIndexServiceImpl index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        routeRepository = mock(RouteRepository.class);
+        NeighborhoodCatalog neighborhoods = new NeighborhoodCatalog(new ClassPathResource("geo/neighborhoods.json"), new ObjectMapper());
+        index = new AvailableRouteIndexServiceImpl(routeRepository, neighborhoods, new CursorPagination(2, 100), 6, 5000, 50000);
+
+        List<AvailableRouteEntry> rows = new ArrayList<>();
+        rows.add(entry(1L, -34.6040, -58.3820, 1));   // San Nicolas, a ~50m
+        rows.add(entry(2L, -34.6080, -58.3850, 2));   // San Nicolas, a ~600m
+        rows.add(entry(3L, -34.5800, -58.4200, 3));   // Palermo, a ~4.4km
+        rows.add(entry(4L, -34.6200, -58.3730, 4));   // San Telmo, a ~2km
+        rows.add(entry(5L, -34.7500, -58.2000, 5));   // Conurbano, a ~23km
+        when(routeRepository.findAvailableEntries(any())).thenReturn(rows);
+        index.reconcile();
+    }
+
+    @Test
+    void radiusSearchPagesInListingOrder() {
+        AvailableRoutesFilter filter = AvailableRoutesFilter.builder()
+                .latitude(OBELISCO_LAT).longitude(OBELISCO_LON).radiusMeters(3000.0).build();
+
+        CursorPageDTO<AvailableRouteDTO> first = index.search(filter, null, null);
+        assertEquals(List.of(1L, 2L), ids(first));
+        assertTrue(first.getItems().get(0).getDistanceMeters() < 100);
+
+        CursorPageDTO<AvailableRouteDTO> second = index.search(filter, first.getNextCursor(), null);
+        assertEquals(List.of(4L), ids(second));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void positionWithoutRadiusUsesDefault() {
+        AvailableRoutesFilter filter = AvailableRoutesFilter.builder()
+                .latitude(OBELISCO_LAT).longitude(OBELISCO_LON).build();
+        CursorPageDTO<AvailableRouteDTO> first = index.search(filter, null, 10);
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(first));
+    }
+
+    @Test
+    void destinationNeighborhoodFiltersByPolygon() {
+        AvailableRoutesFilter filter = AvailableRoutesFilter.builder().destinationNeighborhood("san nicolas").build();
+        assertEquals(List.of(1L, 2L), ids(index.search(filter, null, 10)));
+
+        AvailableRoutesFilter palermo = AvailableRoutesFilter.builder().destinationNeighborhood("Palermo").build();
+        assertEquals(List.of(3L), ids(index.search(palermo, null, 10)));
+    }
+
+    @Test
+    void nearestReturnsClosestFirst() {
+        AvailableRoutesFilter filter = AvailableRoutesFilter.builder()
+                .latitude(OBELISCO_LAT).longitude(OBELISCO_LON).nearest(3).build();
+        CursorPageDTO<AvailableRouteDTO> nearest = index.search(filter, null, null);
+        assertEquals(List.of(1L, 2L, 4L), ids(nearest));
+        assertNull(nearest.getNextCursor());
+    }
+
+    @Test
+    void nearestSeesChangesBeforeAndAfterTreeRebuild() {
+        // Las primeras altas quedan fuera del arbol; con mas de 64 cambios se rearma
+        for (long id = 100; id < 200; id++) {
+            index.onDeliveryCreated(new DeliveryCreatedEvent(id, id, "Estante B1", new Timestamp(id),
+                    new Coordinates(-34.70 - id / 10_000.0, -58.30)));
+            if (id == 110) {
+                assertEquals(List.of(1L, 2L), index.nearest(OBELISCO_LAT, OBELISCO_LON, 2).stream().map(AvailableRouteDTO::getId).toList());
+            }
+        }
+        index.onRouteStatusChanged(new RouteStatusChangedEvent(5L, null, RouteStatus.PENDING, RouteStatus.CANCELLED));
+
+        List<AvailableRouteDTO> farthestSouth = index.nearest(-35.0, -58.30, 2);
+        assertEquals(List.of(199L, 198L), farthestSouth.stream().map(AvailableRouteDTO::getId).toList());
+        assertTrue(farthestSouth.get(0).getDistanceMeters() < farthestSouth.get(1).getDistanceMeters());
+    }
+
+    @Test
+    void eventsKeepIndexCurrent() {
+        index.onDeliveryCreated(new DeliveryCreatedEvent(10L, 6L, "Estante A1", new Timestamp(6),
+                new Coordinates(-34.6038, -58.3817)));
+        index.onRouteStatusChanged(new RouteStatusChangedEvent(1L, 7L, RouteStatus.PENDING, RouteStatus.INITIATED));
+
+        AvailableRoutesFilter filter = AvailableRoutesFilter.builder()
+                .latitude(OBELISCO_LAT).longitude(OBELISCO_LON).nearest(2).build();
+        assertEquals(List.of(6L, 2L), ids(index.search(filter, null, null)));
+    }
+
+    @Test
+    void invalidQueriesAreRejected() {
+        ApiException unknown = assertThrows(ApiException.class,
+                () -> index.search(AvailableRoutesFilter.builder().originNeighborhood("Atlantida").build(), null, null));
+        assertEquals(RouteApiMessages.UNKNOWN_NEIGHBORHOOD_CODE, unknown.getCode());
+
+        ApiException radius = assertThrows(ApiException.class, () -> index.search(AvailableRoutesFilter.builder()
+                .latitude(OBELISCO_LAT).longitude(OBELISCO_LON).radiusMeters(100_000.0).build(), null, null));
+        assertEquals(RouteApiMessages.INVALID_RADIUS_CODE, radius.getCode());
+
+        ApiException nearest = assertThrows(ApiException.class,
+                () -> index.search(AvailableRoutesFilter.builder().nearest(3).build(), null, null));
+        assertEquals(RouteApiMessages.INVALID_NEAREST_CODE, nearest.getCode());
+    }
+
+    private static AvailableRouteEntry entry(Long id, double latitude, double longitude, long updatedAt) {
+        return new AvailableRouteEntry(id, latitude, longitude, "Ruta " + id, new Timestamp(updatedAt));
+    }
+
+    private static List<Long> ids(CursorPageDTO<AvailableRouteDTO> page) {
+        return page.getItems().stream().map(AvailableRouteDTO::getId).toList();
+    }
+}
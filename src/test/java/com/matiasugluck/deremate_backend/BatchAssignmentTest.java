@@ -0,0 +1,144 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.utils.BatchAssignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchAssignmentTest {
+
+    private static final double X = BatchAssignment.INFEASIBLE;
+
+    @Test
+    void hungarianMatchesBruteForce() {
+        Random random = new Random(3);
+        for (int round = 0; round < 500; round++) {
+            int routes = 1 + random.nextInt(6);
+            int couriers = 1 + random.nextInt(4);
+            double[][] cost = randomCosts(random, routes, couriers);
+            int[] capacity = randomCapacity(random, couriers);
+
+            Best best = new Best();
+            bruteForce(cost, capacity.clone(), 0, 0, 0, best);
+            int[] assignment = BatchAssignment.hungarian(cost, capacity);
+
+            assertValid(cost, capacity, assignment);
+            assertEquals(best.count, assigned(assignment), "rutas asignadas en la ronda " + round);
+            assertEquals(best.total, BatchAssignment.total(cost, assignment), 1e-6, "costo en la ronda " + round);
+        }
+    }
+
+    @Test
+    void greedyRespectsCapacityAndFeasibility() {
+        Random random = new Random(5);
+        for (int round = 0; round < 500; round++) {
+            int routes = 1 + random.nextInt(30);
+            int couriers = 1 + random.nextInt(8);
+            double[][] cost = randomCosts(random, routes, couriers);
+            int[] capacity = randomCapacity(random, couriers);
+            assertValid(cost, capacity, BatchAssignment.greedy(cost, capacity));
+        }
+    }
+
+    @Test
+    void greedySwapFixesTheCheapestFirstTrap() {
+        // Tomar primero el par mas barato (0 -> 0) obliga a la ruta 1 a ir al repartidor 1, que le queda lejos
+        double[][] cost = {
+                {1, 2},
+                {2, 100}
+        };
+        int[] capacity = {1, 1};
+
+        assertArrayEquals(new int[]{1, 0}, BatchAssignment.hungarian(cost, capacity));
+        assertArrayEquals(new int[]{1, 0}, BatchAssignment.greedy(cost, capacity));
+        assertEquals(4, BatchAssignment.total(cost, BatchAssignment.greedy(cost, capacity)));
+    }
+
+    @Test
+    void hungarianPrefersAssigningMoreRoutes() {
+        // Mandar la ruta 0 al repartidor 0 es mas barato, pero deja a la ruta 1 sin nadie que pueda tomarla
+        double[][] cost = {
+                {1, 50},
+                {10, X}
+        };
+        int[] assignment = BatchAssignment.hungarian(cost, new int[]{1, 1});
+        assertArrayEquals(new int[]{1, 0}, assignment);
+    }
+
+    @Test
+    void moreRoutesThanSlotsLeavesTheExpensiveOnesOut() {
+        double[][] cost = {{5}, {1}, {3}, {2}};
+        int[] assignment = BatchAssignment.hungarian(cost, new int[]{2});
+        assertArrayEquals(new int[]{-1, 0, -1, 0}, assignment);
+        assertEquals(3, BatchAssignment.total(cost, assignment));
+    }
+
+    private static double[][] randomCosts(Random random, int routes, int couriers) {
+        double[][] cost = new double[routes][couriers];
+        for (int i = 0; i < routes; i++) {
+            for (int j = 0; j < couriers; j++) {
+                cost[i][j] = random.nextDouble() < 0.2 ? X : random.nextInt(1000);
+            }
+        }
+        return cost;
+    }
+
+    private static int[] randomCapacity(Random random, int couriers) {
+        int[] capacity = new int[couriers];
+        for (int j = 0; j < couriers; j++) {
+            capacity[j] = random.nextInt(3);
+        }
+        return capacity;
+    }
+
+    private static void assertValid(double[][] cost, int[] capacity, int[] assignment) {
+        int[] used = new int[capacity.length];
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                assertTrue(cost[i][assignment[i]] != X, "par imposible asignado");
+                used[assignment[i]]++;
+            }
+        }
+        for (int j = 0; j < capacity.length; j++) {
+            assertTrue(used[j] <= capacity[j], "repartidor " + j + " por encima de su capacidad");
+        }
+    }
+
+    private static int assigned(int[] assignment) {
+        int count = 0;
+        for (int courier : assignment) {
+            if (courier >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Prueba todas las asignaciones: gana la de mas rutas asignadas y, a igual cantidad, la mas barata
+    private static void bruteForce(double[][] cost, int[] capacity, int route, int count, double total, Best best) {
+        if (route == cost.length) {
+            if (count > best.count || (count == best.count && total < best.total)) {
+                best.count = count;
+                best.total = total;
+            }
+            return;
+        }
+        bruteForce(cost, capacity, route + 1, count, total, best);
+        for (int j = 0; j < capacity.length; j++) {
+            if (capacity[j] > 0 && cost[route][j] != X) {
+                capacity[j]--;
+                bruteForce(cost, capacity, route + 1, count + 1, total + cost[route][j], best);
+                capacity[j]++;
+            }
+        }
+    }
+
+    private static class Best {
+        private int count;
+        private double total = Double.POSITIVE_INFINITY;
+    }
+}
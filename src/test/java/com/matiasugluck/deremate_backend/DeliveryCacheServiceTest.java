@@ -0,0 +1,93 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.dto.RouteDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryDTO;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.event.DeliveryStatusChangedEvent;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.service.impl.DeliveryCacheServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DeliveryCacheServiceTest {
+
+    private SimpleMeterRegistry registry;
+    private DeliveryCacheServiceImpl cache;
+    private AtomicInteger loads;
+    private Function<Long, DeliveryDTO> loader;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new DeliveryCacheServiceImpl(100, 60, registry);
+        loads = new AtomicInteger();
+        // La ruta de la entrega N es la 100 + N
+        loader = id -> {
+            loads.incrementAndGet();
+            RouteDTO route = RouteDTO.builder().id(100 + id).build();
+            return DeliveryDTO.builder().id(id).status(DeliveryStatus.NOT_DELIVERED).route(route).build();
+        };
+    }
+
+    @Test
+    void readsAreServedFromCacheAndCounted() {
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+
+        assertEquals(1, loads.get());
+        assertEquals(2.0, gets("hit"));
+        assertEquals(1.0, gets("miss"));
+    }
+
+    @Test
+    void deliveryStatusChangeInvalidates() {
+        cache.get(1L, loader);
+        cache.onDeliveryStatusChanged(new DeliveryStatusChangedEvent(1L, 101L, 7L,
+                DeliveryStatus.NOT_DELIVERED, DeliveryStatus.DELIVERED, null));
+        cache.get(1L, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void routeStatusChangeInvalidatesItsDelivery() {
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.onRouteStatusChanged(new RouteStatusChangedEvent(102L, 7L, RouteStatus.PENDING, RouteStatus.INITIATED));
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void routeStatusChangeDuringLoadIsNotCached() {
+        // El evento llega despues de leer la base pero antes de que la carga termine
+        Function<Long, DeliveryDTO> racingLoader = id -> {
+            DeliveryDTO stale = loader.apply(id);
+            cache.onRouteStatusChanged(new RouteStatusChangedEvent(101L, 7L, RouteStatus.PENDING, RouteStatus.INITIATED));
+            return stale;
+        };
+
+        DeliveryDTO first = cache.get(1L, racingLoader);
+        cache.get(1L, loader);
+
+        assertEquals(1L, first.getId().longValue());
+        assertEquals(2, loads.get());
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets")
+                .tags("cache", DeliveryCacheServiceImpl.CACHE_NAME, "result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -0,0 +1,138 @@
+package com.matiasugluck.deremate_backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matiasugluck.deremate_backend.constants.DeliveryApiMessages;
+import com.matiasugluck.deremate_backend.dto.delivery.BulkDeliveryResultDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.BulkDeliveryRowResultDTO;
+import com.matiasugluck.deremate_backend.enums.IntakeFormat;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.DeliveryBatchRepository;
+import com.matiasugluck.deremate_backend.repository.ProductRepository;
+import com.matiasugluck.deremate_backend.service.DeliveryAnalyticsService;
+import com.matiasugluck.deremate_backend.service.impl.DeliveryIntakeServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class DeliveryIntakeServiceTest {
+
+    private static final String VALID_ROW = "{\"destinationLatitude\": -34.6, \"destinationLongitude\": -58.4, \"productIds\": [1]}";
+
+    private final DeliveryBatchRepository deliveryBatchRepository = mock(DeliveryBatchRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    // Bloques de 2 filas
+    private final DeliveryIntakeServiceImpl intakeService = new DeliveryIntakeServiceImpl(deliveryBatchRepository,
+            productRepository, transactionTemplate, mock(ApplicationEventPublisher.class),
+            new ObjectMapper(), mock(DeliveryAnalyticsService.class), 2);
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(productRepository.findExistingIds(any())).thenReturn(Set.of(1L));
+        when(deliveryBatchRepository.insertRoutes(anyList(), any())).thenAnswer(invocation ->
+                ids(100, invocation.<List<?>>getArgument(0).size()));
+        when(deliveryBatchRepository.insertDeliveries(anyList(), anyList(), anyList(), any())).thenAnswer(invocation ->
+                ids(200, invocation.<List<?>>getArgument(0).size()));
+    }
+
+    @Test
+    void validRowsAreCreatedInChunks() {
+        BulkDeliveryResultDTO result = intakeService.importDeliveries(
+                stream(String.join("\n", VALID_ROW, VALID_ROW, VALID_ROW)), IntakeFormat.JSON_LINES);
+
+        assertTrue(result.isCompleted());
+        assertEquals(3, result.getTotalRows());
+        assertEquals(3, result.getCreated());
+        assertEquals(List.of(1, 2, 3), result.getRows().stream().map(BulkDeliveryRowResultDTO::getRow).toList());
+        assertEquals(200L, result.getRows().get(2).getDeliveryId().longValue());
+    }
+
+    @Test
+    void invalidJsonLinesAreRejectedWithoutFailingTheUpload() {
+        String ndjson = String.join("\n",
+                "null",
+                "{\"destinationLatitude\": -34.6,",
+                "{\"destinationLatitude\": 95.0, \"destinationLongitude\": -58.4}",
+                "{\"destinationLatitude\": -34.6, \"destinationLongitude\": -58.4, \"productIds\": [1, null]}");
+
+        BulkDeliveryResultDTO result = intakeService.importDeliveries(stream(ndjson), IntakeFormat.JSON_LINES);
+
+        assertTrue(result.isCompleted());
+        assertEquals(4, result.getTotalRows());
+        assertEquals(0, result.getCreated());
+        List<String> codes = result.getRows().stream().map(BulkDeliveryRowResultDTO::getErrorCode).toList();
+        assertEquals(List.of(
+                DeliveryApiMessages.INVALID_ROW_CODE,
+                DeliveryApiMessages.INVALID_ROW_CODE,
+                DeliveryApiMessages.INVALID_COORDINATES_CODE,
+                DeliveryApiMessages.INVALID_PRODUCTS_CODE), codes);
+        verifyNoInteractions(deliveryBatchRepository);
+    }
+
+    // Se corta despues de guardar un bloque: la fila que esperaba el siguiente bloque igual se informa
+    @Test
+    void interruptedStreamReportsUnsavedRows() {
+        String ndjson = String.join("\n", VALID_ROW, VALID_ROW, "{", VALID_ROW) + "\n";
+
+        BulkDeliveryResultDTO result = intakeService.importDeliveries(
+                new SequenceInputStream(stream(ndjson), failing()), IntakeFormat.JSON_LINES);
+
+        assertFalse(result.isCompleted());
+        assertEquals(4, result.getTotalRows());
+        assertEquals(2, result.getCreated());
+        List<String> codes = result.getRows().stream().map(BulkDeliveryRowResultDTO::getErrorCode).toList();
+        assertEquals(Arrays.asList(null, null,
+                DeliveryApiMessages.INVALID_ROW_CODE,
+                DeliveryApiMessages.INTAKE_READ_ERROR_CODE), codes);
+    }
+
+    @Test
+    void streamFailingBeforeAnyRowIsABadRequest() {
+        ApiException error = assertThrows(ApiException.class,
+                () -> intakeService.importDeliveries(failing(), IntakeFormat.JSON_LINES));
+
+        assertEquals(DeliveryApiMessages.INTAKE_READ_ERROR_CODE, error.getCode());
+        assertEquals(400, error.getStatusCode().intValue());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream failing() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+    }
+
+    private static List<Long> ids(long first, int count) {
+        return LongStream.range(first, first + count).boxed().toList();
+    }
+}
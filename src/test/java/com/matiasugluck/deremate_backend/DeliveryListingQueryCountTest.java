@@ -0,0 +1,228 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.constants.DeliveryApiMessages;
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.RouteDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.CreateDeliveryDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.DeliveryDTO;
+import com.matiasugluck.deremate_backend.dto.product.ProductDTO;
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import com.matiasugluck.deremate_backend.entity.Delivery;
+import com.matiasugluck.deremate_backend.entity.Product;
+import com.matiasugluck.deremate_backend.entity.Route;
+import com.matiasugluck.deremate_backend.entity.User;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.DeliveryRepository;
+import com.matiasugluck.deremate_backend.repository.ProductRepository;
+import com.matiasugluck.deremate_backend.repository.RouteRepository;
+import com.matiasugluck.deremate_backend.service.AvailableRouteIndexService;
+import com.matiasugluck.deremate_backend.service.EtaService;
+import com.matiasugluck.deremate_backend.service.DeliveryAnalyticsService;
+import com.matiasugluck.deremate_backend.service.OutboxService;
+import com.matiasugluck.deremate_backend.service.impl.DeliveryCacheServiceImpl;
+import com.matiasugluck.deremate_backend.service.impl.DeliveryServiceImpl;
+import com.matiasugluck.deremate_backend.service.impl.RouteServiceImpl;
+import com.matiasugluck.deremate_backend.utils.CursorPagination;
+import com.matiasugluck.deremate_backend.utils.RouteClaimRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cada listado debe resolverse con una cantidad fija de sentencias SQL, sin importar
+ * cuantas entregas tenga el repartidor (sin N+1 al mapear a DTO), y el cursor debe
+ * recorrer todas las filas sin repetirlas.
+ */
+public class DeliveryListingQueryCountTest extends JpaRepositoryTest {
+
+    private static final int DELIVERIES = 12;
+    private static final int PAGE_SIZE = 4;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private RouteRepository routeRepository;
+
+    private DeliveryServiceImpl deliveryService;
+    private RouteServiceImpl routeService;
+    private Statistics statistics;
+    private Long courierId;
+    private Long firstDeliveryId;
+    private List<Long> productIds;
+
+    @BeforeEach
+    void setUp() {
+        CursorPagination cursorPagination = new CursorPagination(PAGE_SIZE, 100);
+        deliveryService = new DeliveryServiceImpl(deliveryRepository, productRepository, routeRepository,
+                mock(OutboxService.class), mock(ApplicationEventPublisher.class), cursorPagination,
+                mock(DeliveryAnalyticsService.class), new DeliveryCacheServiceImpl(100, 60, new SimpleMeterRegistry()), "/api/v1");
+        routeService = new RouteServiceImpl(routeRepository, cursorPagination, mock(ApplicationEventPublisher.class),
+                mock(AvailableRouteIndexService.class), new RouteClaimRegistry(30000), mock(EtaService.class));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<User> couriers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            couriers.add(entityManager.persist(User.builder()
+                    .email("courier" + i + "@deremate.com")
+                    .firstname("Courier")
+                    .lastname(String.valueOf(i))
+                    .build()));
+        }
+        courierId = couriers.get(0).getId();
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            products.add(entityManager.persist(Product.builder()
+                    .name("Producto " + i)
+                    .price(BigDecimal.TEN)
+                    .build()));
+        }
+        productIds = products.stream().map(Product::getId).toList();
+
+        for (int i = 0; i < DELIVERIES; i++) {
+            // La mitad asignadas (repartidas entre los tres repartidores), la otra mitad en deposito
+            User assignee = i % 2 == 0 ? couriers.get(i % 3) : null;
+            Route route = entityManager.persist(Route.builder()
+                    .destination(new Coordinates(-34.6 + i * 0.01, -58.4))
+                    .status(assignee != null ? RouteStatus.INITIATED : RouteStatus.PENDING)
+                    .assignedTo(assignee)
+                    .build());
+            Delivery delivery = entityManager.persist(Delivery.builder()
+                    .status(DeliveryStatus.NOT_DELIVERED)
+                    .packageLocation("Estante " + i)
+                    .createdDate(Timestamp.from(Instant.now()))
+                    .pin("1234")
+                    .route(route)
+                    .products(List.of(products.get(i % 4), products.get((i + 1) % 4)))
+                    .build());
+            if (firstDeliveryId == null) {
+                firstDeliveryId = delivery.getId();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Una consulta para la pagina y otra (batch) para los productos de toda la pagina
+    @Test
+    void deliveriesByUserPageLoadsInTwoQueries() {
+        CursorPageDTO<DeliveryDTO> page = countQueries(2, () -> deliveryService.getDeliveriesByUserId(courierId, null, null));
+        assertEquals(2, page.getItems().size());
+        page.getItems().forEach(dto -> assertEquals(2, dto.getProducts().size()));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void assignedAndNotDeliveredPageLoadsInTwoQueries() {
+        CursorPageDTO<DeliveryDTO> page = countQueries(2, () -> deliveryService.getAssignedAndNotDelivered(null, null));
+        assertEquals(PAGE_SIZE, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void deliveryByIdLoadsInOneQuery() {
+        DeliveryDTO delivery = countQueries(1, () -> deliveryService.getDeliveryById(firstDeliveryId));
+        assertEquals(2, delivery.getProducts().size());
+        assertEquals("/api/v1/delivery/" + firstDeliveryId + "/qr", delivery.getQrUrl());
+        // La segunda lectura sale de la cache
+        assertEquals(delivery, countQueries(0, () -> deliveryService.getDeliveryById(firstDeliveryId)));
+    }
+
+    @Test
+    void routesPageLoadsInOneQuery() {
+        CursorPageDTO<RouteDTO> page = countQueries(1, () -> routeService.getAllRoutes(null, null));
+        assertEquals(PAGE_SIZE, page.getItems().size());
+    }
+
+    @Test
+    void routesByUserLoadInOneQuery() {
+        List<RouteDTO> routes = countQueries(1, () -> routeService.getRoutesByUser(courierId));
+        assertEquals(2, routes.size());
+    }
+
+    @Test
+    void cursorWalksEveryRouteOnce() {
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String current = cursor;
+            CursorPageDTO<RouteDTO> page = countQueries(1, () -> routeService.getAllRoutes(current, null));
+            page.getItems().forEach(route -> assertTrue(seen.add(route.getId()), "route repeated across pages"));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(DELIVERIES, seen.size());
+        assertEquals(DELIVERIES / PAGE_SIZE, pages);
+    }
+
+    // Los IDs repetidos se conservan en el orden del pedido y se resuelven con una sola consulta IN
+    @Test
+    void createDeliveryResolvesProductsInOneQuery() {
+        List<Long> requested = List.of(productIds.get(2), productIds.get(0), productIds.get(2));
+        entityManager.clear();
+        statistics.clear();
+
+        DeliveryDTO created = deliveryService.createDelivery(createDelivery(requested));
+
+        assertEquals(1, statistics.getQueryExecutionCount(), "product queries executed");
+        assertEquals(requested, created.getProducts().stream().map(ProductDTO::getId).toList());
+    }
+
+    @Test
+    void createDeliveryWithUnknownProductIsRejected() {
+        List<Long> requested = List.of(productIds.get(0), -1L);
+
+        ApiException error = assertThrows(ApiException.class, () -> deliveryService.createDelivery(createDelivery(requested)));
+
+        assertEquals(DeliveryApiMessages.INVALID_PRODUCTS_CODE, error.getCode());
+        assertEquals(400, error.getStatusCode().intValue());
+    }
+
+    private static CreateDeliveryDTO createDelivery(List<Long> productIds) {
+        return CreateDeliveryDTO.builder()
+                .destinationLatitude(-34.6)
+                .destinationLongitude(-58.4)
+                .packageLocation("Estante Z")
+                .productIds(productIds)
+                .build();
+    }
+
+    private <T> T countQueries(long expected, Supplier<T> call) {
+        entityManager.clear();
+        statistics.clear();
+        T result = call.get();
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL statements executed");
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.constants.DeliveryApiMessages;
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import com.matiasugluck.deremate_backend.entity.Delivery;
+import com.matiasugluck.deremate_backend.entity.Route;
+import com.matiasugluck.deremate_backend.entity.User;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.DeliveryRepository;
+import com.matiasugluck.deremate_backend.repository.ProductRepository;
+import com.matiasugluck.deremate_backend.repository.RouteRepository;
+import com.matiasugluck.deremate_backend.service.DeliveryAnalyticsService;
+import com.matiasugluck.deremate_backend.service.OutboxService;
+import com.matiasugluck.deremate_backend.service.impl.DeliveryCacheServiceImpl;
+import com.matiasugluck.deremate_backend.service.impl.DeliveryServiceImpl;
+import com.matiasugluck.deremate_backend.utils.CursorPagination;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Confirmar y cancelar son un SELECT y dos UPDATE condicionales: la primera transicion gana y
+ * cualquier otra sobre la misma entrega responde 409 sin modificar nada.
+ */
+public class DeliveryTransitionTest extends JpaRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private RouteRepository routeRepository;
+
+    private DeliveryServiceImpl deliveryService;
+    private OutboxService outboxService;
+    private DeliveryAnalyticsService analyticsService;
+    private Statistics statistics;
+    private Long deliveryId;
+    private Long routeId;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = mock(OutboxService.class);
+        analyticsService = mock(DeliveryAnalyticsService.class);
+        deliveryService = new DeliveryServiceImpl(deliveryRepository, productRepository, routeRepository,
+                outboxService, mock(ApplicationEventPublisher.class), new CursorPagination(20, 100), analyticsService,
+                new DeliveryCacheServiceImpl(100, 60, new SimpleMeterRegistry()), "/api/v1");
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User courier = entityManager.persist(User.builder()
+                .email("courier@deremate.com")
+                .firstname("Courier")
+                .lastname("Uno")
+                .build());
+        Route route = entityManager.persist(Route.builder()
+                .description("Av. Corrientes 1234")
+                .destination(new Coordinates(-34.6, -58.4))
+                .status(RouteStatus.INITIATED)
+                .assignedTo(courier)
+                .build());
+        Delivery delivery = entityManager.persist(Delivery.builder()
+                .status(DeliveryStatus.NOT_DELIVERED)
+                .packageLocation("Estante A1")
+                .createdDate(Timestamp.from(Instant.now()))
+                .pin("123456")
+                .route(route)
+                .products(List.of())
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        deliveryId = delivery.getId();
+        routeId = route.getId();
+    }
+
+    @Test
+    void confirmIsOneSelectAndTwoConditionalUpdates() {
+        statistics.clear();
+        deliveryService.confirmDelivery(deliveryId, "123456");
+        assertEquals(3, statistics.getPrepareStatementCount(), "SQL statements executed");
+
+        entityManager.clear();
+        Delivery delivery = entityManager.find(Delivery.class, deliveryId);
+        assertEquals(DeliveryStatus.DELIVERED, delivery.getStatus());
+        assertEquals(1L, delivery.getVersion());
+        assertEquals(RouteStatus.COMPLETED, delivery.getRoute().getStatus());
+        assertEquals(1L, delivery.getRoute().getVersion());
+        assertNotNull(delivery.getRoute().getCompletedAt());
+    }
+
+    @Test
+    void secondTransitionIsRejectedWithConflict() {
+        deliveryService.confirmDelivery(deliveryId, "123456");
+
+        ApiException conflict = assertThrows(ApiException.class, () -> deliveryService.cancelDelivery(deliveryId));
+        assertEquals(DeliveryApiMessages.DELIVERY_STATE_CONFLICT_CODE, conflict.getCode());
+        assertEquals(409, conflict.getStatusCode().intValue());
+        assertThrows(ApiException.class, () -> deliveryService.confirmDelivery(deliveryId, "123456"));
+
+        entityManager.clear();
+        assertEquals(DeliveryStatus.DELIVERED, entityManager.find(Delivery.class, deliveryId).getStatus());
+        verify(outboxService, never()).enqueueUserPush(any(), any());
+    }
+
+    // PUT /routes/{id}/complete antes de confirmar con el PIN: la entrega igual se puede cerrar
+    @Test
+    void confirmAfterRouteCompletedClosesOnlyTheDelivery() {
+        Timestamp completedAt = Timestamp.from(Instant.now().minusSeconds(60).truncatedTo(ChronoUnit.SECONDS));
+        routeRepository.closeIfCurrent(routeId, RouteStatus.INITIATED, RouteStatus.COMPLETED, completedAt);
+        entityManager.clear();
+
+        deliveryService.confirmDelivery(deliveryId, "123456");
+
+        entityManager.clear();
+        Delivery delivery = entityManager.find(Delivery.class, deliveryId);
+        assertEquals(DeliveryStatus.DELIVERED, delivery.getStatus());
+        assertEquals(RouteStatus.COMPLETED, delivery.getRoute().getStatus());
+        assertEquals(1L, delivery.getRoute().getVersion(), "la ruta no se vuelve a actualizar");
+        verify(analyticsService).recordStatusChange(any(), eq(DeliveryStatus.DELIVERED), eq(completedAt));
+        assertThrows(ApiException.class, () -> deliveryService.cancelDelivery(deliveryId));
+    }
+
+    @Test
+    void cancelNotifiesAssignedCourier() {
+        deliveryService.cancelDelivery(deliveryId);
+
+        entityManager.clear();
+        Delivery delivery = entityManager.find(Delivery.class, deliveryId);
+        assertEquals(DeliveryStatus.REJECTED, delivery.getStatus());
+        assertEquals(RouteStatus.CANCELLED, delivery.getRoute().getStatus());
+        verify(outboxService).enqueueUserPush(eq(delivery.getRoute().getAssignedTo().getId()), any());
+        verify(analyticsService).recordStatusChange(any(), eq(DeliveryStatus.REJECTED), any());
+    }
+
+    @Test
+    void wrongPinChangesNothing() {
+        ApiException invalidPin = assertThrows(ApiException.class, () -> deliveryService.confirmDelivery(deliveryId, "000000"));
+        assertEquals(DeliveryApiMessages.INVALID_PIN_CODE, invalidPin.getCode());
+
+        entityManager.clear();
+        assertEquals(DeliveryStatus.NOT_DELIVERED, entityManager.find(Delivery.class, deliveryId).getStatus());
+    }
+
+    // Una entidad cargada antes de la transicion ya no puede sobrescribir la fila
+    @Test
+    void staleRouteSaveFailsOnVersion() {
+        Route stale = routeRepository.findById(routeId).orElseThrow();
+        entityManager.detach(stale);
+
+        deliveryService.confirmDelivery(deliveryId, "123456");
+
+        stale.setStatus(RouteStatus.PENDING);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> {
+            routeRepository.save(stale);
+            entityManager.flush();
+        });
+    }
+}
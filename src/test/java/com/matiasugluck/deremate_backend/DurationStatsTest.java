@@ -0,0 +1,77 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.utils.DurationStats;
+import com.matiasugluck.deremate_backend.utils.QuantileSketch;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DurationStatsTest {
+
+    @Test
+    void quantilesStayWithinTheRelativeAccuracy() {
+        Random random = new Random(11);
+        QuantileSketch sketch = new QuantileSketch(0.02);
+        double[] values = new double[20_000];
+        for (int i = 0; i < values.length; i++) {
+            // Duraciones log-normales alrededor de una hora
+            values[i] = Math.exp(Math.log(3600) + random.nextGaussian() * 0.6);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0, 0.1, 0.5, 0.9, 0.99, 1}) {
+            double exact = values[(int) (q * (values.length - 1))];
+            double approx = sketch.quantile(q);
+            assertTrue(Math.abs(approx - exact) <= 0.02 * exact + 1e-9, "q=" + q + ": " + approx + " vs " + exact);
+        }
+        assertEquals(values.length, sketch.count());
+    }
+
+    @Test
+    void sketchGrowsInBothDirectionsAndCountsZeros() {
+        QuantileSketch sketch = new QuantileSketch(0.02);
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        sketch.add(1000);
+        sketch.add(1);
+        sketch.add(1_000_000);
+        sketch.add(0);
+
+        assertEquals(0, sketch.quantile(0));
+        assertEquals(1, sketch.quantile(0.34), 0.021);
+        assertEquals(1000, sketch.quantile(0.67), 21);
+        assertEquals(1_000_000, sketch.quantile(1), 21_000);
+    }
+
+    @Test
+    void welfordMatchesTheTwoPassFormulas() {
+        Random random = new Random(7);
+        DurationStats stats = new DurationStats(0.02);
+        double[] values = new double[5000];
+        for (int i = 0; i < values.length; i++) {
+            // Valores grandes con poca dispersion: donde la formula de una pasada pierde precision
+            values[i] = 1e9 + random.nextDouble() * 600;
+            stats.add(values[i]);
+        }
+        double mean = Arrays.stream(values).average().orElseThrow();
+        double variance = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / (values.length - 1);
+
+        assertEquals(values.length, stats.count());
+        assertEquals(mean, stats.mean(), 1e-3);
+        assertEquals(variance, stats.variance(), variance * 1e-6);
+        assertEquals(Math.sqrt(variance), stats.stdDev(), 1e-6);
+    }
+
+    @Test
+    void singleValueHasNoVariance() {
+        DurationStats stats = new DurationStats(0.02);
+        stats.add(900);
+        assertEquals(900, stats.mean());
+        assertEquals(0, stats.variance());
+        assertEquals(900, stats.quantile(0.5), 18);
+    }
+}
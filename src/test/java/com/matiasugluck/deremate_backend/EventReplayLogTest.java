@@ -0,0 +1,52 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.utils.EventReplayLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventReplayLogTest {
+
+    @Test
+    void replaysEverythingAfterTheGivenId() {
+        EventReplayLog<String> log = new EventReplayLog<>(4);
+        assertEquals(1, log.append("a"));
+        assertEquals(2, log.append("b"));
+        assertEquals(3, log.append("c"));
+
+        List<String> replayed = new ArrayList<>();
+        assertTrue(log.replay(1, (event, id) -> replayed.add(id + event)));
+        assertEquals(List.of("2b", "3c"), replayed);
+
+        replayed.clear();
+        assertTrue(log.replay(3, (event, id) -> replayed.add(id + event)), "al dia: nada que reenviar");
+        assertTrue(replayed.isEmpty());
+    }
+
+    @Test
+    void idsThatFellOutOfTheLogCannotResume() {
+        EventReplayLog<String> log = new EventReplayLog<>(3);
+        for (String event : List.of("a", "b", "c", "d", "e")) {
+            log.append(event);
+        }
+        assertEquals(5, log.lastId());
+
+        List<String> replayed = new ArrayList<>();
+        assertTrue(log.replay(2, (event, id) -> replayed.add(event)), "se perdio justo hasta el 2: los retenidos alcanzan");
+        assertEquals(List.of("c", "d", "e"), replayed);
+        assertFalse(log.replay(1, (event, id) -> replayed.add(event)), "el 2 ya se piso");
+    }
+
+    @Test
+    void idsFromAnotherRunCannotResume() {
+        EventReplayLog<String> log = new EventReplayLog<>(3);
+        log.append("a");
+        assertFalse(log.replay(40, (event, id) -> { }));
+        assertTrue(log.replay(0, (event, id) -> { }));
+    }
+}
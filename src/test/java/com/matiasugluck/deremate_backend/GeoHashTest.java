@@ -0,0 +1,43 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.utils.GeoHash;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoHashTest {
+
+    @Test
+    void encodesKnownPoints() {
+        assertEquals("ezs42", GeoHash.encode(42.605, -5.603, 5));
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        // Obelisco, Buenos Aires
+        assertEquals("69y7p", GeoHash.encode(-34.6037, -58.3816, 5));
+    }
+
+    @Test
+    void shorterPrecisionIsAPrefix() {
+        String full = GeoHash.encode(-34.6037, -58.3816, GeoHash.MAX_PRECISION);
+        for (int precision = 1; precision < GeoHash.MAX_PRECISION; precision++) {
+            assertEquals(full.substring(0, precision), GeoHash.encode(-34.6037, -58.3816, precision));
+        }
+    }
+
+    @Test
+    void centerFallsInsideTheSameCell() {
+        String cell = GeoHash.encode(-34.6037, -58.3816, 6);
+        double[] center = GeoHash.center(cell);
+        assertEquals(cell, GeoHash.encode(center[0], center[1], 6));
+        assertTrue(Math.abs(center[0] - -34.6037) < 0.01);
+        assertTrue(Math.abs(center[1] - -58.3816) < 0.01);
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> GeoHash.encode(91, 0, 5));
+        assertThrows(IllegalArgumentException.class, () -> GeoHash.encode(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> GeoHash.center("a1"));
+    }
+}
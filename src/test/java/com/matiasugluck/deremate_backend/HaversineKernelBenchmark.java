@@ -0,0 +1,93 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.utils.GeoDistance;
+import com.matiasugluck.deremate_backend.utils.HaversineKernel;
+import com.matiasugluck.deremate_backend.utils.VectorHaversineKernel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara las versiones escalar y vectorial de {@link HaversineKernel} (y la llamada por par de
+ * {@link GeoDistance} como referencia) sobre puntos de CABA. No corre con los tests:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.matiasugluck.deremate_backend.HaversineKernelBenchmark}
+ * o desde el IDE. Reporta nanosegundos por lote; dividir por size para el costo por distancia.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class HaversineKernelBenchmark {
+
+    @Param({"64", "1024", "65536"})
+    private int size;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] out;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        latitudes = new double[size];
+        longitudes = new double[size];
+        out = new double[size];
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = -34.70 + random.nextDouble() * 0.17;
+            longitudes[i] = -58.53 + random.nextDouble() * 0.19;
+        }
+    }
+
+    @Benchmark
+    public void perPair(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(GeoDistance.haversineMeters(-34.6037, -58.3816, latitudes[i], longitudes[i]));
+        }
+    }
+
+    @Benchmark
+    public double[] scalarDistancesFrom() {
+        HaversineKernel.scalarDistancesFrom(-34.6037, -58.3816, latitudes, longitudes, out, 0, size);
+        return out;
+    }
+
+    @Benchmark
+    public double[] vectorDistancesFrom() {
+        VectorHaversineKernel.distancesFrom(-34.6037, -58.3816, latitudes, longitudes, out, 0, size);
+        return out;
+    }
+
+    @Benchmark
+    public double[] scalarPathLegs() {
+        HaversineKernel.scalarPairwise(latitudes, longitudes, 0, latitudes, longitudes, 1, out, size - 1);
+        return out;
+    }
+
+    @Benchmark
+    public double[] vectorPathLegs() {
+        VectorHaversineKernel.pairwise(latitudes, longitudes, 0, latitudes, longitudes, 1, out, size - 1);
+        return out;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HaversineKernelBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.utils.GeoDistance;
+import com.matiasugluck.deremate_backend.utils.HaversineKernel;
+import com.matiasugluck.deremate_backend.utils.VectorHaversineKernel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HaversineKernelTest {
+
+    private static final double ORIGIN_LAT = -34.6037;
+    private static final double ORIGIN_LON = -58.3816;
+
+    @Test
+    void scalarAndVectorMatchPerPairDistance() {
+        // Largo que no es multiplo de ningun ancho de vector, para pasar por la cola escalar
+        int n = 1037;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        fill(latitudes, longitudes, new Random(7));
+        // Casos extremos: el mismo punto, las antipodas y cruzando el antimeridiano
+        latitudes[0] = ORIGIN_LAT;
+        longitudes[0] = ORIGIN_LON;
+        latitudes[1] = -ORIGIN_LAT;
+        longitudes[1] = ORIGIN_LON + 180;
+        latitudes[2] = 10;
+        longitudes[2] = 179.9;
+
+        double[] scalar = new double[n];
+        double[] vector = new double[n];
+        HaversineKernel.scalarDistancesFrom(ORIGIN_LAT, ORIGIN_LON, latitudes, longitudes, scalar, 0, n);
+        VectorHaversineKernel.distancesFrom(ORIGIN_LAT, ORIGIN_LON, latitudes, longitudes, vector, 0, n);
+        for (int i = 0; i < n; i++) {
+            double expected = GeoDistance.haversineMeters(ORIGIN_LAT, ORIGIN_LON, latitudes[i], longitudes[i]);
+            assertEquals(expected, scalar[i], 1e-6 + expected * 1e-9, "escalar, punto " + i);
+            assertEquals(expected, vector[i], 1e-6 + expected * 1e-9, "vectorial, punto " + i);
+        }
+        assertEquals(0, scalar[0], 1e-9);
+        assertEquals(Math.PI * GeoDistance.EARTH_RADIUS_METERS, scalar[1], 1.0);
+    }
+
+    @Test
+    void rangeOnlyWritesItsSlots() {
+        int n = 40;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        fill(latitudes, longitudes, new Random(3));
+        double[] out = new double[n];
+        Arrays.fill(out, -1);
+
+        HaversineKernel.distancesFrom(ORIGIN_LAT, ORIGIN_LON, latitudes, longitudes, out, 5, 31);
+        for (int i = 0; i < n; i++) {
+            if (i < 5 || i >= 31) {
+                assertEquals(-1, out[i], "posicion " + i + " fuera del rango");
+            } else {
+                assertEquals(GeoDistance.haversineMeters(ORIGIN_LAT, ORIGIN_LON, latitudes[i], longitudes[i]), out[i], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void pathLengthSumsConsecutiveLegs() {
+        int n = 203;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        fill(latitudes, longitudes, new Random(11));
+
+        double expected = 0;
+        for (int i = 1; i < n; i++) {
+            expected += GeoDistance.haversineMeters(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+        }
+        double[] legs = new double[n - 1];
+        VectorHaversineKernel.pairwise(latitudes, longitudes, 0, latitudes, longitudes, 1, legs, n - 1);
+        double vectorTotal = 0;
+        for (double leg : legs) {
+            vectorTotal += leg;
+        }
+
+        assertEquals(expected, HaversineKernel.pathLength(latitudes, longitudes, n), 1e-6);
+        assertEquals(expected, vectorTotal, 1e-6);
+        assertEquals(0, HaversineKernel.pathLength(latitudes, longitudes, 1));
+        assertTrue(expected > 0);
+    }
+
+    private static void fill(double[] latitudes, double[] longitudes, Random random) {
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = -34.70 + random.nextDouble() * 0.17;
+            longitudes[i] = -58.53 + random.nextDouble() * 0.19;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.dto.route.ItineraryDTO;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.repository.DeliveryRepository;
+import com.matiasugluck.deremate_backend.service.impl.ItineraryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ItineraryServiceTest {
+
+    private final DeliveryRepository deliveryRepository = mock(DeliveryRepository.class);
+
+    @Test
+    void allItinerariesAreReusedWithinTheTtl() {
+        when(deliveryRepository.findAllItineraryStops(RouteStatus.INITIATED, DeliveryStatus.NOT_DELIVERED)).thenReturn(List.of());
+        ItineraryServiceImpl service = new ItineraryServiceImpl(deliveryRepository, 200, 1, 60_000);
+        try {
+            service.getAllItineraries();
+            service.getAllItineraries();
+            verify(deliveryRepository, times(1)).findAllItineraryStops(RouteStatus.INITIATED, DeliveryStatus.NOT_DELIVERED);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(deliveryRepository.findAllItineraryStops(RouteStatus.INITIATED, DeliveryStatus.NOT_DELIVERED)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        ItineraryServiceImpl service = new ItineraryServiceImpl(deliveryRepository, 200, 1, 60_000);
+        try {
+            CompletableFuture<List<ItineraryDTO>> first = CompletableFuture.supplyAsync(service::getAllItineraries);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<List<ItineraryDTO>> second = CompletableFuture.supplyAsync(service::getAllItineraries);
+            release.countDown();
+
+            assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            verify(deliveryRepository, times(1)).findAllItineraryStops(RouteStatus.INITIATED, DeliveryStatus.NOT_DELIVERED);
+        } finally {
+            service.shutdown();
+        }
+    }
+}
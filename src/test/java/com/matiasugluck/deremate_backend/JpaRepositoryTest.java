@@ -0,0 +1,21 @@
+package com.matiasugluck.deremate_backend;
+
+import com.google.firebase.messaging.FirebaseMessaging;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Configuracion comun de los tests de JPA sobre H2 (perfil h2). Todas las subclases tienen la
+ * misma configuracion y comparten un unico contexto de Spring.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public abstract class JpaRepositoryTest {
+
+    // El bean de DeremateBackendApplication inicializa FirebaseApp con un nombre fijo y leyendo credenciales
+    @MockitoBean
+    protected FirebaseMessaging firebaseMessaging;
+}
@@ -0,0 +1,93 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.utils.LocationRingBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocationRingBufferTest {
+
+    private final double[] latitudes = new double[8];
+    private final double[] longitudes = new double[8];
+    private final long[] epochMillis = new long[8];
+
+    @Test
+    void peekCopiesOldestFirstAndReleaseDiscards() {
+        LocationRingBuffer buffer = new LocationRingBuffer(4);
+        buffer.offer(-34.1, -58.1, 1000);
+        buffer.offer(-34.2, -58.2, 2000);
+        buffer.offer(-34.3, -58.3, 3000);
+
+        long peeked = buffer.peek(latitudes, longitudes, epochMillis, 1, 2);
+        assertEquals(0, LocationRingBuffer.first(peeked));
+        assertEquals(2, LocationRingBuffer.count(peeked));
+        assertEquals(-34.1, latitudes[1]);
+        assertEquals(-58.2, longitudes[2]);
+        assertEquals(2000, epochMillis[2]);
+        assertEquals(3, buffer.size(), "peek no saca posiciones");
+
+        buffer.release(LocationRingBuffer.first(peeked) + LocationRingBuffer.count(peeked));
+        assertEquals(1, buffer.size());
+        peeked = buffer.peek(latitudes, longitudes, epochMillis, 0, 8);
+        assertEquals(2, LocationRingBuffer.first(peeked));
+        assertEquals(3000, epochMillis[0]);
+    }
+
+    @Test
+    void fullBufferOverwritesTheOldest() {
+        LocationRingBuffer buffer = new LocationRingBuffer(3);
+        for (long t = 1; t <= 5; t++) {
+            buffer.offer(t, t, t);
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(2, buffer.takeOverwritten());
+        assertEquals(0, buffer.takeOverwritten());
+
+        long peeked = buffer.peek(latitudes, longitudes, epochMillis, 0, 8);
+        assertEquals(2, LocationRingBuffer.first(peeked));
+        assertArrayEquals(new long[]{3, 4, 5}, Arrays.copyOf(epochMillis, 3));
+    }
+
+    @Test
+    void releaseAfterOverwriteKeepsNewerPositions() {
+        LocationRingBuffer buffer = new LocationRingBuffer(2);
+        buffer.offer(1, 1, 1);
+        buffer.offer(2, 2, 2);
+        long peeked = buffer.peek(latitudes, longitudes, epochMillis, 0, 8);
+
+        // Llegan dos posiciones mientras se escribe el batch: pisan a las copiadas
+        buffer.offer(3, 3, 3);
+        buffer.offer(4, 4, 4);
+        buffer.release(LocationRingBuffer.first(peeked) + LocationRingBuffer.count(peeked));
+        assertEquals(2, buffer.size());
+        buffer.peek(latitudes, longitudes, epochMillis, 0, 8);
+        assertEquals(3, epochMillis[0]);
+    }
+
+    @Test
+    void backdatedPositionKeepsThePreviousTime() {
+        LocationRingBuffer buffer = new LocationRingBuffer(4);
+        buffer.offer(-34.1, -58.1, 5000);
+        buffer.offer(35.6, 139.7, 0);
+        buffer.offer(-34.2, -58.2, 6000);
+
+        buffer.peek(latitudes, longitudes, epochMillis, 0, 8);
+        assertArrayEquals(new long[]{5000, 5000, 6000}, Arrays.copyOf(epochMillis, 3));
+    }
+
+    @Test
+    void onlyEmptyIdleBuffersClose() {
+        LocationRingBuffer buffer = new LocationRingBuffer(2);
+        buffer.offer(1, 1, 1);
+        assertFalse(buffer.closeIfIdle(System.nanoTime() + 1_000_000_000L), "tiene posiciones sin escribir");
+        buffer.release(1);
+        assertFalse(buffer.closeIfIdle(System.nanoTime() - 60_000_000_000L), "recibio posiciones hace poco");
+        assertTrue(buffer.closeIfIdle(System.nanoTime() + 1_000_000_000L));
+        assertFalse(buffer.offer(2, 2, 2));
+    }
+}
@@ -0,0 +1,203 @@
+package com.matiasugluck.deremate_backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matiasugluck.deremate_backend.dto.GenericResponseDTO;
+import com.matiasugluck.deremate_backend.dto.outbox.EmailPayload;
+import com.matiasugluck.deremate_backend.dto.outbox.PushPayload;
+import com.matiasugluck.deremate_backend.entity.NotificationMessage;
+import com.matiasugluck.deremate_backend.entity.OutboxMessage;
+import com.matiasugluck.deremate_backend.entity.User;
+import com.matiasugluck.deremate_backend.enums.OutboxMessageType;
+import com.matiasugluck.deremate_backend.enums.OutboxStatus;
+import com.matiasugluck.deremate_backend.exception.NotificationDeliveryException;
+import com.matiasugluck.deremate_backend.repository.DeviceRepository;
+import com.matiasugluck.deremate_backend.repository.OutboxMessageRepository;
+import com.matiasugluck.deremate_backend.service.FirebaseNotificationService;
+import com.matiasugluck.deremate_backend.service.impl.OutboxDispatcher;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OutboxDispatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private OutboxMessageRepository outboxMessageRepository;
+    private DeviceRepository deviceRepository;
+    private InMemoryFirebase firebase;
+    private InMemoryMailSender mailSender;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxMessageRepository = mock(OutboxMessageRepository.class);
+        deviceRepository = mock(DeviceRepository.class);
+        firebase = new InMemoryFirebase();
+        mailSender = new InMemoryMailSender();
+        dispatcher = new OutboxDispatcher(outboxMessageRepository, deviceRepository, firebase, mailSender,
+                objectMapper, mock(PlatformTransactionManager.class), "noreply@deremate.com", 50, 3, 1000, 60000, 300000);
+    }
+
+    @Test
+    void sendsPendingMessagesAndMarksThemSent() throws Exception {
+        OutboxMessage broadcast = message(1L, OutboxMessageType.PUSH_BROADCAST,
+                new PushPayload(null, "Nueva entrega", "Paquete en A1", Map.of(), null));
+        OutboxMessage userPush = message(2L, OutboxMessageType.PUSH_USER,
+                new PushPayload(7L, "Entrega Cancelada", "La entrega #3 fue cancelada", Map.of(), null));
+        OutboxMessage email = message(3L, OutboxMessageType.EMAIL,
+                new EmailPayload("user@mail.com", "Verificacion", "<p>123456</p>"));
+        when(outboxMessageRepository.claimBatch(any(Timestamp.class), anyInt())).thenReturn(List.of(broadcast, userPush, email));
+        when(deviceRepository.findAllDeviceIds()).thenReturn(List.of("token-a", "token-b"));
+        when(deviceRepository.findDeviceIdsByUserId(7L)).thenReturn(List.of("token-c"));
+
+        int sent = dispatcher.dispatch();
+
+        assertEquals(3, sent);
+        assertEquals(List.of(List.of("token-a", "token-b"), List.of("token-c")), firebase.sentTokens);
+        assertEquals(1, mailSender.sent.size());
+        assertEquals("Verificacion", mailSender.sent.get(0).getSubject());
+        for (OutboxMessage message : List.of(broadcast, userPush, email)) {
+            assertEquals(OutboxStatus.SENT, message.getStatus());
+            assertNotNull(message.getSentAt());
+        }
+    }
+
+    @Test
+    void failedSendIsRescheduledWithBackoff() throws Exception {
+        OutboxMessage email = message(1L, OutboxMessageType.EMAIL,
+                new EmailPayload("user@mail.com", "Verificacion", "<p>123456</p>"));
+        when(outboxMessageRepository.claimBatch(any(Timestamp.class), anyInt())).thenReturn(List.of(email));
+        mailSender.failing = true;
+
+        Instant before = Instant.now();
+        assertEquals(0, dispatcher.dispatch());
+
+        assertEquals(OutboxStatus.PENDING, email.getStatus());
+        assertEquals(1, email.getAttempts());
+        assertNotNull(email.getLastError());
+        // primer reintento: base-backoff (1s)
+        assertTrue(email.getNextAttemptAt().toInstant().isAfter(before.plusMillis(900)));
+
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(2, email.getAttempts());
+        // segundo reintento: el doble
+        assertTrue(email.getNextAttemptAt().toInstant().isAfter(before.plusMillis(1900)));
+    }
+
+    @Test
+    void messageFailsPermanentlyAfterMaxAttempts() throws Exception {
+        OutboxMessage broadcast = message(1L, OutboxMessageType.PUSH_BROADCAST,
+                new PushPayload(null, "Nueva entrega", "Paquete en A1", Map.of(), null));
+        broadcast.setAttempts(2);
+        when(outboxMessageRepository.claimBatch(any(Timestamp.class), anyInt())).thenReturn(List.of(broadcast));
+        when(deviceRepository.findAllDeviceIds()).thenReturn(List.of("token-a"));
+        firebase.failing = true;
+
+        dispatcher.dispatch();
+
+        assertEquals(OutboxStatus.FAILED, broadcast.getStatus());
+        assertEquals(3, broadcast.getAttempts());
+    }
+
+    @Test
+    void partiallyFailedPushIsRetriedOnlyToTheFailedTokens() throws Exception {
+        OutboxMessage broadcast = message(1L, OutboxMessageType.PUSH_BROADCAST,
+                new PushPayload(null, "Nueva entrega", "Paquete en A1", Map.of(), null));
+        when(outboxMessageRepository.claimBatch(any(Timestamp.class), anyInt())).thenReturn(List.of(broadcast));
+        when(deviceRepository.findAllDeviceIds()).thenReturn(List.of("token-a", "token-b", "token-c"));
+        firebase.failingTokens = Set.of("token-b");
+
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(OutboxStatus.PENDING, broadcast.getStatus());
+        assertEquals(List.of("token-b"), objectMapper.readValue(broadcast.getPayload(), PushPayload.class).getTokens());
+
+        firebase.failingTokens = Set.of();
+        assertEquals(1, dispatcher.dispatch());
+        assertEquals(OutboxStatus.SENT, broadcast.getStatus());
+        // el segundo intento no vuelve a enviar a los que ya la recibieron
+        assertEquals(List.of(List.of("token-a", "token-c"), List.of("token-b")), firebase.sentTokens);
+    }
+
+    private OutboxMessage message(Long id, OutboxMessageType type, Object payload) throws Exception {
+        Timestamp now = Timestamp.from(Instant.now());
+        return OutboxMessage.builder()
+                .id(id)
+                .type(type)
+                .status(OutboxStatus.PENDING)
+                .payload(objectMapper.writeValueAsString(payload))
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+
+    // Reemplazo en memoria de FCM: registra los tokens de cada multicast
+    private static class InMemoryFirebase implements FirebaseNotificationService {
+        final List<List<String>> sentTokens = new ArrayList<>();
+        boolean failing;
+        Set<String> failingTokens = Set.of();
+
+        @Override
+        public ResponseEntity<GenericResponseDTO<String>> linkUser(String firebaseDeviceToken, User user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ResponseEntity<GenericResponseDTO<String>> unlinkUser(String firebaseDeviceToken, User user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String sendNotification(NotificationMessage notificationMessage) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int sendMulticast(NotificationMessage notificationMessage, List<String> recipientTokens) {
+            if (failing) {
+                throw new NotificationDeliveryException("1 multicast batch(es) failed, 0 messages sent");
+            }
+            List<String> delivered = recipientTokens.stream().filter(token -> !failingTokens.contains(token)).toList();
+            sentTokens.add(delivered);
+            if (delivered.size() < recipientTokens.size()) {
+                throw new NotificationDeliveryException("partial failure",
+                        recipientTokens.stream().filter(failingTokens::contains).toList());
+            }
+            return delivered.size();
+        }
+    }
+
+    // Reemplazo en memoria del servidor SMTP
+    private static class InMemoryMailSender extends JavaMailSenderImpl {
+        final List<MimeMessage> sent = new ArrayList<>();
+        boolean failing;
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+            if (failing) {
+                throw new MailSendException("SMTP unavailable");
+            }
+            sent.addAll(List.of(mimeMessages));
+        }
+    }
+}
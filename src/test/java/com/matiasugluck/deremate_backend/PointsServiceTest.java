@@ -0,0 +1,94 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.dto.points.TrackDistanceDTO;
+import com.matiasugluck.deremate_backend.entity.User;
+import com.matiasugluck.deremate_backend.repository.CourierTrackRepository;
+import com.matiasugluck.deremate_backend.repository.UserRepository;
+import com.matiasugluck.deremate_backend.service.impl.PointsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PointsServiceTest {
+
+    private static final long USER_ID = 7L;
+    private static final long NOW = 1_750_000_000_000L;
+
+    private UserRepository userRepository;
+    private CourierTrackRepository courierTrackRepository;
+    private PointsServiceImpl pointsService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        courierTrackRepository = mock(CourierTrackRepository.class);
+        pointsService = new PointsServiceImpl(userRepository, courierTrackRepository);
+        user = User.builder().id(USER_ID).points(0).level(1).build();
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        when(courierTrackRepository.findCreditedUpTo(USER_ID)).thenReturn(Optional.of(1L));
+        when(courierTrackRepository.advanceCreditedUpTo(eq(USER_ID), anyLong(), anyLong())).thenReturn(true);
+    }
+
+    @Test
+    void drivenLegsArePaid() {
+        // Unos 1.1 km en un minuto, unos 66 km/h
+        track(new double[][]{{-34.600, -58.400}, {-34.610, -58.400}},
+                new long[]{NOW - 60_000, NOW});
+
+        TrackDistanceDTO result = pointsService.addPointsByTrack(USER_ID);
+
+        assertEquals(2, result.getEarnedPoints());
+        assertEquals(2, user.getPoints());
+        verify(courierTrackRepository).advanceCreditedUpTo(USER_ID, 1L, 2L);
+    }
+
+    @Test
+    void backdatedPingDoesNotPayTheJumpAcrossTheGlobe() {
+        // Posicion en Buenos Aires con recordedAt=0 (de otro buffer) y la siguiente "ahora" en Tokio
+        track(new double[][]{{-34.600, -58.400}, {-34.600, -58.400}, {35.680, 139.760}},
+                new long[]{NOW - 60_000, 0, NOW});
+
+        TrackDistanceDTO result = pointsService.addPointsByTrack(USER_ID);
+
+        assertEquals(0, result.getEarnedPoints());
+        assertEquals(0, user.getPoints());
+        verify(courierTrackRepository, never()).advanceCreditedUpTo(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void legsWithLongGapsAreNotPaid() {
+        // 20 km en una hora pasa el limite de velocidad, pero no se sabe por donde anduvo
+        track(new double[][]{{-34.600, -58.400}, {-34.780, -58.400}},
+                new long[]{NOW - 3_600_000, NOW});
+
+        assertEquals(0, pointsService.addPointsByTrack(USER_ID).getEarnedPoints());
+    }
+
+    // Las posiciones del usuario desde la ultima canjeada (id 1), con ids consecutivos
+    private void track(double[][] positions, long[] recordedAt) {
+        when(courierTrackRepository.findFrom(eq(USER_ID), eq(1L), any(), any(), any(), any())).thenAnswer(invocation -> {
+            long[] ids = invocation.getArgument(2);
+            double[] latitudes = invocation.getArgument(3);
+            double[] longitudes = invocation.getArgument(4);
+            long[] epochMillis = invocation.getArgument(5);
+            for (int i = 0; i < positions.length; i++) {
+                ids[i] = i + 1;
+                latitudes[i] = positions[i][0];
+                longitudes[i] = positions[i][1];
+                epochMillis[i] = recordedAt[i];
+            }
+            return positions.length;
+        });
+    }
+}
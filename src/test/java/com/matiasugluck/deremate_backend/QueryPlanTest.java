@@ -0,0 +1,370 @@
+package com.matiasugluck.deremate_backend;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Aplica las migraciones sobre un MariaDB embebido, carga datos con la distribucion de produccion
+ * (la mayoria de las rutas asignadas, la mayoria de las entregas ya entregadas) y corre EXPLAIN
+ * sobre el SQL de cada consulta de los repositorios. Falla si alguna tabla se recorre completa.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final String SCHEMA = "deremate";
+    private static final int USERS = 200;
+    private static final int ROUTES = 5000;
+    private static final int PRODUCTS = 50;
+
+    private DB db;
+    private String url;
+
+    @BeforeAll
+    void startDatabase() throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB(SCHEMA);
+        url = config.getURL(SCHEMA);
+
+        Flyway.configure()
+                .dataSource(url, "root", "")
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        try (Connection connection = DriverManager.getConnection(url, "root", "")) {
+            seed(connection);
+        }
+    }
+
+    @AfterAll
+    void stopDatabase() throws Exception {
+        if (db != null) {
+            db.stop();
+        }
+    }
+
+    static Stream<Arguments> repositoryQueries() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return Stream.of(
+                Arguments.of("UserRepository.findByEmail",
+                        "SELECT * FROM `user` u WHERE u.email = ?",
+                        List.of("user42@deremate.com")),
+                Arguments.of("RouteRepository.findByAssignedToId",
+                        "SELECT * FROM route r LEFT JOIN `user` u ON u.id = r.user_id WHERE r.user_id = ?",
+                        List.of(7L)),
+                Arguments.of("RouteRepository.findByAssignedToIdAndStatus",
+                        "SELECT * FROM route r LEFT JOIN `user` u ON u.id = r.user_id WHERE r.user_id = ? AND r.status = ?",
+                        List.of(7L, "INITIATED")),
+                Arguments.of("RouteRepository.findByAssignedToIsNullAndStatus",
+                        "SELECT * FROM route r WHERE r.user_id IS NULL AND r.status = ?",
+                        List.of("PENDING")),
+                Arguments.of("RouteRepository.findPage",
+                        "SELECT * FROM route r LEFT JOIN `user` u ON u.id = r.user_id " +
+                                "ORDER BY r.last_updated_at DESC, r.id DESC LIMIT 21",
+                        List.of()),
+                Arguments.of("RouteRepository.findPageAfter",
+                        "SELECT * FROM route r LEFT JOIN `user` u ON u.id = r.user_id " +
+                                "WHERE r.last_updated_at < ? OR (r.last_updated_at = ? AND r.id < ?) " +
+                                "ORDER BY r.last_updated_at DESC, r.id DESC LIMIT 21",
+                        List.of(now, now, 100L)),
+                Arguments.of("RouteRepository.findAvailable",
+                        "SELECT * FROM route r WHERE r.user_id IS NULL AND r.status = ? " +
+                                "ORDER BY r.last_updated_at, r.id LIMIT 21",
+                        List.of("PENDING")),
+                Arguments.of("RouteRepository.findAvailableAfter",
+                        "SELECT * FROM route r WHERE r.user_id IS NULL AND r.status = ? " +
+                                "AND (r.last_updated_at > ? OR (r.last_updated_at = ? AND r.id > ?)) " +
+                                "ORDER BY r.last_updated_at, r.id LIMIT 21",
+                        List.of("PENDING", now, now, 100L)),
+                Arguments.of("RouteRepository.findAvailableEntries",
+                        "SELECT r.id, r.destination_latitude, r.destination_longitude, r.description, r.last_updated_at " +
+                                "FROM route r WHERE r.user_id IS NULL AND r.status = ? " +
+                                "AND r.destination_latitude IS NOT NULL AND r.destination_longitude IS NOT NULL",
+                        List.of("PENDING")),
+                Arguments.of("RouteRepository.findCourierRoutesSince",
+                        "SELECT r.user_id, r.status, r.destination_latitude, r.destination_longitude, r.last_updated_at " +
+                                "FROM route r WHERE r.user_id IS NOT NULL AND r.last_updated_at >= ?",
+                        List.of(new Timestamp(System.currentTimeMillis() - 600_000))),
+                Arguments.of("RouteRepository.findCourierRoutes",
+                        "SELECT r.user_id, r.status, r.destination_latitude, r.destination_longitude, r.last_updated_at " +
+                                "FROM route r WHERE r.user_id IN (?, ?, ?) AND r.status = ?",
+                        List.of(7L, 8L, 9L, "INITIATED")),
+                Arguments.of("RouteRepository.existsByAssignedToIdAndStatus",
+                        "SELECT r.id FROM route r WHERE r.user_id = ? AND r.status = ? LIMIT 1",
+                        List.of(7L, "INITIATED")),
+                Arguments.of("RouteRepository.findCompletedSamples",
+                        "SELECT r.id, r.destination_latitude, r.destination_longitude, r.started_at, r.completed_at " +
+                                "FROM route r WHERE r.id > ? AND r.status = ? AND r.completed_at >= ? AND r.completed_at < ? " +
+                                "ORDER BY r.id LIMIT 1000",
+                        List.of(100L, "COMPLETED", new Timestamp(System.currentTimeMillis() - 86_400_000L), now)),
+                Arguments.of("RouteRepository.assignIfAvailable / RouteBatchRepository.assignPending",
+                        "UPDATE route SET user_id = ?, status = ?, started_at = ?, last_updated_at = ?, version = version + 1 " +
+                                "WHERE id = ? AND status = ? AND user_id IS NULL",
+                        List.of(7L, "INITIATED", now, now, 20L, "PENDING")),
+                Arguments.of("DeliveryRepository.findByUserId",
+                        "SELECT * FROM delivery d JOIN route r ON r.id = d.route_id LEFT JOIN `user` u ON u.id = r.user_id " +
+                                "WHERE r.user_id = ? ORDER BY r.last_updated_at DESC, d.id DESC LIMIT 21",
+                        List.of(7L)),
+                Arguments.of("DeliveryRepository.findItineraryStops",
+                        "SELECT r.user_id, d.id, r.id, r.description, d.package_location, r.destination_latitude, r.destination_longitude " +
+                                "FROM delivery d JOIN route r ON r.id = d.route_id WHERE r.user_id = ? AND r.status = ? AND d.status = ? " +
+                                "ORDER BY r.last_updated_at DESC, d.id DESC",
+                        List.of(7L, "INITIATED", "NOT_DELIVERED")),
+                Arguments.of("DeliveryRepository.findByUserIdAfter",
+                        "SELECT * FROM delivery d JOIN route r ON r.id = d.route_id LEFT JOIN `user` u ON u.id = r.user_id " +
+                                "WHERE r.user_id = ? AND (r.last_updated_at < ? OR (r.last_updated_at = ? AND d.id < ?)) " +
+                                "ORDER BY r.last_updated_at DESC, d.id DESC LIMIT 21",
+                        List.of(7L, now, now, 100L)),
+                Arguments.of("DeliveryRepository.findWithDetailsById",
+                        "SELECT * FROM delivery d JOIN route r ON r.id = d.route_id LEFT JOIN `user` u ON u.id = r.user_id " +
+                                "LEFT JOIN delivery_products dp ON dp.delivery_id = d.id LEFT JOIN product p ON p.id = dp.product_id " +
+                                "WHERE d.id = ?",
+                        List.of(10L)),
+                Arguments.of("Delivery.products (@BatchSize)",
+                        "SELECT * FROM delivery_products dp JOIN product p ON p.id = dp.product_id " +
+                                "WHERE dp.delivery_id IN (?, ?, ?, ?)",
+                        List.of(1L, 2L, 3L, 4L)),
+                Arguments.of("DeliveryRepository.findTransitionViewById",
+                        "SELECT d.id, d.status, d.pin, d.created_date, r.id, r.status, r.description, r.completed_at, u.id, " +
+                                "r.destination_latitude, r.destination_longitude FROM delivery d JOIN route r ON r.id = d.route_id " +
+                                "LEFT JOIN `user` u ON u.id = r.user_id WHERE d.id = ?",
+                        List.of(10L)),
+                Arguments.of("DeliveryRepository.updateStatusIfCurrent",
+                        "UPDATE delivery SET status = 'DELIVERED', version = version + 1 WHERE id = ? AND status = ?",
+                        List.of(10L, "NOT_DELIVERED")),
+                Arguments.of("RouteRepository.closeIfCurrent",
+                        "UPDATE route SET status = 'COMPLETED', completed_at = ?, last_updated_at = ?, version = version + 1 " +
+                                "WHERE id = ? AND status = ?",
+                        List.of(now, now, 10L, "INITIATED")),
+                Arguments.of("DeliveryRepository.existsByRoute_Id",
+                        "SELECT COUNT(d.id) FROM delivery d WHERE d.route_id = ?",
+                        List.of(10L)),
+                Arguments.of("DeliveryRepository.findWarehouseItems",
+                        "SELECT d.id, r.id, d.package_location, d.created_date FROM delivery d JOIN route r ON r.id = d.route_id " +
+                                "WHERE r.user_id IS NULL AND d.status = ?",
+                        List.of("NOT_DELIVERED")),
+                Arguments.of("DeliveryRepository.findAssignedAndNotDelivered",
+                        "SELECT * FROM delivery d JOIN route r ON r.id = d.route_id LEFT JOIN `user` u ON u.id = r.user_id " +
+                                "WHERE d.status = ? AND r.user_id IS NOT NULL ORDER BY d.created_date, d.id LIMIT 21",
+                        List.of("NOT_DELIVERED")),
+                Arguments.of("DeliveryRepository.findAssignedAndNotDeliveredAfter",
+                        "SELECT * FROM delivery d JOIN route r ON r.id = d.route_id LEFT JOIN `user` u ON u.id = r.user_id " +
+                                "WHERE d.status = ? AND r.user_id IS NOT NULL " +
+                                "AND (d.created_date > ? OR (d.created_date = ? AND d.id > ?)) " +
+                                "ORDER BY d.created_date, d.id LIMIT 21",
+                        List.of("NOT_DELIVERED", now, now, 100L)),
+                Arguments.of("VerificationTokenRepository.findByTokenAndPurposeAndUser_Email...",
+                        "SELECT * FROM verification_token vt LEFT JOIN `user` u ON u.id = vt.user_id " +
+                                "WHERE vt.token = ? AND vt.purpose = ? AND u.email = ? AND vt.expiry_date > ? AND vt.attempt_count < ?",
+                        List.of("1234", "PASSWORD_RESET", "user42@deremate.com", now, 5)),
+                Arguments.of("VerificationTokenRepository.findAllByUserAndPurposeAndExpiryDateAfter",
+                        "SELECT * FROM verification_token vt WHERE vt.user_id = ? AND vt.purpose = ? AND vt.expiry_date > ?",
+                        List.of(42L, "PASSWORD_RESET", now)),
+                Arguments.of("VerificationTokenRepository.findByUser",
+                        "SELECT * FROM verification_token vt WHERE vt.user_id = ?",
+                        List.of(42L)),
+                Arguments.of("DeviceRepository.findByUser",
+                        "SELECT * FROM devices dv WHERE dv.user_id = ?",
+                        List.of(42L)),
+                Arguments.of("DeviceRepository.findDeviceIdsByUserId",
+                        "SELECT dv.device_id FROM devices dv WHERE dv.user_id = ?",
+                        List.of(42L)),
+                Arguments.of("DeviceRepository.findAllDeviceIds",
+                        "SELECT DISTINCT dv.device_id FROM devices dv",
+                        List.of()),
+                Arguments.of("DeviceRepository.deleteByDeviceId / deleteByDeviceIdIn",
+                        "SELECT dv.id FROM devices dv WHERE dv.device_id IN (?, ?)",
+                        List.of("device-1", "device-2")),
+                Arguments.of("DeviceRepository.deleteByUserAndDeviceId",
+                        "SELECT dv.id FROM devices dv WHERE dv.user_id = ? AND dv.device_id = ?",
+                        List.of(42L, "device-42")),
+                Arguments.of("DeliveryRollupRepository.findSources",
+                        "SELECT d.id, d.status, d.created_date, r.completed_at, r.destination_latitude, r.destination_longitude " +
+                                "FROM delivery d JOIN route r ON r.id = d.route_id WHERE d.id > ? AND d.id <= ? ORDER BY d.id LIMIT 1000",
+                        List.of(1000L, 4000L)),
+                Arguments.of("DeliveryRollupRepository.forEachSourceCreatedSince",
+                        "SELECT d.id, d.status, d.created_date, r.completed_at, r.destination_latitude, r.destination_longitude " +
+                                "FROM delivery d JOIN route r ON r.id = d.route_id WHERE d.created_date >= ?",
+                        List.of(new Timestamp(System.currentTimeMillis() - 60_000))),
+                Arguments.of("OutboxMessageRepository.claimBatch",
+                        "SELECT * FROM outbox_message o WHERE o.status = 'PENDING' AND o.next_attempt_at <= ? " +
+                                "ORDER BY o.id LIMIT 100",
+                        List.of(now)),
+                Arguments.of("CourierTrackRepository.findFrom",
+                        "SELECT id, latitude, longitude, recorded_at FROM courier_track WHERE user_id = ? AND id >= ? " +
+                                "ORDER BY id LIMIT 5001",
+                        List.of(7L, 100L))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void queryDoesNotScanWholeTables(String query, String sql, List<Object> params) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        List<String> fullScans = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(url, "root", "");
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    String row = rs.getString("table") + " type=" + rs.getString("type")
+                            + " key=" + rs.getString("key") + " rows=" + rs.getString("rows")
+                            + " extra=" + rs.getString("Extra");
+                    plan.add(row);
+                    if ("ALL".equals(rs.getString("type"))) {
+                        fullScans.add(rs.getString("table"));
+                    }
+                }
+            }
+        }
+        assertFalse(plan.isEmpty(), "EXPLAIN sin filas para " + query);
+        if (!fullScans.isEmpty()) {
+            fail(query + " recorre completas las tablas " + fullScans + ":\n" + String.join("\n", plan));
+        }
+    }
+
+    private void seed(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        long base = System.currentTimeMillis();
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO `user` (id, points, level, firstname, lastname, email, password, created_at, is_email_verified) " +
+                        "VALUES (?, 0, 1, 'Nombre', 'Apellido', ?, 'x', ?, 1)")) {
+            for (long id = 1; id <= USERS; id++) {
+                ps.setLong(1, id);
+                ps.setString(2, "user" + id + "@deremate.com");
+                ps.setTimestamp(3, new Timestamp(base));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO product (id, name, description, price) VALUES (?, 'Producto', 'Descripcion', 10.00)")) {
+            for (long id = 1; id <= PRODUCTS; id++) {
+                ps.setLong(1, id);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        // 95% de las rutas asignadas; de las entregas, 90% ya entregadas
+        try (PreparedStatement route = connection.prepareStatement(
+                "INSERT INTO route (id, description, destination_latitude, destination_longitude, status, started_at, " +
+                        "completed_at, last_updated_at, user_id) VALUES (?, 'Ruta', -34.6, -58.4, ?, NULL, NULL, ?, ?)");
+             PreparedStatement delivery = connection.prepareStatement(
+                     "INSERT INTO delivery (id, status, destination, package_location, created_date, delivery_start_date, " +
+                             "delivery_end_date, pin, route_id) VALUES (?, ?, 'Destino', ?, ?, NULL, NULL, '1234', ?)");
+             PreparedStatement products = connection.prepareStatement(
+                     "INSERT INTO delivery_products (delivery_id, product_id) VALUES (?, ?)")) {
+            for (long id = 1; id <= ROUTES; id++) {
+                boolean assigned = id % 20 != 0;
+                Timestamp updated = new Timestamp(base - id * 1000);
+                route.setLong(1, id);
+                route.setString(2, assigned ? (id % 3 == 0 ? "INITIATED" : "COMPLETED") : "PENDING");
+                route.setTimestamp(3, updated);
+                if (assigned) {
+                    route.setLong(4, 1 + id % USERS);
+                } else {
+                    route.setNull(4, Types.BIGINT);
+                }
+                route.addBatch();
+
+                delivery.setLong(1, id);
+                delivery.setString(2, !assigned || id % 10 == 1 ? "NOT_DELIVERED" : "DELIVERED");
+                delivery.setString(3, "Estante " + (id % 40));
+                delivery.setTimestamp(4, updated);
+                delivery.setLong(5, id);
+                delivery.addBatch();
+
+                for (int p = 0; p < 2; p++) {
+                    products.setLong(1, id);
+                    products.setLong(2, 1 + (id + p) % PRODUCTS);
+                    products.addBatch();
+                }
+            }
+            route.executeBatch();
+            delivery.executeBatch();
+            products.executeBatch();
+        }
+
+        try (PreparedStatement device = connection.prepareStatement(
+                "INSERT INTO devices (id, user_id, device_id) VALUES (?, ?, ?)");
+             PreparedStatement token = connection.prepareStatement(
+                     "INSERT INTO verification_token (id, token, user_id, expiry_date, purpose, attempt_count) " +
+                             "VALUES (?, ?, ?, ?, ?, 0)")) {
+            for (long id = 1; id <= USERS * 2; id++) {
+                device.setLong(1, id);
+                device.setLong(2, 1 + id % USERS);
+                device.setString(3, "device-" + id);
+                device.addBatch();
+
+                token.setLong(1, id);
+                token.setString(2, String.format("%04d", id));
+                token.setLong(3, 1 + id % USERS);
+                token.setTimestamp(4, new Timestamp(base + (id % 2 == 0 ? 600_000 : -600_000)));
+                token.setString(5, id % 2 == 0 ? "PASSWORD_RESET" : "EMAIL_VERIFICATION");
+                token.addBatch();
+            }
+            device.executeBatch();
+            token.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO outbox_message (type, status, payload, attempts, next_attempt_at, created_at) " +
+                        "VALUES ('EMAIL', ?, '{}', 0, ?, ?)")) {
+            for (int i = 0; i < 2000; i++) {
+                ps.setString(1, i % 50 == 0 ? "PENDING" : "SENT");
+                ps.setTimestamp(2, new Timestamp(base - i * 1000L));
+                ps.setTimestamp(3, new Timestamp(base - i * 1000L));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO courier_track (user_id, latitude, longitude, recorded_at) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < 20_000; i++) {
+                ps.setLong(1, 1 + i % USERS);
+                ps.setDouble(2, -34.6 + (i % 100) * 0.001);
+                ps.setDouble(3, -58.4 + (i % 100) * 0.001);
+                ps.setTimestamp(4, new Timestamp(base - (20_000 - i) * 1000L));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        connection.commit();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE `user`, route, delivery, delivery_products, product, devices, " +
+                    "verification_token, outbox_message, courier_track");
+        }
+    }
+}
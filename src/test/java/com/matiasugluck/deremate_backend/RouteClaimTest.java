@@ -0,0 +1,158 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.constants.RouteApiMessages;
+import com.matiasugluck.deremate_backend.dto.RouteDTO;
+import com.matiasugluck.deremate_backend.entity.Coordinates;
+import com.matiasugluck.deremate_backend.entity.Route;
+import com.matiasugluck.deremate_backend.entity.User;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.exception.ApiException;
+import com.matiasugluck.deremate_backend.repository.RouteRepository;
+import com.matiasugluck.deremate_backend.service.AvailableRouteIndexService;
+import com.matiasugluck.deremate_backend.service.EtaService;
+import com.matiasugluck.deremate_backend.service.impl.RouteServiceImpl;
+import com.matiasugluck.deremate_backend.utils.CursorPagination;
+import com.matiasugluck.deremate_backend.utils.RouteClaimRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tomar una ruta es un compare-and-set: el registro en memoria rechaza a los que llegan despues
+ * del primero sin ir a la base, y el UPDATE condicional decide entre instancias.
+ */
+public class RouteClaimTest extends JpaRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private RouteRepository routeRepository;
+
+    private RouteClaimRegistry registry;
+    private Statistics statistics;
+    private User first;
+    private User second;
+    private Long routeId;
+
+    @BeforeEach
+    void setUp() {
+        registry = new RouteClaimRegistry(30000);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        first = entityManager.persist(User.builder().email("ana@deremate.com").firstname("Ana").lastname("Gomez").build());
+        second = entityManager.persist(User.builder().email("juan@deremate.com").firstname("Juan").lastname("Perez").build());
+        Route route = entityManager.persist(Route.builder()
+                .description("Av. Corrientes 1234")
+                .destination(new Coordinates(-34.6, -58.4))
+                .status(RouteStatus.PENDING)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        routeId = route.getId();
+    }
+
+    @Test
+    void firstClaimWinsAndLoserIsRejectedWithoutQueries() {
+        RouteDTO claimed = service(registry).assignRouteToUser(routeId, first);
+        assertEquals(RouteStatus.INITIATED, claimed.getStatus());
+        assertEquals("ana@deremate.com", claimed.getAssignedToEmail());
+
+        statistics.clear();
+        ApiException conflict = assertThrows(ApiException.class, () -> service(registry).assignRouteToUser(routeId, second));
+        assertEquals(RouteApiMessages.ROUTE_ALREADY_CLAIMED_CODE, conflict.getCode());
+        assertEquals(409, conflict.getStatusCode().intValue());
+        assertTrue(conflict.getDescription().contains("Ana Gomez"), conflict.getDescription());
+        assertEquals(0, statistics.getPrepareStatementCount(), "SQL statements executed by the loser");
+    }
+
+    @Test
+    void conditionalUpdateDecidesWhenTheRegistryDoesNotKnow() {
+        service(registry).assignRouteToUser(routeId, first);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Otra instancia, con su propio registro vacio
+        RouteClaimRegistry otherInstance = new RouteClaimRegistry(30000);
+        ApiException conflict = assertThrows(ApiException.class, () -> service(otherInstance).assignRouteToUser(routeId, second));
+        assertEquals(RouteApiMessages.ROUTE_ALREADY_CLAIMED_CODE, conflict.getCode());
+        assertTrue(conflict.getDescription().contains("Ana Gomez"), conflict.getDescription());
+
+        entityManager.clear();
+        assertEquals(first.getId(), routeRepository.findById(routeId).orElseThrow().getAssignedTo().getId());
+    }
+
+    @Test
+    void doubleTapReturnsTheRouteAlreadyTaken() {
+        service(registry).assignRouteToUser(routeId, first);
+        entityManager.flush();
+        entityManager.clear();
+
+        RouteDTO again = service(registry).assignRouteToUser(routeId, first);
+        assertEquals(RouteStatus.INITIATED, again.getStatus());
+        assertEquals("ana@deremate.com", again.getAssignedToEmail());
+    }
+
+    @Test
+    void stampedeHasExactlyOneWinner() throws Exception {
+        int claimers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<RouteClaimRegistry.Claim>> results = new ArrayList<>();
+        for (long userId = 1; userId <= claimers; userId++) {
+            long id = userId;
+            results.add(executor.submit(() -> {
+                start.await();
+                return registry.tryClaim(routeId, id, "Repartidor " + id);
+            }));
+        }
+        start.countDown();
+
+        Long winner = null;
+        for (Future<RouteClaimRegistry.Claim> result : results) {
+            Long holder = result.get().getUserId();
+            if (winner == null) {
+                winner = holder;
+            }
+            assertEquals(winner, holder, "todos ven al mismo ganador");
+        }
+        executor.shutdown();
+
+        registry.release(routeId, winner + 1);
+        assertEquals(winner, registry.tryClaim(routeId, winner + 1, "otro").getUserId(), "solo el ganador libera");
+        registry.release(routeId, winner);
+        assertEquals(winner + 1, registry.tryClaim(routeId, winner + 1, "otro").getUserId());
+    }
+
+    @Test
+    void expiredClaimCanBeTakenAgain() {
+        RouteClaimRegistry shortLived = new RouteClaimRegistry(0);
+        shortLived.tryClaim(routeId, 1L, "uno");
+        assertEquals(2L, shortLived.tryClaim(routeId, 2L, "dos").getUserId());
+        shortLived.purgeExpired();
+        assertEquals(0, shortLived.size());
+    }
+
+    private RouteServiceImpl service(RouteClaimRegistry claimRegistry) {
+        return new RouteServiceImpl(routeRepository, new CursorPagination(20, 100), mock(ApplicationEventPublisher.class),
+                mock(AvailableRouteIndexService.class), claimRegistry, mock(EtaService.class));
+    }
+}
@@ -0,0 +1,98 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.utils.SpaceSaving;
+import com.matiasugluck.deremate_backend.utils.WindowedHeavyHitters;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void exactWhileUnderCapacity() {
+        SpaceSaving<String> summary = new SpaceSaving<>(10);
+        for (int i = 0; i < 5; i++) {
+            summary.offer("a");
+        }
+        summary.offer("b");
+        summary.offer("b");
+        summary.offer("c");
+
+        List<SpaceSaving.Entry<String>> top = summary.top(3);
+        assertEquals(List.of("a", "b", "c"), top.stream().map(SpaceSaving.Entry::getKey).toList());
+        assertEquals(List.of(5L, 2L, 1L), top.stream().map(SpaceSaving.Entry::getCount).toList());
+        assertEquals(0, summary.error("a"));
+        assertEquals(8, summary.total());
+    }
+
+    @Test
+    void findsHeavyHittersWithinErrorBound() {
+        int capacity = 50;
+        SpaceSaving<Integer> summary = new SpaceSaving<>(capacity);
+        Map<Integer, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        // Zipf aproximado: pocas claves concentran la mayoria de los eventos
+        for (int i = 0; i < 100_000; i++) {
+            int key = (int) Math.floor(Math.pow(1000, random.nextDouble()));
+            summary.offer(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        long bound = summary.total() / capacity;
+        for (SpaceSaving.Entry<Integer> entry : summary.top(capacity)) {
+            long real = exact.get(entry.getKey());
+            assertTrue(entry.getCount() >= real);
+            assertTrue(entry.getCount() - real <= bound);
+        }
+        // Toda clave con mas de total/capacity ocurrencias tiene que estar en el resumen
+        exact.forEach((key, count) -> {
+            if (count > bound) {
+                assertTrue(summary.estimate(key) >= count, "missing heavy hitter " + key);
+            }
+        });
+        assertEquals(1, summary.top(1).get(0).getKey());
+    }
+
+    @Test
+    void weightedOffersKeepOrder() {
+        SpaceSaving<String> summary = new SpaceSaving<>(4);
+        summary.offer("a", 10);
+        summary.offer("b", 3);
+        summary.offer("c", 7);
+        summary.offer("b", 5);
+        assertEquals(List.of("a", "b", "c"), summary.top(3).stream().map(SpaceSaving.Entry::getKey).toList());
+        assertEquals(8, summary.estimate("b"));
+    }
+
+    @Test
+    void windowForgetsExpiredPanes() {
+        // Ventana de 3 panes de 1000ms
+        WindowedHeavyHitters<String> window = new WindowedHeavyHitters<>(1000, 3, 10);
+        window.add("old", 0);
+        window.add("old", 100);
+        window.add("new", 1500);
+        window.add("new", 2500);
+        window.add("new", 2600);
+
+        assertEquals(2, window.estimate("old", 2999));
+        assertEquals("new", window.top(1, 2999).get(0).getKey());
+
+        // En t=3000 vence el pane [0, 1000)
+        assertEquals(0, window.estimate("old", 3000));
+        assertEquals(3, window.estimate("new", 3000));
+        assertEquals(1, window.top(10, 3000).size());
+
+        // Un evento mas viejo que la ventana se descarta
+        window.add("old", 500);
+        assertEquals(0, window.estimate("old", 3000));
+
+        assertEquals(0, window.total(10_000));
+        assertTrue(window.top(10, 10_000).isEmpty());
+    }
+}
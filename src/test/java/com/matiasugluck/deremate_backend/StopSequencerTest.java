@@ -0,0 +1,78 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.utils.GeoDistance;
+import com.matiasugluck.deremate_backend.utils.StopSequencer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StopSequencerTest {
+
+    private static final long BUDGET = 1_000_000_000L;
+
+    @Test
+    void stopsAlongAStreetAreVisitedInOrder() {
+        // 20 paradas sobre la misma latitud, mezcladas; saliendo del extremo oeste el optimo es recorrerlas de oeste a este
+        int n = 20;
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            positions.add(i);
+        }
+        Collections.shuffle(positions, new Random(11));
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = -34.6;
+            longitudes[i] = -58.50 + positions.get(i) * 0.01;
+        }
+        double[] start = {-34.6, -58.51};
+
+        int[] order = StopSequencer.sequence(latitudes, longitudes, start, BUDGET);
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, positions.get(order[i]));
+        }
+        double expected = GeoDistance.haversineMeters(-34.6, -58.51, -34.6, -58.50 + (n - 1) * 0.01);
+        assertEquals(expected, StopSequencer.length(latitudes, longitudes, start, order), 0.1);
+    }
+
+    @Test
+    void improvesOnNearestNeighbourAndReturnsAPermutation() {
+        Random random = new Random(5);
+        int n = 60;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = -34.70 + random.nextDouble() * 0.2;
+            longitudes[i] = -58.55 + random.nextDouble() * 0.2;
+        }
+        double[] start = {-34.60, -58.45};
+
+        // Sin tiempo de mejora queda el camino de vecino mas cercano
+        int[] seed = StopSequencer.sequence(latitudes, longitudes, start, 0);
+        int[] improved = StopSequencer.sequence(latitudes, longitudes, start, BUDGET);
+
+        int[] sorted = improved.clone();
+        Arrays.sort(sorted);
+        int[] all = new int[n];
+        for (int i = 0; i < n; i++) {
+            all[i] = i;
+        }
+        assertArrayEquals(all, sorted);
+        assertTrue(StopSequencer.length(latitudes, longitudes, start, improved)
+                < StopSequencer.length(latitudes, longitudes, start, seed));
+    }
+
+    @Test
+    void handlesTrivialInputs() {
+        assertEquals(0, StopSequencer.sequence(new double[0], new double[0], null, BUDGET).length);
+        assertArrayEquals(new int[]{0}, StopSequencer.sequence(new double[]{-34.6}, new double[]{-58.4}, null, BUDGET));
+    }
+}
@@ -0,0 +1,139 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.utils.TransitionJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TransitionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedRecordsAreReadBackInOrder() throws IOException {
+        try (TransitionJournal journal = new TransitionJournal(directory, 1024)) {
+            assertEquals(1, journal.append(1, 10, 0, 1, 0, 1000));
+            assertEquals(2, journal.append(2, 20, 1, 3, 7, 2000));
+
+            List<long[]> records = readAll(journal, 1);
+            assertEquals(2, records.size());
+            assertRecord(records.get(0), 1, 1000, 10, 0, 1, 0, 1);
+            assertRecord(records.get(1), 2, 2000, 20, 7, 2, 1, 3);
+        }
+    }
+
+    @Test
+    void rollsToANewSegmentWhenFull() throws IOException {
+        // 3 registros por segmento
+        try (TransitionJournal journal = new TransitionJournal(directory, 3 * TransitionJournal.RECORD_BYTES + 10)) {
+            for (int i = 1; i <= 7; i++) {
+                journal.append(1, i, 0, 1, 0, i);
+            }
+            assertEquals(3, segmentCount());
+            assertEquals(7, readAll(journal, 1).size());
+
+            List<long[]> tail = readAll(journal, 5);
+            assertEquals(3, tail.size());
+            assertEquals(5, tail.get(0)[0]);
+            assertEquals(7, tail.get(2)[2]);
+        }
+    }
+
+    @Test
+    void reopeningContinuesTheSequence() throws IOException {
+        try (TransitionJournal journal = new TransitionJournal(directory, 2 * TransitionJournal.RECORD_BYTES)) {
+            journal.append(1, 1, 0, 1, 0, 1);
+            journal.append(1, 2, 0, 1, 0, 2);
+            journal.append(1, 3, 0, 1, 0, 3);
+        }
+        try (TransitionJournal journal = new TransitionJournal(directory, 2 * TransitionJournal.RECORD_BYTES)) {
+            assertEquals(3, journal.lastSequence());
+            assertEquals(4, journal.append(1, 4, 0, 1, 0, 4));
+            assertEquals(5, journal.append(1, 5, 0, 1, 0, 5));
+
+            List<long[]> records = readAll(journal, 1);
+            assertEquals(5, records.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i + 1, records.get(i)[0]);
+                assertEquals(i + 1, records.get(i)[2]);
+            }
+        }
+    }
+
+    @Test
+    void corruptedRecordEndsTheJournal() throws IOException {
+        try (TransitionJournal journal = new TransitionJournal(directory, 1024)) {
+            journal.append(1, 1, 0, 1, 0, 1);
+            journal.append(1, 2, 0, 1, 0, 2);
+            journal.append(1, 3, 0, 1, 0, 3);
+        }
+        // Un byte del entityId del segundo registro: el CRC deja de coincidir
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[]{(byte) 0x7f}), TransitionJournal.RECORD_BYTES + 17);
+        }
+
+        try (TransitionJournal journal = new TransitionJournal(directory, 1024)) {
+            assertEquals(1, journal.lastSequence());
+            assertEquals(1, readAll(journal, 1).size());
+
+            assertEquals(2, journal.append(1, 22, 0, 1, 0, 22));
+            List<long[]> records = readAll(journal, 1);
+            assertEquals(2, records.size());
+            assertEquals(22, records.get(1)[2]);
+        }
+    }
+
+    @Test
+    void visitorCanStopTheRead() throws IOException {
+        try (TransitionJournal journal = new TransitionJournal(directory, 1024)) {
+            for (int i = 1; i <= 5; i++) {
+                journal.append(1, i, 0, 1, 0, i);
+            }
+            int[] visited = {0};
+            journal.read(2, (sequence, epochMillis, entityId, userId, entity, from, to) -> ++visited[0] < 2);
+            assertEquals(2, visited[0]);
+        }
+    }
+
+    private static List<long[]> readAll(TransitionJournal journal, long fromSequence) throws IOException {
+        List<long[]> records = new ArrayList<>();
+        journal.read(fromSequence, (sequence, epochMillis, entityId, userId, entity, from, to) -> {
+            records.add(new long[]{sequence, epochMillis, entityId, userId, entity, from, to});
+            return true;
+        });
+        return records;
+    }
+
+    private static void assertRecord(long[] record, long sequence, long epochMillis, long entityId, long userId,
+                                     int entity, int from, int to) {
+        assertEquals(sequence, record[0]);
+        assertEquals(epochMillis, record[1]);
+        assertEquals(entityId, record[2]);
+        assertEquals(userId, record[3]);
+        assertEquals(entity, record[4]);
+        assertEquals(from, record[5]);
+        assertEquals(to, record[6]);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.matiasugluck.deremate_backend;
+
+import com.matiasugluck.deremate_backend.dto.CursorPageDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.PackageInWarehouseDTO;
+import com.matiasugluck.deremate_backend.dto.delivery.WarehouseItemDTO;
+import com.matiasugluck.deremate_backend.enums.DeliveryStatus;
+import com.matiasugluck.deremate_backend.enums.RouteStatus;
+import com.matiasugluck.deremate_backend.event.DeliveryCreatedEvent;
+import com.matiasugluck.deremate_backend.event.DeliveryStatusChangedEvent;
+import com.matiasugluck.deremate_backend.event.RouteStatusChangedEvent;
+import com.matiasugluck.deremate_backend.repository.DeliveryRepository;
+import com.matiasugluck.deremate_backend.service.impl.WarehouseInventoryServiceImpl;
+import com.matiasugluck.deremate_backend.utils.CursorPagination;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WarehouseInventoryServiceTest {
+
+    private DeliveryRepository deliveryRepository;
+    private WarehouseInventoryServiceImpl inventory;
+
+    @BeforeEach
+    void setUp() {
+        deliveryRepository = mock(DeliveryRepository.class);
+        when(deliveryRepository.findWarehouseItems(DeliveryStatus.NOT_DELIVERED)).thenReturn(List.of(
+                item(1L, 101L, "A1", 1000),
+                item(2L, 102L, "A2", 2000),
+                item(3L, 103L, "A1", 3000)));
+        inventory = new WarehouseInventoryServiceImpl(deliveryRepository, new CursorPagination(2, 100));
+        inventory.reconcile();
+    }
+
+    @Test
+    void servesPagesInCreationOrder() {
+        CursorPageDTO<PackageInWarehouseDTO> first = inventory.getPackages(null, null, null);
+        assertEquals(List.of(1L, 2L), ids(first));
+
+        CursorPageDTO<PackageInWarehouseDTO> second = inventory.getPackages(null, first.getNextCursor(), null);
+        assertEquals(List.of(3L), ids(second));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void groupsByLocation() {
+        assertEquals(Map.of("A1", 2, "A2", 1), inventory.getLocationCounts());
+        assertEquals(List.of(1L, 3L), ids(inventory.getPackages("A1", null, 10)));
+    }
+
+    @Test
+    void eventsKeepIndexCurrentAndBumpVersion() {
+        long version = inventory.getVersion();
+
+        inventory.onDeliveryCreated(new DeliveryCreatedEvent(4L, 104L, "B1", new Timestamp(4000), null));
+        assertNotEquals(version, inventory.getVersion());
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(inventory.getPackages(null, null, 10)));
+
+        // Asignar la ruta saca el paquete del deposito
+        inventory.onRouteStatusChanged(new RouteStatusChangedEvent(101L, 7L, RouteStatus.PENDING, RouteStatus.INITIATED));
+        // Cancelar la entrega tambien
+        inventory.onDeliveryStatusChanged(new DeliveryStatusChangedEvent(2L, 102L, 7L, DeliveryStatus.NOT_DELIVERED, DeliveryStatus.REJECTED, null));
+        assertEquals(List.of(3L, 4L), ids(inventory.getPackages(null, null, 10)));
+    }
+
+    @Test
+    void reconcileWithoutChangesKeepsVersion() {
+        long version = inventory.getVersion();
+        assertEquals(0, inventory.reconcile());
+        assertEquals(version, inventory.getVersion());
+    }
+
+    @Test
+    void reconcileFixesDrift() {
+        // Un cambio que no llego como evento (p. ej. una edicion directa en la base)
+        when(deliveryRepository.findWarehouseItems(DeliveryStatus.NOT_DELIVERED)).thenReturn(List.of(
+                item(1L, 101L, "A1", 1000),
+                item(3L, 103L, "A1", 3000)));
+        long version = inventory.getVersion();
+
+        assertEquals(1, inventory.reconcile());
+        assertNotEquals(version, inventory.getVersion());
+        assertEquals(List.of(1L, 3L), ids(inventory.getPackages(null, null, 10)));
+    }
+
+    private static WarehouseItemDTO item(Long deliveryId, Long routeId, String location, long createdMillis) {
+        return new WarehouseItemDTO(deliveryId, routeId, location, new Timestamp(createdMillis));
+    }
+
+    private static List<Long> ids(CursorPageDTO<PackageInWarehouseDTO> page) {
+        List<Long> ids = new ArrayList<>();
+        page.getItems().forEach(dto -> ids.add(dto.getId()));
+        return ids;
+    }
+}